@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus;
+
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+
+/**
+ * 批量感知订阅者——{@link BusRegistry#publishBatch(BusEvent)} 发布的设备数据批次一次整包投递，
+ * 不再逐条拆包。单条 {@link BusRegistry#publish(BusEvent)} 仍走 {@link #handleEvent(BusEvent)}。
+ *
+ * <p>典型实现：handleEvent 里 {@code consumer.onEvent(...)}，handleBatch 里
+ * {@code consumer.onEvents(batch.getPayload().getChanges())}，一次入队整批。
+ *
+ * @author coffee
+ */
+public interface BatchEventSubscriber extends EventSubscriber {
+
+    void handleBatch(BusEvent<DeviceDataBatchEvent> batch);
+}
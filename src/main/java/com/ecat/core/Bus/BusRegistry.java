@@ -16,16 +16,23 @@
 
 package com.ecat.core.Bus;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import com.ecat.core.Utils.Log;
 import com.ecat.core.Utils.LogFactory;
+import com.ecat.core.Bus.consumer.AbstractBusConsumer;
 import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.metrics.BusMetrics;
 
 /**
  * BusRegistry —— 事件总线注册表，管理主题订阅与发布。支持通配符模式匹配主题。
@@ -36,6 +43,14 @@ import com.ecat.core.Bus.event.BusEvent;
  * 其 onEvent 只入队纳秒级返回，绝不阻塞发布线程。这样生产者（设备轮询线程）投递再多也不会因某个
  * 慢消费者把共享池占满而卡死整个系统——每个消费者各自背压，互不影响。
  *
+ * <p><b>可选异步分发道</b>：以 {@link #BusRegistry(int, int)} 或 {@code -Decat.bus.asyncLanes=N}（N&gt;0）启用后，
+ * {@link BusTopic#resolveMode} 判为 {@link BusTopic.DispatchMode#ASYNC ASYNC} 的 topic 不再在发布线程扇出，
+ * 而是按条带 key（device.data.update 取 deviceId，其余取 topic）哈希投递到 N 条有界分发道之一，由该道独占线程
+ * 串行扇出——同一设备的事件落在同一道，保序；单个慢订阅者只拖慢它所在的道，不再叠加到设备轮询线程。
+ * 分发道即 {@link com.ecat.core.Bus.consumer.AbstractBusConsumer}（有界队列 + 丢最旧反压），满时丢最旧、绝不阻塞发布线程。
+ * {@link BusTopic.DispatchMode#SYNC SYNC} 的生命周期 topic 始终在发布线程同步扇出，行为不变。
+ * 默认 N=0（不启用），保持纯同步扇出。
+ *
  * <p><b>非阻塞契约（无例外铁律）</b>：总线是关键基础设施，<b>所有订阅者无论 topic——含 load/lifecycle
  * 等同步语义 topic——handleEvent 都必须在 {@link #SLOW_SUBSCRIBER_MS} 阈值内返回，没有任何例外</b>。
  * 即使某 topic 的处理"需要时间"（如收到 INTEGRATIONS_ALL_LOADED 后创建一批逻辑设备），也必须由该订阅者
@@ -46,9 +61,13 @@ import com.ecat.core.Bus.event.BusEvent;
  * <p><b>类型化入口</b>：唯一发布方法是 {@link #publish(BusEvent)}——topic 从 {@code event.getType()} 取，
  * 溯源从 {@code event.getContext()} 取，载荷从 {@code event.getPayload()} 取。订阅者经
  * {@link EventSubscriber#handleEvent(BusEvent)} 收强类型信封。无 Object 入口、无冗余 context 参数。
+ * 设备一个轮询周期的多条数据变化另有合包入口 {@link #publishBatch(BusEvent)}：订阅解析一次，
+ * {@link BatchEventSubscriber} 整包收，普通订阅者由总线逐条拆包，订阅侧无感。
  *
- * <p>订阅者表用 CopyOnWriteArrayList：发布期遍历的是数组快照，订阅/取消订阅期间发布不会抛
- * ConcurrentModificationException；写时复制开销可忽略（每 topic 订阅者通常个位数）。
+ * <p><b>分发索引</b>：订阅 key（含通配符）在 {@link #subscribe} 时预编译为正则，连同订阅者数组组成不可变
+ * {@code DispatchIndex}；具体 topic 首次发布时解析出匹配订阅者数组并缓存，此后同 topic 发布只是一次 map
+ * 查找 + 数组遍历，不再逐 key 编译正则。订阅/取消订阅整体替换索引（写时复制，订阅变化远少于发布），
+ * 旧缓存随之失效；发布期遍历的是数组快照，订阅变化期间发布不会抛 ConcurrentModificationException。
  *
  * @author coffee
  */
@@ -62,21 +81,71 @@ public class BusRegistry {
     private static final long SLOW_SUBSCRIBER_MS = Long.parseLong(
             System.getProperty("ecat.bus.slowSubscriberMs", String.valueOf(SLOW_SUBSCRIBER_MS_DEFAULT)));
 
-    // 主题 -> 订阅者列表。CopyOnWriteArrayList：发布遍历快照，订阅/取消订阅安全无并发修改异常。
-    private final Map<String, List<EventSubscriber>> subscribers = new ConcurrentHashMap<>();
+    /** 异步分发道数默认 0 = 不启用（全部同步扇出）。可用 -Decat.bus.asyncLanes= 覆盖。 */
+    private static final int ASYNC_LANES = Integer.getInteger("ecat.bus.asyncLanes", 0);
+    /** 每条异步分发道的队列容量（满则丢最旧）。可用 -Decat.bus.asyncLaneCapacity= 覆盖。 */
+    private static final int ASYNC_LANE_CAPACITY = Integer.getInteger("ecat.bus.asyncLaneCapacity", 4096);
+
+    /** 单个 {@link DispatchIndex} 最多缓存的具体 topic 数；超出后新 topic 每次现算不入缓存，防止任意 topic 字符串撑爆内存。 */
+    private static final int MAX_CACHED_TOPICS = 1024;
+
+    /** 空订阅者数组：无匹配 topic 的缓存值，publish 直接遍历零长数组即返回。 */
+    private static final EventSubscriber[] NO_SUBSCRIBERS = new EventSubscriber[0];
+
+    // 订阅 key（可含通配符）-> 订阅者列表。真相源，仅在 subscriptionLock 下修改；按订阅顺序保序。
+    private final Map<String, List<EventSubscriber>> subscribers = new LinkedHashMap<>();
+    private final Object subscriptionLock = new Object();
+
+    // 当前生效的分发索引：订阅变化时整体替换（不可变快照 + 自带 topic 解析缓存），publish 只读 volatile 引用。
+    private volatile DispatchIndex index = DispatchIndex.EMPTY;
+
+    // ASYNC topic 的条带分发道；null 表示未启用，所有 topic 同步扇出。
+    private final AsyncLane[] asyncLanes;
+
+    // 按 topic/订阅者的计量（发布速率、扇出与订阅者耗时直方图），经 getMetrics() 查询。
+    private final BusMetrics metrics = new BusMetrics();
+
+    /** 默认构造：分发道数与容量取系统属性（默认不启用异步分发道）。 */
+    public BusRegistry() {
+        this(ASYNC_LANES, ASYNC_LANE_CAPACITY);
+    }
+
+    /**
+     * @param asyncLanes   ASYNC topic 的条带分发道数；&lt;= 0 表示不启用，所有 topic 在发布线程同步扇出
+     * @param laneCapacity 每条分发道的队列容量（满则丢最旧），启用分发道时必须 &gt; 0
+     */
+    public BusRegistry(int asyncLanes, int laneCapacity) {
+        if (asyncLanes <= 0) {
+            this.asyncLanes = null;
+            return;
+        }
+        if (laneCapacity <= 0) {
+            throw new IllegalArgumentException("laneCapacity 必须 > 0: " + laneCapacity);
+        }
+        this.asyncLanes = new AsyncLane[asyncLanes];
+        for (int i = 0; i < asyncLanes; i++) {
+            this.asyncLanes[i] = new AsyncLane(i, laneCapacity);
+        }
+    }
 
     // 订阅方法，返回一个 Subscription 对象用于取消订阅
     public Subscription subscribe(String topic, EventSubscriber subscriber) {
-        List<EventSubscriber> subs = subscribers.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<EventSubscriber>());
-        if (!subs.contains(subscriber)) {
-            subs.add(subscriber);
+        synchronized (subscriptionLock) {
+            List<EventSubscriber> subs = subscribers.computeIfAbsent(topic, k -> new ArrayList<EventSubscriber>());
+            if (!subs.contains(subscriber)) {
+                subs.add(subscriber);
+                rebuildIndex();
+            }
         }
         return () -> {
-            List<EventSubscriber> subList = subscribers.get(topic);
-            if (subList != null) {
-                subList.remove(subscriber);
-                // 仅当移除后确实为空且仍是当前列表才清理，避免与并发 subscribe 的竞态误删
-                subscribers.remove(topic, subList);
+            synchronized (subscriptionLock) {
+                List<EventSubscriber> subList = subscribers.get(topic);
+                if (subList != null && subList.remove(subscriber)) {
+                    if (subList.isEmpty()) {
+                        subscribers.remove(topic);
+                    }
+                    rebuildIndex();
+                }
             }
         };
     }
@@ -94,33 +163,193 @@ public class BusRegistry {
     }
 
     /**
-     * 核心分发逻辑：按 event.getType() 查找所有匹配主题的订阅者，在当前线程同步调用；记录慢订阅者与异常。
+     * 批量发布一台设备一个轮询周期的数据变化：按 {@code batch.getType()}（device.data.update）解析订阅者一次，
+     * 一次分发（启用分发道时整包进同一条带道）。{@link BatchEventSubscriber} 一次收整包；普通订阅者逐条收
+     * {@code BusEvent<DeviceDataChangedEvent>}（拆包信封共享批次的 firedAt，uuid 为「批次 uuid:序号」，
+     * context 取各条 newState 的溯源上下文）。
+     *
+     * @param batch 批次信封，不能为 null；空批次直接返回
+     */
+    public void publishBatch(BusEvent<DeviceDataBatchEvent> batch) {
+        if (batch == null || batch.getPayload() == null) {
+            throw new IllegalArgumentException("batch 不能为 null");
+        }
+        if (batch.getPayload().isEmpty()) {
+            return;
+        }
+        dispatchToMatching(batch);
+    }
+
+    /**
+     * 核心分发逻辑：经分发索引取 event.getType() 的已解析订阅者数组（已知 topic 即一次 map 查找）。
+     * 启用分发道且 topic 为 ASYNC 时投递到条带分发道；否则在当前线程同步扇出。
      */
     private void dispatchToMatching(BusEvent<?> event) {
         String topic = event.getType();
-        for (Map.Entry<String, List<EventSubscriber>> entry : subscribers.entrySet()) {
-            String pattern = entry.getKey().replace("*", ".*");
-            if (Pattern.matches(pattern, topic)) {
-                for (EventSubscriber subscriber : entry.getValue()) {
-                    long t0 = System.nanoTime();
-                    try {
-                        // 同步扇出：订阅者在发布线程内执行。重活订阅者须自行异步（AbstractBusConsumer）。
-                        subscriber.handleEvent(event);
-                    } catch (RuntimeException e) {
-                        // 单个订阅者抛异常不得影响其他订阅者与发布线程；记 error 暴露，严格模式不静默吞。
-                        log.error("总线订阅者处理事件异常: topic=" + topic
-                                + ", subscriber=" + safeName(subscriber), e);
-                    }
-                    long dtMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
-                    if (dtMs > SLOW_SUBSCRIBER_MS) {
-                        // 违反非阻塞契约：该订阅者在发布线程耗时过长，会拖慢生产者。告警暴露，由开发改为异步消费。
-                        log.error("总线慢订阅者告警（违反非阻塞契约，拖慢发布线程）: topic=" + topic
-                                + ", subscriber=" + safeName(subscriber) + ", 耗时=" + dtMs + "ms"
-                                + "（重活应包进 AbstractBusConsumer 自带独占线程）");
-                    }
+        BusMetrics.TopicMetrics topicMetrics = null;
+        if (BusMetrics.isEnabled()) {
+            topicMetrics = metrics.topic(topic);
+            Object payload = event.getPayload();
+            topicMetrics.markPublished(payload instanceof DeviceDataBatchEvent
+                    ? ((DeviceDataBatchEvent) payload).size() : 1);
+        }
+        EventSubscriber[] subs = index.resolve(topic);
+        if (subs.length == 0) {
+            return;
+        }
+        if (asyncLanes != null && BusTopic.resolveMode(topic) == BusTopic.DispatchMode.ASYNC) {
+            asyncLanes[laneOf(event)].onEvent(event);
+            return;
+        }
+        if (topicMetrics == null) {
+            invokeAll(event, subs);
+            return;
+        }
+        long t0 = System.nanoTime();
+        invokeAll(event, subs);
+        topicMetrics.recordFanout(System.nanoTime() - t0);
+    }
+
+    /** 依次调用订阅者；批次信封转 {@link #invokeBatch}。发布线程（同步扇出）与分发道线程共用。 */
+    @SuppressWarnings("unchecked")
+    private void invokeAll(BusEvent<?> event, EventSubscriber[] subs) {
+        if (event.getPayload() instanceof DeviceDataBatchEvent) {
+            invokeBatch((BusEvent<DeviceDataBatchEvent>) event, subs);
+            return;
+        }
+        for (EventSubscriber subscriber : subs) {
+            deliver(subscriber, event);
+        }
+    }
+
+    /** 批次扇出：批量感知订阅者整包一次；其余订阅者逐条收拆包信封（至少一个普通订阅者时才拆，且只拆一次）。 */
+    private void invokeBatch(BusEvent<DeviceDataBatchEvent> batch, EventSubscriber[] subs) {
+        BusEvent<?>[] items = null;
+        for (EventSubscriber subscriber : subs) {
+            if (subscriber instanceof BatchEventSubscriber) {
+                deliverBatch((BatchEventSubscriber) subscriber, batch);
+                continue;
+            }
+            if (items == null) {
+                items = unroll(batch);
+            }
+            for (BusEvent<?> item : items) {
+                deliver(subscriber, item);
+            }
+        }
+    }
+
+    /** 批次拆为逐条 {@code BusEvent<DeviceDataChangedEvent>}：共享 firedAt，uuid 派生自批次 uuid。 */
+    private static BusEvent<?>[] unroll(BusEvent<DeviceDataBatchEvent> batch) {
+        List<DeviceDataChangedEvent> changes = batch.getPayload().getChanges();
+        BusEvent<?>[] items = new BusEvent<?>[changes.size()];
+        for (int i = 0; i < items.length; i++) {
+            DeviceDataChangedEvent change = changes.get(i);
+            items[i] = new BusEvent<DeviceDataChangedEvent>(batch.getType(), change, batch.getFiredAt(),
+                    batch.getUuid() + ":" + i, change.getNewState().getContext());
+        }
+        return items;
+    }
+
+    /** 调用单个订阅者的 handleEvent；记录慢订阅者与异常。 */
+    private void deliver(EventSubscriber subscriber, BusEvent<?> event) {
+        long t0 = System.nanoTime();
+        try {
+            // 同步扇出：订阅者在发布线程（或所属分发道线程）内执行。重活订阅者须自行异步（AbstractBusConsumer）。
+            subscriber.handleEvent(event);
+        } catch (RuntimeException e) {
+            // 单个订阅者抛异常不得影响其他订阅者与发布线程；记 error 暴露，严格模式不静默吞。
+            log.error("总线订阅者处理事件异常: topic=" + event.getType()
+                    + ", subscriber=" + safeName(subscriber), e);
+            markError(subscriber);
+        }
+        checkSlow(subscriber, event.getType(), t0);
+    }
+
+    /** 调用批量感知订阅者的 handleBatch；记录慢订阅者与异常。 */
+    private void deliverBatch(BatchEventSubscriber subscriber, BusEvent<DeviceDataBatchEvent> batch) {
+        long t0 = System.nanoTime();
+        try {
+            subscriber.handleBatch(batch);
+        } catch (RuntimeException e) {
+            log.error("总线订阅者处理批次异常: topic=" + batch.getType() + ", size=" + batch.getPayload().size()
+                    + ", subscriber=" + safeName(subscriber), e);
+            markError(subscriber);
+        }
+        checkSlow(subscriber, batch.getType(), t0);
+    }
+
+    private void markError(EventSubscriber subscriber) {
+        if (BusMetrics.isEnabled()) {
+            BusMetrics.SubscriberMetrics m = index.subscriberMetrics.get(subscriber);
+            if (m != null) {
+                m.markError();
+            }
+        }
+    }
+
+    /** 记订阅者耗时直方图；超 {@link #SLOW_SUBSCRIBER_MS} 记 error 告警。 */
+    private void checkSlow(EventSubscriber subscriber, String topic, long startNanos) {
+        long dtNanos = System.nanoTime() - startNanos;
+        if (BusMetrics.isEnabled()) {
+            // 投递与取消订阅并发时该实例可能已注销，不再计入
+            BusMetrics.SubscriberMetrics m = index.subscriberMetrics.get(subscriber);
+            if (m != null) {
+                m.recordLatency(dtNanos);
+            }
+        }
+        long dtMs = TimeUnit.NANOSECONDS.toMillis(dtNanos);
+        if (dtMs > SLOW_SUBSCRIBER_MS) {
+            // 违反非阻塞契约：该订阅者在发布线程耗时过长，会拖慢生产者。告警暴露，由开发改为异步消费。
+            log.error("总线慢订阅者告警（违反非阻塞契约，拖慢发布线程）: topic=" + topic
+                    + ", subscriber=" + safeName(subscriber) + ", 耗时=" + dtMs + "ms"
+                    + "（重活应包进 AbstractBusConsumer 自带独占线程）");
+        }
+    }
+
+    /** 条带选道：同一条带 key 恒落同一道，保证同设备事件串行有序。 */
+    private int laneOf(BusEvent<?> event) {
+        int h = stripeKey(event).hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % asyncLanes.length;
+    }
+
+    /** 条带 key：设备数据事件/批次按 deviceId（同设备单条与批次同道保序）；其余载荷按 topic（同 topic 保序）。 */
+    private static Object stripeKey(BusEvent<?> event) {
+        Object payload = event.getPayload();
+        if (payload instanceof DeviceDataChangedEvent) {
+            return ((DeviceDataChangedEvent) payload).getDeviceId();
+        }
+        if (payload instanceof DeviceDataBatchEvent) {
+            return ((DeviceDataBatchEvent) payload).getDeviceId();
+        }
+        return event.getType();
+    }
+
+    /**
+     * 按当前订阅表重建分发索引（须持 subscriptionLock）。替换引用即令旧 topic 解析缓存整体失效。
+     * 订阅者计量按实例沿用：新出现的实例登记，已无任何订阅的实例注销。
+     */
+    private void rebuildIndex() {
+        Map<EventSubscriber, BusMetrics.SubscriberMetrics> previous = index.subscriberMetrics;
+        Map<EventSubscriber, BusMetrics.SubscriberMetrics> subscriberMetrics =
+                new IdentityHashMap<EventSubscriber, BusMetrics.SubscriberMetrics>();
+        List<TopicEntry> entries = new ArrayList<TopicEntry>(subscribers.size());
+        for (Map.Entry<String, List<EventSubscriber>> e : subscribers.entrySet()) {
+            entries.add(new TopicEntry(e.getKey(), e.getValue()));
+            for (EventSubscriber subscriber : e.getValue()) {
+                if (!subscriberMetrics.containsKey(subscriber)) {
+                    BusMetrics.SubscriberMetrics m = previous.get(subscriber);
+                    subscriberMetrics.put(subscriber, m != null ? m : metrics.registerSubscriber(subscriber));
                 }
             }
         }
+        for (Map.Entry<EventSubscriber, BusMetrics.SubscriberMetrics> e : previous.entrySet()) {
+            if (!subscriberMetrics.containsKey(e.getKey())) {
+                metrics.unregisterSubscriber(e.getValue());
+            }
+        }
+        index = new DispatchIndex(entries.toArray(new TopicEntry[0]), subscriberMetrics);
     }
 
     /** 取订阅者类名用于日志；lambda/匿名类取其实际类名即可。 */
@@ -129,10 +358,150 @@ public class BusRegistry {
     }
 
     /**
-     * 关闭资源。重构后无共享线程池，此方法为空操作；消费者线程各自管理生命周期
-     * （AbstractBusConsumer.shutdown 由各集成在 onPause 释放）。
+     * 本总线的计量查询入口：按 topic 的发布速率/扇出耗时、按订阅者的耗时分布/异常数，以及进程内各 consumer
+     * （含异步分发道）的队列深度、排队时长与丢弃速率。
+     */
+    public BusMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** 是否启用了 ASYNC topic 的异步分发道。 */
+    public boolean isAsyncDispatchEnabled() {
+        return asyncLanes != null;
+    }
+
+    /** 各异步分发道因队列满而丢弃（丢最旧）的事件总数；未启用分发道时为 0。 */
+    public long getAsyncDroppedCount() {
+        long total = 0;
+        if (asyncLanes != null) {
+            for (AsyncLane lane : asyncLanes) {
+                total += lane.getDroppedCount();
+            }
+        }
+        return total;
+    }
+
+    /** 各异步分发道当前排队事件总数；未启用分发道时为 0。 */
+    public int getAsyncQueueSize() {
+        int total = 0;
+        if (asyncLanes != null) {
+            for (AsyncLane lane : asyncLanes) {
+                total += lane.getQueueSize();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 关闭资源：停止各异步分发道，并在调用线程把残留事件同步扇出完，保证停服不丢已发布事件。
+     * 未启用分发道时为空操作；消费者线程各自管理生命周期（AbstractBusConsumer.shutdown 由各集成在 onPause 释放）。
      */
     public void shutdown() {
-        // 重构后无共享线程池：无资源可关。
+        if (asyncLanes == null) {
+            return;
+        }
+        for (AsyncLane lane : asyncLanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * 异步分发道——一条有界队列 + 独占线程，按序对事件扇出当前匹配的订阅者。
+     * 复用 {@link AbstractBusConsumer} 的丢最旧反压、计量与 MDC 传播。
+     */
+    private final class AsyncLane extends AbstractBusConsumer<BusEvent<?>> {
+
+        AsyncLane(int laneIndex, int capacity) {
+            super("async-lane-" + laneIndex, capacity);
+        }
+
+        @Override
+        protected void consume(BusEvent<?> event) {
+            String topic = event.getType();
+            if (!BusMetrics.isEnabled()) {
+                invokeAll(event, index.resolve(topic));
+                return;
+            }
+            long t0 = System.nanoTime();
+            invokeAll(event, index.resolve(topic));
+            metrics.topic(topic).recordFanout(System.nanoTime() - t0);
+        }
+
+        /** 先停道线程并等其退出，再由调用线程独占排空残留并扇出（与 AbstractBatchBusConsumer 停服 drain 同构）。 */
+        @Override
+        public void shutdown() {
+            super.shutdown();
+            try {
+                if (!awaitWorker(5, TimeUnit.SECONDS)) {
+                    log.warn("bus async lane 未在 5s 内退出，残留可能未 drain: name={}", getName());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (BusEvent<?> event : drainQueue()) {
+                consume(event);
+            }
+        }
+    }
+
+    /** 一个订阅 key 的预编译形态：通配符在 subscribe 时一次性编译为正则，publish 期不再编译。 */
+    private static final class TopicEntry {
+        private final Pattern pattern;
+        private final EventSubscriber[] subscribers;
+
+        TopicEntry(String topic, List<EventSubscriber> subscribers) {
+            // 与历史语义一致：key 中 "*" 展开为 ".*"，整体按正则全匹配
+            this.pattern = Pattern.compile(topic.replace("*", ".*"));
+            this.subscribers = subscribers.toArray(new EventSubscriber[0]);
+        }
+    }
+
+    /**
+     * 分发索引——订阅表的不可变快照 + 具体 topic 到已解析订阅者数组的缓存。
+     *
+     * <p>订阅变化时由 {@link #rebuildIndex()} 整体替换；publish 与 subscribe 并发时，publish 写入的是
+     * 被替换下来的旧索引缓存，不会把过期解析结果带进新索引——无需额外版本号即可保证失效正确。
+     */
+    private static final class DispatchIndex {
+        static final DispatchIndex EMPTY = new DispatchIndex(new TopicEntry[0],
+                Collections.<EventSubscriber, BusMetrics.SubscriberMetrics>emptyMap());
+
+        private final TopicEntry[] entries;
+        private final ConcurrentHashMap<String, EventSubscriber[]> resolved = new ConcurrentHashMap<>();
+        // 订阅者实例（按引用）-> 计量；构造后只读，随索引经 volatile 引用安全发布
+        final Map<EventSubscriber, BusMetrics.SubscriberMetrics> subscriberMetrics;
+
+        DispatchIndex(TopicEntry[] entries, Map<EventSubscriber, BusMetrics.SubscriberMetrics> subscriberMetrics) {
+            this.entries = entries;
+            this.subscriberMetrics = subscriberMetrics;
+        }
+
+        EventSubscriber[] resolve(String topic) {
+            EventSubscriber[] subs = resolved.get(topic);
+            if (subs != null) {
+                return subs;
+            }
+            subs = match(topic);
+            if (resolved.size() < MAX_CACHED_TOPICS) {
+                EventSubscriber[] prev = resolved.putIfAbsent(topic, subs);
+                if (prev != null) {
+                    subs = prev;
+                }
+            }
+            return subs;
+        }
+
+        private EventSubscriber[] match(String topic) {
+            List<EventSubscriber> out = null;
+            for (TopicEntry entry : entries) {
+                if (entry.pattern.matcher(topic).matches()) {
+                    if (out == null) {
+                        out = new ArrayList<EventSubscriber>();
+                    }
+                    Collections.addAll(out, entry.subscribers);
+                }
+            }
+            return out == null ? NO_SUBSCRIBERS : out.toArray(new EventSubscriber[0]);
+        }
     }
 }
@@ -18,9 +18,11 @@ package com.ecat.core.Bus;
 
 import com.ecat.core.Bus.event.AllLoadedEvent;
 import com.ecat.core.Bus.event.AsyncExecutionEvent;
+import com.ecat.core.Bus.event.AttrAggregateEvent;
 import com.ecat.core.Bus.event.ConfigEntryEvent;
 import com.ecat.core.Bus.event.DeviceDataChangedEvent;
 import com.ecat.core.Bus.event.DeviceLifecycleEvent;
+import com.ecat.core.Bus.event.DeviceStatusChangedEvent;
 import com.ecat.core.Bus.event.IntegrationLifecycleEvent;
 import com.ecat.core.Bus.event.NotificationEvent;
 
@@ -32,13 +34,15 @@ import com.ecat.core.Bus.event.NotificationEvent;
 public enum BusTopic {
     DEVICE_DATA_UPDATE("device.data.update", DeviceDataChangedEvent.class),
     DEVICE_LIFECYCLE("device.lifecycle", DeviceLifecycleEvent.class),
+    DEVICE_STATUS_CHANGED("device.status.changed", DeviceStatusChangedEvent.class),
     INTEGRATIONS_ALL_LOADED("integration.all_loaded", AllLoadedEvent.class),
     LOGIC_DEVICES_ALL_LOADED("logic_device.all_loaded", AllLoadedEvent.class),
     CONFIG_ENTRY_LIFECYCLE("config.entry.lifecycle", ConfigEntryEvent.class),
     ASYNC_EXECUTION_COMPLETED("async.execution.completed", AsyncExecutionEvent.class),
     ASYNC_EXECUTION_STATUS_CHANGED("async.execution.status_changed", AsyncExecutionEvent.class),
     INTEGRATION_LIFECYCLE("integration.lifecycle", IntegrationLifecycleEvent.class),
-    NOTIFICATION("notification", NotificationEvent.class);
+    NOTIFICATION("notification", NotificationEvent.class),
+    ATTR_AGGREGATE("attr.aggregate", AttrAggregateEvent.class);
 
     /**
      * Dispatch mode for bus events.
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus.aggregate;
+
+import com.ecat.core.Bus.event.AttrAggregateEvent;
+
+/**
+ * 窗口统计结果的接收方。在 {@link AggregationEngine} 的消费线程上回调，实现应快速返回，重活自行转交。
+ *
+ * @author coffee
+ */
+@FunctionalInterface
+public interface AggregateSink {
+
+    void onWindow(AttrAggregateEvent aggregate);
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus.aggregate;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import com.ecat.core.Bus.BatchEventSubscriber;
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.Subscription;
+import com.ecat.core.Bus.consumer.AbstractBusConsumer;
+import com.ecat.core.Bus.event.AttrAggregateEvent;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.State.AttrState;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.DoubleAttribute;
+import com.ecat.core.State.UnitInfo;
+import com.ecat.core.Utils.EcatClock;
+
+/**
+ * 数值属性滚动统计引擎——订阅 device.data.update，为每个 (设备, 属性) 增量维护滚动/滑动窗口的样本数、有效样本数、
+ * 均值、最小、最大值，窗口结束时发布 {@link AttrAggregateEvent}（topic {@code attr.aggregate}），
+ * 集成不再为 1 分钟/5 分钟/小时/24 小时均值反复扫描存储数据。
+ *
+ * <p><b>可选</b>：默认不装配；需要时 {@link #builder()} 构造后 {@link #attach(BusRegistry)}。与
+ * {@link com.ecat.core.Bus.journal.DeviceDataJournal} 一样是 {@link BatchEventSubscriber}：总线线程上只入队，
+ * 统计在本 consumer 的独占线程里做，全部窗口状态只由该线程访问、无锁。
+ *
+ * <p><b>增量</b>：每个样本只更新各窗口当前分片，O(1)；窗口结束时由分片合成结果（见 {@link WindowAccumulator}）。
+ * 样本时间取 state 的 lastUpdated，窗口边界按墙钟对齐（时区偏移见 {@link Builder#zoneOffset}）。
+ * 定时推进（{@link Builder#tickMs}，缺省 1 秒，按 {@link EcatClock}）保证设备停报时窗口也按时结束。
+ * 推进时刻减去允许迟到量（{@link Builder#allowedLatenessMs}，缺省一个推进间隔加时钟分辨率）：样本时间戳取自粗粒度时钟，
+ * 又经异步分发道与设备批次才到本队列，边界前一刻的样本可能晚于同一时刻的推进到达——窗口因此晚这么久结束，换取不误判迟到。
+ *
+ * <p><b>样本口径</b>：每条发布的属性 state 计一个样本。属性配置了例外报告 {@link com.ecat.core.State.PublishPolicy}
+ * 时未发布的采集值不计入——需要完整有效样本数的属性保持默认发布策略。缺省有效样本判定：值非 NaN 且状态为
+ * NORMAL 或 EMPTY（未设置状态），可用 {@link Builder#validity} 替换。
+ *
+ * <p><b>输出</b>：已 attach 时发布到总线；另可 {@link #addSink} 自定义接收方，或 {@link #bindAttribute} 把某窗口均值
+ * 写入一个逻辑属性（有效样本不足时状态为 INSUFFICIENT）。最近一次结束的窗口可经 {@link #getLastCompleted} 查询。
+ *
+ * @author coffee
+ */
+public class AggregationEngine extends AbstractBusConsumer<Object> implements BatchEventSubscriber {
+
+    private static final int DEFAULT_CAPACITY = 65536;
+    private static final long DEFAULT_TICK_MS = 1000;
+    private static final Object TICK = new Object();
+
+    private final List<WindowSpec> windows;
+    private final long offsetMs;
+    private final Predicate<DeviceDataChangedEvent> filter;
+    private final Predicate<AttrState<?>> validity;
+    private final long allowedLatenessMs;
+    private final ScheduledExecutorService ticker;
+
+    // 仅消费线程访问
+    private final Map<String, Series> series = new HashMap<>();
+
+    private final Map<String, AttrAggregateEvent> lastCompleted = new ConcurrentHashMap<>();
+    private final List<AggregateSink> sinks = new CopyOnWriteArrayList<>();
+    // bindAttribute 的输出属性：其自身的 state 不再参与统计
+    private final Set<String> outputs = ConcurrentHashMap.newKeySet();
+    private volatile BusRegistry registry;
+    private volatile Subscription subscription;
+
+    // 单写（消费线程）多读计数
+    private volatile int seriesCount;
+    private volatile long lateSamples;
+    private volatile long emitted;
+
+    private AggregationEngine(Builder b) {
+        super("aggregation-engine", b.capacity);
+        this.windows = Collections.unmodifiableList(new ArrayList<>(b.windows));
+        this.offsetMs = b.zoneOffset.getTotalSeconds() * 1000L;
+        this.filter = b.filter;
+        this.validity = b.validity;
+        this.allowedLatenessMs = b.allowedLatenessMs;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "aggregation-engine-tick");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(() -> onEvent(TICK), b.tickMs, b.tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** 订阅 device.data.update，并把结束的窗口发布到 attr.aggregate；返回的句柄用于取消订阅。 */
+    public Subscription attach(BusRegistry registry) {
+        this.registry = registry;
+        Subscription s = registry.subscribe(BusTopic.DEVICE_DATA_UPDATE.getTopicName(), this);
+        this.subscription = s;
+        return s;
+    }
+
+    public void addSink(AggregateSink sink) {
+        sinks.add(sink);
+    }
+
+    public void removeSink(AggregateSink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * 把某属性某窗口的均值写入逻辑属性：每个窗口结束时 updateValue + publicState，有效样本数不足 minValidSamples
+     * 时状态为 {@link AttributeStatus#INSUFFICIENT}，否则 NORMAL。target 自身的 state 不参与统计。
+     *
+     * @param deviceId        源设备 ID
+     * @param attrId          源属性 ID
+     * @param window          窗口名，须是本引擎配置的窗口
+     * @param target          输出属性，须已注册到设备
+     * @param minValidSamples 有效样本数下限
+     * @return 注册的接收方（可经 {@link #removeSink} 解除）
+     */
+    public AggregateSink bindAttribute(String deviceId, String attrId, String window, DoubleAttribute target,
+            int minValidSamples) {
+        if (windows.stream().noneMatch(w -> w.getName().equals(window))) {
+            throw new IllegalArgumentException("window not configured: " + window);
+        }
+        if (target == null || target.getDevice() == null || target.getDevice().getId() == null) {
+            throw new IllegalArgumentException("target attribute must be registered to a device");
+        }
+        outputs.add(key(target.getDevice().getId(), target.getAttributeID()));
+        AggregateSink sink = a -> {
+            if (!a.getWindow().equals(window) || !a.getAttrId().equals(attrId) || !a.getDeviceId().equals(deviceId)) {
+                return;
+            }
+            target.setEventContext(EventContext.root(EventContext.Source.SYSTEM, null));
+            target.updateValue(a.getAverage(),
+                    a.getValidCount() >= minValidSamples ? AttributeStatus.NORMAL : AttributeStatus.INSUFFICIENT);
+            target.publicState();
+        };
+        addSink(sink);
+        return sink;
+    }
+
+    /** 某属性某窗口最近一次结束的统计；尚无返回 null。 */
+    public AttrAggregateEvent getLastCompleted(String deviceId, String attrId, String window) {
+        return lastCompleted.get(key(deviceId, attrId) + '\u0000' + window);
+    }
+
+    public List<WindowSpec> getWindows() {
+        return windows;
+    }
+
+    /** 正在统计的 (设备, 属性) 序列数。 */
+    public int getSeriesCount() {
+        return seriesCount;
+    }
+
+    /** 因落在已结束分片而丢弃的迟到样本数（按窗口计）。 */
+    public long getLateSampleCount() {
+        return lateSamples;
+    }
+
+    /** 已结束并输出的窗口数。 */
+    public long getEmittedCount() {
+        return emitted;
+    }
+
+    @Override
+    public void handleEvent(BusEvent<?> event) {
+        onEvent(event);
+    }
+
+    @Override
+    public void handleBatch(BusEvent<DeviceDataBatchEvent> batch) {
+        onEvent(batch);
+    }
+
+    @Override
+    protected void consume(Object event) {
+        if (event == TICK) {
+            long now = EcatClock.currentTimeMillis() - allowedLatenessMs;
+            for (Series s : series.values()) {
+                for (WindowAccumulator acc : s.accumulators) {
+                    acc.advanceTo(now, s);
+                }
+            }
+            return;
+        }
+        BusEvent<?> busEvent = (BusEvent<?>) event;
+        long firedAtMs = busEvent.getFiredAt() == null ? EcatClock.currentTimeMillis() : busEvent.getFiredAt().toEpochMilli();
+        Object payload = busEvent.getPayload();
+        if (payload instanceof DeviceDataBatchEvent) {
+            for (DeviceDataChangedEvent change : ((DeviceDataBatchEvent) payload).getChanges()) {
+                ingest(change, firedAtMs);
+            }
+        } else if (payload instanceof DeviceDataChangedEvent) {
+            ingest((DeviceDataChangedEvent) payload, firedAtMs);
+        }
+    }
+
+    private void ingest(DeviceDataChangedEvent change, long firedAtMs) {
+        AttrState<?> state = change.getNewState();
+        String key = key(change.getDeviceId(), change.getAttrId());
+        if (state == null || outputs.contains(key) || !filter.test(change)) {
+            return;
+        }
+        Series s = series.get(key);
+        if (s == null) {
+            s = new Series(change.getDeviceId(), change.getAttrId(), key);
+            series.put(key, s);
+            seriesCount = series.size();
+        }
+        long t = state.getLastUpdated() != null ? state.getLastUpdated().toEpochMilli() : firedAtMs;
+        double v = state.getDoubleValue();
+        boolean valid = !Double.isNaN(v) && validity.test(state);
+        s.unit = state.getUnit();
+        long late = 0;
+        for (WindowAccumulator acc : s.accumulators) {
+            if (!acc.add(t, v, valid, s)) {
+                late++;
+            }
+        }
+        if (late > 0) {
+            lateSamples += late;
+        }
+    }
+
+    private void emit(AttrAggregateEvent aggregate, String seriesKey) {
+        emitted++;
+        lastCompleted.put(seriesKey + '\u0000' + aggregate.getWindow(), aggregate);
+        BusRegistry r = registry;
+        if (r != null) {
+            r.publish(BusEvent.of(BusTopic.ATTR_AGGREGATE.getTopicName(), aggregate,
+                    EventContext.root(EventContext.Source.SYSTEM, null)));
+        }
+        for (AggregateSink sink : sinks) {
+            try {
+                sink.onWindow(aggregate);
+            } catch (RuntimeException e) {
+                log.error("Aggregate sink failed for " + aggregate, e);
+            }
+        }
+    }
+
+    private static String key(String deviceId, String attrId) {
+        return deviceId + '\u0000' + attrId;
+    }
+
+    /** 取消订阅、停止定时推进与消费线程。未结束的窗口不输出。 */
+    @Override
+    public void shutdown() {
+        Subscription s = subscription;
+        if (s != null) {
+            s.unsubscribe();
+        }
+        ticker.shutdownNow();
+        super.shutdown();
+    }
+
+    private final class Series implements WindowAccumulator.Emitter {
+        final String deviceId;
+        final String attrId;
+        final String key;
+        final WindowAccumulator[] accumulators;
+        UnitInfo unit;
+
+        Series(String deviceId, String attrId, String key) {
+            this.deviceId = deviceId;
+            this.attrId = attrId;
+            this.key = key;
+            this.accumulators = new WindowAccumulator[windows.size()];
+            for (int i = 0; i < accumulators.length; i++) {
+                accumulators[i] = new WindowAccumulator(windows.get(i), offsetMs);
+            }
+        }
+
+        @Override
+        public void emit(WindowSpec spec, long startMs, long endMs, int count, int valid, double sum,
+                double min, double max) {
+            AggregationEngine.this.emit(new AttrAggregateEvent(deviceId, attrId, spec.getName(),
+                    Instant.ofEpochMilli(startMs), Instant.ofEpochMilli(endMs), count, valid, sum, min, max, unit), key);
+        }
+    }
+
+    private static boolean isNumeric(DeviceDataChangedEvent change) {
+        AttrState<?> s = change.getNewState();
+        return s != null && (s.isDoubleValued() || s.getValue() instanceof Number);
+    }
+
+    private static boolean isValidStatus(AttrState<?> s) {
+        return s.getStatus() == AttributeStatus.NORMAL || s.getStatus() == AttributeStatus.EMPTY;
+    }
+
+    /** 引擎构造器；各项均有缺省。 */
+    public static final class Builder {
+        private final List<WindowSpec> windows = new ArrayList<>();
+        private ZoneOffset zoneOffset = ZoneId.systemDefault().getRules().getOffset(Instant.now());
+        private Predicate<DeviceDataChangedEvent> filter = AggregationEngine::isNumeric;
+        private Predicate<AttrState<?>> validity = AggregationEngine::isValidStatus;
+        private long tickMs = DEFAULT_TICK_MS;
+        // < 0：未设置，build 时取 tickMs + 时钟分辨率
+        private long allowedLatenessMs = -1;
+        private int capacity = DEFAULT_CAPACITY;
+
+        /** 增加一个窗口；未调用时用 {@link WindowSpec#defaults()}。 */
+        public Builder window(WindowSpec spec) {
+            windows.add(spec);
+            return this;
+        }
+
+        /** 窗口对齐的时区偏移；缺省取系统时区当前偏移（夏令时切换不重新对齐）。 */
+        public Builder zoneOffset(ZoneOffset offset) {
+            this.zoneOffset = offset;
+            return this;
+        }
+
+        /** 参与统计的变更；缺省为值是数值（或原始 double）的 state。 */
+        public Builder filter(Predicate<DeviceDataChangedEvent> filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /** 有效样本判定（在值非 NaN 的前提下）；缺省状态为 NORMAL 或 EMPTY。 */
+        public Builder validity(Predicate<AttrState<?>> validity) {
+            this.validity = validity;
+            return this;
+        }
+
+        /** 定时推进间隔（毫秒）。 */
+        public Builder tickMs(long tickMs) {
+            this.tickMs = tickMs;
+            return this;
+        }
+
+        /** 允许迟到量（毫秒）：窗口在其结束时刻之后再等这么久才结束；缺省一个推进间隔加 {@link EcatClock} 分辨率。 */
+        public Builder allowedLatenessMs(long allowedLatenessMs) {
+            if (allowedLatenessMs < 0) {
+                throw new IllegalArgumentException("allowedLatenessMs must not be negative: " + allowedLatenessMs);
+            }
+            this.allowedLatenessMs = allowedLatenessMs;
+            return this;
+        }
+
+        /** 消费队列容量（满则丢最旧）。 */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public AggregationEngine build() {
+            if (windows.isEmpty()) {
+                windows.addAll(WindowSpec.defaults());
+            }
+            if (zoneOffset == null || filter == null || validity == null || tickMs <= 0 || capacity <= 0) {
+                throw new IllegalArgumentException("invalid aggregation engine settings");
+            }
+            if (allowedLatenessMs < 0) {
+                allowedLatenessMs = tickMs + Math.max(0, Long.getLong(EcatClock.RESOLUTION_PROPERTY,
+                        EcatClock.DEFAULT_RESOLUTION_MS));
+            }
+            Set<String> names = new HashSet<>();
+            for (WindowSpec w : windows) {
+                if (!names.add(w.getName())) {
+                    throw new IllegalArgumentException("duplicate window name: " + w.getName());
+                }
+            }
+            return new AggregationEngine(this);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * 单个序列、单个窗口定义的增量累加器。
+ *
+ * <p>按 slide 把时间切成分片（pane），每个分片只存样本数/有效数/和/最小/最大；样本到达只更新所在分片（O(1)）。
+ * 分片结束时由分片环合成「以该分片为终点」的窗口（O(size/slide)，每 slide 一次，与样本数无关）。
+ * 滚动窗口即单分片。分片按编号落入定长环，旧编号被新分片覆盖，内存固定。
+ *
+ * <p>样本落在已结束的分片，或早于最新分片一整个窗口以上（迟到）时丢弃并计数。
+ * 长时间无样本时，只补发仍含数据的窗口（最多 size/slide 个），不发空窗口。
+ * 非线程安全，由引擎消费线程独占。
+ *
+ * @author coffee
+ */
+final class WindowAccumulator {
+
+    /** 窗口结果回调（原始类型参数，结束一个窗口不产生中间对象）。 */
+    interface Emitter {
+        void emit(WindowSpec spec, long startMs, long endMs, int count, int valid, double sum, double min, double max);
+    }
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final WindowSpec spec;
+    private final long offsetMs;
+    private final int panes;
+    private final long[] paneNo;
+    private final int[] counts;
+    private final int[] valids;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxs;
+
+    private long firstPane = NONE;
+    private long maxPane = NONE;
+    private long lastClosed = NONE;
+
+    /**
+     * @param spec     窗口定义
+     * @param offsetMs 时区偏移（毫秒，如 UTC+8 为 28800000），窗口边界按当地墙钟对齐
+     */
+    WindowAccumulator(WindowSpec spec, long offsetMs) {
+        this.spec = spec;
+        this.offsetMs = offsetMs;
+        this.panes = spec.getPanes();
+        this.paneNo = new long[panes];
+        this.counts = new int[panes];
+        this.valids = new int[panes];
+        this.sums = new double[panes];
+        this.mins = new double[panes];
+        this.maxs = new double[panes];
+        Arrays.fill(paneNo, NONE);
+    }
+
+    WindowSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * 加入一个样本；先结束样本时刻之前的分片（可能发出窗口）。
+     *
+     * @return false 表示迟到样本被丢弃
+     */
+    boolean add(long timeMs, double value, boolean valid, Emitter out) {
+        long p = paneOf(timeMs);
+        // 已结束，或比环中最新分片早一整个窗口以上（槽位已被占用）
+        if ((lastClosed != NONE && p <= lastClosed) || (maxPane != NONE && p <= maxPane - panes)) {
+            return false;
+        }
+        closeBefore(p, out);
+        int slot = (int) Math.floorMod(p, (long) panes);
+        if (paneNo[slot] != p) {
+            paneNo[slot] = p;
+            counts[slot] = 0;
+            valids[slot] = 0;
+            sums[slot] = 0;
+            mins[slot] = Double.POSITIVE_INFINITY;
+            maxs[slot] = Double.NEGATIVE_INFINITY;
+        }
+        counts[slot]++;
+        if (valid) {
+            valids[slot]++;
+            sums[slot] += value;
+            if (value < mins[slot]) {
+                mins[slot] = value;
+            }
+            if (value > maxs[slot]) {
+                maxs[slot] = value;
+            }
+        }
+        if (maxPane == NONE || p > maxPane) {
+            maxPane = p;
+        }
+        if (firstPane == NONE || p < firstPane) {
+            firstPane = p;
+        }
+        return true;
+    }
+
+    /** 结束 nowMs 之前已结束的分片（定时推进，无新样本时窗口也能按时结束）。 */
+    void advanceTo(long nowMs, Emitter out) {
+        closeBefore(paneOf(nowMs), out);
+    }
+
+    private void closeBefore(long target, Emitter out) {
+        if (maxPane == NONE) {
+            return;
+        }
+        long e = lastClosed == NONE ? firstPane : lastClosed + 1;
+        // 以 maxPane + panes - 1 为终点的窗口是最后一个仍含数据的窗口
+        long stop = Math.min(target - 1, maxPane + panes - 1);
+        for (; e <= stop; e++) {
+            emitEndingAt(e, out);
+        }
+        if (lastClosed == NONE ? target - 1 >= firstPane : target - 1 > lastClosed) {
+            lastClosed = target - 1;
+        }
+    }
+
+    private void emitEndingAt(long endPane, Emitter out) {
+        long fromPane = endPane - panes + 1;
+        int count = 0;
+        int valid = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < panes; i++) {
+            long n = paneNo[i];
+            if (n == NONE || n < fromPane || n > endPane) {
+                continue;
+            }
+            count += counts[i];
+            valid += valids[i];
+            sum += sums[i];
+            min = Math.min(min, mins[i]);
+            max = Math.max(max, maxs[i]);
+        }
+        if (count == 0) {
+            return;
+        }
+        long endMs = (endPane + 1) * spec.getSlideMs() - offsetMs;
+        out.emit(spec, endMs - spec.getSizeMs(), endMs, count, valid, sum,
+                valid > 0 ? min : Double.NaN, valid > 0 ? max : Double.NaN);
+    }
+
+    private long paneOf(long timeMs) {
+        return Math.floorDiv(timeMs + offsetMs, spec.getSlideMs());
+    }
+}
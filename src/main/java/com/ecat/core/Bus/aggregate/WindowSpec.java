@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus.aggregate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 统计窗口定义：长度 size、步长 slide。slide = size 为滚动（tumbling）窗口，slide &lt; size 为滑动窗口
+ *（每 slide 结束一个长 size 的窗口，如 24 小时滑动均值每小时出一次）。
+ *
+ * <p>窗口边界按墙钟对齐：窗口终点是 slide 的整数倍（按引擎时区偏移计），如 1h 窗口落在整点、1d 窗口落在当地零点。
+ * size 须为 slide 的整数倍，且 size / slide 不超过 {@value #MAX_PANES}。
+ *
+ * @author coffee
+ */
+public final class WindowSpec {
+
+    /** 单个滑动窗口最多分片数（size / slide）。 */
+    public static final int MAX_PANES = 1440;
+
+    public static final WindowSpec MINUTE_1 = tumbling("1m", Duration.ofMinutes(1));
+    public static final WindowSpec MINUTE_5 = tumbling("5m", Duration.ofMinutes(5));
+    public static final WindowSpec HOUR_1 = tumbling("1h", Duration.ofHours(1));
+    public static final WindowSpec DAY_1 = tumbling("1d", Duration.ofDays(1));
+    /** 24 小时滑动窗口，每整点结束一个。 */
+    public static final WindowSpec HOURS_24_SLIDING = sliding("24h", Duration.ofHours(24), Duration.ofHours(1));
+
+    private static final List<WindowSpec> DEFAULTS =
+            Collections.unmodifiableList(Arrays.asList(MINUTE_1, MINUTE_5, HOUR_1, HOURS_24_SLIDING));
+
+    private final String name;
+    private final long sizeMs;
+    private final long slideMs;
+
+    private WindowSpec(String name, long sizeMs, long slideMs) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("window name must not be empty");
+        }
+        if (slideMs <= 0 || sizeMs < slideMs || sizeMs % slideMs != 0) {
+            throw new IllegalArgumentException("window size must be a positive multiple of slide: " + name);
+        }
+        if (sizeMs / slideMs > MAX_PANES) {
+            throw new IllegalArgumentException("window " + name + " has more than " + MAX_PANES + " panes");
+        }
+        this.name = name;
+        this.sizeMs = sizeMs;
+        this.slideMs = slideMs;
+    }
+
+    /** 滚动窗口。 */
+    public static WindowSpec tumbling(String name, Duration size) {
+        return new WindowSpec(name, size.toMillis(), size.toMillis());
+    }
+
+    /** 滑动窗口；size 须为 slide 的整数倍。 */
+    public static WindowSpec sliding(String name, Duration size, Duration slide) {
+        return new WindowSpec(name, size.toMillis(), slide.toMillis());
+    }
+
+    /** 缺省窗口：1m、5m、1h 滚动 + 24h 滑动（每小时）。 */
+    public static List<WindowSpec> defaults() {
+        return DEFAULTS;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSizeMs() {
+        return sizeMs;
+    }
+
+    public long getSlideMs() {
+        return slideMs;
+    }
+
+    public boolean isTumbling() {
+        return sizeMs == slideMs;
+    }
+
+    int getPanes() {
+        return (int) (sizeMs / slideMs);
+    }
+
+    @Override
+    public String toString() {
+        return "WindowSpec{" + name + ", size=" + sizeMs + "ms, slide=" + slideMs + "ms}";
+    }
+}
@@ -16,6 +16,10 @@ import java.util.concurrent.atomic.AtomicLong;
  *
  * <p><b>构造不逃逸</b>：先初始化 buffer/batchSize/flushIntervalMs 字段，末尾 {@link #start()}，规避 this 逃逸。
  *
+ * <p><b>自适应模式</b>：以 {@link AdaptiveBatchPolicy} 构造时，batchSize 与 linger 由消费线程按 flush 耗时与队列积压
+ * 动态调节（见该类说明）。此时 linger 按「批内最早事件的等待时长」计——持续小流量下也按时 flush，而不是等到
+ * 「一段时间无新事件」。当前取值与最近一次决策经 {@link #getBatchSizing()} 读取。
+ *
  * @param <E> 事件/载荷类型
  * 
  * @author coffee
@@ -26,6 +30,10 @@ public abstract class AbstractBatchBusConsumer<E> extends BusConsumerBase<E> {
     private final int batchSize;
     private final long flushIntervalMs;
     private final AtomicLong flushedBatches = new AtomicLong();
+    /** 自适应模式的运行时状态；固定模式为 null。 */
+    private final AdaptiveBatchController adaptive;
+    /** 当前 buffer 中最早事件入 buffer 的时刻（nanoTime），自适应 linger 与延迟估算用。 */
+    private long firstBufferedNanos;
 
     /**
      * @param name            consumer 名（线程名/日志）
@@ -35,42 +43,110 @@ public abstract class AbstractBatchBusConsumer<E> extends BusConsumerBase<E> {
      */
     protected AbstractBatchBusConsumer(String name, int capacity, int batchSize, long flushIntervalMs) {
         super(name, capacity);
+        validate(name, batchSize, flushIntervalMs);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.adaptive = null;
+        // 字段已就绪，启动 worker 安全（无 this 逃逸）
+        start();
+    }
+
+    /**
+     * 以无锁 MPSC 环形队列构造，其余参数同 {@link #AbstractBatchBusConsumer(String, int, int, long)}。
+     *
+     * @param waitStrategy 队列空时 worker 的等待策略，不可为 null
+     */
+    protected AbstractBatchBusConsumer(String name, int capacity, int batchSize, long flushIntervalMs,
+                                       WaitStrategy waitStrategy) {
+        super(name, capacity, waitStrategy);
+        validate(name, batchSize, flushIntervalMs);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.adaptive = null;
+        start();
+    }
+
+    /**
+     * 自适应模式：batchSize/linger 在策略区间内随观测调节，起点取下限。
+     *
+     * @param name     consumer 名（线程名/日志）
+     * @param capacity 队列容量（drop-oldest 目标）
+     * @param policy   自适应策略，不可为 null
+     */
+    protected AbstractBatchBusConsumer(String name, int capacity, AdaptiveBatchPolicy policy) {
+        super(name, capacity);
+        if (policy == null) {
+            throw new IllegalArgumentException("policy must not be null: name=" + name);
+        }
+        this.batchSize = policy.getMaxBatchSize();
+        this.flushIntervalMs = policy.getMaxLingerMs();
+        this.adaptive = new AdaptiveBatchController(policy);
+        start();
+    }
+
+    private static void validate(String name, int batchSize, long flushIntervalMs) {
         if (batchSize <= 0 || flushIntervalMs <= 0) {
             throw new IllegalArgumentException(
                     "batchSize/flushIntervalMs 必须 > 0: name=" + name
                             + " batchSize=" + batchSize + " flushIntervalMs=" + flushIntervalMs);
         }
-        this.batchSize = batchSize;
-        this.flushIntervalMs = flushIntervalMs;
-        // 字段已就绪，启动 worker 安全（无 this 逃逸）
-        start();
     }
 
     /** batch 循环形态（final：锁死，集成只覆盖 flush）。 */
     @Override
     protected final void runLoop() {
         while (!Thread.currentThread().isInterrupted()) {
-            E event = pollNext(flushIntervalMs); // null = 超时 或 被中断
+            E event = pollNext(pollTimeoutMs()); // null = 超时 或 被中断
             if (event != null) {
+                if (buffer.isEmpty()) {
+                    firstBufferedNanos = System.nanoTime();
+                }
                 buffer.add(event);
                 incrementProcessed();
             } else if (Thread.currentThread().isInterrupted()) {
                 return; // 被中断（非超时），退出；残留由 shutdown drain
             }
-            // flush 触发：① 攒满 batchSize ② 定时超时且 buffer 非空（低流量不积压）
-            if (buffer.size() >= batchSize || (event == null && !buffer.isEmpty())) {
-                flushBuffer();
+            // flush 触发：① 攒满 batchSize ② 定时超时且 buffer 非空（低流量不积压）③ 自适应：最早事件等满 linger
+            if (buffer.size() >= currentBatchSize()) {
+                flushBuffer(true);
+            } else if (!buffer.isEmpty() && (event == null || lingerExpired())) {
+                flushBuffer(false);
             }
         }
     }
 
+    private int currentBatchSize() {
+        return adaptive == null ? batchSize : adaptive.batchSize();
+    }
+
+    /** 固定模式：flushIntervalMs；自适应模式：buffer 空时等一个 linger，非空时只等到最早事件满 linger。 */
+    private long pollTimeoutMs() {
+        if (adaptive == null) {
+            return flushIntervalMs;
+        }
+        long linger = adaptive.lingerMs();
+        if (buffer.isEmpty()) {
+            return linger;
+        }
+        return Math.max(0, linger - bufferedAgeMs());
+    }
+
+    private boolean lingerExpired() {
+        return adaptive != null && bufferedAgeMs() >= adaptive.lingerMs();
+    }
+
+    private long bufferedAgeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstBufferedNanos);
+    }
+
     /** copy-then-clear：即使 flush 抛异常，buffer 已清空，不重试阻塞消费线程；失败经 onFlushError 可见。 */
-    private void flushBuffer() {
+    private void flushBuffer(boolean sizeTriggered) {
         if (buffer.isEmpty()) {
             return;
         }
         List<E> batch = new ArrayList<E>(buffer);
         buffer.clear();
+        long lingeredMs = bufferedAgeMs();
         long t0 = System.nanoTime();
         try {
             flush(batch);
@@ -78,7 +154,10 @@ public abstract class AbstractBatchBusConsumer<E> extends BusConsumerBase<E> {
         } catch (RuntimeException ex) {
             onFlushError(batch, ex);
         }
-        noteElapsed(t0);
+        long flushMs = noteElapsed(t0);
+        if (adaptive != null) {
+            adaptive.onFlush(batch.size(), lingeredMs, flushMs, getQueueSize(), sizeTriggered);
+        }
     }
 
     /** 子类实现：把一批事件落库（重活在消费线程，不在总线线程）。 */
@@ -104,8 +183,21 @@ public abstract class AbstractBatchBusConsumer<E> extends BusConsumerBase<E> {
         }
         // worker 已停：队列里还没 poll 的 + buffer 里已 poll 未满批的，合并后统一 flush
         buffer.addAll(drainQueue());
-        flushBuffer();
+        flushBuffer(false);
     }
 
     public long getFlushedBatchesCount() { return flushedBatches.get(); }
+
+    /**
+     * 当前攒批参数与最近一次自适应决策。固定模式下恒为构造参数、原因 {@link AdaptiveBatchPolicy.Reason#INITIAL}。
+     */
+    public AdaptiveBatchPolicy.Decision getBatchSizing() {
+        if (adaptive == null) {
+            return new AdaptiveBatchPolicy.Decision(batchSize, flushIntervalMs, 0,
+                    AdaptiveBatchPolicy.Reason.INITIAL, 0);
+        }
+        return adaptive.current();
+    }
+
+    public boolean isAdaptive() { return adaptive != null; }
 }
@@ -22,6 +22,12 @@ public abstract class AbstractBusConsumer<E> extends BusConsumerBase<E> {
         start();
     }
 
+    /** 以无锁 MPSC 环形队列构造，worker 空闲时按 waitStrategy 等待；多个发布线程共用本 consumer 时选用。 */
+    protected AbstractBusConsumer(String name, int capacity, WaitStrategy waitStrategy) {
+        super(name, capacity, waitStrategy);
+        start();
+    }
+
     /** per-event 循环形态（final：锁死，集成只覆盖 consume）。 */
     @Override
     protected final void runLoop() {
@@ -0,0 +1,173 @@
+package com.ecat.core.Bus.consumer;
+
+import com.ecat.core.Bus.metrics.BusMetrics;
+import com.ecat.core.Utils.Log;
+import com.ecat.core.Utils.LogFactory;
+import com.ecat.core.Utils.Mdc.TraceContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 合并型消费者骨架——同一 key 只保留最新一条，消费线程只处理每个 key 的最新值，跳过被覆盖的中间值。
+ *
+ * <p>适用于只关心「当前值」的 consumer（实时看板、云端转发等）：以 (deviceId, attrId) 为 key 时，突发期间同一属性
+ * 的多次更新只 consume 最后一次。与 {@link AbstractBusConsumer}（逐条）、{@link AbstractBatchBusConsumer}（攒批）
+ * 并列，集成按需继承其一。
+ *
+ * <p><b>结构</b>：{@code latest}（key → 最新事件）+ {@code dirty}（待处理 key 队列）。{@link #onEvent} 把事件
+ * put 进 latest；仅当该 key 原本不在 latest 中（干净→脏）时才把 key 入 dirty，否则计一次合并。消费线程取出 key 后
+ * remove 其最新值再 consume——remove 之后到达的更新会重新入队，不丢。
+ *
+ * <p><b>内存以 key 数为界，而非事件速率</b>：每个 key 在 dirty 中至多一份、在 latest 中至多一条，故无需容量参数，
+ * 也无需 drop-oldest——突发时不会像有界队列那样丢掉任意 key 的最后状态。代价是同一 key 的中间值不可见、跨 key
+ * 顺序按「首次变脏」顺序而非到达顺序。
+ *
+ * <p>线程、MDC 传播、慢计时与 {@link BusConsumerBase} 同构；构造器末尾起线程（本类字段已就绪，无 this 逃逸）。
+ *
+ * <p><b>计量</b>：同样向 {@link BusMetrics} 登记（停服注销）。队列深度为脏 key 数；dropped 与丢弃速率计被合并掉的事件；
+ * 排队时长为 key 变脏（入 dirty 时打 nanoTime 戳）到被处理的时长，即该 key 最旧一次未处理更新的等待。
+ *
+ * <pre>
+ * class RealtimeForwarder extends AbstractCoalescingBusConsumer&lt;String, DeviceDataChangedEvent&gt; {
+ *     protected String keyOf(DeviceDataChangedEvent e) { return e.getDeviceId() + '|' + e.getAttrId(); }
+ *     protected void consume(DeviceDataChangedEvent e) { ... }
+ * }
+ * </pre>
+ *
+ * @param <K> 合并 key 类型（需正确实现 equals/hashCode）
+ * @param <E> 事件/载荷类型
+ *
+ * @author coffee
+ */
+public abstract class AbstractCoalescingBusConsumer<K, E> {
+
+    private final ConcurrentHashMap<K, E> latest = new ConcurrentHashMap<K, E>();
+    private final LinkedBlockingQueue<BusConsumerBase.Stamped<K>> dirty =
+            new LinkedBlockingQueue<BusConsumerBase.Stamped<K>>();
+    private final ExecutorService worker;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final String name;
+    private final BusMetrics.ConsumerMetrics metrics;
+    /** 构造线程的完整 MDC 快照（含归属集成 coordinate），restore 到 worker 线程，语义同 {@link BusConsumerBase}。 */
+    private final Map<String, String> inheritedMdc;
+    /** 子类共享的 logger；按实际子类 getClass() 取。 */
+    protected final Log log = LogFactory.getLogger(getClass());
+
+    protected AbstractCoalescingBusConsumer(String name) {
+        this.name = name;
+        this.worker = Executors.newSingleThreadExecutor(new BusConsumerBase.NamedDaemonFactory(name));
+        this.inheritedMdc = TraceContext.capture();
+        this.metrics = BusMetrics.registerConsumer(name, dirty::size, processed::get, coalesced::get);
+        // 所有字段就绪，启动 worker 安全（无 this 逃逸）
+        worker.submit(TraceContext.wrapRunnable(this::runLoop, inheritedMdc));
+    }
+
+    /**
+     * 总线入口：非阻塞投递，同 key 覆盖旧值。final——合并语义由本类保证，子类只定义 key 与 consume。
+     */
+    public final void onEvent(E event) {
+        K key = keyOf(event);
+        if (key == null) {
+            throw new IllegalArgumentException("keyOf 不可返回 null: consumer=" + name + " event=" + event);
+        }
+        if (latest.put(key, event) == null) {
+            dirty.offer(new BusConsumerBase.Stamped<K>(key, System.nanoTime())); // 干净→脏：入队一次
+        } else {
+            coalesced.incrementAndGet(); // 已脏：覆盖未消费的旧值
+            metrics.markDropped();
+        }
+    }
+
+    /** 批量入口：逐条按 {@link #onEvent} 语义合并，批内同 key 只保留最后一条。 */
+    public final void onEvents(Collection<? extends E> events) {
+        for (E event : events) {
+            onEvent(event);
+        }
+    }
+
+    private void runLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            BusConsumerBase.Stamped<K> key;
+            try {
+                key = dirty.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return; // shutdown
+            }
+            consumeLatest(key);
+        }
+    }
+
+    /** 取 key 的最新值并 consume；remove 与 onEvent 的 put 一一配对，正常不会为 null，防御性跳过。 */
+    private void consumeLatest(BusConsumerBase.Stamped<K> key) {
+        E event = latest.remove(key.item);
+        if (event == null) {
+            return;
+        }
+        long t0 = System.nanoTime();
+        if (BusMetrics.isEnabled()) {
+            metrics.recordQueueWait(Math.max(0, t0 - key.enqueuedNanos));
+        }
+        try {
+            consume(event);
+        } catch (RuntimeException e) {
+            onConsumeError(event, e);
+        }
+        processed.incrementAndGet();
+        long dtNanos = System.nanoTime() - t0;
+        metrics.recordConsume(dtNanos);
+        long dtMs = TimeUnit.NANOSECONDS.toMillis(dtNanos);
+        if (dtMs > BusConsumerBase.SLOW_CONSUME_MS) {
+            onSlowConsume(dtMs);
+        }
+    }
+
+    /** 子类实现：事件的合并 key（如 deviceId + attrId），不可为 null。在发布线程调用，须轻量。 */
+    protected abstract K keyOf(E event);
+
+    /** 子类实现：处理某 key 的最新事件（重活在消费线程，不在总线线程）。 */
+    protected abstract void consume(E event);
+
+    /** consume 抛运行时异常的回调：默认记 error 日志，子类可覆盖。吞异常保线程存活，但失败必须可见。 */
+    protected void onConsumeError(E event, RuntimeException error) {
+        log.error("bus 合并消费异常（已吞掉保证消费线程存活；可覆盖 onConsumeError 细化处理）: event=" + event, error);
+    }
+
+    /** 慢消费回调，默认空，子类可覆盖记日志/告警。 */
+    protected void onSlowConsume(long elapsedMs) { }
+
+    /** 停服：中断消费线程并等其退出，再在调用线程把仍脏的 key 的最新值逐个 consume，保证最后状态不丢。 */
+    public void shutdown() {
+        worker.shutdownNow();
+        try {
+            if (!worker.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("bus coalescing consumer worker 未在 5s 内退出，残留可能未 drain: name={}", name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<BusConsumerBase.Stamped<K>> remaining = new ArrayList<BusConsumerBase.Stamped<K>>();
+        dirty.drainTo(remaining);
+        for (BusConsumerBase.Stamped<K> key : remaining) {
+            consumeLatest(key);
+        }
+        metrics.unregister();
+    }
+
+    public String getName() { return name; }
+    public long getProcessedCount() { return processed.get(); }
+    /** 被后续同 key 事件覆盖、未单独 consume 的事件数。 */
+    public long getCoalescedCount() { return coalesced.get(); }
+    /** 当前待处理（脏）key 数。 */
+    public int getPendingKeyCount() { return dirty.size(); }
+}
@@ -0,0 +1,66 @@
+package com.ecat.core.Bus.consumer;
+
+import java.util.List;
+
+/**
+ * 攒批分区消费者骨架——按 key 分道（见 {@link PartitionedBusConsumerBase}），每道攒批调 {@link #flush(List)}，
+ * batchSize/flushIntervalMs 作用于每一道，语义同 {@link AbstractBatchBusConsumer}。批内事件全部来自同一道，
+ * 同 key 事件保持到达顺序。逐条形态见 {@link AbstractPartitionedBusConsumer}。
+ *
+ * @param <K> 分区 key 类型
+ * @param <E> 事件/载荷类型
+ *
+ * @author coffee
+ */
+public abstract class AbstractPartitionedBatchBusConsumer<K, E> extends PartitionedBusConsumerBase<K, E> {
+
+    /**
+     * @param name            consumer 名；第 i 道线程名为 {@code bus-consumer-<name>-<i>}
+     * @param laneCount       道数，必须 &gt; 0
+     * @param laneCapacity    每道队列容量（drop-oldest 目标）
+     * @param batchSize       每道攒批阈值，必须 &gt; 0
+     * @param flushIntervalMs 每道定时 flush 间隔，必须 &gt; 0
+     */
+    protected AbstractPartitionedBatchBusConsumer(String name, int laneCount, int laneCapacity,
+                                                  int batchSize, long flushIntervalMs) {
+        super(name, laneCount, (owner, index, laneName) ->
+                new BatchLane<K, E>((AbstractPartitionedBatchBusConsumer<K, E>) owner, index, laneName,
+                        laneCapacity, batchSize, flushIntervalMs));
+    }
+
+    /** 子类实现：落库一批（同一道内的事件）。运行在所属道的消费线程。 */
+    protected abstract void flush(List<E> batch);
+
+    /** flush 抛运行时异常的回调：默认记 error（带 batch size），子类可覆盖。 */
+    protected void onFlushError(List<E> batch, RuntimeException error) {
+        log.error("bus 分区批量 flush 异常（已吞掉保证消费线程存活；batch size=" + batch.size() + "）", error);
+    }
+
+    /** batch 道：把钩子转回外层。 */
+    private static final class BatchLane<K, E> extends AbstractBatchBusConsumer<E> {
+        private final AbstractPartitionedBatchBusConsumer<K, E> owner;
+        private final int index;
+
+        BatchLane(AbstractPartitionedBatchBusConsumer<K, E> owner, int index, String laneName, int capacity,
+                  int batchSize, long flushIntervalMs) {
+            super(laneName, capacity, batchSize, flushIntervalMs);
+            this.owner = owner;
+            this.index = index;
+        }
+
+        @Override
+        protected void flush(List<E> batch) {
+            owner.flush(batch);
+        }
+
+        @Override
+        protected void onFlushError(List<E> batch, RuntimeException error) {
+            owner.onFlushError(batch, error);
+        }
+
+        @Override
+        protected void onSlowConsume(long elapsedMs) {
+            owner.onSlowConsume(index, elapsedMs);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecat.core.Bus.consumer;
+
+/**
+ * per-event 分区消费者骨架——按 key 分道（见 {@link PartitionedBusConsumerBase}），每道逐条调 {@link #consume(Object)}，
+ * 语义同 {@link AbstractBusConsumer}。攒批形态见 {@link AbstractPartitionedBatchBusConsumer}。
+ *
+ * @param <K> 分区 key 类型
+ * @param <E> 事件/载荷类型
+ *
+ * @author coffee
+ */
+public abstract class AbstractPartitionedBusConsumer<K, E> extends PartitionedBusConsumerBase<K, E> {
+
+    /**
+     * @param name         consumer 名；第 i 道线程名为 {@code bus-consumer-<name>-<i>}
+     * @param laneCount    道数，必须 &gt; 0
+     * @param laneCapacity 每道队列容量（drop-oldest 目标）
+     */
+    protected AbstractPartitionedBusConsumer(String name, int laneCount, int laneCapacity) {
+        super(name, laneCount, (owner, index, laneName) ->
+                new EventLane<K, E>((AbstractPartitionedBusConsumer<K, E>) owner, index, laneName, laneCapacity));
+    }
+
+    /** 子类实现：处理一条事件。运行在所属道的消费线程。 */
+    protected abstract void consume(E event);
+
+    /** consume 抛运行时异常的回调：默认记 error 日志，子类可覆盖。 */
+    protected void onConsumeError(E event, RuntimeException error) {
+        log.error("bus 分区消费异常（已吞掉保证消费线程存活；可覆盖 onConsumeError 细化处理）: event=" + event, error);
+    }
+
+    /** per-event 道：把钩子转回外层。 */
+    private static final class EventLane<K, E> extends AbstractBusConsumer<E> {
+        private final AbstractPartitionedBusConsumer<K, E> owner;
+        private final int index;
+
+        EventLane(AbstractPartitionedBusConsumer<K, E> owner, int index, String laneName, int capacity) {
+            super(laneName, capacity);
+            this.owner = owner;
+            this.index = index;
+        }
+
+        @Override
+        protected void consume(E event) {
+            owner.consume(event);
+        }
+
+        @Override
+        protected void onConsumeError(E event, RuntimeException error) {
+            owner.onConsumeError(event, error);
+        }
+
+        @Override
+        protected void onSlowConsume(long elapsedMs) {
+            owner.onSlowConsume(index, elapsedMs);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ecat.core.Bus.consumer;
+
+import java.util.Arrays;
+
+/**
+ * {@link AdaptiveBatchPolicy} 的运行时状态——每个 batch consumer 一份，只由其消费线程（或停服时的调用线程，
+ * 此时 worker 已停）调用 {@link #onFlush}，故内部状态无需同步；对外只经 volatile 的 {@link #current()} 快照可见。
+ *
+ * @author coffee
+ */
+final class AdaptiveBatchController {
+
+    /** 单条 flush 成本 EWMA 平滑系数。 */
+    private static final double ALPHA = 0.2;
+
+    private final AdaptiveBatchPolicy policy;
+    private final long[] window = new long[AdaptiveBatchPolicy.WINDOW];
+    private final long[] scratch = new long[AdaptiveBatchPolicy.WINDOW];
+    private int windowCount;
+    private int windowPos;
+    private double perItemMs = -1;
+
+    private int batchSize;
+    private long lingerMs;
+    private long adjustments;
+    private volatile AdaptiveBatchPolicy.Decision current;
+
+    AdaptiveBatchController(AdaptiveBatchPolicy policy) {
+        this.policy = policy;
+        // 起点取下限：先保延迟，观测到积压再放大
+        this.batchSize = policy.getMinBatchSize();
+        this.lingerMs = policy.getMinLingerMs();
+        this.current = new AdaptiveBatchPolicy.Decision(batchSize, lingerMs, 0, AdaptiveBatchPolicy.Reason.INITIAL, 0);
+    }
+
+    int batchSize() { return batchSize; }
+    long lingerMs() { return lingerMs; }
+    AdaptiveBatchPolicy.Decision current() { return current; }
+
+    /**
+     * 记录一批的观测并调节。
+     *
+     * @param size         本批条数
+     * @param lingeredMs   批内最早事件在 buffer 中等待的毫秒数
+     * @param flushMs      flush 耗时毫秒
+     * @param backlog      flush 结束时队列积压条数
+     * @param sizeTriggered 本批是否因攒满 batchSize 触发
+     */
+    void onFlush(int size, long lingeredMs, long flushMs, int backlog, boolean sizeTriggered) {
+        double item = size > 0 ? (double) flushMs / size : 0;
+        perItemMs = perItemMs < 0 ? item : perItemMs + ALPHA * (item - perItemMs);
+        long latency = lingeredMs + flushMs + Math.round(backlog * perItemMs);
+        window[windowPos] = latency;
+        windowPos = (windowPos + 1) % window.length;
+        if (windowCount < window.length) {
+            windowCount++;
+        }
+        long p99 = p99();
+        if (windowCount < AdaptiveBatchPolicy.MIN_SAMPLES) {
+            // 调节后（或启动时）样本不足，p99 不可信：保持参数继续观测
+            current = new AdaptiveBatchPolicy.Decision(batchSize, lingerMs, p99, AdaptiveBatchPolicy.Reason.HOLD,
+                    adjustments);
+            return;
+        }
+
+        int newBatch = batchSize;
+        long newLinger = lingerMs;
+        AdaptiveBatchPolicy.Reason reason;
+        long target = policy.getTargetP99Ms();
+        if (p99 > target) {
+            if (backlog > batchSize) {
+                newBatch = batchSize * 2;
+                reason = AdaptiveBatchPolicy.Reason.GROW_FOR_BACKLOG;
+            } else {
+                newBatch = batchSize / 2;
+                newLinger = lingerMs / 2;
+                reason = AdaptiveBatchPolicy.Reason.SHRINK_FOR_LATENCY;
+            }
+        } else if (p99 * 2 < target) {
+            newLinger = lingerMs + Math.max(1, lingerMs / 2);
+            if (sizeTriggered) {
+                newBatch = batchSize + Math.max(1, batchSize / 4);
+            }
+            reason = AdaptiveBatchPolicy.Reason.RELAX;
+        } else {
+            reason = AdaptiveBatchPolicy.Reason.HOLD;
+        }
+        newBatch = clamp(newBatch, policy.getMinBatchSize(), policy.getMaxBatchSize());
+        newLinger = clamp(newLinger, policy.getMinLingerMs(), policy.getMaxLingerMs());
+        if (newBatch != batchSize || newLinger != lingerMs) {
+            adjustments++;
+            // 调整后旧窗口反映的是旧参数，清空重新观测，避免连续过调
+            windowCount = 0;
+            windowPos = 0;
+        }
+        batchSize = newBatch;
+        lingerMs = newLinger;
+        current = new AdaptiveBatchPolicy.Decision(batchSize, lingerMs, p99, reason, adjustments);
+    }
+
+    private long p99() {
+        int n = windowCount;
+        System.arraycopy(window, 0, scratch, 0, n);
+        Arrays.sort(scratch, 0, n);
+        int idx = (int) Math.ceil(n * 0.99) - 1;
+        return scratch[Math.max(0, Math.min(idx, n - 1))];
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    private static long clamp(long v, long min, long max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
@@ -0,0 +1,107 @@
+package com.ecat.core.Bus.consumer;
+
+/**
+ * 自适应攒批策略（不可变配置）——交给 {@link AbstractBatchBusConsumer} 的自适应构造器后，batchSize 与 linger
+ * 不再固定，而由消费线程按观测到的 flush 耗时与队列积压在 [min, max] 区间内调节，目标是端到端 p99 延迟不超过
+ * {@code targetP99Ms}。
+ *
+ * <p><b>端到端延迟（估算）</b>= 批内最早事件在 buffer 里的等待 + flush 耗时 + 队列积压 × 单条 flush 成本（EWMA）。
+ * 事件本身不带入队时间戳（不增加热路径分配），积压等待按吞吐折算。
+ *
+ * <p><b>调节规则</b>（每次 flush 后，基于最近 {@value #WINDOW} 批的 p99；启动或上次调节后观测满
+ * {@value #MIN_SAMPLES} 批才决策）：
+ * <ul>
+ *   <li>p99 超标且积压 &gt; 当前 batchSize：吞吐不足，batchSize 翻倍（摊薄每批往返开销）；</li>
+ *   <li>p99 超标且积压不多：单批太重，batchSize 与 linger 减半；</li>
+ *   <li>p99 低于目标一半：有余量，linger ×1.5 多攒一些；上一批是攒满触发的则 batchSize +25%；</li>
+ *   <li>其余情况保持不变。</li>
+ * </ul>
+ * 每次决策以 {@link Decision} 快照发布，经 {@link AbstractBatchBusConsumer#getBatchSizing()} 读取。
+ *
+ * @author coffee
+ */
+public final class AdaptiveBatchPolicy {
+
+    /** p99 统计窗口（最近多少批）。 */
+    static final int WINDOW = 64;
+    /** 两次调节之间至少观测的批数：不足时不决策（HOLD），避免按一两个样本连续过调。 */
+    static final int MIN_SAMPLES = WINDOW / 4;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long minLingerMs;
+    private final long maxLingerMs;
+    private final long targetP99Ms;
+
+    /**
+     * @param minBatchSize 批量下限，必须 &gt; 0
+     * @param maxBatchSize 批量上限，必须 &ge; minBatchSize
+     * @param minLingerMs  攒批等待下限（毫秒），必须 &gt; 0
+     * @param maxLingerMs  攒批等待上限（毫秒），必须 &ge; minLingerMs
+     * @param targetP99Ms  端到端 p99 目标（毫秒），必须 &gt; 0
+     */
+    public AdaptiveBatchPolicy(int minBatchSize, int maxBatchSize, long minLingerMs, long maxLingerMs,
+                               long targetP99Ms) {
+        if (minBatchSize <= 0 || maxBatchSize < minBatchSize || minLingerMs <= 0 || maxLingerMs < minLingerMs
+                || targetP99Ms <= 0) {
+            throw new IllegalArgumentException("非法自适应攒批参数: minBatchSize=" + minBatchSize
+                    + " maxBatchSize=" + maxBatchSize + " minLingerMs=" + minLingerMs
+                    + " maxLingerMs=" + maxLingerMs + " targetP99Ms=" + targetP99Ms);
+        }
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.minLingerMs = minLingerMs;
+        this.maxLingerMs = maxLingerMs;
+        this.targetP99Ms = targetP99Ms;
+    }
+
+    public int getMinBatchSize() { return minBatchSize; }
+    public int getMaxBatchSize() { return maxBatchSize; }
+    public long getMinLingerMs() { return minLingerMs; }
+    public long getMaxLingerMs() { return maxLingerMs; }
+    public long getTargetP99Ms() { return targetP99Ms; }
+
+    /** 决策原因。 */
+    public enum Reason {
+        /** 初始值（尚无观测）或固定模式 */
+        INITIAL,
+        /** p99 超标且积压大：放大批量 */
+        GROW_FOR_BACKLOG,
+        /** p99 超标且积压小：缩小批量与 linger */
+        SHRINK_FOR_LATENCY,
+        /** p99 远低于目标：放宽 linger/批量 */
+        RELAX,
+        /** 在目标附近：保持 */
+        HOLD
+    }
+
+    /** 一次调节后的快照：当前 batchSize/linger、窗口 p99 估算、原因及累计调整次数。 */
+    public static final class Decision {
+        private final int batchSize;
+        private final long lingerMs;
+        private final long p99LatencyMs;
+        private final Reason reason;
+        private final long adjustments;
+
+        Decision(int batchSize, long lingerMs, long p99LatencyMs, Reason reason, long adjustments) {
+            this.batchSize = batchSize;
+            this.lingerMs = lingerMs;
+            this.p99LatencyMs = p99LatencyMs;
+            this.reason = reason;
+            this.adjustments = adjustments;
+        }
+
+        public int getBatchSize() { return batchSize; }
+        public long getLingerMs() { return lingerMs; }
+        public long getP99LatencyMs() { return p99LatencyMs; }
+        public Reason getReason() { return reason; }
+        /** batchSize 或 linger 实际发生变化的累计次数。 */
+        public long getAdjustments() { return adjustments; }
+
+        @Override
+        public String toString() {
+            return "Decision{batchSize=" + batchSize + ", lingerMs=" + lingerMs + ", p99LatencyMs=" + p99LatencyMs
+                    + ", reason=" + reason + ", adjustments=" + adjustments + "}";
+        }
+    }
+}
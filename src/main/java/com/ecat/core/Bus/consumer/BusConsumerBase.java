@@ -1,13 +1,14 @@
 package com.ecat.core.Bus.consumer;
 
+import com.ecat.core.Bus.metrics.BusMetrics;
 import com.ecat.core.Utils.Log;
 import com.ecat.core.Utils.LogFactory;
 import com.ecat.core.Utils.Mdc.TraceContext;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -29,6 +30,15 @@ import java.util.concurrent.atomic.AtomicLong;
  * <p><b>反压=丢最旧保新</b>（时间序列语义正确）：{@link #onEvent(Object)} 队列满时丢最旧腾位，绝不阻塞
  * 总线发布线程（设备轮询线程）。
  *
+ * <p><b>队列实现按 consumer 选择</b>：{@code (name, capacity)} 构造器用 {@code ArrayBlockingQueue}（单锁，默认，
+ * 行为不变）；{@code (name, capacity, WaitStrategy)} 构造器换成无锁 {@link MpscRingQueue}——多个集成的
+ * 轮询线程同时向一个 consumer 发布时不再争同一把锁，worker 空闲时按 {@link WaitStrategy} 等待。两种实现的
+ * drop-oldest 语义与 dropped/processed 计数完全一致。
+ *
+ * <p><b>计量</b>：构造时向 {@link BusMetrics} 登记、{@link #shutdown()} 时注销；登记项含队列深度、丢弃速率、
+ * consume/flush 耗时直方图，以及排队时长——每条入队时包一层带 {@code System.nanoTime()} 戳的 {@link Stamped}
+ * （短命小对象），被消费线程取出或停服 drain 时按戳计入队到出队的时长，与事件类型无关。
+ *
  * @param <E> 事件/载荷类型
  * 
  * @author coffee
@@ -38,11 +48,12 @@ public abstract class BusConsumerBase<E> {
     /** 慢消费/慢 flush 阈值（毫秒）——超过则触发 {@link #onSlowConsume}，便于子类记日志/告警。 */
     static final long SLOW_CONSUME_MS = 1000L;
 
-    private final ArrayBlockingQueue<E> queue;
+    private final ConsumerQueue<Stamped<E>> queue;
     private final ExecutorService worker;
     private final AtomicLong dropped = new AtomicLong();
     private final AtomicLong processed = new AtomicLong();
     private final String name;
+    private final BusMetrics.ConsumerMetrics metrics;
     /**
      * 构造线程的完整 MDC 快照。consumer 由集成在其 onStart 线程构造，而该线程经
      * {@code IntegrationBase} 构造器已 {@code MDC.put("integration.coordinate", ...)}，故此快照含
@@ -54,10 +65,24 @@ public abstract class BusConsumerBase<E> {
     protected final Log log = LogFactory.getLogger(getClass());
 
     protected BusConsumerBase(String name, int capacity) {
+        this(name, ConsumerQueue.<Stamped<E>>blocking(capacity));
+    }
+
+    /**
+     * 以无锁 MPSC 环形队列构造。
+     *
+     * @param waitStrategy 队列空时 worker 的等待策略，不可为 null
+     */
+    protected BusConsumerBase(String name, int capacity, WaitStrategy waitStrategy) {
+        this(name, new MpscRingQueue<Stamped<E>>(capacity, waitStrategy));
+    }
+
+    private BusConsumerBase(String name, ConsumerQueue<Stamped<E>> queue) {
         this.name = name;
-        this.queue = new ArrayBlockingQueue<E>(capacity);
+        this.queue = queue;
         this.worker = Executors.newSingleThreadExecutor(new NamedDaemonFactory(name));
         this.inheritedMdc = TraceContext.capture();
+        this.metrics = BusMetrics.registerConsumer(name, queue::size, processed::get, dropped::get);
         // 不在此 submit worker —— 留给子类在自身字段初始化后调 start()，规避 this 逃逸。
     }
 
@@ -66,14 +91,26 @@ public abstract class BusConsumerBase<E> {
      * drop-oldest，锁死防止子类误改成阻塞型，破坏「绝不回压设备轮询线程」硬约束。
      */
     public final void onEvent(E event) {
-        while (!queue.offer(event)) {
-            E stale = queue.poll();
+        Stamped<E> stamped = new Stamped<E>(event, System.nanoTime());
+        while (!queue.offer(stamped)) {
+            Stamped<E> stale = queue.poll();
             if (stale != null) {
                 dropped.incrementAndGet();
+                metrics.markDropped();
             }
         }
     }
 
+    /**
+     * 批量入口：一次投递一批事件（如 {@link com.ecat.core.Bus.BatchEventSubscriber#handleBatch} 收到的整包），
+     * 逐条按 {@link #onEvent} 同样的丢最旧语义入队，保持批内顺序；同样绝不阻塞发布线程。
+     */
+    public final void onEvents(Collection<? extends E> events) {
+        for (E event : events) {
+            onEvent(event);
+        }
+    }
+
     /** 循环形态——由两个中间类各自 final 实现（per-event / batch）。 */
     protected abstract void runLoop();
 
@@ -87,7 +124,7 @@ public abstract class BusConsumerBase<E> {
     /** 阻塞取下一条事件；被中断时恢复中断标志并返回 null（循环据此退出）。 */
     protected final E awaitNext() {
         try {
-            return queue.take();
+            return noteDequeued(queue.take());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return null;
@@ -97,13 +134,24 @@ public abstract class BusConsumerBase<E> {
     /** 最多等待 timeoutMs；超时或被中断返回 null（被中断时恢复中断标志）。 */
     protected final E pollNext(long timeoutMs) {
         try {
-            return queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+            return noteDequeued(queue.poll(timeoutMs, TimeUnit.MILLISECONDS));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return null;
         }
     }
 
+    /** 记排队时长（入队戳到此刻）并拆出事件；null（超时/中断）原样返回。 */
+    private E noteDequeued(Stamped<E> stamped) {
+        if (stamped == null) {
+            return null;
+        }
+        if (BusMetrics.isEnabled()) {
+            metrics.recordQueueWait(Math.max(0, System.nanoTime() - stamped.enqueuedNanos));
+        }
+        return stamped.item;
+    }
+
     /** processed 计数 +1（事件被消费线程接收/入 buffer 时调）。 */
     protected final void incrementProcessed() {
         processed.incrementAndGet();
@@ -111,7 +159,9 @@ public abstract class BusConsumerBase<E> {
 
     /** 仅慢计时（不增 processed），返回耗时毫秒；&gt;{@link #SLOW_CONSUME_MS} 触发 {@link #onSlowConsume}。batch 量 flush 用。 */
     protected final long noteElapsed(long startNanos) {
-        long dtMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        long dtNanos = System.nanoTime() - startNanos;
+        metrics.recordConsume(dtNanos);
+        long dtMs = TimeUnit.NANOSECONDS.toMillis(dtNanos);
         if (dtMs > SLOW_CONSUME_MS) {
             onSlowConsume(dtMs);
         }
@@ -131,8 +181,12 @@ public abstract class BusConsumerBase<E> {
 
     /** 把队列中残留事件排空到一个新 List（保持 FIFO 顺序）。shutdown drain 用——worker 已停时由调用线程独占调用。 */
     protected final List<E> drainQueue() {
-        List<E> out = new ArrayList<E>();
-        queue.drainTo(out);
+        List<Stamped<E>> drained = new ArrayList<Stamped<E>>();
+        queue.drainTo(drained);
+        List<E> out = new ArrayList<E>(drained.size());
+        for (Stamped<E> stamped : drained) {
+            out.add(noteDequeued(stamped));
+        }
         return out;
     }
 
@@ -142,6 +196,7 @@ public abstract class BusConsumerBase<E> {
     /** 默认立即中断消费线程；batch 子类覆盖以加 drain-flush。 */
     public void shutdown() {
         worker.shutdownNow();
+        metrics.unregister();
     }
 
     public String getName() { return name; }
@@ -149,7 +204,18 @@ public abstract class BusConsumerBase<E> {
     public long getProcessedCount() { return processed.get(); }
     public int getQueueSize() { return queue.size(); }
 
-    private static final class NamedDaemonFactory implements ThreadFactory {
+    /** 队列元素：事件 + 入队时的 nanoTime 戳（排队时长计量用）。合并型 consumer 以同样方式给脏 key 打戳。 */
+    static final class Stamped<T> {
+        final T item;
+        final long enqueuedNanos;
+
+        Stamped(T item, long enqueuedNanos) {
+            this.item = item;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    static final class NamedDaemonFactory implements ThreadFactory {
         private final String name;
         NamedDaemonFactory(String name) { this.name = name; }
         public Thread newThread(Runnable r) {
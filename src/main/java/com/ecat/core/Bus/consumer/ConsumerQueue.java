@@ -0,0 +1,44 @@
+package com.ecat.core.Bus.consumer;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BusConsumerBase} 的队列抽象——只暴露地基实际用到的操作，使底层可在
+ * {@code ArrayBlockingQueue}（单锁，默认）与 {@link MpscRingQueue}（无锁环形）之间按 consumer 切换。
+ *
+ * <p>语义约定：offer/poll 非阻塞；take/poll(timeout) 只由唯一的消费线程调用，被中断抛
+ * {@link InterruptedException}；drainTo 仅在 worker 已停后由调用线程独占调用。
+ *
+ * @param <E> 事件/载荷类型
+ *
+ * @author coffee
+ */
+interface ConsumerQueue<E> {
+
+    boolean offer(E e);
+
+    E poll();
+
+    E take() throws InterruptedException;
+
+    E poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    int drainTo(Collection<? super E> out);
+
+    int size();
+
+    /** 默认实现：包一层 {@link ArrayBlockingQueue}，行为与引入本抽象前完全一致。 */
+    static <E> ConsumerQueue<E> blocking(int capacity) {
+        final ArrayBlockingQueue<E> q = new ArrayBlockingQueue<E>(capacity);
+        return new ConsumerQueue<E>() {
+            public boolean offer(E e) { return q.offer(e); }
+            public E poll() { return q.poll(); }
+            public E take() throws InterruptedException { return q.take(); }
+            public E poll(long timeout, TimeUnit unit) throws InterruptedException { return q.poll(timeout, unit); }
+            public int drainTo(Collection<? super E> out) { return q.drainTo(out); }
+            public int size() { return q.size(); }
+        };
+    }
+}
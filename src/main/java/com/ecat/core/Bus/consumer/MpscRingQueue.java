@@ -0,0 +1,280 @@
+package com.ecat.core.Bus.consumer;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 无锁有界环形队列——多个总线发布线程并发 offer，唯一的消费线程 take/poll，替代单锁 {@code ArrayBlockingQueue}。
+ *
+ * <p><b>算法</b>：每个槽位带一个序号（Vyukov 有界队列）。入队方 CAS 推进 tail 认领槽位，写元素后以序号
+ * 「发布」；出队方 CAS 推进 head，取走元素后把序号推进一圈归还槽位。全程无锁，生产者之间只在 tail 上 CAS 竞争。
+ *
+ * <p><b>为何出队也用 CAS</b>：drop-oldest 反压下，队列满时生产者要 {@link #poll()} 丢掉最旧一条腾位，
+ * 出队侧因此并非严格单线程。真正「消费」的仍只有 worker 一个线程（MPSC 语义），生产者出队仅用于丢弃。
+ *
+ * <p><b>容量</b>：任意正整数；2 的幂时用位与取槽，否则取模——保证 drop-oldest 的容量与构造参数严格一致。
+ *
+ * <p><b>等待</b>：队列空时 worker 按 {@link WaitStrategy} 等待。PARK/BLOCK 下 worker 挂起前先登记
+ * waiter 再复查队列，生产者发布元素后读 waiter——二者都是 volatile 读写，至少一方能看见对方，不丢唤醒；
+ * 生产者只在 worker 确实挂起时才 unpark/signal，热路径上只多一次 volatile 读。
+ *
+ * @param <E> 事件/载荷类型
+ *
+ * @author coffee
+ */
+final class MpscRingQueue<E> implements ConsumerQueue<E> {
+
+    /** YIELD 策略下先纯自旋的次数，再开始 Thread.yield。 */
+    private static final int SPIN_TRIES = 100;
+
+    private final int capacity;
+    private final long mask;
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final WaitStrategy waitStrategy;
+
+    /** PARK：挂起中的 worker 线程；null 表示未挂起。 */
+    private volatile Thread parkedWaiter;
+    /** BLOCK：worker 是否在 condition 上等待。 */
+    private volatile boolean blockedWaiter;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+
+    MpscRingQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity 必须 > 0: " + capacity);
+        }
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("waitStrategy must not be null");
+        }
+        this.capacity = capacity;
+        this.mask = Integer.bitCount(capacity) == 1 ? capacity - 1 : -1L;
+        this.items = new AtomicReferenceArray<E>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.waitStrategy = waitStrategy;
+        if (waitStrategy == WaitStrategy.BLOCK) {
+            this.lock = new ReentrantLock();
+            this.notEmpty = lock.newCondition();
+        } else {
+            this.lock = null;
+            this.notEmpty = null;
+        }
+    }
+
+    private int slot(long pos) {
+        return (int) (mask >= 0 ? (pos & mask) : (pos % capacity));
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long pos = tail.get();
+        for (;;) {
+            int idx = slot(pos);
+            long diff = sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items.lazySet(idx, e);
+                    sequences.set(idx, pos + 1); // 发布：对出队方可见
+                    signalIfWaiting();
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // 满（或最旧槽位仍在被取走），调用方丢最旧后重试
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    @Override
+    public E poll() {
+        long pos = head.get();
+        for (;;) {
+            int idx = slot(pos);
+            long diff = sequences.get(idx) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E e = items.get(idx);
+                    items.lazySet(idx, null);
+                    sequences.set(idx, pos + capacity); // 归还槽位给下一圈入队
+                    return e;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null; // 空（或槽位已认领未发布）
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return await(Long.MAX_VALUE);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        E e = poll();
+        if (e != null || nanos <= 0) {
+            return e;
+        }
+        return await(System.nanoTime() + nanos);
+    }
+
+    /** 等到有元素或到达 deadline（纳秒时刻，{@code Long.MAX_VALUE} 表示不限时）。 */
+    private E await(long deadline) throws InterruptedException {
+        switch (waitStrategy) {
+            case YIELD:
+                return awaitYield(deadline);
+            case BLOCK:
+                return awaitBlock(deadline);
+            case PARK:
+            default:
+                return awaitPark(deadline);
+        }
+    }
+
+    private E awaitYield(long deadline) throws InterruptedException {
+        int spins = 0;
+        for (;;) {
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            if (spins < SPIN_TRIES) {
+                spins++;
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    private E awaitPark(long deadline) throws InterruptedException {
+        Thread self = Thread.currentThread();
+        for (;;) {
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            // 不限时则无超时挂起：parkedWaiter 登记与 offer 的 unpark 配对保证唤醒，空闲时不周期性醒来
+            long parkNanos = 0;
+            if (deadline != Long.MAX_VALUE) {
+                parkNanos = deadline - System.nanoTime();
+                if (parkNanos <= 0) {
+                    return null;
+                }
+            }
+            parkedWaiter = self;
+            try {
+                // 登记后复查：与 offer 的「发布后读 waiter」配对，不丢唤醒
+                e = poll();
+                if (e != null) {
+                    return e;
+                }
+                if (parkNanos > 0) {
+                    LockSupport.parkNanos(this, parkNanos);
+                } else {
+                    LockSupport.park(this);
+                }
+            } finally {
+                parkedWaiter = null;
+            }
+        }
+    }
+
+    private E awaitBlock(long deadline) throws InterruptedException {
+        for (;;) {
+            E e = poll();
+            if (e != null) {
+                return e;
+            }
+            lock.lockInterruptibly();
+            try {
+                blockedWaiter = true;
+                e = poll();
+                if (e != null) {
+                    return e;
+                }
+                if (deadline == Long.MAX_VALUE) {
+                    notEmpty.await();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    notEmpty.awaitNanos(remaining);
+                }
+            } finally {
+                blockedWaiter = false;
+                lock.unlock();
+            }
+        }
+    }
+
+    private void signalIfWaiting() {
+        if (waitStrategy == WaitStrategy.PARK) {
+            Thread waiter = parkedWaiter;
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        } else if (waitStrategy == WaitStrategy.BLOCK && blockedWaiter) {
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> out) {
+        int n = 0;
+        E e;
+        while ((e = poll()) != null) {
+            out.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        // 先读 head 再读 tail：并发下是近似值，夹到 [0, capacity]
+        long h = head.get();
+        long t = tail.get();
+        long n = t - h;
+        if (n < 0) {
+            return 0;
+        }
+        return (int) Math.min(n, capacity);
+    }
+
+    WaitStrategy getWaitStrategy() { return waitStrategy; }
+}
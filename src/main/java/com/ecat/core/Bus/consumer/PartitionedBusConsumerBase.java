@@ -0,0 +1,157 @@
+package com.ecat.core.Bus.consumer;
+
+import com.ecat.core.Utils.Log;
+import com.ecat.core.Utils.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分区消费者公共基类——按 key（如 deviceId）哈希到 N 条消费道，每道独立队列 + 独占线程，同 key 严格保序、跨 key 并行。
+ *
+ * <p>{@link AbstractBusConsumer}/{@link AbstractBatchBusConsumer} 只有一个 worker，重型 consumer（如数千设备的入库）
+ * 用不满多核；直接多线程消费又会打乱同设备顺序。本类把 {@link #keyOf} 相同的事件固定投到同一道，道内仍是
+ * 单线程串行，顺序语义与单 worker 版一致。
+ *
+ * <p>本类只负责路由、停服与计量；消费形态由子类决定，与单 worker 版一一对应：
+ * <ul>
+ *   <li>{@link AbstractPartitionedBusConsumer}：per-event，每道逐条调 {@code consume}；</li>
+ *   <li>{@link AbstractPartitionedBatchBusConsumer}：batch，每道攒批调 {@code flush}；
+ *       批内事件全部来自同一道，同 key 事件保持到达顺序。</li>
+ * </ul>
+ * 每道都是一个完整的单 worker consumer 实例（队列/线程/drop-oldest/MDC 传播全部复用）。
+ *
+ * <p><b>计量按道</b>：{@link #getLaneStats()} 给出每道的 dropped/processed/lag（队列积压条数），便于发现热点 key
+ * 导致的单道倾斜；汇总计数与单 worker 版同名方法口径一致。
+ *
+ * <p><b>构造不逃逸</b>：各道线程在构造期启动，但只在收到事件后才回调子类钩子；事件只能在构造完成后经
+ * {@link #onEvent} 投递，故回调时子类字段已就绪。
+ *
+ * @param <K> 分区 key 类型
+ * @param <E> 事件/载荷类型
+ *
+ * @author coffee
+ */
+public abstract class PartitionedBusConsumerBase<K, E> {
+
+    /** 建道：第 index 道，线程名后缀为 laneName。在本类构造期调用，只可捕获构造参数。 */
+    interface LaneFactory<K, E> {
+        BusConsumerBase<E> create(PartitionedBusConsumerBase<K, E> owner, int index, String laneName);
+    }
+
+    private final String name;
+    private final List<BusConsumerBase<E>> lanes;
+    /** 子类共享的 logger；按实际子类 getClass() 取。 */
+    protected final Log log = LogFactory.getLogger(getClass());
+
+    PartitionedBusConsumerBase(String name, int laneCount, LaneFactory<K, E> factory) {
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("laneCount 必须 > 0: name=" + name + " laneCount=" + laneCount);
+        }
+        this.name = name;
+        List<BusConsumerBase<E>> built = new ArrayList<BusConsumerBase<E>>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            built.add(factory.create(this, i, name + "-" + i));
+        }
+        this.lanes = Collections.unmodifiableList(built);
+    }
+
+    /** 总线入口：按 key 路由到对应道，非阻塞投递；该道满则丢该道最旧。 */
+    public final void onEvent(E event) {
+        lanes.get(laneOf(keyOf(event))).onEvent(event);
+    }
+
+    /** 批量入口：逐条按 {@link #onEvent} 路由，同 key 事件保持批内顺序。 */
+    public final void onEvents(Collection<? extends E> events) {
+        for (E event : events) {
+            onEvent(event);
+        }
+    }
+
+    /** key → 道下标：高低位混合后取模，null key 固定落 0 道。 */
+    private int laneOf(K key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % lanes.size();
+    }
+
+    /** 子类实现：分区 key（同 key 保序）。在发布线程调用，须轻量。 */
+    protected abstract K keyOf(E event);
+
+    /** 慢消费/慢 flush 回调（带道下标），默认空，子类可覆盖记日志/告警。 */
+    protected void onSlowConsume(int lane, long elapsedMs) { }
+
+    /** 停服：逐道停止；batch 形态每道 drain 残留并 flush，与 {@link AbstractBatchBusConsumer#shutdown()} 一致。 */
+    public void shutdown() {
+        for (BusConsumerBase<E> lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    public String getName() { return name; }
+    public int getLaneCount() { return lanes.size(); }
+
+    public long getDroppedCount() {
+        long sum = 0;
+        for (BusConsumerBase<E> lane : lanes) {
+            sum += lane.getDroppedCount();
+        }
+        return sum;
+    }
+
+    public long getProcessedCount() {
+        long sum = 0;
+        for (BusConsumerBase<E> lane : lanes) {
+            sum += lane.getProcessedCount();
+        }
+        return sum;
+    }
+
+    public int getQueueSize() {
+        int sum = 0;
+        for (BusConsumerBase<E> lane : lanes) {
+            sum += lane.getQueueSize();
+        }
+        return sum;
+    }
+
+    /** 每道计量快照（按道下标顺序）。 */
+    public List<LaneStats> getLaneStats() {
+        List<LaneStats> out = new ArrayList<LaneStats>(lanes.size());
+        for (int i = 0; i < lanes.size(); i++) {
+            BusConsumerBase<E> lane = lanes.get(i);
+            out.add(new LaneStats(i, lane.getDroppedCount(), lane.getProcessedCount(), lane.getQueueSize()));
+        }
+        return out;
+    }
+
+    /** 单道计量快照——dropped/processed 为累计值，lag 为取快照时的队列积压条数。 */
+    public static final class LaneStats {
+        private final int lane;
+        private final long dropped;
+        private final long processed;
+        private final int lag;
+
+        LaneStats(int lane, long dropped, long processed, int lag) {
+            this.lane = lane;
+            this.dropped = dropped;
+            this.processed = processed;
+            this.lag = lag;
+        }
+
+        public int getLane() { return lane; }
+        public long getDropped() { return dropped; }
+        public long getProcessed() { return processed; }
+        public int getLag() { return lag; }
+
+        @Override
+        public String toString() {
+            return "LaneStats{lane=" + lane + ", dropped=" + dropped + ", processed=" + processed + ", lag=" + lag + "}";
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecat.core.Bus.consumer;
+
+/**
+ * 无锁环形队列下消费线程的等待策略——队列空时 worker 如何等下一条事件。
+ *
+ * <p>仅对以 {@code WaitStrategy} 构造的 consumer（无锁 MPSC 环形队列）生效；沿用
+ * {@code (name, capacity)} 构造器的 consumer 仍走 {@code ArrayBlockingQueue}，行为不变。
+ *
+ * @author coffee
+ */
+public enum WaitStrategy {
+    /** LockSupport park/unpark：空闲不占 CPU，生产者仅在 worker 确实挂起时 unpark。默认推荐。 */
+    PARK,
+    /** 自旋 + Thread.yield：唤醒延迟最低，空闲时持续占用一个核，适合高频专用 consumer。 */
+    YIELD,
+    /** ReentrantLock + Condition 阻塞：与 park 相近，等待经由锁条件队列，便于与既有锁工具统一排查。 */
+    BLOCK
+}
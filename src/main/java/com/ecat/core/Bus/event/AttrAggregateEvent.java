@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus.event;
+
+import java.time.Instant;
+
+import com.ecat.core.State.UnitInfo;
+
+/**
+ * 属性窗口统计事件（topic {@code attr.aggregate}）——一个已结束的统计窗口内某数值属性的样本数、有效样本数、
+ * 有效样本的和/均值/最小/最大值。由 {@link com.ecat.core.Bus.aggregate.AggregationEngine} 在窗口结束时发布。
+ *
+ * <p>数值均为属性业务单位（nativeUnit，见 {@link #getUnit()}）下的值；无有效样本时均值/最小/最大为 NaN。
+ * 窗口区间左闭右开 [windowStart, windowEnd)。
+ *
+ * @author coffee
+ */
+public final class AttrAggregateEvent implements BusPayload {
+
+    private final String deviceId;
+    private final String attrId;
+    private final String window;
+    private final Instant windowStart;
+    private final Instant windowEnd;
+    private final int sampleCount;
+    private final int validCount;
+    private final double sum;
+    private final double min;
+    private final double max;
+    private final UnitInfo unit;
+
+    /**
+     * @param deviceId    设备 ID，非空
+     * @param attrId      属性 ID，非空
+     * @param window      窗口名（如 1m、1h、24h），非空
+     * @param windowStart 窗口起点（含），非空
+     * @param windowEnd   窗口终点（不含），非空
+     * @param sampleCount 窗口内全部样本数
+     * @param validCount  有效样本数
+     * @param sum         有效样本之和
+     * @param min         有效样本最小值，无有效样本为 NaN
+     * @param max         有效样本最大值，无有效样本为 NaN
+     * @param unit        值的单位，可为 null
+     */
+    public AttrAggregateEvent(String deviceId, String attrId, String window, Instant windowStart, Instant windowEnd,
+            int sampleCount, int validCount, double sum, double min, double max, UnitInfo unit) {
+        if (deviceId == null || attrId == null || window == null || windowStart == null || windowEnd == null) {
+            throw new IllegalArgumentException("deviceId/attrId/window/windowStart/windowEnd must not be null");
+        }
+        this.deviceId = deviceId;
+        this.attrId = attrId;
+        this.window = window;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.sampleCount = sampleCount;
+        this.validCount = validCount;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.unit = unit;
+    }
+
+    public String getDeviceId() { return deviceId; }
+    public String getAttrId() { return attrId; }
+    public String getWindow() { return window; }
+    public Instant getWindowStart() { return windowStart; }
+    public Instant getWindowEnd() { return windowEnd; }
+    public int getSampleCount() { return sampleCount; }
+    public int getValidCount() { return validCount; }
+    public double getSum() { return sum; }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+    public UnitInfo getUnit() { return unit; }
+
+    /** 有效样本均值；无有效样本为 NaN。 */
+    public double getAverage() {
+        return validCount > 0 ? sum / validCount : Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return "AttrAggregateEvent{" + deviceId + "/" + attrId + ", window=" + window
+                + ", [" + windowStart + ", " + windowEnd + "), samples=" + sampleCount + ", valid=" + validCount
+                + ", avg=" + getAverage() + ", min=" + min + ", max=" + max + "}";
+    }
+}
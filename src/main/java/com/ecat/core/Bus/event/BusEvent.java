@@ -1,7 +1,9 @@
 package com.ecat.core.Bus.event;
 
 import java.time.Instant;
-import java.util.UUID;
+
+import com.ecat.core.Utils.EcatClock;
+import com.ecat.core.Utils.IdGenerator;
 
 /**
  * 总线事件信封——所有 topic 在总线上传递的统一不可变包装（≡ Home Assistant 的 Event）。
@@ -17,6 +19,9 @@ import java.util.UUID;
  * <p>总线传 BusEvent 而非裸 payload：让事件自带 type/时间/uuid/溯源，消费者从统一信封取，
  * payload 仍引用传递保持零拷贝（对齐 Home Assistant EventBus 传原生不可变 Event 的做法）。
  *
+ * <p>{@link #of} 构造的事件以 {@link IdGenerator} 的 64 位有序 id 标识，uuid 字符串在首次
+ * {@link #getUuid()} 时才格式化；外部传入字符串 uuid 的构造器保持不变（此时 {@link #getId()} 为 0）。
+ *
  * @param <T> payload 类型，必须是 {@link BusPayload}
  */
 public final class BusEvent<T extends BusPayload> {
@@ -24,7 +29,9 @@ public final class BusEvent<T extends BusPayload> {
     private final String type;
     private final T payload;
     private final Instant firedAt;
-    private final String uuid;
+    private final long id;
+    // 惰性格式化；良性竞态（多线程并发首次调用至多重复格式化一次，结果相同）
+    private String uuid;
     private final EventContext context;
 
     public BusEvent(String type, T payload, Instant firedAt, String uuid, EventContext context) {
@@ -34,18 +41,41 @@ public final class BusEvent<T extends BusPayload> {
         this.type = type;
         this.payload = payload;
         this.firedAt = firedAt;
+        this.id = 0L;
         this.uuid = uuid;
         this.context = context;
     }
 
-    /** 构造新事件：firedAt 取当前时刻、uuid 自动生成。 */
+    private BusEvent(String type, T payload, Instant firedAt, long id, EventContext context) {
+        if (type == null || context == null) {
+            throw new IllegalArgumentException("type/context must not be null");
+        }
+        this.type = type;
+        this.payload = payload;
+        this.firedAt = firedAt;
+        this.id = id;
+        this.context = context;
+    }
+
+    /** 构造新事件：firedAt 取共享时钟 {@link EcatClock} 当前时刻、id 由 {@link IdGenerator} 生成。 */
     public static <T extends BusPayload> BusEvent<T> of(String type, T payload, EventContext context) {
-        return new BusEvent<T>(type, payload, Instant.now(), UUID.randomUUID().toString(), context);
+        return new BusEvent<T>(type, payload, EcatClock.now(), IdGenerator.getInstance().nextId(), context);
     }
 
     public String getType() { return type; }
     public T getPayload() { return payload; }
     public Instant getFiredAt() { return firedAt; }
-    public String getUuid() { return uuid; }
+    /** 事件 uuid 字符串；{@link #of} 构造的事件为 id 的 16 位十六进制形态。 */
+    public String getUuid() {
+        String u = uuid;
+        if (u == null) {
+            u = IdGenerator.format(id);
+            uuid = u;
+        }
+        return u;
+    }
+
+    /** 64 位有序事件 id；经字符串 uuid 构造器创建的事件为 0。 */
+    public long getId() { return id; }
     public EventContext getContext() { return context; }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ecat.core.Bus.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 设备数据批量变化事件——一台设备一个轮询周期内全部 {@link DeviceDataChangedEvent} 的合包载荷。
+ *
+ * <p>由 {@link com.ecat.core.Bus.BusRegistry#publishBatch(BusEvent)} 发布，信封 type 仍是
+ * device.data.update：按该 topic 的订阅解析<b>一次</b>，批量感知订阅者
+ * （{@link com.ecat.core.Bus.BatchEventSubscriber}）一次收整包；普通订阅者由总线逐条拆包，收到的仍是
+ * {@code BusEvent<DeviceDataChangedEvent>}，无需改动。
+ *
+ * <p>不可变：changes 构造期拷贝为只读列表；所有条目必须属于同一 deviceId（条带分发按 deviceId 保序）。
+ *
+ * @author coffee
+ * @see DeviceDataChangedEvent
+ */
+public final class DeviceDataBatchEvent implements BusPayload {
+
+    private final String deviceId;
+    private final List<DeviceDataChangedEvent> changes;
+
+    /**
+     * @param deviceId 设备 ID，非空
+     * @param changes  本周期的属性变化，非空；每条的 deviceId 必须等于 {@code deviceId}
+     */
+    public DeviceDataBatchEvent(String deviceId, List<DeviceDataChangedEvent> changes) {
+        if (deviceId == null || changes == null) {
+            throw new IllegalArgumentException("deviceId/changes must not be null");
+        }
+        for (DeviceDataChangedEvent change : changes) {
+            if (change == null || !deviceId.equals(change.getDeviceId())) {
+                throw new IllegalArgumentException("batch change must be non-null and belong to device " + deviceId);
+            }
+        }
+        this.deviceId = deviceId;
+        this.changes = Collections.unmodifiableList(new ArrayList<DeviceDataChangedEvent>(changes));
+    }
+
+    public String getDeviceId() { return deviceId; }
+
+    /** 本周期属性变化（只读，按发布顺序）。 */
+    public List<DeviceDataChangedEvent> getChanges() { return changes; }
+
+    public int size() { return changes.size(); }
+
+    public boolean isEmpty() { return changes.isEmpty(); }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus.event;
+
+import com.ecat.core.Device.DeviceStatus;
+
+/**
+ * 设备状态变化事件载体，由设备在 {@code DeviceBase.getDeviceStatus()} 的结果变化时发布（topic {@code device.status.changed}）。
+ * <p>界面/告警据此推送设备状态，不再轮询每台设备的 getDeviceStatus。
+ *
+ * @author coffee
+ */
+public final class DeviceStatusChangedEvent implements BusPayload {
+
+    private final String deviceId;
+    private final DeviceStatus oldStatus;
+    private final DeviceStatus newStatus;
+
+    public DeviceStatusChangedEvent(String deviceId, DeviceStatus oldStatus, DeviceStatus newStatus) {
+        if (deviceId == null || newStatus == null) {
+            throw new IllegalArgumentException("deviceId/newStatus must not be null");
+        }
+        this.deviceId = deviceId;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+    }
+
+    public String getDeviceId() { return deviceId; }
+    /** 上次发布的状态；设备首次发布时为 UNKNOWN。 */
+    public DeviceStatus getOldStatus() { return oldStatus; }
+    public DeviceStatus getNewStatus() { return newStatus; }
+
+    @Override
+    public String toString() {
+        return "DeviceStatusChangedEvent{" + deviceId + ", " + oldStatus + " -> " + newStatus + "}";
+    }
+}
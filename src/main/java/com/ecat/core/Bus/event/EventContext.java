@@ -1,6 +1,6 @@
 package com.ecat.core.Bus.event;
 
-import java.util.UUID;
+import com.ecat.core.Utils.IdGenerator;
 
 /**
  * 事件/状态变更的溯源上下文——贯穿 publish→event→state 链路。
@@ -10,6 +10,9 @@ import java.util.UUID;
  *
  * <p>source 标变更来源，便于审计与权限追溯；parentUuid 形成因果链，消费者重发布前可据此判断
  * "是否由自身触发"以避免循环（配合既有的逻辑绑定 DAG 无环结构性保证）。
+ *
+ * <p>uuid 由 {@link IdGenerator} 的 64 位有序 id 承载，字符串形态在首次读取时才格式化——
+ * 每次属性发布都会新建 context，避免 SecureRandom 与 36 字符字符串开销。
  */
 public final class EventContext {
 
@@ -24,19 +27,23 @@ public final class EventContext {
         /** 跨集成直写（告警联动断电/开风扇等）触发 */
         CROSS_INTEGRATION,
         /** 系统生命周期事件触发（集成加载、配置条目生命周期、异步任务、发现通知等无具体 actor 的事件） */
-        SYSTEM
+        SYSTEM,
+        /** 事件日志回放触发（压测/故障复盘重发布历史 device.data.update）；日志订阅者据此不重复记录 */
+        REPLAY
     }
 
-    private final String uuid;
+    private final long id;
+    // 惰性格式化；良性竞态，结果幂等
+    private String uuid;
     private final String parentUuid;
     private final Source source;
     private final String userId;
 
-    private EventContext(String uuid, String parentUuid, Source source, String userId) {
-        if (uuid == null || source == null) {
-            throw new IllegalArgumentException("uuid and source must not be null");
+    private EventContext(long id, String parentUuid, Source source, String userId) {
+        if (source == null) {
+            throw new IllegalArgumentException("source must not be null");
         }
-        this.uuid = uuid;
+        this.id = id;
         this.parentUuid = parentUuid;
         this.source = source;
         this.userId = userId;
@@ -44,16 +51,26 @@ public final class EventContext {
 
     /** 新建无父链的根 context——设备轮询、用户操作等变更起点的溯源。 */
     public static EventContext root(Source source, String userId) {
-        return new EventContext(UUID.randomUUID().toString(), null, source, userId);
+        return new EventContext(IdGenerator.getInstance().nextId(), null, source, userId);
     }
 
     /** 以 parent 为父链派生子 context——逻辑重发布时把收到的 context 作为父，形成因果链。 */
     public static EventContext chain(EventContext parent, Source source, String userId) {
-        return new EventContext(UUID.randomUUID().toString(),
+        return new EventContext(IdGenerator.getInstance().nextId(),
                 parent == null ? null : parent.getUuid(), source, userId);
     }
 
-    public String getUuid() { return uuid; }
+    public String getUuid() {
+        String u = uuid;
+        if (u == null) {
+            u = IdGenerator.format(id);
+            uuid = u;
+        }
+        return u;
+    }
+
+    /** 64 位有序 context id（{@link #getUuid()} 的数值形态）。 */
+    public long getId() { return id; }
     public String getParentUuid() { return parentUuid; }
     public Source getSource() { return source; }
     public String getUserId() { return userId; }
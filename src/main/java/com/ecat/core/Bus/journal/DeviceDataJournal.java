@@ -0,0 +1,221 @@
+package com.ecat.core.Bus.journal;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.ecat.core.Bus.BatchEventSubscriber;
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.Subscription;
+import com.ecat.core.Bus.consumer.AbstractBusConsumer;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.event.EventContext;
+
+/**
+ * device.data.update 事件日志——把每条属性变化紧凑编码后追加到滚动的内存映射段文件，供
+ * {@link JournalReplayer} 按时间段回放（压测、故障复盘）。
+ *
+ * <p><b>可选</b>：默认不装配；需要时构造后 {@link #attach(BusRegistry)}。作为 {@link BatchEventSubscriber}，
+ * 总线线程上只做一次入队（批次整包一个队列项），编码与写盘都在本 consumer 的独占线程里。
+ *
+ * <p><b>追加路径</b>：段文件预分配 {@code segmentBytes} 后整段 {@code READ_WRITE} 映射，追加只是对
+ * {@link MappedByteBuffer} 的相对写——无系统调用、无中间缓冲、无逐条分配（deviceId/attrId 的 UTF-8 字节有缓存）。
+ * 每条记录先写 body、最后回填长度前缀：进程崩溃时未写完的记录长度仍为 0，读端据此停在最后一条完整记录。
+ * 段剩余空间不够放下一条的上界时滚动到新段，文件名 {@code device-data-<20 位序号>.journal}，序号单调递增；
+ * 每次构造都从新段开始，不续写旧段。
+ *
+ * <p><b>持久性</b>：写入即进 OS 页缓存，进程崩溃不丢；段滚动与 {@link #shutdown()} 时 {@code force()} 落盘，
+ * 机器掉电最多丢当前段自上次落盘以来的记录。
+ *
+ * <p><b>防回环</b>：newState 的 context 来源为 {@link EventContext.Source#REPLAY} 的事件（即回放重发布的）不再记录。
+ *
+ * @author coffee
+ */
+public class DeviceDataJournal extends AbstractBusConsumer<BusEvent<?>> implements BatchEventSubscriber {
+
+    /** 默认段大小 64MB。 */
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    /** 段大小下限。 */
+    static final int MIN_SEGMENT_BYTES = 4096;
+    static final String SEGMENT_PREFIX = "device-data-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final int DEFAULT_CAPACITY = 65536;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final JournalCodec codec = new JournalCodec();
+
+    // 以下只由消费线程访问（shutdown 时在 worker 退出后由调用线程接手）
+    private MappedByteBuffer segment;
+    private long nextSequence = -1;
+    // 单写多读计数
+    private volatile long written;
+    private volatile long segmentsRolled;
+
+    public DeviceDataJournal(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param directory    段文件目录，不存在则创建
+     * @param segmentBytes 单段字节数，不小于 {@value #MIN_SEGMENT_BYTES}
+     * @param capacity     写线程队列容量（满则丢最旧）
+     */
+    public DeviceDataJournal(Path directory, int segmentBytes, int capacity) {
+        super("device-data-journal", capacity);
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("segmentBytes must be >= " + MIN_SEGMENT_BYTES + ": " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create journal directory: " + directory, e);
+        }
+    }
+
+    /** 订阅 device.data.update；返回的句柄用于取消订阅（取消后仍需 {@link #shutdown()} 落盘）。 */
+    public Subscription attach(BusRegistry registry) {
+        return registry.subscribe(BusTopic.DEVICE_DATA_UPDATE.getTopicName(), this);
+    }
+
+    @Override
+    public void handleEvent(BusEvent<?> event) {
+        onEvent(event);
+    }
+
+    @Override
+    public void handleBatch(BusEvent<DeviceDataBatchEvent> batch) {
+        onEvent(batch);
+    }
+
+    @Override
+    protected void consume(BusEvent<?> event) {
+        long firedAtMs = event.getFiredAt() == null ? System.currentTimeMillis() : event.getFiredAt().toEpochMilli();
+        Object payload = event.getPayload();
+        if (payload instanceof DeviceDataBatchEvent) {
+            for (DeviceDataChangedEvent change : ((DeviceDataBatchEvent) payload).getChanges()) {
+                append(firedAtMs, change);
+            }
+        } else if (payload instanceof DeviceDataChangedEvent) {
+            append(firedAtMs, (DeviceDataChangedEvent) payload);
+        }
+    }
+
+    private void append(long firedAtMs, DeviceDataChangedEvent change) {
+        if (change.getNewState() == null || isReplayed(change.getNewState().getContext())) {
+            return;
+        }
+        int required = 4 + JournalCodec.maxBodyBytes(change) + 4; // 长度前缀 + body + 段尾 0
+        if (required > segmentBytes - JournalCodec.HEADER_BYTES) {
+            log.warn("事件日志记录超过段大小，已跳过: device=" + change.getDeviceId() + ", attr=" + change.getAttrId());
+            return;
+        }
+        if (segment == null || segment.remaining() < required) {
+            roll();
+        }
+        int lengthPos = segment.position();
+        segment.position(lengthPos + 4);
+        int length = codec.encode(segment, firedAtMs, change);
+        segment.putInt(lengthPos, length);
+        written++;
+    }
+
+    private static boolean isReplayed(EventContext context) {
+        return context != null && context.getSource() == EventContext.Source.REPLAY;
+    }
+
+    /** 落盘并放下当前段，映射下一段。映射后立即关闭通道：映射在通道关闭后仍有效，之后的写入不受线程中断影响。 */
+    private void roll() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+            segmentsRolled++;
+        }
+        try {
+            if (nextSequence < 0) {
+                nextSequence = lastSequence(directory) + 1;
+            }
+            Path file = directory.resolve(segmentName(nextSequence++));
+            try {
+                segment = map(file);
+            } catch (ClosedByInterruptException e) {
+                // shutdown 的中断恰好打断了 map：清标志重试一次，写完这条后循环照常按中断退出
+                Thread.interrupted();
+                try {
+                    segment = map(file);
+                } finally {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open journal segment in " + directory, e);
+        }
+        segment.putInt(JournalCodec.MAGIC).putInt(JournalCodec.VERSION).putLong(System.currentTimeMillis());
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(segmentBytes);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    static String segmentName(long sequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    /** 目录中最大段序号；无段返回 -1。 */
+    static long lastSequence(Path directory) throws IOException {
+        List<Path> segments = JournalReader.listSegments(directory);
+        if (segments.isEmpty()) {
+            return -1;
+        }
+        String name = segments.get(segments.size() - 1).getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /** 停止写线程，把队列残留写完后落盘。 */
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        try {
+            awaitWorker(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (BusEvent<?> event : drainQueue()) {
+            try {
+                consume(event);
+            } catch (RuntimeException e) {
+                onConsumeError(event, e);
+            }
+        }
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    public Path getDirectory() { return directory; }
+
+    /** 已写入的记录数（批次按条计）。 */
+    public long getWrittenCount() { return written; }
+
+    /** 已写满滚动掉的段数。 */
+    public long getSegmentsRolled() { return segmentsRolled; }
+}
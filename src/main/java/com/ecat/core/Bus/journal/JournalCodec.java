@@ -0,0 +1,201 @@
+package com.ecat.core.Bus.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.State.AttrState;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.UnitInfo;
+import com.ecat.core.State.Unit.UnitInfoFactory;
+
+/**
+ * 事件日志的二进制编解码——段文件头 + 变长记录，定长字段按 ByteBuffer 默认的大端序。
+ *
+ * <pre>
+ * 段头  : int MAGIC | int VERSION | long createdEpochMs                      （{@value #HEADER_BYTES} 字节）
+ * 记录  : int bodyLength（0 = 段内数据结束）| body
+ * body  : long firedAtMs | str deviceId | str attrId | byte valueTag + value | int statusCode
+ *         | long lastUpdatedMs | long lastChangedMs | byte displayPrecision | byte contextSource
+ *         | str displayValue | str nativeUnit | str displayUnit
+ * str   : int byteLength（-1 = null）+ UTF-8 字节
+ * </pre>
+ * 值按类型打 tag 原样保存（Double/Float/Integer/Long/Boolean/String/Instant）；其余类型按 toString 存为字符串。
+ * 不存 oldState 与 EventContext 的 uuid 链——回放时 oldState 由回放器按 (deviceId, attrId) 的上一条重建，
+ * context 为新的 REPLAY 根 context。
+ *
+ * <p>编码侧只由日志写线程使用（deviceId/attrId 的 UTF-8 字节有界缓存无需同步）；解码为纯函数。
+ *
+ * @author coffee
+ */
+final class JournalCodec {
+
+    static final int MAGIC = 0x45434A31; // "ECJ1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_DOUBLE = 1;
+    private static final byte TAG_FLOAT = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_BOOLEAN = 5;
+    private static final byte TAG_STRING = 6;
+    private static final byte TAG_INSTANT = 7;
+
+    /** deviceId/attrId 等高重复字符串的 UTF-8 字节缓存上限。 */
+    private static final int MAX_CACHED_STRINGS = 8192;
+    private final Map<String, byte[]> utf8Cache = new HashMap<String, byte[]>();
+
+    /** 把一条变化编码为 body 写入 out（不含 4 字节长度前缀），返回 body 字节数。 */
+    int encode(ByteBuffer out, long firedAtMs, DeviceDataChangedEvent event) {
+        AttrState<?> s = event.getNewState();
+        int start = out.position();
+        out.putLong(firedAtMs);
+        putCached(out, event.getDeviceId());
+        putCached(out, event.getAttrId());
+        putValue(out, s.getValue());
+        out.putInt(s.getStatus().getId());
+        out.putLong(s.getLastUpdated() == null ? NULL_TIME : s.getLastUpdated().toEpochMilli());
+        out.putLong(s.getLastChanged() == null ? NULL_TIME : s.getLastChanged().toEpochMilli());
+        out.put((byte) s.getDisplayPrecision());
+        out.put((byte) (s.getContext() == null ? EventContext.Source.SYSTEM.ordinal() : s.getContext().getSource().ordinal()));
+        putString(out, s.getDisplayValue());
+        putString(out, s.getNativeUnit() == null ? null : s.getNativeUnit().getFullUnitString());
+        putString(out, s.getDisplayUnit() == null ? null : s.getDisplayUnit().getFullUnitString());
+        return out.position() - start;
+    }
+
+    /** 估算 body 上界：定长部分 + 各字符串按每字符最多 3 字节。 */
+    static int maxBodyBytes(DeviceDataChangedEvent event) {
+        AttrState<?> s = event.getNewState();
+        int n = 8 + 1 + 9 + 4 + 8 + 8 + 1 + 1;
+        n += maxStr(event.getDeviceId()) + maxStr(event.getAttrId()) + maxStr(s.getDisplayValue());
+        n += maxStr(s.getNativeUnit() == null ? null : s.getNativeUnit().getFullUnitString());
+        n += maxStr(s.getDisplayUnit() == null ? null : s.getDisplayUnit().getFullUnitString());
+        Object v = s.getValue();
+        if (v != null && !(v instanceof Number) && !(v instanceof Boolean) && !(v instanceof Instant)) {
+            n += maxStr(String.valueOf(v));
+        }
+        return n;
+    }
+
+    private static int maxStr(String s) {
+        return 4 + (s == null ? 0 : s.length() * 3);
+    }
+
+    private void putValue(ByteBuffer out, Object v) {
+        if (v == null) {
+            out.put(TAG_NULL);
+        } else if (v instanceof Double) {
+            out.put(TAG_DOUBLE).putDouble((Double) v);
+        } else if (v instanceof Float) {
+            out.put(TAG_FLOAT).putFloat((Float) v);
+        } else if (v instanceof Integer || v instanceof Short || v instanceof Byte) {
+            out.put(TAG_INT).putInt(((Number) v).intValue());
+        } else if (v instanceof Long) {
+            out.put(TAG_LONG).putLong((Long) v);
+        } else if (v instanceof Boolean) {
+            out.put(TAG_BOOLEAN).put((byte) (((Boolean) v) ? 1 : 0));
+        } else if (v instanceof Instant) {
+            out.put(TAG_INSTANT).putLong(((Instant) v).toEpochMilli());
+        } else {
+            out.put(TAG_STRING);
+            putString(out, String.valueOf(v));
+        }
+    }
+
+    private void putCached(ByteBuffer out, String s) {
+        byte[] bytes = utf8Cache.get(s);
+        if (bytes == null) {
+            bytes = s.getBytes(StandardCharsets.UTF_8);
+            if (utf8Cache.size() < MAX_CACHED_STRINGS) {
+                utf8Cache.put(s, bytes);
+            }
+        }
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    private static void putString(ByteBuffer out, String s) {
+        if (s == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    // ========== 解码 ==========
+
+    /** 解码一条 body 为 newState；firedAtMs 由调用方先行读取供时间过滤，context 由调用方传入（回放用 REPLAY 根 context）。 */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static AttrState<?> decode(ByteBuffer in, EventContext context) {
+        in.getLong(); // firedAtMs，调用方已先行读取
+        String deviceId = getString(in);
+        String attrId = getString(in);
+        Object value = null;
+        Class<?> valueType = null;
+        byte tag = in.get();
+        switch (tag) {
+            case TAG_DOUBLE: value = in.getDouble(); valueType = Double.class; break;
+            case TAG_FLOAT: value = in.getFloat(); valueType = Float.class; break;
+            case TAG_INT: value = in.getInt(); valueType = Integer.class; break;
+            case TAG_LONG: value = in.getLong(); valueType = Long.class; break;
+            case TAG_BOOLEAN: value = in.get() != 0; valueType = Boolean.class; break;
+            case TAG_INSTANT: value = Instant.ofEpochMilli(in.getLong()); valueType = Instant.class; break;
+            case TAG_STRING: value = getString(in); valueType = String.class; break;
+            case TAG_NULL: break;
+            default: throw new IllegalStateException("未知日志值类型 tag: " + tag);
+        }
+        AttributeStatus status = AttributeStatus.fromId(in.getInt());
+        long lastUpdated = in.getLong();
+        long lastChanged = in.getLong();
+        int precision = in.get();
+        in.get(); // 原始 context source：回放统一使用传入的 REPLAY context
+        String displayValue = getString(in);
+        UnitInfo nativeUnit = unitOf(getString(in));
+        UnitInfo displayUnit = unitOf(getString(in));
+
+        return AttrState.builder()
+                .deviceId(deviceId)
+                .attrId(attrId)
+                .value(value)
+                .valueType((Class) valueType)
+                .status(status == null ? AttributeStatus.EMPTY : status)
+                .nativeUnit(nativeUnit)
+                .displayUnit(displayUnit)
+                .displayPrecision(precision)
+                .displayValue(displayValue)
+                .lastUpdated(lastUpdated == NULL_TIME ? null : Instant.ofEpochMilli(lastUpdated))
+                .lastChanged(lastChanged == NULL_TIME ? null : Instant.ofEpochMilli(lastChanged))
+                .context(context)
+                .build();
+    }
+
+    private static String getString(ByteBuffer in) {
+        int len = in.getInt();
+        if (len < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[len];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static UnitInfo unitOf(String fullName) {
+        if (fullName == null) {
+            return null;
+        }
+        try {
+            return UnitInfoFactory.getEnum(fullName);
+        } catch (RuntimeException e) {
+            return null; // 单位类已不存在：回放只丢单位，不丢记录
+        }
+    }
+}
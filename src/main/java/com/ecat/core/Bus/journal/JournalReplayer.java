@@ -0,0 +1,86 @@
+package com.ecat.core.Bus.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.State.AttrState;
+
+/**
+ * 事件日志回放——把一段时间内记录的 device.data.update 按原始节奏（1x）、N 倍速或不限速重新发布到
+ * {@link BusRegistry}，用于压测与故障复盘。
+ *
+ * <p><b>节奏</b>：第 i 条在墙钟 {@code w0 + (t_i - t_0) / speed} 时发布（t 为记录的 firedAt），按绝对目标时间
+ * 睡眠而非累加间隔，发布本身的耗时不会让回放越来越慢；落后时不补睡、直接追。{@link #MAX_SPEED} 不睡眠。
+ *
+ * <p><b>重建内容</b>：日志不存 oldState，回放按 (deviceId, attrId) 取区间内上一条作为 oldState，区间内首条为 null
+ * （与设备启动后首次上报一致）。信封与 newState 的 context 均为 {@link com.ecat.core.Bus.event.EventContext.Source#REPLAY}，
+ * 挂在同一总线上的 {@link DeviceDataJournal} 不会把回放再记一遍。
+ *
+ * <p>回放在调用线程上同步进行；调用线程被中断时停止并保留中断标志。
+ *
+ * @author coffee
+ */
+public final class JournalReplayer {
+
+    /** 不限速回放。 */
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    private final JournalReader reader;
+
+    public JournalReplayer(Path directory) {
+        this.reader = new JournalReader(directory);
+    }
+
+    /**
+     * 回放 firedAt 落在 [from, to) 的记录。
+     *
+     * @param speed 倍速：1 为原始节奏，&gt;1 加快，{@link #MAX_SPEED} 不限速；必须为正
+     * @return 发布的事件数
+     */
+    public long replay(BusRegistry registry, Instant from, Instant to, double speed) throws IOException {
+        if (registry == null || from == null || to == null) {
+            throw new IllegalArgumentException("registry/from/to must not be null");
+        }
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("speed must be > 0: " + speed);
+        }
+        final String topic = BusTopic.DEVICE_DATA_UPDATE.getTopicName();
+        final boolean paced = !Double.isInfinite(speed);
+        final Map<String, AttrState<?>> previous = new HashMap<String, AttrState<?>>();
+        final long[] origin = {Long.MIN_VALUE, 0}; // {t0 firedAtMs, w0 nanoTime}
+        final long[] published = {0};
+
+        reader.scan(from.toEpochMilli(), to.toEpochMilli(), (firedAtMs, state) -> {
+            if (paced) {
+                if (origin[0] == Long.MIN_VALUE) {
+                    origin[0] = firedAtMs;
+                    origin[1] = System.nanoTime();
+                }
+                long target = origin[1] + (long) (TimeUnit.MILLISECONDS.toNanos(firedAtMs - origin[0]) / speed);
+                long wait;
+                while ((wait = target - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.currentThread().isInterrupted()) {
+                        return false;
+                    }
+                }
+            }
+            String key = state.getDeviceId() + '\u0000' + state.getAttrId();
+            AttrState<?> old = previous.put(key, state);
+            DeviceDataChangedEvent change = new DeviceDataChangedEvent(state.getDeviceId(), state.getAttrId(), old, state);
+            registry.publish(BusEvent.of(topic, change, state.getContext()));
+            published[0]++;
+            return !Thread.currentThread().isInterrupted();
+        });
+        return published[0];
+    }
+}
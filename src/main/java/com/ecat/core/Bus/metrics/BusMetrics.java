@@ -0,0 +1,345 @@
+package com.ecat.core.Bus.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 总线计量——按 topic 的发布速率与扇出耗时、按订阅者的处理耗时直方图与异常数、按 consumer 的队列深度/排队时长/
+ * 丢弃速率，统一经本类查询，供容量规划看分位数而不是翻慢订阅者 error 日志。
+ *
+ * <p><b>归属</b>：topic 与订阅者计量属于某个 {@code BusRegistry}（经 {@code BusRegistry.getMetrics()} 取）；consumer
+ * 计量是进程级的——consumer 构造时登记、shutdown 时注销，任一 BusMetrics 实例的 {@link #getConsumerStats()} 都能查到。
+ *
+ * <p><b>订阅者按实例计量</b>：每个订阅者实例一条（以实现类名为标签，同类多实例各自成条、名称相同），
+ * 由 {@code BusRegistry} 在订阅时登记、该实例的最后一个订阅取消时注销，条数以存活订阅者数为界。
+ * topic 数超过 {@value #MAX_TOPICS} 后，新 topic 计入 {@link #OTHER_TOPIC}，防止任意 topic 字符串撑爆内存。
+ *
+ * <p>记录路径只有一次 ConcurrentHashMap 查找 + 原子自增，不加锁、不分配；可用 {@code -Decat.bus.metrics=false}
+ * 整体关闭（{@link #isEnabled()}）。带 record/mark 的方法是总线内部的记录入口，业务代码只用查询方法。
+ *
+ * @author coffee
+ */
+public final class BusMetrics {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("ecat.bus.metrics", "true"));
+
+    /** 单个 BusMetrics 最多单独计量的 topic 数。 */
+    static final int MAX_TOPICS = 1024;
+    /** 超出 topic 上限后的聚合桶名。 */
+    public static final String OTHER_TOPIC = "*other*";
+
+    /** 进程内存活的 consumer 计量（构造登记、shutdown 注销）。 */
+    private static final Set<ConsumerMetrics> CONSUMERS = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentHashMap<String, TopicMetrics> topics = new ConcurrentHashMap<String, TopicMetrics>();
+    private final Set<SubscriberMetrics> subscribers = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<String, LongSupplier>();
+
+    /** 计量是否开启（{@code -Decat.bus.metrics}，默认开启）。 */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // ========== 记录入口（总线内部） ==========
+
+    /** 取（或建）topic 计量。 */
+    public TopicMetrics topic(String topic) {
+        TopicMetrics m = topics.get(topic);
+        if (m != null) {
+            return m;
+        }
+        String key = topics.size() < MAX_TOPICS ? topic : OTHER_TOPIC;
+        return topics.computeIfAbsent(key, TopicMetrics::new);
+    }
+
+    /**
+     * 为一个订阅者实例登记计量，以其实现类名为标签；调用方按实例持有返回值，取消订阅时 {@link #unregisterSubscriber}。
+     */
+    public SubscriberMetrics registerSubscriber(Object subscriber) {
+        SubscriberMetrics m = new SubscriberMetrics(subscriber == null ? "null" : subscriber.getClass().getName());
+        if (ENABLED) {
+            subscribers.add(m);
+        }
+        return m;
+    }
+
+    public void unregisterSubscriber(SubscriberMetrics m) {
+        subscribers.remove(m);
+    }
+
+    /**
+     * 登记一个 consumer 的计量源；由 consumer 基类构造时调用，shutdown 时 {@link ConsumerMetrics#unregister()}。
+     */
+    public static ConsumerMetrics registerConsumer(String name, IntSupplier queueSize, LongSupplier processed,
+                                                   LongSupplier dropped) {
+        ConsumerMetrics m = new ConsumerMetrics(name, queueSize, processed, dropped);
+        if (ENABLED) {
+            CONSUMERS.add(m);
+        }
+        return m;
+    }
+
+    /**
+     * 登记一个读时求值的计量（如状态内存占用），同名覆盖；查询时才调用 supplier，不在记录路径上。
+     */
+    public void registerGauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public void unregisterGauge(String name) {
+        gauges.remove(name);
+    }
+
+    // ========== 查询 ==========
+
+    /** 所有登记计量的当前值，按名称排序；单个求值失败时跳过。 */
+    public Map<String, Long> getGauges() {
+        Map<String, Long> out = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongSupplier> e : gauges.entrySet()) {
+            try {
+                out.put(e.getKey(), e.getValue().getAsLong());
+            } catch (RuntimeException ignored) {
+                // 计量求值失败不影响其它计量
+            }
+        }
+        return out;
+    }
+
+    /** 所有 topic 的计量快照，按 topic 名排序。 */
+    public List<TopicStats> getTopicStats() {
+        List<TopicStats> out = new ArrayList<TopicStats>(topics.size());
+        for (TopicMetrics m : topics.values()) {
+            out.add(m.snapshot());
+        }
+        Collections.sort(out, Comparator.comparing(TopicStats::getTopic));
+        return out;
+    }
+
+    /** 单个 topic 的计量快照；从未发布过返回 null。 */
+    public TopicStats getTopicStats(String topic) {
+        TopicMetrics m = topics.get(topic);
+        return m == null ? null : m.snapshot();
+    }
+
+    /** 所有订阅者的计量快照，按 p99 降序（最慢的在前）。 */
+    public List<SubscriberStats> getSubscriberStats() {
+        List<SubscriberStats> out = new ArrayList<SubscriberStats>(subscribers.size());
+        for (SubscriberMetrics m : subscribers) {
+            out.add(m.snapshot());
+        }
+        Collections.sort(out, (a, b) -> Long.compare(b.getLatency().getP99Nanos(), a.getLatency().getP99Nanos()));
+        return out;
+    }
+
+    /** 进程内所有存活 consumer 的计量快照，按名称排序。 */
+    public List<ConsumerStats> getConsumerStats() {
+        List<ConsumerStats> out = new ArrayList<ConsumerStats>(CONSUMERS.size());
+        for (ConsumerMetrics m : CONSUMERS) {
+            out.add(m.snapshot());
+        }
+        Collections.sort(out, Comparator.comparing(ConsumerStats::getName));
+        return out;
+    }
+
+    /** 按名称查单个存活 consumer；不存在返回 null。 */
+    public ConsumerStats getConsumerStats(String name) {
+        for (ConsumerMetrics m : CONSUMERS) {
+            if (m.name.equals(name)) {
+                return m.snapshot();
+            }
+        }
+        return null;
+    }
+
+    // ========== 计量持有者 ==========
+
+    /** topic 计量：发布速率 + 扇出耗时（一次 publish 对全部匹配订阅者的同步调用总耗时）。 */
+    public static final class TopicMetrics {
+        private final String topic;
+        private final RateMeter published = new RateMeter();
+        private final LatencyHistogram fanout = new LatencyHistogram();
+
+        TopicMetrics(String topic) {
+            this.topic = topic;
+        }
+
+        public void markPublished(long events) {
+            published.mark(events);
+        }
+
+        public void recordFanout(long nanos) {
+            fanout.record(nanos);
+        }
+
+        TopicStats snapshot() {
+            return new TopicStats(topic, published.getCount(), published.getOneMinuteRate(),
+                    published.getMeanRate(), fanout.snapshot());
+        }
+    }
+
+    /** 订阅者计量：单次 handleEvent/handleBatch 耗时直方图 + 抛异常次数。 */
+    public static final class SubscriberMetrics {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        SubscriberMetrics(String name) {
+            this.name = name;
+        }
+
+        public void recordLatency(long nanos) {
+            latency.record(nanos);
+        }
+
+        public void markError() {
+            errors.increment();
+        }
+
+        SubscriberStats snapshot() {
+            return new SubscriberStats(name, latency.snapshot(), errors.sum());
+        }
+    }
+
+    /** consumer 计量：排队时长、consume/flush 耗时直方图、丢弃速率；深度与累计计数经回调取自 consumer 本身。 */
+    public static final class ConsumerMetrics {
+        private final String name;
+        private final IntSupplier queueSize;
+        private final LongSupplier processed;
+        private final LongSupplier dropped;
+        private final RateMeter drops = new RateMeter();
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram consumeLatency = new LatencyHistogram();
+
+        ConsumerMetrics(String name, IntSupplier queueSize, LongSupplier processed, LongSupplier dropped) {
+            this.name = name;
+            this.queueSize = queueSize;
+            this.processed = processed;
+            this.dropped = dropped;
+        }
+
+        public void markDropped() {
+            drops.mark();
+        }
+
+        public void recordQueueWait(long nanos) {
+            queueWait.record(nanos);
+        }
+
+        public void recordConsume(long nanos) {
+            consumeLatency.record(nanos);
+        }
+
+        /** consumer 停服时注销，之后不再出现在查询结果里。 */
+        public void unregister() {
+            CONSUMERS.remove(this);
+        }
+
+        ConsumerStats snapshot() {
+            return new ConsumerStats(name, queueSize.getAsInt(), processed.getAsLong(), dropped.getAsLong(),
+                    drops.getOneMinuteRate(), queueWait.snapshot(), consumeLatency.snapshot());
+        }
+    }
+
+    // ========== 快照 ==========
+
+    /** topic 快照：累计发布数、1 分钟/平均发布速率（条/秒）、扇出耗时分布。 */
+    public static final class TopicStats {
+        private final String topic;
+        private final long published;
+        private final double oneMinuteRate;
+        private final double meanRate;
+        private final LatencyHistogram.Snapshot fanout;
+
+        TopicStats(String topic, long published, double oneMinuteRate, double meanRate,
+                   LatencyHistogram.Snapshot fanout) {
+            this.topic = topic;
+            this.published = published;
+            this.oneMinuteRate = oneMinuteRate;
+            this.meanRate = meanRate;
+            this.fanout = fanout;
+        }
+
+        public String getTopic() { return topic; }
+        public long getPublished() { return published; }
+        public double getOneMinuteRate() { return oneMinuteRate; }
+        public double getMeanRate() { return meanRate; }
+        public LatencyHistogram.Snapshot getFanout() { return fanout; }
+
+        @Override
+        public String toString() {
+            return "TopicStats{topic=" + topic + ", published=" + published + ", rate1m=" + oneMinuteRate
+                    + ", fanout=[" + fanout + "]}";
+        }
+    }
+
+    /** 订阅者快照：处理耗时分布与异常次数。 */
+    public static final class SubscriberStats {
+        private final String name;
+        private final LatencyHistogram.Snapshot latency;
+        private final long errors;
+
+        SubscriberStats(String name, LatencyHistogram.Snapshot latency, long errors) {
+            this.name = name;
+            this.latency = latency;
+            this.errors = errors;
+        }
+
+        public String getName() { return name; }
+        public LatencyHistogram.Snapshot getLatency() { return latency; }
+        public long getErrors() { return errors; }
+
+        @Override
+        public String toString() {
+            return "SubscriberStats{name=" + name + ", errors=" + errors + ", latency=[" + latency + "]}";
+        }
+    }
+
+    /**
+     * consumer 快照：当前队列深度、累计 processed/dropped、1 分钟丢弃速率（条/秒）、排队时长与 consume/flush 耗时分布。
+     * 排队时长为入队到被消费线程取出的时长，对任意事件类型可得；合并型 consumer 为 key 变脏到被处理的时长。
+     */
+    public static final class ConsumerStats {
+        private final String name;
+        private final int queueSize;
+        private final long processed;
+        private final long dropped;
+        private final double dropRate;
+        private final LatencyHistogram.Snapshot queueWait;
+        private final LatencyHistogram.Snapshot consumeLatency;
+
+        ConsumerStats(String name, int queueSize, long processed, long dropped, double dropRate,
+                      LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot consumeLatency) {
+            this.name = name;
+            this.queueSize = queueSize;
+            this.processed = processed;
+            this.dropped = dropped;
+            this.dropRate = dropRate;
+            this.queueWait = queueWait;
+            this.consumeLatency = consumeLatency;
+        }
+
+        public String getName() { return name; }
+        public int getQueueSize() { return queueSize; }
+        public long getProcessed() { return processed; }
+        public long getDropped() { return dropped; }
+        public double getDropRate() { return dropRate; }
+        public LatencyHistogram.Snapshot getQueueWait() { return queueWait; }
+        public LatencyHistogram.Snapshot getConsumeLatency() { return consumeLatency; }
+
+        @Override
+        public String toString() {
+            return "ConsumerStats{name=" + name + ", queueSize=" + queueSize + ", processed=" + processed
+                    + ", dropped=" + dropped + ", dropRate1m=" + dropRate + ", queueWait=[" + queueWait
+                    + "], consume=[" + consumeLatency + "]}";
+        }
+    }
+}
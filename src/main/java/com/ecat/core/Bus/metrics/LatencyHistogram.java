@@ -0,0 +1,136 @@
+package com.ecat.core.Bus.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁对数-线性延迟直方图（HDR 风格）——记录纳秒值，按固定相对精度分桶，可随时取分位数快照。
+ *
+ * <p><b>分桶</b>：小于 {@value #SUB_BUCKETS} ns 的值逐一精确计数；更大的值按最高位所在的 2 的幂区间再均分为
+ * {@value #SUB_BUCKETS} 个线性子桶，相对误差 &lt; 1/{@value #SUB_BUCKETS}（约 3%）。上限约 2^40 ns（≈18 分钟），
+ * 超出按上限计。桶数固定（约 1.2k 个计数槽），记录只是一次数组下标计算 + 原子自增，不分配对象。
+ *
+ * <p>分位数取所在桶的上界（不超过观测最大值），即「不低于真实值」的保守估计，与 HdrHistogram 的
+ * highestEquivalentValue 口径一致。
+ *
+ * @author coffee
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /** 可记录的最高位（含）：2^40 ns ≈ 18.3 分钟。 */
+    private static final int MAX_MSB = 40;
+    private static final long MAX_VALUE = (1L << (MAX_MSB + 1)) - 1;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_MSB - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /** 记录一个纳秒值；负值按 0 计。 */
+    public void record(long nanos) {
+        long v = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.incrementAndGet(indexOf(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        long m;
+        while (v > (m = max.get())) {
+            if (max.compareAndSet(m, v)) {
+                break;
+            }
+        }
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int shift = msb - SUB_BITS;
+        int sub = (int) (v >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    /** 桶的上界（含）。 */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /** 取快照：复制各桶计数后计算；与并发 record 之间只保证近似一致。 */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long maxNanos = max.get();
+        return new Snapshot(total, total == 0 ? 0 : sum.get() / Math.max(1, count.get()), maxNanos,
+                percentile(copy, total, 0.50, maxNanos),
+                percentile(copy, total, 0.90, maxNanos),
+                percentile(copy, total, 0.99, maxNanos),
+                percentile(copy, total, 0.999, maxNanos));
+    }
+
+    private static long percentile(long[] copy, long total, double q, long maxNanos) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * q);
+        long seen = 0;
+        for (int i = 0; i < copy.length; i++) {
+            seen += copy[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /** 直方图快照（纳秒）。 */
+    public static final class Snapshot {
+        private final long count;
+        private final long meanNanos;
+        private final long maxNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+
+        Snapshot(long count, long meanNanos, long maxNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+                 long p999Nanos) {
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.maxNanos = maxNanos;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+        }
+
+        public long getCount() { return count; }
+        public long getMeanNanos() { return meanNanos; }
+        public long getMaxNanos() { return maxNanos; }
+        public long getP50Nanos() { return p50Nanos; }
+        public long getP90Nanos() { return p90Nanos; }
+        public long getP99Nanos() { return p99Nanos; }
+        public long getP999Nanos() { return p999Nanos; }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + meanNanos + "ns, p50=" + p50Nanos + "ns, p90=" + p90Nanos
+                    + "ns, p99=" + p99Nanos + "ns, p999=" + p999Nanos + "ns, max=" + maxNanos + "ns";
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecat.core.Bus.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 速率计——累计计数 + 1 分钟指数加权移动平均速率（每 5 秒一个 tick，与 Unix load average 同一算法）+ 启动以来平均速率。
+ *
+ * <p>无后台线程：tick 在 {@link #mark} 或读取时按经过的时间惰性补齐，CAS 保证同一 tick 只结算一次。
+ *
+ * @author coffee
+ */
+public final class RateMeter {
+
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final double TICK_SECONDS = 5.0;
+    private static final double ALPHA_1M = 1 - Math.exp(-TICK_SECONDS / 60.0);
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder uncounted = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong lastTick = new AtomicLong(startNanos);
+    private volatile double oneMinuteRate;
+    private volatile boolean initialized;
+
+    public void mark() {
+        mark(1);
+    }
+
+    public void mark(long n) {
+        tickIfNecessary();
+        total.add(n);
+        uncounted.add(n);
+    }
+
+    private void tickIfNecessary() {
+        long old = lastTick.get();
+        long now = System.nanoTime();
+        long age = now - old;
+        if (age > TICK_NANOS) {
+            long newTick = now - age % TICK_NANOS;
+            if (lastTick.compareAndSet(old, newTick)) {
+                long ticks = age / TICK_NANOS;
+                for (long i = 0; i < ticks; i++) {
+                    tick();
+                }
+            }
+        }
+    }
+
+    private synchronized void tick() {
+        double instantRate = uncounted.sumThenReset() / TICK_SECONDS;
+        if (initialized) {
+            oneMinuteRate += ALPHA_1M * (instantRate - oneMinuteRate);
+        } else {
+            oneMinuteRate = instantRate;
+            initialized = true;
+        }
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    /** 1 分钟 EWMA 速率（次/秒）；首个 5 秒 tick 之前为 0。 */
+    public double getOneMinuteRate() {
+        tickIfNecessary();
+        return oneMinuteRate;
+    }
+
+    /** 自创建以来的平均速率（次/秒）。 */
+    public double getMeanRate() {
+        long elapsed = System.nanoTime() - startNanos;
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return getCount() / (elapsed / 1e9);
+    }
+}
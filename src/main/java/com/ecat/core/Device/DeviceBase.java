@@ -17,24 +17,36 @@
 package com.ecat.core.Device;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import lombok.Getter;
 import lombok.Setter;
 
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.event.DeviceStatusChangedEvent;
+import com.ecat.core.Bus.event.EventContext;
 import com.ecat.core.ConfigEntry.ConfigEntry;
 import com.ecat.core.EcatCore;
 import com.ecat.core.I18n.I18nProxy;
 import com.ecat.core.I18n.I18nHelper;
 import com.ecat.core.I18n.I18nKeyPath;
 import com.ecat.core.Integration.IntegrationBase;
-import com.ecat.core.State.AttrState;
 import com.ecat.core.State.AttributeBase;
+import com.ecat.core.State.AttributeHistory;
 import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.PublishPolicy;
+import com.ecat.core.Utils.EcatClock;
+import com.ecat.core.Utils.HashedTimingWheel;
 import com.ecat.core.Utils.LogFactory;
 import com.ecat.core.Utils.Log;
 
@@ -111,18 +123,57 @@ public abstract class DeviceBase implements DeviceControl {
     protected DeviceClasses deviceClass;
     protected DeviceStatus deviceStatus;
 
+    /** 在线判断窗口：最近一次属性更新距今不超过该时长视为在线（NORMAL）。 */
+    public static final long ONLINE_WINDOW_MS = 60_000L;
+
+    // 属性状态增量计数（按设备状态分桶 + 最近更新时刻），由属性状态变化调入维护
+    private final DeviceStatusTracker statusTracker = new DeviceStatusTracker();
+    // 待异步重算发布（合并多次变化）
+    private final AtomicBoolean statusDirty = new AtomicBoolean();
+    // 在线窗口过期 / 通讯中断检测定时器（共享时间轮，到期核对最近更新时刻后顺延或判定）
+    private final IdleTimer onlineTimer = new IdleTimer(false);
+    private final IdleTimer commLossTimer = new IdleTimer(true);
+    // 通讯中断超时（毫秒，≤0 不启用）；超时未收到任何属性数据时 commLost 置位，设备状态为 OFFLINE
+    private volatile long commLossTimeoutMs;
+    private volatile boolean commLost;
+    // 上次经总线发布的设备状态
+    private DeviceStatus publishedStatus = DeviceStatus.UNKNOWN;
+    private final Object statusPublishLock = new Object();
+
+    /** 覆写了 computeDeviceStatus/getDeviceStatus 的设备类：其结果可能依赖属性值，任一属性变化都需重算。 */
+    private static final ClassValue<Boolean> CUSTOM_STATUS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != null && c != DeviceBase.class; c = c.getSuperclass()) {
+                for (java.lang.reflect.Method m : c.getDeclaredMethods()) {
+                    if (m.getParameterCount() == 0
+                            && (m.getName().equals("computeDeviceStatus") || m.getName().equals("getDeviceStatus"))) {
+                        return Boolean.TRUE;
+                    }
+                }
+            }
+            return Boolean.FALSE;
+        }
+    };
+
     /**
      * 获取设备状态。
      *
-     * <p>采用懒计算机制：每次调用时通过 {@link #computeDeviceStatus()} 重新计算。
+     * <p>每次调用通过 {@link #computeDeviceStatus()} 计算；默认算法读增量维护的计数，O(1)，不遍历属性。
      * 子类可覆写 {@code computeDeviceStatus()} 实现自定义状态聚合逻辑。
      *
+     * <p>通讯中断（见 {@link #setCommLossTimeout}）期间固定为 {@link DeviceStatus#OFFLINE}，优先于计算结果。
+     *
      * <p>如果子类自行管理 deviceStatus 字段（如直接赋值），可覆写此方法直接返回 {@code this.deviceStatus}，
      * 跳过计算逻辑，保持向后兼容。
      *
      * @return 当前设备状态
      */
     public DeviceStatus getDeviceStatus() {
+        if (commLost) {
+            this.deviceStatus = DeviceStatus.OFFLINE;
+            return this.deviceStatus;
+        }
         DeviceStatus computed = computeDeviceStatus();
         if (computed != null) {
             this.deviceStatus = computed;
@@ -131,14 +182,16 @@ public abstract class DeviceBase implements DeviceControl {
     }
 
     /**
-     * 从属性状态懒计算设备状态（通用算法）。
+     * 从属性状态计算设备状态（通用算法）。
      *
      * <p>通用计算逻辑（按优先级）：
      * <ol>
-     *   <li><b>最严重的属性状态</b>：遍历所有属性，找到最严重的 AttributeStatus，映射为 DeviceStatus</li>
-     *   <li><b>在线判断</b>：如果有属性在近期更新过（60秒内），视为 NORMAL</li>
+     *   <li><b>最严重的属性状态</b>：各属性当前可见状态经 {@link #mapAttributeStatusToDeviceStatus} 映射后取最严重者；
+     *       同级按 MAINTENANCE 先于 CALIBRATION、WARM_UP 先于 DIAGNOSTIC/RECOVERY、NORMAL 先于 MEASURE</li>
+     *   <li><b>在线判断</b>：如果有属性在近期更新过（{@link #ONLINE_WINDOW_MS} 内），视为 NORMAL</li>
      *   <li><b>离线/未知</b>：无任何数据更新 → UNKNOWN</li>
      * </ol>
+     * 计数由属性状态变化增量维护（见 {@link #attrStatusChanged}），此处只读计数与最近更新时刻。
      *
      * <p>子类可覆写此方法实现自定义逻辑。参考：
      * <ul>
@@ -153,14 +206,15 @@ public abstract class DeviceBase implements DeviceControl {
             return DeviceStatus.UNKNOWN;
         }
 
-        // Priority 1: 扫描所有属性，找到最严重的 AttributeStatus
-        DeviceStatus worstFromAttrs = scanWorstAttributeStatus();
-        if (worstFromAttrs != null && worstFromAttrs != DeviceStatus.UNKNOWN) {
+        // Priority 1: 最严重的属性状态
+        DeviceStatus worstFromAttrs = statusTracker.worst();
+        if (worstFromAttrs != null) {
             return worstFromAttrs;
         }
 
         // Priority 2: 在线判断 — 有近期更新数据则为 NORMAL
-        if (hasRecentUpdate()) {
+        long last = statusTracker.getLastUpdateMs();
+        if (last > 0 && EcatClock.currentTimeMillis() - last < ONLINE_WINDOW_MS) {
             return DeviceStatus.NORMAL;
         }
 
@@ -169,68 +223,162 @@ public abstract class DeviceBase implements DeviceControl {
     }
 
     /**
-     * 扫描所有属性，找到最严重的 AttributeStatus 并映射为 DeviceStatus。
+     * 属性可见状态变化（由 {@link AttributeBase} 在 updateValue/setStatus/restore 等处调入，用户侧不需要调用）。
+     *
+     * <p>更新分桶计数与最近更新时刻；聚合结果可能变化时，若设备已接入总线则异步重算并在变化时发布
+     * {@link BusTopic#DEVICE_STATUS_CHANGED}。不属于本设备（已被移除/替换）的属性调入被忽略。
      *
-     * @return 最严重的 DeviceStatus，如果所有属性都是 NORMAL 或无状态则返回 null
+     * @param attr        状态变化的属性
+     * @param from        此前已计入的状态，null 表示此前未计入
+     * @param to          新状态，null 表示不再计入
+     * @param updatedAtMs 新 state 的更新时刻（epoch 毫秒），≤ 0 表示无
+     * @return 是否已计入（false 表示属性不在本设备属性表中，调用方不应视 to 为已计入）
      */
-    private DeviceStatus scanWorstAttributeStatus() {
-        DeviceStatus worst = null;
-        for (AttributeBase<?> attr : getAttrs().values()) {
-            // attr.getStatus() 已降为 protected：跨类经不可变 AttrState 读取。
-            // attr.getState() 在属性首次 updateValue 前为 null，按无状态跳过
-            // （保持原 getStatus() 返回 EMPTY 时的跳过语义）。
-            AttrState<?> attrState = attr.getState();
-            AttributeStatus attrStatus = attrState != null ? attrState.getStatus() : null;
-            if (attrStatus != null && attrStatus != AttributeStatus.EMPTY) {
-                DeviceStatus ds = mapAttributeStatusToDeviceStatus(attrStatus);
-                if (ds != null) {
-                    int severity = getStatusSeverity(ds);
-                    int currentWorst = (worst != null) ? getStatusSeverity(worst) : 0;
-                    if (severity > currentWorst) {
-                        worst = ds;
-                    }
+    public boolean attrStatusChanged(AttributeBase<?> attr, AttributeStatus from, AttributeStatus to, long updatedAtMs) {
+        if (to != null && (attrs == null || attrs.get(attr.getAttributeID()) != attr)) {
+            return false;
+        }
+        boolean changed = statusTracker.move(statusBucket(from), statusBucket(to));
+        if (updatedAtMs > 0) {
+            long prev = statusTracker.touch(updatedAtMs);
+            if (prev < updatedAtMs) {
+                // 由过期/通讯中断转为在线可能改变结果；并排定过期检查
+                changed |= prev == 0 || EcatClock.currentTimeMillis() - prev >= ONLINE_WINDOW_MS;
+                if (commLost) {
+                    commLost = false;
+                    changed = true;
                 }
+                armIdleTimers();
             }
         }
-        return worst;
+        if (changed || CUSTOM_STATUS.get(getClass())) {
+            markStatusDirty();
+        }
+        return true;
     }
 
     /**
-     * 检查是否有属性在最近 60 秒内更新过。
+     * 立即重算设备状态，与上次发布的不同时发布 {@link BusTopic#DEVICE_STATUS_CHANGED}（需设备已接入总线）。
+     * 一般由后台线程在属性变化/数据过期后调用；自行管理 deviceStatus 的子类在赋值后也可调用以推送变化。
      *
-     * @return true 如果至少有一个属性的 updateTime 在 60 秒内
+     * @return 当前设备状态
      */
-    private boolean hasRecentUpdate() {
-        // updateTime 已统一为 Instant（跨时区）；cutoff 用同一时钟比较。
-        java.time.Instant cutoff = java.time.Instant.now().minusSeconds(60);
-        for (AttributeBase<?> attr : getAttrs().values()) {
-            // 跨类经不可变 AttrState 读 lastUpdated（公开访问，单次 volatile 读防撕裂）。
-            // attr.getState() 在属性从未 updateValue 时为 null，按未更新跳过。
-            AttrState<?> attrState = attr.getState();
-            java.time.Instant ut = attrState != null ? attrState.getLastUpdated() : null;
-            if (ut != null && ut.isAfter(cutoff)) {
-                return true;
+    public DeviceStatus refreshDeviceStatus() {
+        DeviceStatus current = getDeviceStatus();
+        DeviceStatus previous;
+        synchronized (statusPublishLock) {
+            previous = publishedStatus;
+            if (current == null || current == previous) {
+                return current;
+            }
+            publishedStatus = current;
+        }
+        if (core != null && core.getBusRegistry() != null) {
+            try {
+                core.getBusRegistry().publish(BusEvent.of(BusTopic.DEVICE_STATUS_CHANGED.getTopicName(),
+                        new DeviceStatusChangedEvent(getId(), previous, current),
+                        EventContext.root(EventContext.Source.SYSTEM, null)));
+            } catch (Exception e) {
+                log.error("Failed to publish device status for device " + getId(), e);
             }
         }
-        return false;
+        return current;
+    }
+
+    private DeviceStatus statusBucket(AttributeStatus attrStatus) {
+        if (attrStatus == null || attrStatus == AttributeStatus.EMPTY) {
+            return null;
+        }
+        return mapAttributeStatusToDeviceStatus(attrStatus);
+    }
+
+    private boolean statusEventsEnabled() {
+        return core != null && core.getBusRegistry() != null;
+    }
+
+    private void markStatusDirty() {
+        if (statusEventsEnabled() && statusDirty.compareAndSet(false, true)) {
+            DeviceStatusMonitor.execute(() -> {
+                statusDirty.set(false);
+                try {
+                    refreshDeviceStatus();
+                } catch (RuntimeException e) {
+                    log.error("Failed to refresh device status for device " + getId(), e);
+                }
+            });
+        }
+    }
+
+    /** 有新数据后排定尚未排定的过期检查；已排定的到期时再按最新时刻顺延。 */
+    private void armIdleTimers() {
+        long last = statusTracker.getLastUpdateMs();
+        if (statusEventsEnabled() && !onlineTimer.isArmed()) {
+            HashedTimingWheel.getDefault().schedule(onlineTimer, last + ONLINE_WINDOW_MS);
+        }
+        long timeout = commLossTimeoutMs;
+        if (timeout > 0 && !commLossTimer.isArmed()) {
+            HashedTimingWheel.getDefault().schedule(commLossTimer, last + timeout);
+        }
     }
 
     /**
-     * 设备状态严重程度排序。
-     * ALARM(4) > MAINTENANCE(3) = CALIBRATION(3) > WARM_UP(2) = DIAGNOSTIC(2) = RECOVERY(2) > NORMAL(1) = MEASURE(1) > UNKNOWN(0)
+     * 设置通讯中断超时：全部属性超过该时长没有新数据时，设备状态转为 {@link DeviceStatus#OFFLINE}
+     * （接入总线时发布 {@link BusTopic#DEVICE_STATUS_CHANGED}），收到任一属性新数据后恢复。≤ 0 关闭。
+     * 一般由设备配置 {@link #STALENESS_KEY} 节点的 {@code device_timeout_ms} 套用。
+     *
+     * @param timeoutMs 超时毫秒
      */
-    private int getStatusSeverity(DeviceStatus ds) {
-        if (ds == null) return 0;
-        switch (ds) {
-            case ALARM: return 4;
-            case MAINTENANCE: return 3;
-            case CALIBRATION: return 3;
-            case WARM_UP: return 2;
-            case DIAGNOSTIC: return 2;
-            case RECOVERY: return 2;
-            case NORMAL: return 1;
-            case MEASURE: return 1;
-            default: return 0; // UNKNOWN, STANDBY
+    public void setCommLossTimeout(long timeoutMs) {
+        this.commLossTimeoutMs = Math.max(0, timeoutMs);
+        if (commLossTimeoutMs == 0) {
+            commLossTimer.cancel();
+            if (commLost) {
+                commLost = false;
+                markStatusDirty();
+            }
+        } else if (statusTracker.getLastUpdateMs() > 0) {
+            HashedTimingWheel.getDefault().schedule(commLossTimer, statusTracker.getLastUpdateMs() + commLossTimeoutMs);
+        }
+    }
+
+    /** 通讯中断超时毫秒，0 表示未启用。 */
+    public long getCommLossTimeout() {
+        return commLossTimeoutMs;
+    }
+
+    /** 是否因超时未收到数据而处于通讯中断状态。 */
+    public boolean isCommLost() {
+        return commLost;
+    }
+
+    /** 在线窗口 / 通讯中断检测定时器：到期时最近更新仍在窗口内则顺延，否则判定并触发状态重算。 */
+    private final class IdleTimer extends HashedTimingWheel.Timer {
+        private final boolean commLoss;
+
+        IdleTimer(boolean commLoss) {
+            this.commLoss = commLoss;
+        }
+
+        @Override
+        protected long expire(long nowMs) {
+            long window = commLoss ? commLossTimeoutMs : ONLINE_WINDOW_MS;
+            if (window <= 0) {
+                return 0;
+            }
+            long due = statusTracker.getLastUpdateMs() + window;
+            if (due > nowMs) {
+                return due;
+            }
+            if (commLoss) {
+                commLost = true;
+                // 与并发到达的新数据竞争：置位后再核对一次，新数据已到则撤销
+                if (statusTracker.getLastUpdateMs() + window > nowMs) {
+                    commLost = false;
+                    return statusTracker.getLastUpdateMs() + window;
+                }
+            }
+            markStatusDirty();
+            return 0;
         }
     }
 
@@ -296,6 +444,11 @@ public abstract class DeviceBase implements DeviceControl {
      */
     private Map<String, AttributeBase<?>> attrs;
 
+    // 进行中的 publicAttrsState 合包批次（null = 未在合包），属性 publicState 经 collectDataChange 并入
+    private final AtomicReference<DataBatch> openBatch = new AtomicReference<>();
+    // 合包发布与更新帧提交互斥，保证同一批次只含一个帧/周期的变化
+    private final Object publishLock = new Object();
+
     // 原子类保证多线程安全的自增ID生成器
     private static final AtomicLong OBJECT_ID_GENERATOR = new AtomicLong(1);
     // 每个设备对象的全局唯一ID
@@ -382,6 +535,7 @@ public abstract class DeviceBase implements DeviceControl {
         this.model = (String) config.getOrDefault("model", null);
 
         this.attrs = new HashMap<>();
+        applyConfiguredCommLossTimeout();
     }
 
     public void load(EcatCore core) {
@@ -435,14 +589,182 @@ public abstract class DeviceBase implements DeviceControl {
         if (attr == null) {
             return false;
         }
+        // 先入表再绑定：setDevice 把属性已有状态计入本设备状态计数，计数只接受表内属性
+        AttributeBase<?> replaced = attrs.put(attr.getAttributeID(), attr);
+        if (replaced != null && replaced != attr) {
+            replaced.releaseDeviceStatus(this);
+        }
         attr.setDevice(this); // 绑定属性与设备的关系以及使用device所在集成的i18n资源
-        attrs.put(attr.getAttributeID(), attr);
+        applyConfiguredPublishPolicy(attr);
+        applyConfiguredHistory(attr);
+        applyConfiguredStaleness(attr);
         // 00-core（D9）：state 恢复已从 setAttribute 解耦——setAttribute 只注册。
         // 恢复由 restorePersistedState() 在 addDevice（getOrCreate 解析稳定 id）之后批量执行。
         // 原因：setAttribute 普遍在 init()（addDevice 之前）被调用，若此时 restore 会用未解析的构造期 id。
         return true;
     }
 
+    /**
+     * 移除属性，并从设备状态计数中扣除其状态、从全站状态表中删除。移除后该属性的状态变化不再影响本设备状态。
+     *
+     * @param attrId 属性ID
+     * @return 被移除的属性，不存在时返回 null
+     */
+    public AttributeBase<?> removeAttribute(String attrId) {
+        AttributeBase<?> removed = attrs.remove(attrId);
+        if (removed != null) {
+            removed.releaseDeviceStatus(this);
+            if (core != null && core.getStateTable() != null) {
+                core.getStateTable().remove(getId(), attrId);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 设备配置（YAML）中的发布策略节点。设备级键作为本设备全部属性的默认，attrs 下按属性 id 覆盖单项：
+     * <pre>
+     * publish_policy:
+     *   deadband_percent: 0.5
+     *   heartbeat_ms: 300000
+     *   attrs:
+     *     so2: { deadband: 0.1 }
+     *     door_alarm: { status_change_only: true }
+     * </pre>
+     * 键的含义见 {@link PublishPolicy#fromConfig(Map)}。在 setAttribute 注册时套用，覆盖属性定义中的策略。
+     */
+    public static final String PUBLISH_POLICY_KEY = "publish_policy";
+
+    private void applyConfiguredPublishPolicy(AttributeBase<?> attr) {
+        try {
+            PublishPolicy policy = resolvePublishPolicy(attr.getAttributeID());
+            if (policy != null) {
+                attr.setPublishPolicy(policy);
+            }
+        } catch (IllegalArgumentException e) {
+            // 配置错误不阻断设备初始化：保留属性原有策略
+            log.error("Invalid " + PUBLISH_POLICY_KEY + " for attribute " + attr.getAttributeID() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 合并设备级与属性级发布策略配置。
+     *
+     * @param attrId 属性 id
+     * @return 配置的策略，未配置返回 null
+     */
+    protected PublishPolicy resolvePublishPolicy(String attrId) {
+        return PublishPolicy.fromConfig(mergeAttrSection(PUBLISH_POLICY_KEY, attrId));
+    }
+
+    /**
+     * 设备配置（YAML）中的内存历史节点，合并规则同 {@link #PUBLISH_POLICY_KEY}：
+     * <pre>
+     * history:
+     *   depth: 3600
+     *   span_ms: 3600000
+     *   attrs:
+     *     pm25: { depth: 86400, span_ms: 86400000 }
+     * </pre>
+     * 键的含义见 {@link AttributeHistory#fromConfig(Map)}。未配置的属性不启用历史。
+     */
+    public static final String HISTORY_KEY = "history";
+
+    private void applyConfiguredHistory(AttributeBase<?> attr) {
+        try {
+            AttributeHistory history = AttributeHistory.fromConfig(mergeAttrSection(HISTORY_KEY, attr.getAttributeID()));
+            if (history != null) {
+                attr.setHistory(history);
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid " + HISTORY_KEY + " for attribute " + attr.getAttributeID() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 设备配置（YAML）中的数据过期 / 通讯中断节点。{@code timeout_ms} 为本设备全部属性的过期超时（可按 attrs 覆盖），
+     * {@code device_timeout_ms} 为设备通讯中断超时：
+     * <pre>
+     * staleness:
+     *   timeout_ms: 300000
+     *   device_timeout_ms: 600000
+     *   attrs:
+     *     pm25: { timeout_ms: 3600000 }
+     * </pre>
+     * 见 {@link AttributeBase#setStaleTimeout(long)}、{@link #setCommLossTimeout(long)}。未配置不启用。
+     */
+    public static final String STALENESS_KEY = "staleness";
+
+    private void applyConfiguredStaleness(AttributeBase<?> attr) {
+        try {
+            Map<String, Object> section = mergeAttrSection(STALENESS_KEY, attr.getAttributeID());
+            if (section != null && section.get("timeout_ms") != null) {
+                attr.setStaleTimeout(stalenessMs("timeout_ms", section.get("timeout_ms")));
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid " + STALENESS_KEY + " for attribute " + attr.getAttributeID() + ": " + e.getMessage());
+        }
+    }
+
+    private void applyConfiguredCommLossTimeout() {
+        Object section = config != null ? config.get(STALENESS_KEY) : null;
+        if (!(section instanceof Map)) {
+            return;
+        }
+        Object v = ((Map<?, ?>) section).get("device_timeout_ms");
+        if (v == null) {
+            return;
+        }
+        try {
+            setCommLossTimeout(stalenessMs("device_timeout_ms", v));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid " + STALENESS_KEY + " for device " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static long stalenessMs(String key, Object v) {
+        if (v instanceof Number) {
+            return ((Number) v).longValue();
+        }
+        try {
+            return Long.parseLong(v.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("staleness '" + key + "' is not an integer: " + v, e);
+        }
+    }
+
+    /** 取配置节点 key 的设备级键，并以 attrs.&lt;attrId&gt; 覆盖；未配置返回 null。 */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> mergeAttrSection(String key, String attrId) {
+        Object section = config != null ? config.get(key) : null;
+        if (!(section instanceof Map)) {
+            return null;
+        }
+        Map<String, Object> merged = new HashMap<>((Map<String, Object>) section);
+        Object perAttr = merged.remove("attrs");
+        if (perAttr instanceof Map) {
+            Object own = ((Map<String, Object>) perAttr).get(attrId);
+            if (own instanceof Map) {
+                merged.putAll((Map<String, Object>) own);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 本设备全部属性内存历史占用的堆内存（字节），未启用历史的属性不计。
+     */
+    public long getHistoryMemoryBytes() {
+        long total = 0;
+        for (AttributeBase<?> attr : getAttrs().values()) {
+            AttributeHistory h = attr.getHistory();
+            if (h != null) {
+                total += h.memoryBytes();
+            }
+        }
+        return total;
+    }
+
     /**
      * 00-core（D9）：批量恢复本设备全部 persistable 属性的持久化状态。
      * <p>由 {@code IntegrationDeviceBase.createEntry} 在 addDevice（getOrCreate 解析稳定 deviceId）之后、
@@ -466,20 +788,139 @@ public abstract class DeviceBase implements DeviceControl {
     /**
      * 更新设备属性状态，提交给bus
      * 按需更新，只有属性值发生变化时才更新
+     * <p>本周期所有属性变化合成一个 {@link DeviceDataBatchEvent} 经 {@code BusRegistry.publishBatch} 一次分发，
+     * 普通 device.data.update 订阅者仍逐条收到变化。批次发布成功后各属性才移位提交；发布失败时属性保持在途、
+     * 返回 false，下次调用重试。
      */
     public boolean publicAttrsState() {
-        try{
-            for (AttributeBase<?> attribute : attrs.values()) {
-                attribute.publicState();
+        return publicAttrsState(attrs.values());
+    }
+
+    /**
+     * 同 {@link #publicAttrsState()}，只提交给定的属性（更新帧提交用）。
+     */
+    boolean publicAttrsState(Collection<AttributeBase<?>> targets) {
+        synchronized (publishLock) {
+            // 合包：本线程遍历期间各属性 publicState 产生的变化经 collectDataChange 并入同一批次，遍历完一次 publishBatch。
+            DataBatch batch = new DataBatch(Thread.currentThread());
+            openBatch.set(batch);
+            boolean ok = true;
+            try{
+                for (AttributeBase<?> attribute : targets) {
+                    ok &= attribute.publicState();
+                }
+            }
+            catch (Exception e){
+                log.error(I18nHelper.t("error.failed_to_update_state"), e);
+                ok = false;
+            }
+            finally {
+                openBatch.compareAndSet(batch, null);
             }
+            // 已并入批次的变化尚未移位：无论遍历是否中途失败都发出，发布成功后逐个移位提交
+            return publishBatch(batch) && ok;
         }
-        catch (Exception e){
-            log.error(I18nHelper.t("error.failed_to_update_state"), e);
+    }
+
+    /**
+     * 开始一个更新帧：驱动把一次轮询解析出的全部值与状态暂存到帧里，{@link DeviceUpdate#commit()} 时
+     * 以同一设备级时间戳一次应用（每个属性值+状态一次写入、一次构建 state），再把帧内属性作为一个批次发布。
+     * <pre>
+     * try (DeviceUpdate frame = device.beginUpdate()) {
+     *     frame.set(so2, 12.3, AttributeStatus.NORMAL)
+     *          .set(no2, 45.6, AttributeStatus.NORMAL)
+     *          .status(flow, AttributeStatus.MALFUNCTION);
+     *     frame.commit();
+     * }
+     * </pre>
+     * 未 commit 即 close 的帧整体丢弃，属性不受影响。帧对象非线程安全，由单个驱动线程使用。
+     *
+     * @return 新的更新帧
+     */
+    public DeviceUpdate beginUpdate() {
+        return new DeviceUpdate(this);
+    }
+
+    /**
+     * 在设备状态后台线程上提交属性的在途变更（框架内部用，集成无需调用）：供时间轮等不宜同步持久化与发布的线程转交。
+     * 在属性锁外、设备发布锁内执行，与 {@link #publicAttrsState()} 周期串行；status 变化不受发布策略抑制。
+     *
+     * @param attr 有在途变更的属性
+     */
+    public void publishAttrStateAsync(AttributeBase<?> attr) {
+        DeviceStatusMonitor.execute(() -> {
+            try {
+                synchronized (publishLock) {
+                    attr.publicState();
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to publish state of attribute " + attr.getAttributeID() + " for device " + getId(), e);
+            }
+        });
+    }
+
+    /** 更新帧提交：帧内应用与合包发布在同一把锁内，避免与其它帧/周期的变化交错进同一批次。 */
+    Object getPublishLock() {
+        return publishLock;
+    }
+
+    /**
+     * 属性 publicState 的合包钩子（框架内部用，集成无需调用）：若当前线程正处于本设备的
+     * {@link #publicAttrsState()} 遍历中，把变化并入本周期批次并返回 true；否则返回 false，由属性自行单条发布。
+     *
+     * <p>只收本线程的变化：其他线程（如用户 setValue）同期的 publicState 不会被并入，照常单条发布。
+     * 并入的属性此时不移位，批次发布成功后由设备调用其 {@link AttributeBase#commitPublished} 提交。
+     *
+     * @param attr   发生变化的属性
+     * @param change 属性变化
+     * @return 是否已并入批次
+     */
+    public boolean collectDataChange(AttributeBase<?> attr, DeviceDataChangedEvent change) {
+        DataBatch batch = openBatch.get();
+        if (batch == null || batch.owner != Thread.currentThread()) {
+            return false;
+        }
+        batch.attrs.add(attr);
+        batch.changes.add(change);
+        return true;
+    }
+
+    /**
+     * 发布批次并在成功后移位提交批次内属性。
+     *
+     * @return 是否发布成功（空批次视为成功）；失败时属性保持在途，下次 publicState 重试
+     */
+    private boolean publishBatch(DataBatch batch) {
+        if (batch.changes.isEmpty()) {
+            return true;
+        }
+        try {
+            core.getBusRegistry().publishBatch(BusEvent.of(BusTopic.DEVICE_DATA_UPDATE.getTopicName(),
+                    new DeviceDataBatchEvent(getId(), batch.changes),
+                    EventContext.root(EventContext.Source.DEVICE_POLL, null)));
+        } catch (Exception e) {
+            log.error("Failed to publish data batch for device " + getId() + ", size=" + batch.changes.size(), e);
             return false;
         }
+        for (int i = 0; i < batch.attrs.size(); i++) {
+            batch.attrs.get(i).commitPublished(batch.changes.get(i).getNewState(), batch.publishedAtMs);
+        }
         return true;
     }
 
+    /** 一次 publicAttrsState 遍历的合包缓冲：仅 owner 线程写入，遍历结束后由同线程发布。 */
+    private static final class DataBatch {
+        private final Thread owner;
+        // 与 changes 一一对应的属性，发布成功后移位提交
+        private final List<AttributeBase<?>> attrs = new ArrayList<>();
+        private final List<DeviceDataChangedEvent> changes = new ArrayList<>();
+        private final long publishedAtMs = EcatClock.currentTimeMillis();
+
+        DataBatch(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
     /**
      * 接收设备的原始数据，用于integration统一收到数据后向device分发处理
      *
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Device;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * 设备状态事件的共享后台线程：属性状态变化或数据过期后异步重算并发布设备状态，以及过期属性 state 的异步发布。
+ *
+ * <p>重算与发布不在属性更新线程（持有属性锁）或时间轮线程上做，避免总线同步订阅者回调造成锁序问题；
+ * 每台设备同时最多一个待执行的重算（由设备的 dirty 标志合并）。过期检查本身挂在
+ * {@link com.ecat.core.Utils.HashedTimingWheel} 上。单个守护线程，首次使用时创建。
+ *
+ * @author coffee
+ */
+final class DeviceStatusMonitor {
+
+    private DeviceStatusMonitor() {
+    }
+
+    private static final class Holder {
+        static final ScheduledThreadPoolExecutor EXECUTOR = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor e = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "device-status-monitor");
+                t.setDaemon(true);
+                return t;
+            });
+            e.setRemoveOnCancelPolicy(true);
+            return e;
+        }
+    }
+
+    static void execute(Runnable task) {
+        Holder.EXECUTOR.execute(task);
+    }
+}
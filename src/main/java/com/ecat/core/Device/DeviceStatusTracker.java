@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Device;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 设备状态增量计数：按 {@link DeviceStatus} 分桶统计属性个数，外加全部属性的最近更新时刻。
+ *
+ * <p>属性每次可见状态变化由 {@link DeviceBase#attrStatusChanged} 调入（旧状态桶 -1、新状态桶 +1、更新时刻取最大），
+ * 求最严重状态只看固定的几个桶，O(1)，不再遍历属性。计数为原子操作，调入方无需持有设备锁。
+ *
+ * @author coffee
+ */
+final class DeviceStatusTracker {
+
+    /** 参与聚合的设备状态，按严重程度从高到低；同级按此顺序取先者。其余状态（UNKNOWN、STANDBY 等）不参与。 */
+    private static final DeviceStatus[] BY_SEVERITY = {
+        DeviceStatus.ALARM,
+        DeviceStatus.MAINTENANCE, DeviceStatus.CALIBRATION,
+        DeviceStatus.WARM_UP, DeviceStatus.DIAGNOSTIC, DeviceStatus.RECOVERY,
+        DeviceStatus.NORMAL, DeviceStatus.MEASURE
+    };
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(DeviceStatus.values().length);
+    private final AtomicLong lastUpdateMs = new AtomicLong();
+
+    /**
+     * 状态转移：from 桶 -1、to 桶 +1（null 表示不计入）。
+     *
+     * @return 是否有桶在 0 与非 0 之间切换（可能改变聚合结果）
+     */
+    boolean move(DeviceStatus from, DeviceStatus to) {
+        if (from == to) {
+            return false;
+        }
+        boolean flipped = false;
+        if (from != null) {
+            flipped = counts.decrementAndGet(from.ordinal()) == 0;
+        }
+        if (to != null) {
+            flipped |= counts.incrementAndGet(to.ordinal()) == 1;
+        }
+        return flipped;
+    }
+
+    /**
+     * 记录一次属性更新时刻（取最大）。
+     *
+     * @return 更新前最近更新时刻（0 表示此前从未更新）
+     */
+    long touch(long updatedMs) {
+        long cur = lastUpdateMs.get();
+        while (updatedMs > cur) {
+            if (lastUpdateMs.compareAndSet(cur, updatedMs)) {
+                return cur;
+            }
+            cur = lastUpdateMs.get();
+        }
+        return cur;
+    }
+
+    /** 最严重的已计入状态；无参与聚合的属性时返回 null。 */
+    DeviceStatus worst() {
+        for (DeviceStatus s : BY_SEVERITY) {
+            if (counts.get(s.ordinal()) > 0) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    int count(DeviceStatus status) {
+        return counts.get(status.ordinal());
+    }
+
+    /** 全部属性中最近一次更新的 epoch 毫秒；0 表示从未更新。 */
+    long getLastUpdateMs() {
+        return lastUpdateMs.get();
+    }
+}
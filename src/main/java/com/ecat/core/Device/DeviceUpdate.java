@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Device;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.ecat.core.State.AttributeBase;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.DoubleAttribute;
+import com.ecat.core.Utils.EcatClock;
+
+/**
+ * 设备更新帧——一次轮询的多属性原子更新，由 {@link DeviceBase#beginUpdate()} 创建。
+ *
+ * <p>set/status 只暂存；{@link #commit()} 时在设备发布锁内、以同一帧时间戳依次应用（各属性仍走自身
+ * updateValue/setStatus，选项校验等子类逻辑照常生效），随后把帧内属性作为一个
+ * {@link com.ecat.core.Bus.event.DeviceDataBatchEvent} 发布——消费者拿到的是同一次轮询、同一 lastUpdated 的一致快照。
+ *
+ * <p>未 commit 即 {@link #close()} 的帧整体丢弃。非线程安全，由单个驱动线程使用。
+ *
+ * @author coffee
+ */
+public final class DeviceUpdate implements AutoCloseable {
+
+    private final DeviceBase device;
+    private final List<Entry> entries = new ArrayList<>();
+    private Instant frameTime;
+    private boolean done;
+
+    DeviceUpdate(DeviceBase device) {
+        this.device = device;
+    }
+
+    /**
+     * 暂存值与状态。
+     *
+     * @param attr      本设备的属性
+     * @param value     新业务值
+     * @param newStatus 新状态；null 表示不改变当前状态
+     * @return this
+     */
+    public <T> DeviceUpdate set(AttributeBase<T> attr, T value, AttributeStatus newStatus) {
+        entries.add(new ValueEntry<>(checkOwner(attr), value, newStatus));
+        return this;
+    }
+
+    /**
+     * 暂存原始 double 值与状态（不装箱）。
+     *
+     * @param attr      本设备的属性
+     * @param value     新业务值
+     * @param newStatus 新状态；null 表示不改变当前状态
+     * @return this
+     */
+    public DeviceUpdate set(DoubleAttribute attr, double value, AttributeStatus newStatus) {
+        entries.add(new DoubleEntry(checkOwner(attr), value, newStatus));
+        return this;
+    }
+
+    /**
+     * 暂存仅状态变更（本次轮询无有效值，如通信故障）。
+     *
+     * @param attr      本设备的属性
+     * @param newStatus 新状态，不能为 null
+     * @return this
+     */
+    public DeviceUpdate status(AttributeBase<?> attr, AttributeStatus newStatus) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException("status must not be null");
+        }
+        entries.add(new StatusEntry(checkOwner(attr), newStatus));
+        return this;
+    }
+
+    /**
+     * 指定帧时间戳（如设备报文自带的采样时间）；不指定则 commit 时取共享时钟当前时刻。
+     *
+     * @param time 帧时间戳
+     * @return this
+     */
+    public DeviceUpdate at(Instant time) {
+        checkOpen();
+        this.frameTime = time;
+        return this;
+    }
+
+    /** 已暂存的条目数。 */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 提交：以同一帧时间戳应用全部暂存项，并把涉及的属性作为一个批次发布（发布策略照常生效）。
+     * 同一属性多次暂存按顺序应用，只发布一次。
+     *
+     * @return 全部暂存项均被属性接受且发布成功时为 true
+     */
+    public boolean commit() {
+        checkOpen();
+        done = true;
+        if (entries.isEmpty()) {
+            return true;
+        }
+        Instant time = frameTime != null ? frameTime : EcatClock.now();
+        Set<AttributeBase<?>> touched = new LinkedHashSet<>();
+        boolean allApplied = true;
+        synchronized (device.getPublishLock()) {
+            AttributeBase.beginFrame(time);
+            try {
+                for (Entry e : entries) {
+                    allApplied &= e.apply();
+                    touched.add(e.attr);
+                }
+            } finally {
+                AttributeBase.endFrame();
+            }
+            return device.publicAttrsState(touched) && allApplied;
+        }
+    }
+
+    /** 未提交则丢弃暂存内容。 */
+    @Override
+    public void close() {
+        if (!done) {
+            done = true;
+            entries.clear();
+        }
+    }
+
+    private <A extends AttributeBase<?>> A checkOwner(A attr) {
+        checkOpen();
+        if (attr == null || attr.getDevice() != device) {
+            throw new IllegalArgumentException("attribute does not belong to device " + device.getId()
+                    + ": " + (attr != null ? attr.getAttributeID() : null));
+        }
+        return attr;
+    }
+
+    private void checkOpen() {
+        if (done) {
+            throw new IllegalStateException("update frame already committed or closed");
+        }
+    }
+
+    private abstract static class Entry {
+        final AttributeBase<?> attr;
+
+        Entry(AttributeBase<?> attr) {
+            this.attr = attr;
+        }
+
+        abstract boolean apply();
+    }
+
+    private static final class ValueEntry<T> extends Entry {
+        private final AttributeBase<T> typed;
+        private final T value;
+        private final AttributeStatus status;
+
+        ValueEntry(AttributeBase<T> attr, T value, AttributeStatus status) {
+            super(attr);
+            this.typed = attr;
+            this.value = value;
+            this.status = status;
+        }
+
+        @Override
+        boolean apply() {
+            return typed.updateValue(value, status);
+        }
+    }
+
+    private static final class DoubleEntry extends Entry {
+        private final double value;
+        private final AttributeStatus status;
+
+        DoubleEntry(DoubleAttribute attr, double value, AttributeStatus status) {
+            super(attr);
+            this.value = value;
+            this.status = status;
+        }
+
+        @Override
+        boolean apply() {
+            return ((DoubleAttribute) attr).updateValue(value, status);
+        }
+    }
+
+    private static final class StatusEntry extends Entry {
+        private final AttributeStatus status;
+
+        StatusEntry(AttributeBase<?> attr, AttributeStatus status) {
+            super(attr);
+            this.status = status;
+        }
+
+        @Override
+        boolean apply() {
+            return attr.setStatus(status);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.ecat.core.ConfigEntry.ConfigEntryRegistry;
 import com.ecat.core.ConfigEntry.YmlConfigEntryPersistence;
 import com.ecat.core.ConfigFlow.ConfigFlowRegistry;
 import com.ecat.core.ConfigFlow.ConfigFlowService;
+import com.ecat.core.Device.DeviceBase;
 import com.ecat.core.Device.DeviceRegistry;
 import com.ecat.core.Device.YmlDevicePersistence;
 import com.ecat.core.I18n.I18nProxy;
@@ -29,7 +30,9 @@ import com.ecat.core.Integration.IntegrationManager;
 import com.ecat.core.Integration.IntegrationRegistry;
 import com.ecat.core.Log.LogManager;
 import com.ecat.core.LogicMapping.LogicMappingManager;
+import com.ecat.core.State.AttributeHistory;
 import com.ecat.core.State.StateManager;
+import com.ecat.core.State.StateTable;
 import com.ecat.core.Task.TaskManager;
 import com.ecat.core.Utils.platform.PlatformInfo;
 
@@ -59,6 +62,11 @@ public class EcatCore {
     private TaskManager taskManager;
     @Getter
     private DeviceRegistry deviceRegistry;
+    /**
+     * 全站状态表：(deviceId, attrId) → 最新已提交状态，供导出/UI 同步无锁读取快照与增量
+     */
+    @Getter
+    private StateTable stateTable;
     @Getter
     private I18nRegistry i18nRegistry;
 
@@ -159,7 +167,10 @@ public class EcatCore {
         busRegistry = new BusRegistry();
         taskManager = new TaskManager();
         stateManager = new StateManager(".ecat-data/core/states/",
-            taskManager.getMdcScheduledExecutorService());
+            taskManager.getMdcScheduledExecutorService(), Integer.getInteger(StateManager.SHARDS_PROPERTY, 0),
+            Boolean.getBoolean(StateManager.WRITE_BEHIND_PROPERTY));
+        stateTable = new StateTable();
+        stateTable.attach(busRegistry);
         configFlowRegistry = new ConfigFlowRegistry();
         configEntryRegistry = new ConfigEntryRegistry(this, new YmlConfigEntryPersistence());
         // flow 推进/管理能力下沉到 core（原在 ecat-core-api）：依赖 integrationRegistry + 两个 registry，均在上方已就绪
@@ -170,6 +181,13 @@ public class EcatCore {
         deviceRegistry.setPersistence(new YmlDevicePersistence(".ecat-data/core/devices"));
         deviceRegistry.setBusRegistry(busRegistry);
         deviceRegistry.load();
+        busRegistry.getMetrics().registerGauge(AttributeHistory.MEMORY_GAUGE, () -> {
+            long total = 0;
+            for (DeviceBase device : deviceRegistry.getAllDevices()) {
+                total += device.getHistoryMemoryBytes();
+            }
+            return total;
+        });
         logicMappingManager = new LogicMappingManager();
         i18nRegistry = I18nRegistry.getInstance();
         
@@ -185,6 +203,10 @@ public class EcatCore {
      * 优雅关闭：提交所有状态持久化数据，释放资源
      */
     public void shutdown() {
+        // 先停总线异步分发道：残留事件扇出完（订阅者可能仍要写状态），再落盘状态
+        if (busRegistry != null) {
+            busRegistry.shutdown();
+        }
         if (stateManager != null) {
             stateManager.shutdown();
         }
@@ -432,7 +432,7 @@ public abstract class LogicDevice extends DeviceBase {
         existing.dispose();
 
         attrMap.remove(attrId);
-        getAttrs().remove(attrId);
+        removeAttribute(attrId);
 
         LogicAttributeDefine def = findAttrDef(attrId);
         if (def != null && def.isMapable()) {
@@ -458,7 +458,7 @@ public abstract class LogicDevice extends DeviceBase {
         existing.dispose();
 
         attrMap.remove(attrId);
-        getAttrs().remove(attrId);
+        removeAttribute(attrId);
 
         ILogicAttribute<?> realAttr = createAttrFromMapping(attrId, phyDevice);
         if (realAttr != null) {
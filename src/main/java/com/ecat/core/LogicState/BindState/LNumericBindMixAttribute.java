@@ -20,6 +20,7 @@ import com.ecat.core.LogicState.LNumericAttribute;
 import com.ecat.core.State.AttributeBase;
 import com.ecat.core.State.AttributeClass;
 import com.ecat.core.State.UnitInfo;
+import com.ecat.core.Utils.EcatClock;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -139,7 +140,7 @@ public abstract class LNumericBindMixAttribute extends LNumericAttribute
         if (data == null) return;
 
         data.setUpdated(true);
-        data.setUpdateTime(System.currentTimeMillis());
+        data.setUpdateTime(EcatClock.currentTimeMillis());
 
         // 如果所有源都已更新，执行聚合计算
         if (allSourcesUpdated()) {
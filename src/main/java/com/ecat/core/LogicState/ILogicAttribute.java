@@ -114,6 +114,7 @@ public interface ILogicAttribute<T> extends AttributeAbility<T> {
      *   <li>{@link #changeDisplayPrecision(int)} - 设置显示精度</li>
      *   <li>{@link #initAttrClass(AttributeClass)} - 设置属性类型</li>
      *   <li>persistable/defaultValue - 持久化支持（并列关系，非嵌套）</li>
+     *   <li>publishPolicy - 发布策略（仅当定义中非 null 时）</li>
      * </ol>
      *
      * @param def 逻辑属性定义对象，提供初始化所需的元数据
@@ -135,6 +136,10 @@ public interface ILogicAttribute<T> extends AttributeAbility<T> {
             ILogicAttribute<Object> raw = (ILogicAttribute<Object>) this;
             raw.setDefaultValue(def.getDefaultValue());
         }
+        // 与当前策略相同（如 ALWAYS 对不支持策略的实现）时不必设置
+        if (def.getPublishPolicy() != null && !def.getPublishPolicy().equals(getPublishPolicy())) {
+            setPublishPolicy(def.getPublishPolicy());
+        }
     }
 
     /**
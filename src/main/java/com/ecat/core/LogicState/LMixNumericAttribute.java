@@ -21,6 +21,7 @@ import com.ecat.core.State.AttributeBase;
 import com.ecat.core.State.AttributeClass;
 import com.ecat.core.State.AttributeStatus;
 import com.ecat.core.State.UnitInfo;
+import com.ecat.core.Utils.EcatClock;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -121,7 +122,7 @@ public abstract class LMixNumericAttribute extends LNumericAttribute {
         if (bad == null) return;
 
         bad.setUpdated(true);
-        bad.setUpdatetime(System.currentTimeMillis());
+        bad.setUpdatetime(EcatClock.currentTimeMillis());
 
         // Find the newest update time across all bound attributes
         long newestTime = bad.getUpdatetime();
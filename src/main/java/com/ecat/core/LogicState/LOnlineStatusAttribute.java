@@ -20,6 +20,7 @@ import com.ecat.core.State.AttrState;
 import com.ecat.core.State.AttributeBase;
 import com.ecat.core.State.AttributeStatus;
 import com.ecat.core.State.UnitInfo;
+import com.ecat.core.Utils.EcatClock;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -83,7 +84,7 @@ public class LOnlineStatusAttribute extends LStringSelectAttribute {
             updateValue("offline", phyStatus != null ? phyStatus : AttributeStatus.EMPTY);
             return;
         }
-        long elapsedSeconds = Duration.between(updateTime, Instant.now()).getSeconds();
+        long elapsedSeconds = Duration.between(updateTime, EcatClock.now()).getSeconds();
         updateValue(elapsedSeconds < 60 ? "online" : "offline", phyStatus);
     }
 
@@ -17,6 +17,7 @@
 package com.ecat.core.LogicState;
 
 import com.ecat.core.State.AttributeClass;
+import com.ecat.core.State.PublishPolicy;
 import com.ecat.core.State.UnitInfo;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -88,6 +89,8 @@ public class LogicAttributeDefine {
     private boolean persistable = false;
     /** 默认值，无历史记录时使用，允许为 null */
     private Object defaultValue = null;
+    /** 发布策略（例外报告：死区/心跳等），null 表示沿用属性默认；设备 YAML 的 publish_policy 可再覆盖 */
+    private PublishPolicy publishPolicy = null;
 
     /**
      * 9 参数构造函数，包含 persistable 和 defaultValue。
@@ -109,6 +112,17 @@ public class LogicAttributeDefine {
         this.displayable = true;
     }
 
+    /**
+     * 12 参数构造函数（新增 publishPolicy 字段前的全参构造），保持向后兼容，publishPolicy=null。
+     */
+    public LogicAttributeDefine(String attrId, AttributeClass attrClass,
+            UnitInfo nativeUnit, UnitInfo displayUnit, int displayPrecision,
+            boolean valueChangeable, Class<?> attrClassType, String displayName,
+            boolean mapable, boolean displayable, boolean persistable, Object defaultValue) {
+        this(attrId, attrClass, nativeUnit, displayUnit, displayPrecision, valueChangeable,
+             attrClassType, displayName, mapable, displayable, persistable, defaultValue, null);
+    }
+
     /**
      * 7 参数构造函数，保持向后兼容。委托到 9 参数构造函数，persistable=false, defaultValue=null。
      */
@@ -16,6 +16,8 @@
 
 package com.ecat.core.State;
 
+import java.util.function.Supplier;
+
 import com.ecat.core.State.Unit.AirMassUnit;
 import com.ecat.core.State.Unit.AirVolumeUnit;
 import com.ecat.core.State.UnitConversions.AirVolumeToAirMass;
@@ -282,6 +284,22 @@ public class AQAttribute extends NumericAttribute {
         return NumberFormatter.formatValue(displayValue, displayPrecision);
     }
 
+    /** 同单位类换算与无单位时延迟格式化（算式同 {@link #getDisplayValue(UnitInfo)}）；跨类换算依赖分子量，立即计算。 */
+    @Override
+    protected Supplier<String> deferredDisplayValue(Double value, UnitInfo toUnit, int precision) {
+        if (value == null || !isDisplayValueDeclaredBy(AQAttribute.class)) {
+            return null;
+        }
+        final UnitInfo fromUnit = nativeUnit;
+        if (toUnit == null || fromUnit == null) {
+            return () -> NumberFormatter.formatValue(value, precision);
+        }
+        if (!fromUnit.getClass().equals(toUnit.getClass())) {
+            return null;
+        }
+        return () -> NumberFormatter.formatValue(value * fromUnit.convertUnit(toUnit), precision);
+    }
+
     @Override
     protected Double convertFromUnitImp(Double fromValue, UnitInfo fromUnit)
     {
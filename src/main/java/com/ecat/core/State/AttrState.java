@@ -7,6 +7,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.function.Supplier;
 
 /**
  * 属性状态——不可变的强类型状态对象（≡ Home Assistant 的 State）。
@@ -19,13 +20,31 @@ import java.util.Collections;
  * <p>{@code valueType:Class<T>} = attr.targetType 运行时类型令牌（不经枚举中间层，支持
  * byte[]/BigDecimal 等任意值类型零成本扩展）。
  *
- * <p>不可变纪律：全字段 final、构造期一次性赋值、集合类 value 防御性拷贝。这样总线传递与跨线程消费
- * 都不会出现"发布者发布后又改了同一对象"的撕裂读——发布者持 live AttributeBase，发布的是 AttrState
- * 状态对象（经 {@link com.ecat.core.Bus.event.DeviceDataChangedEvent} 承载 old+new），二者解耦。
+ * <p>不可变纪律：对外可观察的状态构造后不再变化——除下述记忆字段外全字段 final、构造期一次性赋值，
+ * 集合类 value 防御性拷贝。这样总线传递与跨线程消费都不会出现"发布者发布后又改了同一对象"的撕裂读——
+ * 发布者持 live AttributeBase，发布的是 AttrState 状态对象（经
+ * {@link com.ecat.core.Bus.event.DeviceDataChangedEvent} 承载 old+new），二者解耦。
+ *
+ * <p><b>记忆字段</b>：{@code value}、{@code displayValue}、{@code displayValueSupplier} 非 final，只做惰性计算的缓存，
+ * 写入的都是构建时刻快照的确定函数值，读者无论看到缓存前后都得到相同结果：
+ * <ul>
+ *   <li>{@code value}（仅 double state）：普通字段，首读装箱写回；并发读可能看不到别人写的缓存而各自装箱一次，
+ *       Double 本身不可变（final 字段语义），故无需 volatile（良性竞态）。</li>
+ *   <li>{@code displayValue} / {@code displayValueSupplier}：先普通写 displayValue，再 volatile 写 supplier=null；
+ *       读者先 volatile 读 supplier，读到 null 即保证看得到已写入的 displayValue（happens-before）；
+ *       读到非 null 则自行调用 supplier（可能重复计算，良性竞态）。改动这两个字段的读写顺序会破坏该保证。</li>
+ * </ul>
  *
  * <p>双时间戳（Instant，跨时区）：lastUpdated 任意更新都刷新；lastChanged 仅当 value 实际变化才刷新。
  * 让设备活性判断、告警去重能区分"真变化"与"重复刷新"。
  *
+ * <p><b>displayValue 延迟计算</b>：builder 可给 {@link Builder#displayValueSupplier(Supplier)}（只依赖构建时刻快照的纯函数），
+ * 首次 {@link #getDisplayValue()} 才格式化并记住结果——大部分 state 从不上界面，省掉每次 updateValue 的
+ * BigDecimal/DecimalFormat 开销。并发首读可能各算一次，结果相同（良性竞态）；之后都读记住的值。
+ *
+ * <p><b>原始 double 值</b>：{@link DoubleAttribute} 经 {@link Builder#doubleValue(double)} 构建的 state 以 double 原样持有值，
+ * {@link #getDoubleValue()} 零装箱读取；{@link #getValue()} 保持兼容，首次读取时才装箱为 Double 并记住（良性竞态）。
+ *
  * <p><b>State 与 bus 解耦</b>：AttrState 不实现 BusPayload——State 是内容，
  * {@link com.ecat.core.Bus.event.DeviceDataChangedEvent}（信封）才是 BusPayload。
  *
@@ -35,13 +54,18 @@ public final class AttrState<T> {
 
     private final String deviceId;
     private final String attrId;
-    private final T value;
+    // 原始 double state 的装箱值首次 getValue() 时才生成（Double 不可变，良性竞态）
+    private T value;
+    private final double doubleValue;
+    private final boolean doubleValued;
     private final Class<T> valueType;
     private final AttributeStatus status;
     private final UnitInfo nativeUnit;
     private final UnitInfo displayUnit;
     private final int displayPrecision;
-    private final String displayValue;
+    // 延迟计算：supplier 非 null 表示尚未计算；displayValue 先写、supplier 后以 volatile 置 null 发布
+    private String displayValue;
+    private volatile Supplier<String> displayValueSupplier;
     private final Instant lastUpdated;
     private final Instant lastChanged;
     private final EventContext context;
@@ -53,12 +77,15 @@ public final class AttrState<T> {
         this.deviceId = b.deviceId;
         this.attrId = b.attrId;
         this.value = defensiveCopy(b.value);
+        this.doubleValue = b.doubleValue;
+        this.doubleValued = b.doubleValued;
         this.valueType = b.valueType;
         this.status = b.status;
         this.nativeUnit = b.nativeUnit;
         this.displayUnit = b.displayUnit;
         this.displayPrecision = b.displayPrecision;
         this.displayValue = b.displayValue;
+        this.displayValueSupplier = b.displayValueSupplier;
         this.lastUpdated = b.lastUpdated;
         this.lastChanged = b.lastChanged;
         this.context = b.context;
@@ -79,13 +106,50 @@ public final class AttrState<T> {
 
     public String getDeviceId() { return deviceId; }
     public String getAttrId() { return attrId; }
-    public T getValue() { return value; }
+
+    /** 业务值；原始 double state 首次读取时装箱为 Double。 */
+    @SuppressWarnings("unchecked")
+    public T getValue() {
+        T v = value;
+        if (v == null && doubleValued) {
+            v = (T) Double.valueOf(doubleValue);
+            value = v;
+        }
+        return v;
+    }
+
+    /** 是否以原始 double 持有值（由 {@link Builder#doubleValue(double)} 构建）。 */
+    public boolean isDoubleValued() { return doubleValued; }
+
+    /**
+     * 值的 double 形式：原始 double state 零装箱直读；其它数值型 state 取 {@link Number#doubleValue()}；
+     * 空值或非数值型返回 {@link Double#NaN}。
+     */
+    public double getDoubleValue() {
+        if (doubleValued) {
+            return doubleValue;
+        }
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+
     public Class<T> getValueType() { return valueType; }
     public AttributeStatus getStatus() { return status; }
     public UnitInfo getNativeUnit() { return nativeUnit; }
     public UnitInfo getDisplayUnit() { return displayUnit; }
     public int getDisplayPrecision() { return displayPrecision; }
-    public String getDisplayValue() { return displayValue; }
+
+    /** 默认显示值（displayUnit + displayPrecision）；延迟构建的 state 首次读取时才格式化。 */
+    public String getDisplayValue() {
+        Supplier<String> supplier = displayValueSupplier;
+        if (supplier == null) {
+            return displayValue;
+        }
+        String v = supplier.get();
+        displayValue = v;
+        displayValueSupplier = null;
+        return v;
+    }
+
     public Instant getLastUpdated() { return lastUpdated; }
     public Instant getLastChanged() { return lastChanged; }
     public EventContext getContext() { return context; }
@@ -97,19 +161,19 @@ public final class AttrState<T> {
      * 按指定单位换算显示值——纯单位换算，零 attr 依赖。
      * <p>value 已是工程值（业务值），单位换算靠 {@link UnitInfo#convertUnit}。
      * <p>非数值型 value、无 nativeUnit、或 toUnit 与 nativeUnit 不同单位类时，
-     * 返回冻结的 {@link #displayValue}（toUnit 对非数值型本就无意义）。
+     * 返回默认 {@link #getDisplayValue()}（toUnit 对非数值型本就无意义）。
      *
      * @param toUnit 目标显示单位，null 则返回默认 displayValue
      */
     public String getDisplayValue(UnitInfo toUnit) {
-        if (!(value instanceof Number) || nativeUnit == null) {
-            return displayValue;
+        if (!(doubleValued || value instanceof Number) || nativeUnit == null) {
+            return getDisplayValue();
         }
         if (toUnit == null || toUnit.getClass() != nativeUnit.getClass()) {
-            return displayValue;
+            return getDisplayValue();
         }
-        double magnitude = ((Number) value).doubleValue() * nativeUnit.convertUnit(toUnit);
-        return NumberFormatter.formatValue(magnitude, displayPrecision);
+        double magnitude = getDoubleValue() * nativeUnit.convertUnit(toUnit);
+        return NumberFormatter.formatDouble(magnitude, displayPrecision);
     }
 
     /** AttrState 构造器——字段多，用 builder 保证可读性与不可变性。 */
@@ -117,25 +181,32 @@ public final class AttrState<T> {
         private String deviceId;
         private String attrId;
         private T value;
+        private double doubleValue;
+        private boolean doubleValued;
         private Class<T> valueType;
         private AttributeStatus status;
         private UnitInfo nativeUnit;
         private UnitInfo displayUnit;
         private int displayPrecision;
         private String displayValue;
+        private Supplier<String> displayValueSupplier;
         private Instant lastUpdated;
         private Instant lastChanged;
         private EventContext context;
 
         public Builder<T> deviceId(String v) { this.deviceId = v; return this; }
         public Builder<T> attrId(String v) { this.attrId = v; return this; }
-        public Builder<T> value(T v) { this.value = v; return this; }
+        public Builder<T> value(T v) { this.value = v; this.doubleValued = false; return this; }
+        /** 原始 double 值（不装箱）；valueType 应为 Double.class。与 {@link #value(Object)} 互斥，后设者生效。 */
+        public Builder<T> doubleValue(double v) { this.doubleValue = v; this.doubleValued = true; this.value = null; return this; }
         public Builder<T> valueType(Class<T> v) { this.valueType = v; return this; }
         public Builder<T> status(AttributeStatus v) { this.status = v; return this; }
         public Builder<T> nativeUnit(UnitInfo v) { this.nativeUnit = v; return this; }
         public Builder<T> displayUnit(UnitInfo v) { this.displayUnit = v; return this; }
         public Builder<T> displayPrecision(int v) { this.displayPrecision = v; return this; }
-        public Builder<T> displayValue(String v) { this.displayValue = v; return this; }
+        public Builder<T> displayValue(String v) { this.displayValue = v; this.displayValueSupplier = null; return this; }
+        /** 延迟计算的显示值：首次读取时调用一次；须只依赖构建时刻的快照（不读可变的 attr 字段）。 */
+        public Builder<T> displayValueSupplier(Supplier<String> v) { this.displayValueSupplier = v; return this; }
         public Builder<T> lastUpdated(Instant v) { this.lastUpdated = v; return this; }
         public Builder<T> lastChanged(Instant v) { this.lastChanged = v; return this; }
         public Builder<T> context(EventContext v) { this.context = v; return this; }
@@ -19,6 +19,7 @@ package com.ecat.core.State;
 import java.util.concurrent.CompletableFuture;
 
 import com.ecat.core.Device.DeviceBase;
+import com.ecat.core.Utils.LogFactory;
 
 /**
  * Attribute public interface for WebUI
@@ -117,6 +118,16 @@ public interface AttributeAbility<T>{
     T getDefaultValue();
     void setDefaultValue(T defaultValue);
 
+    // 发布策略（例外报告），见 PublishPolicy
+    default PublishPolicy getPublishPolicy() {
+        return PublishPolicy.ALWAYS;
+    }
+    /** 默认实现不支持发布策略：忽略设置并记 warn，始终按 {@link PublishPolicy#ALWAYS} 发布。 */
+    default void setPublishPolicy(PublishPolicy publishPolicy) {
+        LogFactory.getLogger(getClass()).warn("发布策略不受支持，已忽略: attr=" + getClass().getName()
+                + ", policy=" + publishPolicy);
+    }
+
     /**
      * 设备自己更新原始数据，不触发 onChangedCallback，适于收到设备新数据更新状态值。
      *
@@ -16,11 +16,10 @@
 
 package com.ecat.core.State;
 
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -28,20 +27,21 @@ import java.util.Objects;
 import lombok.Getter;
 import lombok.Setter;
 
-import com.ecat.core.Utils.LogFactory;
+import com.ecat.core.Utils.EcatClock;
+import com.ecat.core.Utils.HashedTimingWheel;
 import com.ecat.core.Utils.Log;
 import com.ecat.core.Bus.BusTopic;
 import com.ecat.core.Bus.event.BusEvent;
 import com.ecat.core.Bus.event.DeviceDataChangedEvent;
 import com.ecat.core.Bus.event.EventContext;
 import com.ecat.core.Device.DeviceBase;
+import com.ecat.core.EcatCore;
 import com.ecat.core.Utils.DynamicConfig.ConfigDefinition;
 import com.ecat.core.Utils.DynamicConfig.ConstraintValidator;
 import com.ecat.core.Utils.DynamicConfig.ConfigItem;
 import com.ecat.core.Utils.DynamicConfig.ConfigItemBuilder;
 import com.ecat.core.I18n.I18nKeyPath;
 import com.ecat.core.I18n.I18nProxy;
-import com.ecat.core.I18n.I18nHelper;
 
 /**
  * attribute base class
@@ -84,7 +84,7 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
 
     protected I18nKeyPath i18nDispNamePath; // 属性名称的i18n显示资源的json地址，目前规则为全部小写，见getI18nPrefixPath
     protected ConfigDefinition valueDef;    // 输入value的验证规则，null代表不需要验证
-    protected I18nProxy i18n = I18nHelper.createProxy(this.getClass()); // 默认使用本类的类名作为i18n的namespace，实际场景如何某集成使用了不是自己集成内的属性，则资源寻找不对，需要在setDevice中重新设置
+    protected I18nProxy i18n = AttributeMetadata.i18nProxyOf(this.getClass()); // 默认使用本类的类名作为i18n的namespace，实际场景如何某集成使用了不是自己集成内的属性，则资源寻找不对，需要在setDevice中重新设置
 
     protected Log log;
 
@@ -97,6 +97,16 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
     @Setter
     protected T defaultValue = null; // 默认值，无历史记录时使用
 
+    // 发布策略：默认每次更新都发布；例外报告策略下与上次已发布 state 比较，不显著则 publicState 不发布
+    @Getter
+    protected PublishPolicy publishPolicy = PublishPolicy.ALWAYS;
+    // 上次实际发布（或并入设备批次）的 epoch 毫秒，供最小间隔与心跳判断；0 表示尚未发布过
+    private long lastPublishedAtMs;
+    // 可选内存历史：null 表示未启用；publicState 时记录每个在途态（含被发布策略抑制的）
+    private volatile AttributeHistory history;
+    // 最近一次记入历史的在途态：发布失败重试时同一 midState 不重复记录
+    private AttrState<T> lastRecordedState;
+
     // —— 不可变状态三槽（mid 在途 / last 已提交 / previous 上一态），生命周期与调用链详见 state-lifecycle-design.md ——
     // 在途/不稳定态：updateValue/setStatus 的变更都重建这里，反映尚未提交的最新快照。getState() 在它非空时
     // 返回它（同周期内 updateValue 后立即可读——计算属性求值、测试预热断言依赖此特性）。publicState 提交后置 null。
@@ -111,6 +121,14 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
     // 值真正发生变化的时刻（Instant，跨时区）。与 updateTime 区分：updateTime 是数据产生时间（含重复刷新），
     // lastChanged 仅在 value 实际变化时推进——供设备活性判断、告警去重区分"真变化"与"重复刷新"。
     private volatile Instant lastChanged;
+    // 已计入所属设备状态计数的状态（null 表示未计入），synchronized(this) 内维护
+    private AttributeStatus countedStatus;
+    // 数据过期检测：超时毫秒（≤0 不启用）。以下三项 synchronized(this) 内维护：最近收到数据的 epoch 毫秒、
+    // 时间轮定时器（首次收到数据时创建）、过期前状态（非 null 表示当前已过期）
+    private volatile long staleTimeoutMs;
+    private long lastSeenMs;
+    private HashedTimingWheel.Timer staleTimer;
+    private AttributeStatus statusBeforeStale;
 
     /**
      * 支持I18n的构造函数，属性i18n名称规则见i18nDispNamePath
@@ -158,12 +176,15 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
      * 完整参数构造函数（包含 persistable + defaultValue）
      * 所有其他构造函数最终委托到此构造函数
      */
+    @SuppressWarnings("unchecked")
     protected AttributeBase(String attributeID, AttributeClass attrClass, UnitInfo nativeUnit,
         UnitInfo displayUnit, int displayPrecision, boolean unitChangeable, boolean valueChangeable,
         boolean persistable, T defaultValue,
         Function<AttrChangedCallbackParams<T>, CompletableFuture<Boolean>> onChangedCallback) {
 
-        this.targetType = extractTargetType();
+        // 类型、日志器、名称路径取自按类共享的元数据，不再每个实例各自反射/新建
+        AttributeMetadata meta = AttributeMetadata.of(getClass());
+        this.targetType = (Class<T>) meta.getTargetType();
 
         this.attributeID = attributeID;
         this.attrClass = attrClass;
@@ -179,8 +200,8 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
         this.persistable = persistable;
         this.defaultValue = defaultValue;
 
-        this.log = LogFactory.getLogger(getClass());
-        this.i18nDispNamePath = getI18nPrefixPath().withLastSegment(attributeID.toLowerCase(Locale.ENGLISH));
+        this.log = meta.getLog();
+        this.i18nDispNamePath = meta.dispNamePath(getI18nPrefixPath(), attributeID);
         this.valueDef = null;
     }
 
@@ -247,6 +268,7 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
                 // 下游时序落库（如 realdata 时间分区表）失败。与 updateValue 范式保持一致。
                 setValueUpdated(true);
                 this.midState = buildState();
+                reportDeviceStatus(this.midState);
             }
         }
         return true;
@@ -408,9 +430,70 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
         return getDisplayValue(displayUnit);
     }
 
+    /**
+     * buildState 的显示值延迟计算钩子：返回只依赖入参快照的纯函数，AttrState 首次读 displayValue 时才调用；
+     * 返回 null 则 buildState 立即调用 {@link #getDisplayValue()}（默认）。
+     * <p>覆盖者须保证结果与构建时刻 {@code getDisplayValue()} 逐字相同，并用 {@link #isDisplayValueDeclaredBy}
+     * 确认显示逻辑未被更下层子类改写——否则返回 null 退回立即计算。
+     *
+     * @param value     构建时刻的值
+     * @param toUnit    构建时刻的 displayUnit
+     * @param precision 构建时刻的 displayPrecision
+     */
+    protected Supplier<String> deferredDisplayValue(T value, UnitInfo toUnit, int precision) {
+        return null;
+    }
+
+    /** 每个具体属性类的 getDisplayValue(UnitInfo) 声明类；getDisplayValue() 被改写时记为 null。 */
+    private static final ClassValue<Class<?>> DISPLAY_VALUE_DECLARER = new ClassValue<Class<?>>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            try {
+                if (type.getMethod("getDisplayValue").getDeclaringClass() != AttributeBase.class) {
+                    return null;
+                }
+                return type.getMethod("getDisplayValue", UnitInfo.class).getDeclaringClass();
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
+    /** 当前实例的显示逻辑是否仍是 owner 声明的那一份（未被子类改写）。 */
+    protected final boolean isDisplayValueDeclaredBy(Class<?> owner) {
+        return DISPLAY_VALUE_DECLARER.get(getClass()) == owner;
+    }
+
+    /** 设备更新帧（{@code DeviceBase.beginUpdate()}）提交期间本线程的统一时间戳；null 表示取当前时间。 */
+    private static final ThreadLocal<Instant> FRAME_TIME = new ThreadLocal<>();
+
+    /**
+     * 框架内部用（由 {@code DeviceUpdate.commit} 调用，集成无需调用）：本线程此后的 updateValue/setStatus
+     * 以 time 作为 updateTime/lastChanged，直到 {@link #endFrame()}——同一帧的全部属性 state 共用一个时间戳。
+     *
+     * @param time 帧时间戳，不能为 null
+     */
+    public static void beginFrame(Instant time) {
+        if (time == null) {
+            throw new IllegalArgumentException("frame time must not be null");
+        }
+        FRAME_TIME.set(time);
+    }
+
+    /** 结束本线程的更新帧，恢复取当前时间；须在 finally 中与 {@link #beginFrame} 配对调用。 */
+    public static void endFrame() {
+        FRAME_TIME.remove();
+    }
+
+    /** 状态时间戳：帧内取帧时间，否则取共享时钟 {@link EcatClock} 的当前时刻。 */
+    static Instant now() {
+        Instant frame = FRAME_TIME.get();
+        return frame != null ? frame : EcatClock.now();
+    }
+
     public void setValueUpdated(boolean isValueUpdated){
         if(isValueUpdated){
-            this.updateTime = Instant.now();
+            this.updateTime = now();
         }
         this.isValueUpdated = isValueUpdated;
     }
@@ -432,18 +515,187 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
      * @param device 所属设备
      */
     public void setDevice(DeviceBase device){
-        this.device = device;
+        synchronized (this) {
+            DeviceBase old = this.device;
+            if (old != null && old != device) {
+                releaseDeviceStatus(old);
+            }
+            this.device = device;
+            // 已有状态（如先 restore/updateValue 后绑定）计入新设备的状态计数
+            if (device != null && device != old) {
+                reportDeviceStatus(getState());
+            }
+        }
         // 重新设置i18n代理，使用设备的集成类作为i18n的namespace
         if(device != null){
-            this.i18n = I18nHelper.createProxy(device.getClass()); // 使用device集成类作为namespace
+            this.i18n = AttributeMetadata.i18nProxyOf(device.getClass()); // 使用device集成类作为namespace
             if(this.i18n == null){
                 // 一般是使用mockDevice会出现这种情况，使用mockDevice通常是单测属性，回退使用本属性类的namespace
                 // 匹配逻辑是属于core或某集成内自定义属性所在的集成
-                this.i18n = I18nHelper.createProxy(this.getClass());
+                this.i18n = AttributeMetadata.i18nProxyOf(this.getClass());
+            }
+        }
+    }
+
+    /**
+     * 从设备状态计数中扣除本属性已计入的状态。由 DeviceBase 移除/替换属性时调用，用户侧不需要调用。
+     *
+     * @param from 扣除计数的设备，须为本属性当前所属设备
+     */
+    public void releaseDeviceStatus(DeviceBase from) {
+        synchronized (this) {
+            if (from != null && from == this.device && countedStatus != null) {
+                AttributeStatus counted = countedStatus;
+                countedStatus = null;
+                from.attrStatusChanged(this, counted, null, 0);
             }
         }
     }
 
+    /**
+     * 已提交态写入全站状态表（core 未装配状态表时跳过）。
+     */
+    private void updateStateTable(AttrState<T> committed) {
+        EcatCore core = device.getCore();
+        StateTable table = core != null ? core.getStateTable() : null;
+        if (table != null) {
+            table.put(device.getId(), attributeID, committed);
+        }
+    }
+
+    /**
+     * 可见状态变化后通知所属设备增量更新设备状态计数（须在 synchronized(this) 内调用）。
+     */
+    private void reportDeviceStatus(AttrState<T> s) {
+        if (s != null) {
+            Instant t = s.getLastUpdated();
+            reportDeviceStatus(s, t != null ? t.toEpochMilli() : 0);
+        }
+    }
+
+    /**
+     * 同 {@link #reportDeviceStatus(AttrState)}，显式给出计入设备最近更新时刻的时间（≤ 0 表示不算新数据）。
+     */
+    private void reportDeviceStatus(AttrState<T> s, long updatedAtMs) {
+        DeviceBase d = this.device;
+        if (d == null || s == null) {
+            return;
+        }
+        if (d.attrStatusChanged(this, countedStatus, s.getStatus(), updatedAtMs)) {
+            countedStatus = s.getStatus();
+        }
+    }
+
+    /**
+     * 设置数据过期超时：超过该时长未收到新数据（updateValue），状态转为 {@link AttributeStatus#OFFLINE}
+     * 并（异步）发布 state；之后首次 updateValue 未指定状态时恢复过期前的状态。≤ 0 关闭。
+     *
+     * <p>定时器挂在 {@link HashedTimingWheel#getDefault() 共享时间轮} 上，首次收到数据后排定；每次更新只记录时刻，
+     * 到期时再核对并顺延，不随每次更新操作时间轮。精度为时间轮 tick（缺省 1 秒）。
+     * 一般由设备配置 {@code staleness} 节点套用，见 {@link DeviceBase#STALENESS_KEY}。
+     *
+     * @param timeoutMs 超时毫秒
+     */
+    public void setStaleTimeout(long timeoutMs) {
+        synchronized (this) {
+            this.staleTimeoutMs = Math.max(0, timeoutMs);
+            if (staleTimer == null) {
+                return;
+            }
+            if (staleTimeoutMs == 0) {
+                staleTimer.cancel();
+            } else if (statusBeforeStale == null) {
+                // 按新超时重排（可能提前）
+                HashedTimingWheel.getDefault().schedule(staleTimer, lastSeenMs + staleTimeoutMs);
+            }
+        }
+    }
+
+    /** 数据过期超时毫秒，0 表示未启用。 */
+    public long getStaleTimeout() {
+        return staleTimeoutMs;
+    }
+
+    /** 是否因超时未收到数据而处于过期（OFFLINE）状态。 */
+    public boolean isStale() {
+        synchronized (this) {
+            return statusBeforeStale != null;
+        }
+    }
+
+    /**
+     * 收到新数据：恢复过期前状态（显式指定的新状态优先），记录时刻，未排定时排定过期定时器。
+     * 须在 synchronized(this) 内调用。
+     */
+    private void markDataSeen() {
+        if (statusBeforeStale != null) {
+            if (this.status == AttributeStatus.OFFLINE) {
+                this.status = statusBeforeStale;
+            }
+            statusBeforeStale = null;
+        }
+        long timeout = staleTimeoutMs;
+        if (timeout <= 0) {
+            return;
+        }
+        lastSeenMs = EcatClock.currentTimeMillis();
+        if (staleTimer == null) {
+            staleTimer = new HashedTimingWheel.Timer() {
+                @Override
+                protected long expire(long nowMs) {
+                    return expireStale(nowMs);
+                }
+            };
+        }
+        if (!staleTimer.isArmed()) {
+            HashedTimingWheel.getDefault().schedule(staleTimer, lastSeenMs + timeout);
+        }
+    }
+
+    /**
+     * 过期定时器到期（时间轮线程）：期间有新数据则顺延；否则在属性锁内转为 OFFLINE、重建在途态并上报设备状态，
+     * 持久化与总线发布转交设备后台线程（{@link DeviceBase#publishAttrStateAsync}），不在属性锁内或时间轮线程上做——
+     * 同步订阅者回调不会与属性锁形成锁序问题，慢订阅者也不阻塞时间轮上的其它定时器。
+     *
+     * @return 顺延的到期时刻，0 表示不再排定（下次收到数据时重新排定）
+     */
+    private long expireStale(long nowMs) {
+        DeviceBase publishOn = null;
+        synchronized (this) {
+            long timeout = staleTimeoutMs;
+            if (timeout <= 0 || statusBeforeStale != null) {
+                return 0;
+            }
+            long due = lastSeenMs + timeout;
+            if (due > nowMs) {
+                return due;
+            }
+            statusBeforeStale = this.status != null ? this.status : AttributeStatus.EMPTY;
+            this.status = AttributeStatus.OFFLINE;
+            if (this.device == null || this.device.getId() == null) {
+                return 0;
+            }
+            // 过期由系统判定：本次 state 以 SYSTEM 溯源，之后恢复原上下文（后续数据仍按原入口溯源）
+            EventContext ctx = this.eventContext;
+            this.eventContext = EventContext.root(EventContext.Source.SYSTEM, null);
+            try {
+                setValueUpdated(true);
+                this.midState = buildState();
+                // 过期不是新数据，不刷新设备最近更新时刻
+                reportDeviceStatus(this.midState, 0);
+                if (this.device.getCore() != null) {
+                    publishOn = this.device;
+                }
+            } finally {
+                this.eventContext = ctx;
+            }
+        }
+        if (publishOn != null) {
+            publishOn.publishAttrStateAsync(this);
+        }
+        return 0;
+    }
+
     /**
      * dulplicate of {@link #getAttributeID()} for backward compatibility
      * @deprecated see {@link #getAttributeID()}
@@ -473,6 +725,16 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
         return getValueType().getValueTypeName();
     }
 
+    /**
+     * 设置发布策略。
+     *
+     * @param publishPolicy 发布策略，null 恢复默认 {@link PublishPolicy#ALWAYS}
+     */
+    @Override
+    public void setPublishPolicy(PublishPolicy publishPolicy) {
+        this.publishPolicy = publishPolicy != null ? publishPolicy : PublishPolicy.ALWAYS;
+    }
+
     /**
      * 提交并发布状态变更（commit 点）。按需发布：仅当自上次提交后有 updateValue/setStatus 变更（isValueUpdated）时。
      *
@@ -481,8 +743,24 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
      *（previousState 永远指向 lastState 的前驱=发布事件的 old，链连续无幽灵中间态）。
      * 持久化（persistable）在此对已提交的 coherent 态落盘，保证 value+status 自洽——比在 updateValue 内落盘更准
      *（避免值新/状态旧的瞬态撕裂态被持久化）。
+     *
+     * <p>经 {@link DeviceBase#publicAttrsState()} 调用时，变化并入设备本周期批次（见 {@link DeviceBase#collectDataChange}），
+     * 此处不移位、返回 true；批次在设备遍历完全部属性后一次发布，发布成功后设备调用 {@link #commitPublished} 移位，
+     * 发布失败时属性保持在途（isValueUpdated 仍为 true），设备的 publicAttrsState 返回 false，下次调用重试。
+     *
+     * <p>按 {@link #getPublishPolicy() 发布策略} 判定本次变化不显著时不发布、不持久化、不移位：lastState 仍是上次已发布态
+     *（下次比较基准与事件 old），midState 保留使 getState() 仍返回最新值。
      */
     public boolean publicState() {
+        return publicState(false);
+    }
+
+    /**
+     * 同 {@link #publicState()}；force=true 时忽略发布策略（用户侧 setValue 等必须送达的变更）。
+     *
+     * @param force 是否忽略发布策略
+     */
+    protected boolean publicState(boolean force) {
         if(this.isValueUpdated){
             try {
                 if (device == null) {
@@ -495,6 +773,18 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
                     // 无在途变更（device 未附着或从未 updateValue/setStatus），无可发布内容
                     return true;
                 }
+                AttributeHistory h = this.history;
+                if (h != null && newState != this.lastRecordedState) {
+                    // 历史记录采集值本身，不受发布策略影响；每个在途态只记一次（发布失败重试不重复）
+                    h.record(newState);
+                    this.lastRecordedState = newState;
+                }
+                long now = EcatClock.currentTimeMillis();
+                if (!force && !publishPolicy.shouldPublish(this.lastState, newState, lastPublishedAtMs, now)) {
+                    // 例外报告：变化不显著——视为已处理但不提交，lastState 保持上次已发布态
+                    this.setValueUpdated(false);
+                    return true;
+                }
                 // context 取自 eventContext（null 兜底设备轮询——setValueUpdated(true) 公开入口可能绕过 updateValue）
                 EventContext ctx = (this.eventContext != null)
                         ? this.eventContext
@@ -509,25 +799,80 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
                     }
                 }
                 // 发布总线事件：old=lastState（上次提交），new=midState（本次在途）。
-                // 失败抛到外层 catch → publicState 返回 false（保留发布失败可感知契约；未移位，下次 publicState 可重试）。
+                // 单条发布失败抛到外层 catch → publicState 返回 false（保留发布失败可感知契约；未移位，下次 publicState 可重试）。
                 DeviceDataChangedEvent change = new DeviceDataChangedEvent(
                         device.getId(), attributeID, this.lastState, newState);
+                // 设备 publicAttrsState 合包期间（同线程）交给设备并入本周期批次，批次发布成功后由设备 commitPublished 移位
+                if (device.collectDataChange(this, change)) {
+                    return true;
+                }
                 BusEvent<DeviceDataChangedEvent> event = BusEvent.of(
                         BusTopic.DEVICE_DATA_UPDATE.getTopicName(), change, ctx);
                 device.getCore().getBusRegistry().publish(event);
-                // 发布成功后移位提交：previous←last, last←mid(已提交), mid=null
-                this.previousState = this.lastState;
-                this.lastState = newState;
-                this.midState = null;
+                commitPublished(newState, now);
             } catch (Exception e) {
                 log.error("Failed to publish attribute state " + this.getAttributeID() + " for device " + device.getId(), e);
                 return false;
             }
-            this.setValueUpdated(false);
         }
         return true;
     }
 
+    /**
+     * 发布成功后的移位提交：previous←last, last←committed, 在途仍是 committed 时 mid 置空并清除更新标记
+     *（发布期间又有新的在途变更时保留它，等下次 publicState）。单条发布在 publicState 内调用；
+     * 合包发布由设备在批次发布成功后调用（框架内部用，集成无需调用）。
+     *
+     * @param committed 已发布的状态（发布事件的 new）
+     * @param nowMs     发布时刻，供发布策略的最小间隔判定
+     */
+    @SuppressWarnings("unchecked")
+    public void commitPublished(AttrState<?> committed, long nowMs) {
+        if (committed == null || committed == this.lastState) {
+            // 已由其它路径提交过（如批次发布前本属性又被单条发布）
+            return;
+        }
+        this.previousState = this.lastState;
+        this.lastState = (AttrState<T>) committed;
+        if (this.midState == committed) {
+            this.midState = null;
+            this.setValueUpdated(false);
+        }
+        this.lastPublishedAtMs = nowMs;
+        updateStateTable(this.lastState);
+    }
+
+    /**
+     * 属性内存历史；未启用时为 null。
+     */
+    public AttributeHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * 启用内存历史（替换已有历史，旧样本丢弃）。此后每次 publicState 记录一个样本，
+     * 包括被发布策略抑制未上总线的变化。
+     *
+     * @param depth  最多保留的样本数
+     * @param spanMs 最长时间跨度（毫秒），≤ 0 不按时间淘汰
+     * @return 新建的历史缓冲
+     * @see AttributeHistory
+     */
+    public AttributeHistory enableHistory(int depth, long spanMs) {
+        AttributeHistory h = new AttributeHistory(depth, spanMs);
+        this.history = h;
+        return h;
+    }
+
+    /**
+     * 设置内存历史。
+     *
+     * @param history 历史缓冲；null 停用并释放
+     */
+    public void setHistory(AttributeHistory history) {
+        this.history = history;
+    }
+
     /**
      * 获取属性当前可见的状态快照（不可变 AttrState，单次 volatile 读，字段自洽）。
      *
@@ -599,24 +944,36 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
             T oldValue = this.value;
             boolean changed = !Objects.equals(oldValue, newValue);
             this.value = newValue;
-            this.setValueUpdated();
-            if (changed) {
-                this.lastChanged = Instant.now();
-            }
-            // context 默认按设备轮询入口溯源；用户/逻辑入口会先 setEventContext 覆盖。
-            if (this.eventContext == null) {
-                this.eventContext = EventContext.root(EventContext.Source.DEVICE_POLL, null);
-            }
-            // 写入在途 midState（不触碰 lastState/previousState——它们由 publicState 移位管理）。
-            // 仅在已绑定设备且设备 id 可解析时构建（deviceId 是 AttrState 必填字段）；未绑定或 id 为 null（单测未 stub getId 的 mock 设备）时跳过。
-            if (this.device != null && this.device.getId() != null) {
-                this.midState = buildState();
-            }
+            commitValueUpdate(changed);
         }
         // 持久化已迁到 publicState（commit 点），此处不再落盘——避免值新/状态旧的瞬态 midState 被持久化。
         return true;
     }
 
+    /**
+     * 值已写入后的公共收尾：解除数据过期、刷新 updateTime、按需推进 lastChanged、补默认溯源上下文、重建在途 midState。
+     * <p>须在 synchronized(this) 内调用；{@link DoubleAttribute} 的原始 double 更新路径与 updateValue 共用。
+     *
+     * @param changed 值是否实际变化
+     */
+    final void commitValueUpdate(boolean changed) {
+        markDataSeen();
+        this.setValueUpdated();
+        if (changed) {
+            this.lastChanged = now();
+        }
+        // context 默认按设备轮询入口溯源；用户/逻辑入口会先 setEventContext 覆盖。
+        if (this.eventContext == null) {
+            this.eventContext = EventContext.root(EventContext.Source.DEVICE_POLL, null);
+        }
+        // 写入在途 midState（不触碰 lastState/previousState——它们由 publicState 移位管理）。
+        // 仅在已绑定设备且设备 id 可解析时构建（deviceId 是 AttrState 必填字段）；未绑定或 id 为 null（单测未 stub getId 的 mock 设备）时跳过。
+        if (this.device != null && this.device.getId() != null) {
+            this.midState = buildState();
+            reportDeviceStatus(this.midState);
+        }
+    }
+
     /**
      * 原子更新属性业务值与状态——<b>推荐入口</b>。值与状态一次写入、midState 仅重建一次，无瞬态撕裂、性能最优
      *（相对分别调 updateValue + setStatus 省一次 midState 重建与一次同步块）。适于收到设备新数据时同步更新值与状态。
@@ -639,22 +996,36 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
      * 从当前可变字段构建不可变 AttrState 状态。
      * <p>须在 synchronized(this) 内调用（由 updateValue 保证），确保各字段读取自洽。
      * 集合类 value 由 AttrState 自行防御性拷贝；标量与不可变类型零拷贝。
+     * 显示值经 {@link #deferredDisplayValue} 可延迟到首次读取时再格式化。
      */
     private AttrState<T> buildState() {
-        return AttrState.<T>builder()
+        AttrState.Builder<T> b = AttrState.<T>builder()
             .deviceId(device.getId())
             .attrId(attributeID)
             .valueType(targetType)
-            .value(value)
             .status(status)
             .nativeUnit(nativeUnit)
             .displayUnit(displayUnit)
             .displayPrecision(displayPrecision)
-            .displayValue(getDisplayValue())
             .lastUpdated(updateTime)
             .lastChanged(lastChanged)
-            .context(eventContext)
-            .build();
+            .context(eventContext);
+        buildStateValue(b);
+        return b.build();
+    }
+
+    /**
+     * buildState 中写入 value 与显示值（同样在 synchronized(this) 内调用）。
+     * {@link DoubleAttribute} 覆盖为写原始 double，避免装箱。
+     */
+    void buildStateValue(AttrState.Builder<T> b) {
+        b.value(value);
+        Supplier<String> deferred = deferredDisplayValue(value, displayUnit, displayPrecision);
+        if (deferred != null) {
+            b.displayValueSupplier(deferred);
+        } else {
+            b.displayValue(getDisplayValue());
+        }
     }
 
 
@@ -682,7 +1053,7 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
             return CompletableFuture.completedFuture(false);
         }
         if(updateValue(newValue)){
-            publicState();  // 值变更成功后自动发布 Bus 事件，确保下游绑定属性感知变化
+            publicState(true);  // 值变更成功后自动发布 Bus 事件（不受发布策略抑制），确保下游绑定属性感知变化
             // 触发事件订阅
             if(onChangedCallback != null){
                 return onChangedCallback.apply(new AttrChangedCallbackParams<T>(this, newValue));
@@ -815,38 +1186,6 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
         throw new IllegalArgumentException("无法将字符串转换为布尔值: " + source);
     }
 
-    @SuppressWarnings("unchecked")
-    private Class<T> extractTargetType() {
-        // java8 兼容
-        Class<?> currentClass = getClass();
-        Type genericSuperclass = currentClass.getGenericSuperclass();
-
-        while (genericSuperclass instanceof Class<?>) {
-            currentClass = (Class<?>) genericSuperclass;
-            genericSuperclass = currentClass.getGenericSuperclass();
-        }
-        if (!(genericSuperclass instanceof ParameterizedType)) {
-            throw new IllegalStateException(
-                "无法自动推导泛型类型参数，请确保子类明确声明具体类型（如 class MyAttr extends AttributeBase<MyType>）"
-            );
-        }
-
-        Type[] typeArguments = ((ParameterizedType) genericSuperclass).getActualTypeArguments();
-        if (typeArguments.length == 0) {
-            throw new IllegalStateException("泛型父类未指定具体类型参数");
-        }
-
-        Type typeArg = typeArguments[0];
-        if (typeArg instanceof Class<?>) {
-            return (Class<T>) typeArg;
-        } else {
-            throw new IllegalStateException(
-                "不支持的泛型类型参数: " + typeArg.getTypeName() +
-                "，仅支持具体类作为泛型参数"
-            );
-        }
-    }
-
     /**
      * 从 PersistedState 恢复属性状态（value, status, updateTime）到已提交 lastState。
      * 基类统一处理类型转换，不需要子类重写。恢复后 midState/previousState 置空——首次 updateValue 重建 midState、
@@ -854,7 +1193,7 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
      */
     public void restore(PersistedState state) {
         synchronized (this) {
-            this.value = convertObjectToTargetType(state.value);
+            restoreValue(state.value);
             this.status = AttributeStatus.fromId(state.statusCode);
             if (state.updateTimeEpochMs > 0) {
                 this.updateTime = Instant.ofEpochMilli(state.updateTimeEpochMs);
@@ -865,17 +1204,26 @@ public abstract class AttributeBase<T> implements AttributeAbility<T>{
                 this.lastState = buildState();
                 this.midState = null;
                 this.previousState = null;
+                reportDeviceStatus(this.lastState);
+                updateStateTable(this.lastState);
             }
         }
     }
 
+    /**
+     * restore 中写入持久化值（在 synchronized(this) 内调用）；{@link DoubleAttribute} 覆盖为直接写原始 double。
+     */
+    void restoreValue(Object rawValue) {
+        this.value = convertObjectToTargetType(rawValue);
+    }
+
     /**
      * 使用 defaultValue 恢复属性
      */
     public void restoreFromDefault() {
         this.value = defaultValue;
         this.status = AttributeStatus.NORMAL;
-        this.updateTime = Instant.now();
+        this.updateTime = now();
     }
 
     /**
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.State;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.ecat.core.Utils.EcatClock;
+
+/**
+ * 属性内存历史——定长环形缓冲，供趋势图、短窗口计算直接在内存中取最近一段数据，无需外部数据库。
+ *
+ * <p>存储为三个原始数组（epoch 毫秒 long[]、数值 double[]、状态序号 byte[]），不保留 AttrState 对象：
+ * 每个样本固定 17 字节，内存 = 容量 × 17 + 常量开销，创建时一次分配，之后不再增长（见 {@link #memoryBytes()}）。
+ *
+ * <p>两个上限同时生效：
+ * <ul>
+ *   <li>depth：最多保留的样本数，满后覆盖最旧样本；</li>
+ *   <li>spanMs：最长时间跨度，写入时淘汰早于「新样本时间 − spanMs」、查询时淘汰早于「当前时刻 − spanMs」的样本；≤ 0 表示不按时间淘汰。</li>
+ * </ul>
+ *
+ * <p>值按 {@link AttrState#getDoubleValue()} 取：数值属性为原值，Boolean 记 1/0，其它类型或无值记 NaN（时间与状态仍记录）。
+ * 样本时间须非递减；早于最新样本的写入被忽略。读写经本对象锁串行化，查询返回独立的 {@link Series} 副本。
+ *
+ * @author coffee
+ */
+public final class AttributeHistory {
+
+    /** 全部设备属性历史的总内存计量名（EcatCore 登记到 {@code BusRegistry.getMetrics()} 的 gauge）。 */
+    public static final String MEMORY_GAUGE = "state.history.bytes";
+
+    /** 每个样本占用的字节数（long 时间 + double 值 + byte 状态）。 */
+    public static final int BYTES_PER_SAMPLE = Long.BYTES + Double.BYTES + 1;
+
+    /** {@link #sample} 单次最多返回的网格点数。 */
+    public static final int MAX_SAMPLE_POINTS = 100_000;
+
+    private static final AttributeStatus[] STATUSES = AttributeStatus.values();
+
+    private final int depth;
+    private final long spanMs;
+    private final long[] times;
+    private final double[] values;
+    private final byte[] statuses;
+    // 最旧样本下标与样本数；环内逻辑第 i 个样本位于 (head + i) % depth
+    private int head;
+    private int size;
+
+    /**
+     * @param depth  最多保留的样本数，必须 &gt; 0
+     * @param spanMs 最长时间跨度（毫秒），≤ 0 表示不按时间淘汰
+     */
+    public AttributeHistory(int depth, long spanMs) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("history depth must be positive: " + depth);
+        }
+        this.depth = depth;
+        this.spanMs = spanMs;
+        this.times = new long[depth];
+        this.values = new double[depth];
+        this.statuses = new byte[depth];
+    }
+
+    /**
+     * 从 Map（YAML 配置）构建。支持的键：{@code depth}（样本数，必填）、{@code span_ms}（时间跨度，缺省不限）。
+     *
+     * @param config 配置，null 或空返回 null（表示未配置）
+     * @throws IllegalArgumentException 缺少 depth 或取值非法
+     */
+    public static AttributeHistory fromConfig(Map<String, ?> config) {
+        if (config == null || config.isEmpty()) {
+            return null;
+        }
+        Object depth = config.get("depth");
+        if (depth == null) {
+            throw new IllegalArgumentException("history 'depth' is required");
+        }
+        Object span = config.get("span_ms");
+        return new AttributeHistory((int) toLong("depth", depth), span != null ? toLong("span_ms", span) : 0);
+    }
+
+    private static long toLong(String key, Object v) {
+        if (v instanceof Number) {
+            return ((Number) v).longValue();
+        }
+        try {
+            return Long.parseLong(v.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("history '" + key + "' is not an integer: " + v, e);
+        }
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getSpanMs() {
+        return spanMs;
+    }
+
+    /** 本缓冲占用的堆内存（字节，含数组头与对象头的估算），创建后不变。 */
+    public long memoryBytes() {
+        // 3 个数组各约 16 字节头 + 本对象约 40 字节
+        return (long) depth * BYTES_PER_SAMPLE + 3 * 16 + 40;
+    }
+
+    /** 当前保留的样本数（先按时间跨度淘汰）。 */
+    public synchronized int size() {
+        evictExpired(EcatClock.currentTimeMillis());
+        return size;
+    }
+
+    /** 记录一个已提交的属性状态；时间取 lastUpdated，缺省取共享时钟。 */
+    public void record(AttrState<?> state) {
+        long t = state.getLastUpdated() != null ? state.getLastUpdated().toEpochMilli() : EcatClock.currentTimeMillis();
+        Object v = state.isDoubleValued() ? null : state.getValue();
+        double d = v instanceof Boolean ? (((Boolean) v) ? 1.0 : 0.0) : state.getDoubleValue();
+        record(t, d, state.getStatus());
+    }
+
+    /**
+     * 记录一个样本。
+     *
+     * @param timeMs 样本时间（epoch 毫秒），须不早于最新样本
+     * @param value  数值；NaN 表示无值
+     * @param status 状态，null 记为 EMPTY
+     * @return 是否写入（时间倒退时为 false）
+     */
+    public synchronized boolean record(long timeMs, double value, AttributeStatus status) {
+        if (size > 0 && timeMs < times[index(size - 1)]) {
+            return false;
+        }
+        int slot;
+        if (size < depth) {
+            slot = index(size);
+            size++;
+        } else {
+            slot = head;
+            head = (head + 1) % depth;
+        }
+        times[slot] = timeMs;
+        values[slot] = value;
+        statuses[slot] = (byte) (status != null ? status : AttributeStatus.EMPTY).ordinal();
+        evictExpired(timeMs);
+        return true;
+    }
+
+    /** 清空全部样本。 */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * 最近 n 个样本（时间升序）。
+     *
+     * @param n 样本数，超过现有数量时返回全部
+     */
+    public synchronized Series latest(int n) {
+        evictExpired(EcatClock.currentTimeMillis());
+        int count = Math.max(0, Math.min(n, size));
+        return copy(size - count, count);
+    }
+
+    /**
+     * 时间范围内的样本（含两端，时间升序）。
+     *
+     * @param fromMs 起始 epoch 毫秒
+     * @param toMs   结束 epoch 毫秒
+     */
+    public synchronized Series range(long fromMs, long toMs) {
+        evictExpired(EcatClock.currentTimeMillis());
+        int from = lowerBound(fromMs);
+        int to = lowerBound(toMs == Long.MAX_VALUE ? toMs : toMs + 1);
+        return copy(from, Math.max(0, to - from));
+    }
+
+    /**
+     * 按时间网格采样：网格点为 [fromMs, toMs] 内 stepMs 的整数倍（按 epoch 对齐，如 step=60000 即整分钟），
+     * 每点取不晚于该点的最新样本值与状态（采样保持）；该点之前无样本时值为 NaN、状态为 EMPTY。
+     *
+     * @param fromMs 起始 epoch 毫秒
+     * @param toMs   结束 epoch 毫秒
+     * @param stepMs 网格步长，必须 &gt; 0
+     * @throws IllegalArgumentException 网格点数超过 {@value #MAX_SAMPLE_POINTS}
+     */
+    public synchronized Series sample(long fromMs, long toMs, long stepMs) {
+        if (stepMs <= 0) {
+            throw new IllegalArgumentException("sample step must be positive: " + stepMs);
+        }
+        evictExpired(EcatClock.currentTimeMillis());
+        long first = Math.floorDiv(fromMs + stepMs - 1, stepMs) * stepMs;
+        if (first > toMs) {
+            return Series.EMPTY;
+        }
+        long span = (toMs - first) / stepMs + 1;
+        if (span > MAX_SAMPLE_POINTS) {
+            throw new IllegalArgumentException("too many sample points: " + span + " > " + MAX_SAMPLE_POINTS);
+        }
+        int points = (int) span;
+        long[] t = new long[points];
+        double[] v = new double[points];
+        byte[] s = new byte[points];
+        // 网格点递增，样本游标单向前进
+        int cursor = lowerBound(first + 1) - 1;
+        for (int k = 0; k < points; k++) {
+            long gridTime = first + k * stepMs;
+            while (cursor + 1 < size && times[index(cursor + 1)] <= gridTime) {
+                cursor++;
+            }
+            t[k] = gridTime;
+            if (cursor >= 0) {
+                int i = index(cursor);
+                v[k] = values[i];
+                s[k] = statuses[i];
+            } else {
+                v[k] = Double.NaN;
+                s[k] = (byte) AttributeStatus.EMPTY.ordinal();
+            }
+        }
+        return new Series(t, v, s);
+    }
+
+    private int index(int logical) {
+        int i = head + logical;
+        return i >= depth ? i - depth : i;
+    }
+
+    /** 第一个时间 ≥ timeMs 的逻辑下标（二分；无则返回 size）。 */
+    private int lowerBound(long timeMs) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[index(mid)] < timeMs) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void evictExpired(long nowMs) {
+        if (spanMs <= 0 || size == 0) {
+            return;
+        }
+        int drop = lowerBound(nowMs - spanMs);
+        if (drop > 0) {
+            head = index(drop);
+            size -= drop;
+        }
+    }
+
+    private Series copy(int fromLogical, int count) {
+        if (count == 0) {
+            return Series.EMPTY;
+        }
+        long[] t = new long[count];
+        double[] v = new double[count];
+        byte[] s = new byte[count];
+        int start = index(fromLogical);
+        int firstPart = Math.min(count, depth - start);
+        System.arraycopy(times, start, t, 0, firstPart);
+        System.arraycopy(values, start, v, 0, firstPart);
+        System.arraycopy(statuses, start, s, 0, firstPart);
+        if (firstPart < count) {
+            System.arraycopy(times, 0, t, firstPart, count - firstPart);
+            System.arraycopy(values, 0, v, firstPart, count - firstPart);
+            System.arraycopy(statuses, 0, s, firstPart, count - firstPart);
+        }
+        return new Series(t, v, s);
+    }
+
+    /** 查询结果：时间升序的样本序列（不可变副本）。 */
+    public static final class Series {
+        static final Series EMPTY = new Series(new long[0], new double[0], new byte[0]);
+
+        private final long[] times;
+        private final double[] values;
+        private final byte[] statuses;
+
+        Series(long[] times, double[] values, byte[] statuses) {
+            this.times = times;
+            this.values = values;
+            this.statuses = statuses;
+        }
+
+        public int size() {
+            return times.length;
+        }
+
+        public boolean isEmpty() {
+            return times.length == 0;
+        }
+
+        /** 第 i 个样本的 epoch 毫秒。 */
+        public long getTime(int i) {
+            return times[i];
+        }
+
+        /** 第 i 个样本的值；无值为 NaN。 */
+        public double getValue(int i) {
+            return values[i];
+        }
+
+        public AttributeStatus getStatus(int i) {
+            return STATUSES[statuses[i]];
+        }
+
+        /** 全部时间（副本）。 */
+        public long[] getTimes() {
+            return Arrays.copyOf(times, times.length);
+        }
+
+        /** 全部值（副本）。 */
+        public double[] getValues() {
+            return Arrays.copyOf(values, values.length);
+        }
+    }
+}
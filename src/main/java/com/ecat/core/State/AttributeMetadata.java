@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.State;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.ecat.core.I18n.I18nHelper;
+import com.ecat.core.I18n.I18nKeyPath;
+import com.ecat.core.I18n.I18nProxy;
+import com.ecat.core.Utils.IntegrationCoordinateHelper;
+import com.ecat.core.Utils.Log;
+import com.ecat.core.Utils.LogFactory;
+
+/**
+ * 属性类级共享元数据（享元）：泛型目标类型、日志器、i18n 代理、属性名称 i18n 路径。
+ *
+ * <p>同一型号在成百上千台设备上创建的属性，这些信息完全相同；此前每个实例各自反射推导类型、new 日志器、
+ * 解析 i18n 代理并拼接路径字符串。改为按属性类缓存一份（{@link ClassValue}，随集成类加载器卸载回收），
+ * 实例只持有引用与自身的可变状态。
+ *
+ * <p>名称路径按完整路径驻留：{@code getI18nPrefixPath()} 可依赖设备（分组前缀），不能按类缓存前缀，
+ * 但相同前缀 + 属性 ID 的结果在全部设备间共享一个 {@link I18nKeyPath}。
+ *
+ * <p>设备类的 i18n 代理（{@link AttributeBase#setDevice} 使用）只按类缓存「类 → 坐标」的解析结果，代理本身每次经
+ * {@link I18nHelper#createProxy(String, Class)} 取用——仍受 I18nHelper 按坐标的缓存管理，
+ * {@link I18nHelper#clearCache()} / {@link I18nHelper#removeCachedProxy(String)} 之后新建的属性拿到新代理。
+ * 解析不到坐标（null）时不缓存，下次重试，与 {@link I18nHelper#createProxy(Class)} 行为一致。
+ *
+ * @author coffee
+ */
+final class AttributeMetadata {
+
+    private static final ClassValue<AttributeMetadata> BY_ATTR_CLASS = new ClassValue<AttributeMetadata>() {
+        @Override
+        protected AttributeMetadata computeValue(Class<?> type) {
+            return new AttributeMetadata(type);
+        }
+    };
+
+    private static final ClassValue<CoordinateHolder> COORDINATE_BY_CLASS = new ClassValue<CoordinateHolder>() {
+        @Override
+        protected CoordinateHolder computeValue(Class<?> type) {
+            return new CoordinateHolder(type);
+        }
+    };
+
+    private final Class<?> targetType;
+    private final Log log;
+    private final ConcurrentMap<String, I18nKeyPath> dispNamePaths = new ConcurrentHashMap<>();
+
+    private AttributeMetadata(Class<?> attrClass) {
+        this.targetType = extractTargetType(attrClass);
+        this.log = LogFactory.getLogger(attrClass);
+    }
+
+    /** 属性类的共享元数据；泛型类型无法推导时抛出 IllegalStateException（不缓存，每次构造都会抛）。 */
+    static AttributeMetadata of(Class<?> attrClass) {
+        return BY_ATTR_CLASS.get(attrClass);
+    }
+
+    /** 类所属坐标的 i18n 代理（坐标按类缓存，代理取自 I18nHelper）；类不属于任何已知坐标时返回 null。 */
+    static I18nProxy i18nProxyOf(Class<?> clazz) {
+        String coordinate = COORDINATE_BY_CLASS.get(clazz).get();
+        return coordinate != null ? I18nHelper.createProxy(coordinate, clazz) : null;
+    }
+
+    Class<?> getTargetType() {
+        return targetType;
+    }
+
+    Log getLog() {
+        return log;
+    }
+
+    /** prefix + 小写属性 ID 的名称路径，相同结果共享同一实例。 */
+    I18nKeyPath dispNamePath(I18nKeyPath prefix, String attributeID) {
+        String segment = attributeID.toLowerCase(Locale.ENGLISH);
+        String key = prefix.getPathPrefix() + '\u0000' + segment;
+        I18nKeyPath path = dispNamePaths.get(key);
+        if (path == null) {
+            path = dispNamePaths.computeIfAbsent(key, k -> prefix.withLastSegment(segment));
+        }
+        return path;
+    }
+
+    private static Class<?> extractTargetType(Class<?> attrClass) {
+        // java8 兼容
+        Class<?> currentClass = attrClass;
+        Type genericSuperclass = currentClass.getGenericSuperclass();
+
+        while (genericSuperclass instanceof Class<?>) {
+            currentClass = (Class<?>) genericSuperclass;
+            genericSuperclass = currentClass.getGenericSuperclass();
+        }
+        if (!(genericSuperclass instanceof ParameterizedType)) {
+            throw new IllegalStateException(
+                "无法自动推导泛型类型参数，请确保子类明确声明具体类型（如 class MyAttr extends AttributeBase<MyType>）"
+            );
+        }
+
+        Type[] typeArguments = ((ParameterizedType) genericSuperclass).getActualTypeArguments();
+        if (typeArguments.length == 0) {
+            throw new IllegalStateException("泛型父类未指定具体类型参数");
+        }
+
+        Type typeArg = typeArguments[0];
+        if (typeArg instanceof Class<?>) {
+            return (Class<?>) typeArg;
+        } else {
+            throw new IllegalStateException(
+                "不支持的泛型类型参数: " + typeArg.getTypeName() +
+                "，仅支持具体类作为泛型参数"
+            );
+        }
+    }
+
+    /** 类所属坐标的惰性持有者：解析成功后固定（类的加载器不变，坐标不变），失败（null）时下次重试。 */
+    private static final class CoordinateHolder {
+        private final Class<?> clazz;
+        private volatile String coordinate;
+
+        CoordinateHolder(Class<?> clazz) {
+            this.clazz = clazz;
+        }
+
+        String get() {
+            String c = coordinate;
+            if (c == null) {
+                c = IntegrationCoordinateHelper.getCoordinate(clazz, clazz.getClassLoader());
+                coordinate = c;
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.State;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import com.ecat.core.I18n.I18nHelper;
+import com.ecat.core.State.UnitConversions.SameUnitClassConverter;
+import com.ecat.core.Utils.NumberFormatter;
+
+/**
+ * 原始 double 数值属性类
+ *
+ * 与 {@link NumericAttribute} 语义相同，但值以 double 原样保存：{@link #updateValue(double)}、变化判断
+ * （按 {@link Double#doubleToLongBits} 比较，与 Double.equals 一致）、单位换算、显示值格式化以及发布的
+ * {@link AttrState}（{@link AttrState#getDoubleValue()}）全程不装箱。适用于大规模高频采集的数值点。
+ *
+ * <p>{@link AttrState#getValue()} 仍返回 Double（首次读取时装箱），读取 state 的既有代码无需改动。
+ * 装箱入口 {@link #updateValue(Double)} 保留兼容，null 表示清空值。
+ *
+ * <p>可继承以实现特殊的原始数值属性；覆盖 getDisplayValue 的子类退回立即格式化显示值。
+ *
+ * @implNote displayName i18n supported, path: state.numeric_attr.{attributeID}
+ * @author coffee
+ */
+public class DoubleAttribute extends NumberAttribute<Double> {
+
+    // 原始值与是否有值，受 synchronized(this) 保护写入（同 AttributeBase.value）
+    private double doubleValue;
+    private boolean hasValue;
+
+    /**
+     * 支持I18n的构造函数
+     */
+    public DoubleAttribute(String attributeID, AttributeClass attrClass, UnitInfo nativeUnit,
+            UnitInfo displayUnit, int displayPrecision, boolean unitChangeable,
+            boolean valueChangeable) {
+        super(attributeID, attrClass, nativeUnit, displayUnit, displayPrecision,
+              unitChangeable, valueChangeable);
+    }
+
+    /**
+     * 仅 attributeID 的构造函数，用于 "先 new 再 init" 模式。
+     * 不要滥用，仅在此模式下使用。
+     */
+    protected DoubleAttribute(String attributeID) {
+        super(attributeID);
+    }
+
+    /**
+     * 同时支持用户设置显示名称displayName和I18n的构造函数，displayName优先级高
+     */
+    public DoubleAttribute(String attributeID, String displayName, AttributeClass attrClass, UnitInfo nativeUnit,
+            UnitInfo displayUnit, int displayPrecision, boolean unitChangeable,
+            boolean valueChangeable) {
+        super(attributeID, displayName, attrClass, nativeUnit, displayUnit, displayPrecision,
+              unitChangeable, valueChangeable);
+    }
+
+    /**
+     * 支持I18n的构造函数
+     */
+    public DoubleAttribute(String attributeID, AttributeClass attrClass, UnitInfo nativeUnit,
+            UnitInfo displayUnit, int displayPrecision, boolean unitChangeable,
+            boolean valueChangeable, Function<AttrChangedCallbackParams<Double>, CompletableFuture<Boolean>> onChangedCallback) {
+        super(attributeID, attrClass, nativeUnit, displayUnit, displayPrecision, unitChangeable,
+                valueChangeable, onChangedCallback);
+    }
+
+    /**
+     * 同时支持用户设置显示名称displayName和I18n的构造函数，displayName优先级高
+     */
+    public DoubleAttribute(String attributeID, String displayName, AttributeClass attrClass, UnitInfo nativeUnit,
+            UnitInfo displayUnit, int displayPrecision, boolean unitChangeable,
+            boolean valueChangeable, Function<AttrChangedCallbackParams<Double>, CompletableFuture<Boolean>> onChangedCallback) {
+        super(attributeID, displayName, attrClass, nativeUnit, displayUnit, displayPrecision, unitChangeable,
+                valueChangeable, onChangedCallback);
+    }
+
+    /**
+     * 完整参数构造函数（包含 persistable + defaultValue）
+     * 用于支持属性持久化场景
+     */
+    public DoubleAttribute(String attributeID, AttributeClass attrClass, UnitInfo nativeUnit,
+            UnitInfo displayUnit, int displayPrecision, boolean unitChangeable,
+            boolean valueChangeable, boolean persistable, Double defaultValue,
+            Function<AttrChangedCallbackParams<Double>, CompletableFuture<Boolean>> onChangedCallback) {
+        super(attributeID, attrClass, nativeUnit, displayUnit, displayPrecision, unitChangeable,
+                valueChangeable, persistable, defaultValue, onChangedCallback);
+    }
+
+    /**
+     * 更新属性业务值（工程值），不装箱。语义同 {@link AttributeBase#updateValue(Object)}。
+     *
+     * @param value 新业务值
+     * @return true
+     */
+    public boolean updateValue(double value) {
+        return update(true, value);
+    }
+
+    /**
+     * 原子更新业务值与状态——<b>推荐入口</b>，不装箱。语义同 {@link AttributeBase#updateValue(Object, AttributeStatus)}。
+     *
+     * @param value     新业务值
+     * @param newStatus 新状态；null 表示不改变当前 status
+     * @return true
+     */
+    public boolean updateValue(double value, AttributeStatus newStatus) {
+        if (newStatus != null) {
+            this.status = newStatus;
+        }
+        return update(true, value);
+    }
+
+    /** 装箱入口（兼容）；null 表示清空值。 */
+    @Override
+    public boolean updateValue(Double value) {
+        return value == null ? update(false, 0.0) : update(true, value.doubleValue());
+    }
+
+    private boolean update(boolean present, double newValue) {
+        synchronized (this) {
+            boolean changed = present != hasValue
+                    || (present && Double.doubleToLongBits(newValue) != Double.doubleToLongBits(doubleValue));
+            this.doubleValue = present ? newValue : 0.0;
+            this.hasValue = present;
+            commitValueUpdate(changed);
+        }
+        return true;
+    }
+
+    /**
+     * 获取属性原始值（装箱）——内部/子类兼容用；高频读取请用 {@link #getDoubleValue()}。
+     */
+    @Override
+    protected Double getValue() {
+        return hasValue ? Double.valueOf(doubleValue) : null;
+    }
+
+    /**
+     * 获取属性原始 double 值；无值时返回 {@link Double#NaN}（用 {@link #hasValue()} 区分）。
+     * 外部跨线程消费方用 getState().getDoubleValue()。
+     */
+    protected double getDoubleValue() {
+        return hasValue ? doubleValue : Double.NaN;
+    }
+
+    /** 是否已有值（updateValue/restore 过且未被清空）。 */
+    protected boolean hasValue() {
+        return hasValue;
+    }
+
+    @Override
+    public String getDisplayValue(UnitInfo toUnit) {
+        if (!hasValue) return null;
+        return formatDisplayValue(doubleValue, nativeUnit, toUnit, displayPrecision);
+    }
+
+    /** 与 NumberAttribute.getDisplayValue(UnitInfo) 同一算式的原始 double 版本；单位类不匹配抛错。 */
+    private static String formatDisplayValue(double value, UnitInfo fromUnit, UnitInfo toUnit, int precision) {
+        if (toUnit == null || fromUnit == null) {
+            return NumberFormatter.formatDouble(value, precision);
+        }
+        if (!fromUnit.getClass().equals(toUnit.getClass())) {
+            throw new RuntimeException(I18nHelper.t("error.invalid_unit_conversion"));
+        }
+        return NumberFormatter.formatDouble(value * fromUnit.convertUnit(toUnit), precision);
+    }
+
+    /**
+     * 写原始 double 到 state；显示值延迟到首次读取时格式化（快照构建时刻的单位与精度）。
+     * 单位类不匹配或子类改写了显示逻辑时退回立即计算（保留立即抛错）。
+     */
+    @Override
+    void buildStateValue(AttrState.Builder<Double> b) {
+        if (!hasValue) {
+            super.buildStateValue(b);
+            return;
+        }
+        final double v = doubleValue;
+        final UnitInfo fromUnit = nativeUnit;
+        final UnitInfo toUnit = displayUnit;
+        final int precision = displayPrecision;
+        b.doubleValue(v);
+        if (isDisplayValueDeclaredBy(DoubleAttribute.class)
+                && (toUnit == null || fromUnit == null || fromUnit.getClass().equals(toUnit.getClass()))) {
+            b.displayValueSupplier(() -> formatDisplayValue(v, fromUnit, toUnit, precision));
+        } else {
+            b.displayValue(getDisplayValue());
+        }
+    }
+
+    /**
+     * 将 fromUnit 下的值换算为 nativeUnit 下的值（不装箱），供设备按采集单位写入：
+     * {@code attr.updateValue(attr.convertFromUnit(raw, deviceUnit), status)}。
+     *
+     * @param value    fromUnit 下的值
+     * @param fromUnit value 的单位；与 nativeUnit 任一为 null 时原样返回
+     * @return nativeUnit 下的值
+     */
+    public double convertFromUnit(double value, UnitInfo fromUnit) {
+        if (fromUnit == null || nativeUnit == null) {
+            return value;
+        }
+        if (nativeUnit.getClass().equals(fromUnit.getClass())) {
+            return value * fromUnit.convertUnit(nativeUnit);
+        }
+        throw new RuntimeException(I18nHelper.t("error.invalid_unit_conversion"));
+    }
+
+    @Override
+    protected Double convertFromUnitImp(Double value, UnitInfo fromUnit) {
+        return convertFromUnit(value.doubleValue(), fromUnit);
+    }
+
+    /**
+     * {@link #convertValueToUnit(Double, UnitInfo, UnitInfo)} 的原始 double 版本。
+     *
+     * @throws NullPointerException 如果 fromUnit 或 toUnit 为 null
+     */
+    public double convertValueToUnit(double value, UnitInfo fromUnit, UnitInfo toUnit) {
+        if (fromUnit == null || toUnit == null) {
+            throw new NullPointerException("fromUnit and toUnit cannot be null");
+        }
+        return SameUnitClassConverter.convert(value, fromUnit, toUnit);
+    }
+
+    /** 持久化值直接取 double（fastjson2 反序列化的 BigDecimal/Integer 等同样适用）。 */
+    @Override
+    void restoreValue(Object rawValue) {
+        if (rawValue == null) {
+            this.hasValue = false;
+            this.doubleValue = 0.0;
+            return;
+        }
+        if (!(rawValue instanceof Number)) {
+            throw new IllegalArgumentException(
+                "Cannot convert persisted value type " + rawValue.getClass().getName() +
+                " to attribute type double for attribute " + attributeID
+            );
+        }
+        this.doubleValue = ((Number) rawValue).doubleValue();
+        this.hasValue = true;
+    }
+
+    @Override
+    public void restoreFromDefault() {
+        synchronized (this) {
+            this.hasValue = defaultValue != null;
+            this.doubleValue = hasValue ? defaultValue.doubleValue() : 0.0;
+        }
+        this.status = AttributeStatus.NORMAL;
+        this.updateTime = now();
+    }
+
+    @Override
+    protected Double convertToType(double value) {
+        return value;
+    }
+
+}
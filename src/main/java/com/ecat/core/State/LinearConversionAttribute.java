@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import com.ecat.core.State.Unit.UnitInfoFactory;
 import com.ecat.core.Utils.NumberFormatter;
 import com.ecat.core.I18n.I18nKeyPath;
@@ -358,6 +359,22 @@ public class LinearConversionAttribute extends NumericAttribute {
         return NumberFormatter.formatValue(displayMagnitude, displayPrecision);
     }
 
+    /** 算式同 {@link #getDisplayValue(UnitInfo)}，延迟到首次读取时格式化。 */
+    @Override
+    protected Supplier<String> deferredDisplayValue(Double value, UnitInfo toUnit, int precision) {
+        if (value == null || !isDisplayValueDeclaredBy(LinearConversionAttribute.class)) {
+            return null;
+        }
+        final UnitInfo fromUnit = getNativeUnit();
+        return () -> {
+            Double displayMagnitude = value;
+            if (toUnit != null && fromUnit != null && fromUnit.getClass().equals(toUnit.getClass())) {
+                displayMagnitude = value * fromUnit.convertUnit(toUnit);
+            }
+            return NumberFormatter.formatValue(displayMagnitude, precision);
+        };
+    }
+
     @Override
     protected Double convertFromUnitImp(Double displayValue, UnitInfo fromUnit) {
         // 将指定单位的显示值换算为 nativeUnit（业务单位）的工程值。
@@ -18,6 +18,7 @@ package com.ecat.core.State;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.ecat.core.I18n.I18nHelper;
 import com.ecat.core.I18n.I18nKeyPath;
@@ -112,6 +113,24 @@ public abstract class NumberAttribute<T extends Number> extends AttributeBase<T>
         return formatNumberValue(displayValue, displayPrecision);
     }
 
+    /**
+     * 与 {@link #getDisplayValue(UnitInfo)} 同一算式，延迟到首次读取时格式化；单位类不匹配时退回立即计算（保留立即抛错）。
+     */
+    @Override
+    protected Supplier<String> deferredDisplayValue(T value, UnitInfo toUnit, int precision) {
+        if (value == null || !isDisplayValueDeclaredBy(NumberAttribute.class)) {
+            return null;
+        }
+        final UnitInfo fromUnit = nativeUnit;
+        if (toUnit == null || fromUnit == null) {
+            return () -> formatNumberValue(value, precision);
+        }
+        if (!fromUnit.getClass().equals(toUnit.getClass())) {
+            return null;
+        }
+        return () -> formatNumberValue(multiplyNumber(value, fromUnit.convertUnit(toUnit)), precision);
+    }
+
     @Override
     protected T convertFromUnitImp(T value, UnitInfo fromUnit) {
         if (fromUnit == null || nativeUnit == null) {
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ecat.core.State;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+
+import com.ecat.core.Device.DeviceBase;
+import com.ecat.core.Utils.LogFactory;
+import com.ecat.core.Utils.Log;
+import com.ecat.core.Utils.platform.PlatformInfo;
+
+/**
+ * 每设备一个 MapDB 文件的状态存储（默认模式），路径格式: {baseDir}/{groupId}/{integrationId}/{deviceId}.db
+ *
+ * <p>状态写入二进制 map {@value #BIN_MAP_NAME}；旧版本写入的 JSON map {@value #MAP_NAME} 只读，
+ * 属性首次以新格式保存后即以二进制为准。
+ *
+ * @author coffee
+ */
+final class PerDeviceStateStore implements StateStore {
+
+    /** 旧版本的 JSON 状态 map 名（只读兜底）。 */
+    static final String MAP_NAME = "states";
+    /** 二进制状态 map 名。 */
+    static final String BIN_MAP_NAME = "states.bin";
+
+    private final String baseDir;
+    private final Map<String, DB> dbCache = new ConcurrentHashMap<>();
+    private final Log log = LogFactory.getLogger(getClass());
+
+    PerDeviceStateStore(String baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    @Override
+    public void put(DeviceBase device, String attrId, byte[] encoded) {
+        binMap(getOrCreateDb(device)).put(attrId, encoded);
+    }
+
+    @Override
+    public byte[] get(DeviceBase device, String attrId) {
+        DB db = getOrCreateDb(device);
+        byte[] encoded = binMap(db).get(attrId);
+        if (encoded == null && db.exists(MAP_NAME)) {
+            String json = statesMap(db).get(attrId);
+            encoded = json != null ? json.getBytes(StandardCharsets.UTF_8) : null;
+        }
+        return encoded;
+    }
+
+    @Override
+    public void commitAll() {
+        for (Map.Entry<String, DB> entry : dbCache.entrySet()) {
+            try {
+                entry.getValue().commit();
+            } catch (Exception e) {
+                log.error("Failed to commit DB for device " + entry.getKey(), e);
+            }
+        }
+    }
+
+    @Override
+    public void closeDevice(String deviceId) {
+        DB db = dbCache.remove(deviceId);
+        if (db != null) {
+            try {
+                db.commit();
+                db.close();
+            } catch (Exception e) {
+                log.error("Failed to close DB for device " + deviceId, e);
+            }
+        }
+    }
+
+    @Override
+    public void removeDevice(DeviceBase device) {
+        String deviceId = device.getId();
+
+        // 先从缓存获取 DB，通过 MapDB 官方 API 获取所有关联文件列表
+        DB db = dbCache.get(deviceId);
+        Iterable<String> allFiles = null;
+        if (db != null) {
+            try {
+                allFiles = db.getStore().getAllFiles();
+            } catch (Exception e) {
+                log.warn("Failed to get DB file list for device " + deviceId, e);
+            }
+        }
+
+        // 关闭 DB
+        closeDevice(deviceId);
+
+        // 删除文件：优先使用 MapDB API 获取的文件列表，兜底使用路径猜测
+        if (allFiles != null) {
+            for (String filePath : allFiles) {
+                File f = new File(filePath);
+                if (f.exists()) {
+                    f.delete();
+                }
+            }
+        } else {
+            // 兜底：DB 已关闭或获取文件列表失败，基于主路径删除
+            deleteDbFiles(new File(buildDbPath(device)));
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        for (Map.Entry<String, DB> entry : dbCache.entrySet()) {
+            try {
+                entry.getValue().commit();
+                entry.getValue().close();
+            } catch (Exception e) {
+                log.error("Failed to shutdown DB for device " + entry.getKey(), e);
+            }
+        }
+        dbCache.clear();
+    }
+
+    /** 删除 DB 主文件及同前缀的附属文件（WAL 等）。 */
+    static void deleteDbFiles(File dbFile) {
+        File dbDir = dbFile.getParentFile();
+        String dbFileName = dbFile.getName();
+        if (dbDir != null && dbDir.isDirectory()) {
+            File[] candidates = dbDir.listFiles();
+            if (candidates != null) {
+                for (File f : candidates) {
+                    if (f.getName().startsWith(dbFileName)) {
+                        f.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    /** 以与运行时相同的参数打开 DB 文件（事务 + 非 Windows 下 mmap）。 */
+    static DB openDb(File dbFile) {
+        DBMaker.Maker maker = DBMaker.fileDB(dbFile)
+            .transactionEnable();
+        // 使用 fileMmapEnableIfSupported() 而非 fileMmapEnable()，
+        // 避免进程异常退出后遗留 stale file lock 导致重启时 FileLocked 异常
+        if (!PlatformInfo.getInstance().isWindows()) {
+            maker.fileMmapEnableIfSupported();
+        }
+        return maker.make();
+    }
+
+    /** 只读打开 DB 文件（离线导出用）：不开事务、不建 map、不写文件；须 ECAT 正常停止后使用。 */
+    static DB openReadOnlyDb(File dbFile) {
+        DBMaker.Maker maker = DBMaker.fileDB(dbFile).readOnly();
+        if (!PlatformInfo.getInstance().isWindows()) {
+            maker.fileMmapEnableIfSupported();
+        }
+        return maker.make();
+    }
+
+    @SuppressWarnings("unchecked")
+    static ConcurrentMap<String, String> statesMap(DB db) {
+        return (HTreeMap<String, String>) db.hashMap(MAP_NAME)
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.STRING)
+            .createOrOpen();
+    }
+
+    @SuppressWarnings("unchecked")
+    static ConcurrentMap<String, byte[]> binMap(DB db) {
+        return (HTreeMap<String, byte[]>) db.hashMap(BIN_MAP_NAME)
+            .keySerializer(Serializer.STRING)
+            .valueSerializer(Serializer.BYTE_ARRAY)
+            .createOrOpen();
+    }
+
+    /** 读出设备 DB 的全部状态（attrId → 编码字节），二进制覆盖同键的旧 JSON；不创建 map。 */
+    static Map<String, byte[]> readAll(DB db) {
+        Map<String, byte[]> out = new HashMap<>();
+        if (db.exists(MAP_NAME)) {
+            for (Map.Entry<String, String> e : db.hashMap(MAP_NAME, Serializer.STRING, Serializer.STRING)
+                    .open().entrySet()) {
+                out.put(e.getKey(), e.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        if (db.exists(BIN_MAP_NAME)) {
+            out.putAll(db.hashMap(BIN_MAP_NAME, Serializer.STRING, Serializer.BYTE_ARRAY).open());
+        }
+        return out;
+    }
+
+    private DB getOrCreateDb(DeviceBase device) {
+        String deviceId = device.getId();
+        return dbCache.computeIfAbsent(deviceId, id -> {
+            File dbFile = new File(buildDbPath(device));
+            dbFile.getParentFile().mkdirs();
+            return openDb(dbFile);
+        });
+    }
+
+    private String buildDbPath(DeviceBase device) {
+        // coordinate format: "com.ecat:integration-sailhero"
+        String coordinate = device.getEntry().getCoordinate();
+        String[] parts = coordinate.split(":");
+        String groupId = parts[0];
+        String integrationId = parts[1];
+        String deviceId = device.getId();
+        return baseDir + groupId + "/" + integrationId + "/" + deviceId + ".db";
+    }
+}
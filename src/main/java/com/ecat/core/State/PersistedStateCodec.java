@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ecat.core.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.alibaba.fastjson2.JSON;
+
+/**
+ * {@link PersistedState} 的紧凑二进制编解码，替代每次保存一次 fastjson2 序列化。
+ *
+ * <pre>
+ * 记录   : byte MARKER(0xEC) | byte FORMAT_VERSION | varint version | varint statusCode
+ *          | varlong updateTimeEpochMs | unit | value
+ * unit   : byte 0（无单位）| byte classCode + str 枚举常量名 | byte UNIT_FULL + str 完整单位串
+ * value  : byte tag + 负载——NULL/TRUE/FALSE 无负载；DOUBLE 8 字节、FLOAT 4 字节（大端）；
+ *          INT/LONG 为 zigzag 变长整数；STRING 为 str；JSON（其余类型）为 fastjson2 文本的 str
+ * str    : varint 字节长度 + UTF-8 字节
+ * </pre>
+ * 变长整数为 7 位一组、低位在前（protobuf varint）；statusCode 存 {@link AttributeStatus} 的数值 id（稳定编号），
+ * 单位按本类固定的单位类编号 + 常量名保存——编号表只追加，不依赖 {@code UnitRegistry} 的排列顺序或枚举 ordinal，
+ * 单位枚举增删常量不会使旧数据错位；不在编号表中的单位（如 NoConversionUnit）存完整单位串。
+ *
+ * <p><b>兼容</b>：JSON 文本必以 '{' 开头，{@link #decode} 按首字节区分，旧库中的 JSON 记录照常读取。
+ * 一条典型数值状态约 15 字节（JSON 约 110 字节）。
+ *
+ * @author coffee
+ */
+public final class PersistedStateCodec {
+
+    static final byte MARKER = (byte) 0xEC;
+    static final byte FORMAT_VERSION = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_DOUBLE = 1;
+    private static final byte TAG_FLOAT = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_TRUE = 5;
+    private static final byte TAG_FALSE = 6;
+    private static final byte TAG_STRING = 7;
+    private static final byte TAG_JSON = 8;
+
+    private static final int UNIT_NONE = 0;
+    private static final int UNIT_FULL = 0xFF;
+    /** 单位类编号表（下标 + 1 为编号）。只可在末尾追加，不可删改或重排。 */
+    private static final String[] UNIT_CLASSES = {
+        "AirMassUnit", "AirVolumeUnit", "CurrentUnit", "DistanceUnit", "FrequencyUnit",
+        "IrradianceUnit", "LiterFlowUnit", "NoiseUnit", "PowerUnit", "PressureUnit",
+        "RatioUnit", "RotationSpeedUnit", "SpeedUnit", "TemperatureUnit", "TimeDeltaUnit",
+        "VoltageUnit", "VolumeUnit", "WeightUnit",
+    };
+
+    private PersistedStateCodec() {
+    }
+
+    /** 是否为本编解码的二进制记录（否则按 JSON 读取）。 */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MARKER;
+    }
+
+    public static byte[] encode(PersistedState s) {
+        Writer w = new Writer();
+        w.put(MARKER);
+        w.put(FORMAT_VERSION);
+        w.putVarLong(zigzag(s.version));
+        w.putVarLong(zigzag(s.statusCode));
+        w.putVarLong(zigzag(s.updateTimeEpochMs));
+        putUnit(w, s.nativeUnitStr);
+        putValue(w, s.value);
+        return w.toByteArray();
+    }
+
+    /**
+     * 解码二进制记录；非二进制（旧库的 JSON 文本 UTF-8 字节）按 JSON 解析。
+     *
+     * @throws IllegalArgumentException 数据损坏或格式版本不支持
+     */
+    public static PersistedState decode(byte[] data) {
+        if (!isBinary(data)) {
+            return JSON.parseObject(new String(data, StandardCharsets.UTF_8), PersistedState.class);
+        }
+        try {
+            Reader r = new Reader(data);
+            r.pos = 1;
+            int format = r.get();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported persisted state format: " + format);
+            }
+            PersistedState s = new PersistedState();
+            s.version = (int) unzigzag(r.getVarLong());
+            s.statusCode = (int) unzigzag(r.getVarLong());
+            s.updateTimeEpochMs = unzigzag(r.getVarLong());
+            s.nativeUnitStr = getUnit(r);
+            s.value = getValue(r);
+            return s;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated persisted state record", e);
+        }
+    }
+
+    /** 调试用单行描述：格式 + 字节数 + 解码内容（JSON）。 */
+    public static String describe(byte[] data) {
+        String format = isBinary(data) ? "bin" : "json";
+        try {
+            return format + " " + data.length + "B " + JSON.toJSONString(decode(data));
+        } catch (RuntimeException e) {
+            return format + " " + data.length + "B <corrupt: " + e.getMessage() + ">";
+        }
+    }
+
+    // ========== 字段 ==========
+
+    private static void putUnit(Writer w, String unit) {
+        if (unit == null) {
+            w.put((byte) UNIT_NONE);
+            return;
+        }
+        int dot = unit.lastIndexOf('.');
+        if (dot > 0) {
+            String cls = unit.substring(0, dot);
+            for (int i = 0; i < UNIT_CLASSES.length; i++) {
+                if (UNIT_CLASSES[i].equals(cls)) {
+                    w.put((byte) (i + 1));
+                    w.putString(unit.substring(dot + 1));
+                    return;
+                }
+            }
+        }
+        w.put((byte) UNIT_FULL);
+        w.putString(unit);
+    }
+
+    private static String getUnit(Reader r) {
+        int code = r.get() & 0xFF;
+        if (code == UNIT_NONE) {
+            return null;
+        }
+        if (code == UNIT_FULL) {
+            return r.getString();
+        }
+        if (code > UNIT_CLASSES.length) {
+            throw new IllegalArgumentException("Unknown unit class code: " + code);
+        }
+        return UNIT_CLASSES[code - 1] + "." + r.getString();
+    }
+
+    private static void putValue(Writer w, Object v) {
+        if (v == null) {
+            w.put(TAG_NULL);
+        } else if (v instanceof Double) {
+            w.put(TAG_DOUBLE);
+            w.putLong(Double.doubleToRawLongBits((Double) v));
+        } else if (v instanceof Float) {
+            w.put(TAG_FLOAT);
+            w.putInt(Float.floatToRawIntBits((Float) v));
+        } else if (v instanceof Integer || v instanceof Short || v instanceof Byte) {
+            w.put(TAG_INT);
+            w.putVarLong(zigzag(((Number) v).intValue()));
+        } else if (v instanceof Long) {
+            w.put(TAG_LONG);
+            w.putVarLong(zigzag((Long) v));
+        } else if (v instanceof Boolean) {
+            w.put((Boolean) v ? TAG_TRUE : TAG_FALSE);
+        } else if (v instanceof String) {
+            w.put(TAG_STRING);
+            w.putString((String) v);
+        } else {
+            w.put(TAG_JSON);
+            w.putString(JSON.toJSONString(v));
+        }
+    }
+
+    private static Object getValue(Reader r) {
+        byte tag = r.get();
+        switch (tag) {
+            case TAG_NULL: return null;
+            case TAG_DOUBLE: return Double.longBitsToDouble(r.getLong());
+            case TAG_FLOAT: return Float.intBitsToFloat(r.getInt());
+            case TAG_INT: return (int) unzigzag(r.getVarLong());
+            case TAG_LONG: return unzigzag(r.getVarLong());
+            case TAG_TRUE: return Boolean.TRUE;
+            case TAG_FALSE: return Boolean.FALSE;
+            case TAG_STRING: return r.getString();
+            case TAG_JSON: return JSON.parse(r.getString());
+            default: throw new IllegalArgumentException("Unknown persisted value tag: " + tag);
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // ========== 字节读写 ==========
+
+    private static final class Writer {
+        private byte[] buf = new byte[32];
+        private int pos;
+
+        void put(byte b) {
+            ensure(1);
+            buf[pos++] = b;
+        }
+
+        void putInt(int v) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void putLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void putVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void putString(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte get() {
+            return buf[pos++];
+        }
+
+        int getInt() {
+            int v = 0;
+            for (int i = 0; i < 4; i++) {
+                v = (v << 8) | (buf[pos++] & 0xFF);
+            }
+            return v;
+        }
+
+        long getLong() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | (buf[pos++] & 0xFF);
+            }
+            return v;
+        }
+
+        long getVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buf[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String getString() {
+            long len = getVarLong();
+            if (len < 0 || len > buf.length - pos) {
+                throw new IllegalArgumentException("Invalid string length: " + len);
+            }
+            String s = new String(buf, pos, (int) len, StandardCharsets.UTF_8);
+            pos += (int) len;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ecat.core.State;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.mapdb.DB;
+
+/**
+ * 持久化状态调试导出：逐条打印 MapDB 状态文件中的记录（键、格式 bin/json、字节数、解码内容）。
+ *
+ * <p>用法：{@code java -cp ecat-core.jar com.ecat.core.State.PersistedStateDump <db文件或目录>...}，
+ * 目录递归查找 *.db（每设备文件与分片文件均可）。文件以只读方式打开，不建 map、不改写文件。
+ * 须在 ECAT 正常停止后运行——MapDB 文件运行期被独占锁定，未提交的事务日志也不会被读到。
+ *
+ * @author coffee
+ */
+public final class PersistedStateDump {
+
+    private PersistedStateDump() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: PersistedStateDump <state.db | dir>...");
+            System.exit(1);
+        }
+        for (String arg : args) {
+            dumpPath(new File(arg), System.out);
+        }
+    }
+
+    static void dumpPath(File path, PrintStream out) {
+        if (path.isDirectory()) {
+            File[] children = path.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    if (child.isDirectory() || child.getName().endsWith(".db")) {
+                        dumpPath(child, out);
+                    }
+                }
+            }
+        } else if (path.isFile()) {
+            dumpFile(path, out);
+        }
+    }
+
+    static void dumpFile(File dbFile, PrintStream out) {
+        out.println("# " + dbFile.getPath());
+        try {
+            DB db = PerDeviceStateStore.openReadOnlyDb(dbFile);
+            try {
+                // 分片文件为有序 map，键为 deviceId\0attrId；每设备文件为哈希 map，键为 attrId
+                Map<String, byte[]> states = new TreeMap<>(isShardFile(dbFile)
+                    ? ShardedStateStore.readShard(db)
+                    : PerDeviceStateStore.readAll(db));
+                long bytes = 0;
+                for (Map.Entry<String, byte[]> e : states.entrySet()) {
+                    bytes += e.getValue().length;
+                    out.println(e.getKey().replace('\0', '/') + "\t" + PersistedStateCodec.describe(e.getValue()));
+                }
+                out.println("# " + states.size() + " records, " + bytes + " bytes");
+            } finally {
+                db.close();
+            }
+        } catch (Exception e) {
+            out.println("# failed to open: " + e);
+        }
+    }
+
+    private static boolean isShardFile(File dbFile) {
+        File dir = dbFile.getParentFile();
+        return dir != null && dir.getName().startsWith(ShardedStateStore.SHARD_DIR_PREFIX);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.State;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 属性发布策略——决定 {@link AttributeBase#publicState()} 是否把本次在途状态发布到 device.data.update。
+ *
+ * <p>默认 {@link #ALWAYS}：每次 updateValue/setStatus 后都发布（原有行为）。其余策略为<b>例外报告</b>
+ *（report-by-exception）：与<b>上次已发布</b>的 state 比较，仅显著变化才发布——
+ * <ul>
+ *   <li>status 变化：总是发布（不受最小间隔限制）；</li>
+ *   <li>heartbeatMs：距上次发布达到该间隔时强制发布一次，即使值未变；</li>
+ *   <li>minIntervalMs：距上次发布不足该间隔时抑制值变化；</li>
+ *   <li>statusChangeOnly：值变化一律不发布（仅 status 变化与心跳）；</li>
+ *   <li>deadband / deadbandPercent：数值变化量 ≤ 绝对死区，或 ≤ 上次发布值的百分比死区时抑制；
+ *       两者都配置时须同时超出才发布。未配死区时值有变化即发布；非数值型按 equals 比较。</li>
+ * </ul>
+ * 与上次已发布值比较（而非上次采集值），缓慢漂移累计超过死区后仍会发布。
+ *
+ * <p>YAML / Map 配置键见 {@link #fromConfig(Map)}。
+ *
+ * @author coffee
+ */
+public final class PublishPolicy {
+
+    /** 每次更新都发布（默认，原有行为）。 */
+    public static final PublishPolicy ALWAYS = new PublishPolicy(false, 0, 0, false, 0, 0);
+
+    /** 例外报告：值或状态变化才发布，无死区、无心跳。 */
+    public static final PublishPolicy ON_CHANGE = builder().build();
+
+    private final boolean reportByException;
+    private final double deadband;
+    private final double deadbandPercent;
+    private final boolean statusChangeOnly;
+    private final long minIntervalMs;
+    private final long heartbeatMs;
+
+    private PublishPolicy(boolean reportByException, double deadband, double deadbandPercent,
+            boolean statusChangeOnly, long minIntervalMs, long heartbeatMs) {
+        this.reportByException = reportByException;
+        this.deadband = deadband;
+        this.deadbandPercent = deadbandPercent;
+        this.statusChangeOnly = statusChangeOnly;
+        this.minIntervalMs = minIntervalMs;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean isReportByException() { return reportByException; }
+    public double getDeadband() { return deadband; }
+    public double getDeadbandPercent() { return deadbandPercent; }
+    public boolean isStatusChangeOnly() { return statusChangeOnly; }
+    public long getMinIntervalMs() { return minIntervalMs; }
+    public long getHeartbeatMs() { return heartbeatMs; }
+
+    /**
+     * 判断在途状态是否应发布。
+     *
+     * @param published     上次已发布的 state，null 表示尚未发布过（总是发布）
+     * @param next          本次在途 state
+     * @param lastPublishMs 上次发布的 epoch 毫秒，0 表示尚未发布过
+     * @param nowMs         当前 epoch 毫秒
+     * @return 是否发布
+     */
+    public boolean shouldPublish(AttrState<?> published, AttrState<?> next, long lastPublishMs, long nowMs) {
+        if (!reportByException || published == null) {
+            return true;
+        }
+        if (published.getStatus() != next.getStatus()) {
+            return true;
+        }
+        long sinceLast = nowMs - lastPublishMs;
+        if (heartbeatMs > 0 && sinceLast >= heartbeatMs) {
+            return true;
+        }
+        if (minIntervalMs > 0 && sinceLast < minIntervalMs) {
+            return false;
+        }
+        if (statusChangeOnly) {
+            return false;
+        }
+        return valueChanged(published, next);
+    }
+
+    private boolean valueChanged(AttrState<?> published, AttrState<?> next) {
+        if (!isNumeric(published) || !isNumeric(next)) {
+            return !Objects.equals(published.getValue(), next.getValue());
+        }
+        double before = published.getDoubleValue();
+        double after = next.getDoubleValue();
+        if (Double.doubleToLongBits(before) == Double.doubleToLongBits(after)) {
+            return false;
+        }
+        if (Double.isNaN(before) || Double.isNaN(after)) {
+            return true;
+        }
+        double delta = Math.abs(after - before);
+        if (deadband > 0 && delta <= deadband) {
+            return false;
+        }
+        if (deadbandPercent > 0 && delta <= Math.abs(before) * deadbandPercent / 100.0) {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isNumeric(AttrState<?> s) {
+        return s.isDoubleValued() || s.getValue() instanceof Number;
+    }
+
+    /**
+     * 从 Map（YAML 配置）构建策略。支持的键：
+     * <ul>
+     *   <li>{@code mode}：{@code always} 返回 {@link #ALWAYS}（忽略其余键）；其它或缺省为例外报告</li>
+     *   <li>{@code deadband}：绝对死区（nativeUnit 下的值）</li>
+     *   <li>{@code deadband_percent}：百分比死区（相对上次发布值，0.5 即 0.5%）</li>
+     *   <li>{@code status_change_only}：仅状态变化发布</li>
+     *   <li>{@code min_interval_ms}：最小发布间隔</li>
+     *   <li>{@code heartbeat_ms}：强制心跳间隔</li>
+     * </ul>
+     * 未识别的键忽略。
+     *
+     * @param config 配置，null 或空返回 null（表示未配置）
+     * @throws IllegalArgumentException 值类型或取值非法
+     */
+    public static PublishPolicy fromConfig(Map<String, ?> config) {
+        if (config == null || config.isEmpty()) {
+            return null;
+        }
+        Object mode = config.get("mode");
+        if (mode != null && "always".equalsIgnoreCase(mode.toString())) {
+            return ALWAYS;
+        }
+        Builder b = builder();
+        Object v;
+        if ((v = config.get("deadband")) != null) {
+            b.deadband(toDouble("deadband", v));
+        }
+        if ((v = config.get("deadband_percent")) != null) {
+            b.deadbandPercent(toDouble("deadband_percent", v));
+        }
+        if ((v = config.get("status_change_only")) != null) {
+            b.statusChangeOnly(v instanceof Boolean ? (Boolean) v : Boolean.parseBoolean(v.toString()));
+        }
+        if ((v = config.get("min_interval_ms")) != null) {
+            b.minIntervalMs((long) toDouble("min_interval_ms", v));
+        }
+        if ((v = config.get("heartbeat_ms")) != null) {
+            b.heartbeatMs((long) toDouble("heartbeat_ms", v));
+        }
+        return b.build();
+    }
+
+    private static double toDouble(String key, Object v) {
+        if (v instanceof Number) {
+            return ((Number) v).doubleValue();
+        }
+        try {
+            return Double.parseDouble(v.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("publish policy '" + key + "' is not a number: " + v, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (!reportByException) {
+            return "PublishPolicy{always}";
+        }
+        return "PublishPolicy{deadband=" + deadband + ", deadbandPercent=" + deadbandPercent
+                + ", statusChangeOnly=" + statusChangeOnly + ", minIntervalMs=" + minIntervalMs
+                + ", heartbeatMs=" + heartbeatMs + "}";
+    }
+
+    /** 例外报告策略构造器；各项缺省为 0/false（不启用）。 */
+    public static final class Builder {
+        private double deadband;
+        private double deadbandPercent;
+        private boolean statusChangeOnly;
+        private long minIntervalMs;
+        private long heartbeatMs;
+
+        public Builder deadband(double v) { this.deadband = v; return this; }
+        public Builder deadbandPercent(double v) { this.deadbandPercent = v; return this; }
+        public Builder statusChangeOnly(boolean v) { this.statusChangeOnly = v; return this; }
+        public Builder minIntervalMs(long v) { this.minIntervalMs = v; return this; }
+        public Builder heartbeatMs(long v) { this.heartbeatMs = v; return this; }
+
+        public PublishPolicy build() {
+            if (!(deadband >= 0) || !(deadbandPercent >= 0) || minIntervalMs < 0 || heartbeatMs < 0) {
+                throw new IllegalArgumentException("publish policy values must not be negative");
+            }
+            return new PublishPolicy(true, deadband, deadbandPercent, statusChangeOnly, minIntervalMs, heartbeatMs);
+        }
+    }
+}
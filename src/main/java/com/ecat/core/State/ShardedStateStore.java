@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ecat.core.State;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.mapdb.BTreeMap;
+import org.mapdb.DB;
+import org.mapdb.Serializer;
+
+import com.ecat.core.Device.DeviceBase;
+import com.ecat.core.Utils.LogFactory;
+import com.ecat.core.Utils.Log;
+
+/**
+ * 分片状态存储：全部设备的状态按 deviceId 哈希分布到固定个数的共享 MapDB 文件，
+ * 路径格式: {baseDir}/_shards-{N}/shard-{i}.db。
+ *
+ * <p>与每设备一个文件相比，打开文件数、mmap 数与每秒提交次数都固定为分片数，不随设备数增长。
+ * 分片内为有序 map，键为 {@code deviceId + '\0' + attrId}，删除设备是一次前缀区间清除。
+ * 只提交有写入的分片。
+ *
+ * <p><b>迁移</b>：启动时把 baseDir 下遗留的每设备 DB 文件（{groupId}/{integrationId}/{deviceId}.db）
+ * 与其他分片数的分片目录逐个并入当前分片：先复制并提交，再删除源文件。迁移中断后重启会重做未删除的源，
+ * 重复写入同值，幂等。分片内旧版本的 JSON map（{@value #LEGACY_MAP_NAME}）在打开时转入二进制 map。
+ *
+ * @author coffee
+ */
+final class ShardedStateStore implements StateStore {
+
+    static final String SHARD_DIR_PREFIX = "_shards-";
+    private static final String SHARD_MAP_NAME = "states.bin";
+    private static final String LEGACY_MAP_NAME = "states";
+    private static final char KEY_SEPARATOR = '\0';
+
+    private final File baseDir;
+    private final int shardCount;
+    private final DB[] dbs;
+    private final BTreeMap<String, byte[]>[] maps;
+    private final AtomicBoolean[] dirty;
+    private final Log log = LogFactory.getLogger(getClass());
+
+    @SuppressWarnings("unchecked")
+    ShardedStateStore(String baseDir, int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be > 0: " + shardCount);
+        }
+        this.baseDir = new File(baseDir);
+        this.shardCount = shardCount;
+        this.dbs = new DB[shardCount];
+        this.maps = new BTreeMap[shardCount];
+        this.dirty = new AtomicBoolean[shardCount];
+        File shardDir = new File(this.baseDir, SHARD_DIR_PREFIX + shardCount);
+        shardDir.mkdirs();
+        for (int i = 0; i < shardCount; i++) {
+            dbs[i] = PerDeviceStateStore.openDb(new File(shardDir, String.format("shard-%03d.db", i)));
+            maps[i] = openShardMap(dbs[i]);
+            dirty[i] = new AtomicBoolean();
+            convertLegacy(i);
+        }
+        migrate();
+    }
+
+    @Override
+    public void put(DeviceBase device, String attrId, byte[] encoded) {
+        int shard = shardOf(device.getId());
+        maps[shard].put(key(device.getId(), attrId), encoded);
+        dirty[shard].set(true);
+    }
+
+    @Override
+    public byte[] get(DeviceBase device, String attrId) {
+        return maps[shardOf(device.getId())].get(key(device.getId(), attrId));
+    }
+
+    @Override
+    public void commitAll() {
+        for (int i = 0; i < shardCount; i++) {
+            if (dirty[i].compareAndSet(true, false)) {
+                try {
+                    dbs[i].commit();
+                } catch (Exception e) {
+                    dirty[i].set(true);
+                    log.error("Failed to commit state shard " + i, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void closeDevice(String deviceId) {
+        // 分片共享，无设备独占资源；数据随下次 commitAll 落盘
+    }
+
+    @Override
+    public void removeDevice(DeviceBase device) {
+        String deviceId = device.getId();
+        int shard = shardOf(deviceId);
+        ConcurrentNavigableMap<String, byte[]> range = deviceRange(maps[shard], deviceId);
+        if (!range.isEmpty()) {
+            range.clear();
+            dirty[shard].set(true);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        for (int i = 0; i < shardCount; i++) {
+            try {
+                if (!dbs[i].isClosed()) {
+                    dbs[i].commit();
+                    dbs[i].close();
+                }
+            } catch (Exception e) {
+                log.error("Failed to shutdown state shard " + i, e);
+            }
+        }
+    }
+
+    /** 设备所在分片下标（String.hashCode 跨 JVM 稳定，分片数不变时同一设备始终落在同一分片）。 */
+    int shardOf(String deviceId) {
+        return Math.floorMod(deviceId.hashCode(), shardCount);
+    }
+
+    private static String key(String deviceId, String attrId) {
+        return deviceId + KEY_SEPARATOR + attrId;
+    }
+
+    private static <V> ConcurrentNavigableMap<String, V> deviceRange(BTreeMap<String, V> map, String deviceId) {
+        return map.subMap(deviceId + KEY_SEPARATOR, true, deviceId + (char) (KEY_SEPARATOR + 1), false);
+    }
+
+    private static BTreeMap<String, byte[]> openShardMap(DB db) {
+        return db.treeMap(SHARD_MAP_NAME, Serializer.STRING, Serializer.BYTE_ARRAY).createOrOpen();
+    }
+
+    /** 读出分片 DB 的全部状态（键 → 编码字节），二进制覆盖同键的旧 JSON；不创建 map。 */
+    static Map<String, byte[]> readShard(DB db) {
+        Map<String, byte[]> out = new HashMap<>();
+        if (db.exists(LEGACY_MAP_NAME)) {
+            for (Map.Entry<String, String> e : db.treeMap(LEGACY_MAP_NAME, Serializer.STRING, Serializer.STRING)
+                    .open().entrySet()) {
+                out.put(e.getKey(), e.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        if (db.exists(SHARD_MAP_NAME)) {
+            out.putAll(db.treeMap(SHARD_MAP_NAME, Serializer.STRING, Serializer.BYTE_ARRAY).open());
+        }
+        return out;
+    }
+
+    /** 分片内旧版本的 JSON 记录以 UTF-8 字节转入二进制 map（不覆盖已有二进制记录），再删除旧 map。 */
+    private void convertLegacy(int shard) {
+        DB db = dbs[shard];
+        if (!db.exists(LEGACY_MAP_NAME)) {
+            return;
+        }
+        BTreeMap<String, String> legacy = db.treeMap(LEGACY_MAP_NAME, Serializer.STRING, Serializer.STRING).open();
+        for (Map.Entry<String, String> e : legacy.entrySet()) {
+            maps[shard].putIfAbsent(e.getKey(), e.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+        legacy.clear();
+        db.commit();
+    }
+
+    // ========== 迁移 ==========
+
+    private void migrate() {
+        File[] children = baseDir.listFiles();
+        if (children == null) {
+            return;
+        }
+        int devices = 0;
+        for (File child : children) {
+            if (!child.isDirectory()) {
+                continue;
+            }
+            if (child.getName().startsWith(SHARD_DIR_PREFIX)) {
+                if (!child.getName().equals(SHARD_DIR_PREFIX + shardCount)) {
+                    migrateShardDir(child);
+                }
+                continue;
+            }
+            // {groupId}/{integrationId}/{deviceId}.db
+            File[] integrations = child.listFiles(File::isDirectory);
+            if (integrations == null) {
+                continue;
+            }
+            for (File integration : integrations) {
+                File[] files = integration.listFiles((dir, name) -> name.endsWith(".db"));
+                if (files == null) {
+                    continue;
+                }
+                for (File dbFile : files) {
+                    if (migrateDeviceFile(dbFile)) {
+                        devices++;
+                    }
+                }
+                // 仅在已清空时删除（非空目录 delete 失败，无副作用）
+                integration.delete();
+            }
+            child.delete();
+        }
+        if (devices > 0) {
+            log.info("Migrated persisted state of {} devices into {} shards", devices, shardCount);
+        }
+    }
+
+    private boolean migrateDeviceFile(File dbFile) {
+        String name = dbFile.getName();
+        String deviceId = name.substring(0, name.length() - ".db".length());
+        try {
+            DB source = PerDeviceStateStore.openDb(dbFile);
+            try {
+                Map<String, byte[]> states = PerDeviceStateStore.readAll(source);
+                if (!states.isEmpty()) {
+                    int shard = shardOf(deviceId);
+                    for (Map.Entry<String, byte[]> e : states.entrySet()) {
+                        maps[shard].put(key(deviceId, e.getKey()), e.getValue());
+                    }
+                    dbs[shard].commit();
+                }
+            } finally {
+                source.close();
+            }
+            PerDeviceStateStore.deleteDbFiles(dbFile);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to migrate state file " + dbFile + ", left in place", e);
+            return false;
+        }
+    }
+
+    private void migrateShardDir(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".db"));
+        if (files == null) {
+            return;
+        }
+        List<File> done = new ArrayList<>();
+        for (File dbFile : files) {
+            try {
+                DB source = PerDeviceStateStore.openDb(dbFile);
+                try {
+                    Map<String, byte[]> states = readShard(source);
+                    if (!states.isEmpty()) {
+                        for (Map.Entry<String, byte[]> e : states.entrySet()) {
+                            String k = e.getKey();
+                            int sep = k.indexOf(KEY_SEPARATOR);
+                            maps[shardOf(sep >= 0 ? k.substring(0, sep) : k)].put(k, e.getValue());
+                        }
+                        for (DB db : dbs) {
+                            db.commit();
+                        }
+                    }
+                } finally {
+                    source.close();
+                }
+                done.add(dbFile);
+            } catch (Exception e) {
+                log.error("Failed to migrate state shard " + dbFile + ", left in place", e);
+            }
+        }
+        for (File f : done) {
+            PerDeviceStateStore.deleteDbFiles(f);
+        }
+        if (done.size() == files.length) {
+            dir.delete();
+        }
+        log.info("Resharded {} state shard files from {} into {} shards", done.size(), dir.getName(), shardCount);
+    }
+}
@@ -19,35 +19,64 @@ package com.ecat.core.State;
 import java.io.File;
 import java.util.Collection;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
-import com.alibaba.fastjson2.JSON;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
-import org.mapdb.HTreeMap;
-import org.mapdb.Serializer;
-
 import com.ecat.core.Device.DeviceBase;
 import com.ecat.core.Utils.LogFactory;
 import com.ecat.core.Utils.Log;
-import com.ecat.core.Utils.platform.PlatformInfo;
 
 /**
  * 属性状态持久化管理器
  *
- * 使用 MapDB 管理每个设备的属性状态持久化。
- * 每个设备一个 DB 文件，路径格式: {baseDir}/{groupId}/{integrationId}/{deviceId}.db
+ * 使用 MapDB 管理设备的属性状态持久化，两种存储模式：
+ * <ul>
+ *   <li>每设备一个 DB 文件（默认），路径格式: {baseDir}/{groupId}/{integrationId}/{deviceId}.db</li>
+ *   <li>分片：全部设备按 deviceId 哈希分布到固定个数的共享 DB 文件（{baseDir}/_shards-{N}/），
+ *       打开文件数与每秒提交次数不随设备数增长；首次启动时自动迁移遗留的每设备文件。
+ *       由系统属性 {@value #SHARDS_PROPERTY} 或构造参数 shardCount 启用</li>
+ * </ul>
  *
+ * 编码: {@link PersistedStateCodec} 紧凑二进制；旧库中的 JSON 记录照常读取，属性下次保存时转为二进制。
  * 写入策略: 每次 updateValue 写入 MapDB WAL，定时 1 秒批量 commit。
+ * 写回（write-behind）模式下 saveState 只把已提交状态放进按 (设备, 属性) 后写覆盖的内存缓冲，
+ * 由定时任务在每次 commit 前批量编码写入存储——轮询线程不再承担编码与存储开销，两次 commit 之间
+ * 同一属性的多次保存合并为一次写入。由系统属性 {@value #WRITE_BEHIND_PROPERTY} 或构造参数 writeBehind 启用，需有 scheduler。
+ * <p>
+ * 丢失上界: 两种模式相同——进程异常退出时丢失最近一次成功 commit 之后的保存，即至多约一个 commit 周期（1 秒）
+ * 加一次写入耗时的状态（直写模式未 commit 的 WAL 事务在重启时同样被丢弃）；每个属性恢复为该时刻之前的最后已提交值。
+ * 正常 {@link #shutdown()} 先写出缓冲再 commit，不丢失。缓冲每个属性至多一项，内存随持久化属性数有界。
  * 恢复策略: setAttribute 时逐个恢复，包含单位校验和默认值兜底。
  */
 public class StateManager {
 
+    /** 分片数系统属性（如 {@code -Decat.state.shards=16}）；未设置或 ≤ 0 时每设备一个 DB 文件。 */
+    public static final String SHARDS_PROPERTY = "ecat.state.shards";
+    /** 写回模式系统属性（如 {@code -Decat.state.writeBehind=true} 启用）；未设置时直写。 */
+    public static final String WRITE_BEHIND_PROPERTY = "ecat.state.writeBehind";
+
+    /** 写回缓冲项：待写出的已提交状态。AttrState 不可变，编码推迟到写出线程。 */
+    private static final class Pending {
+        final DeviceBase device;
+        final AttrState<?> state;
+
+        Pending(DeviceBase device, AttrState<?> state) {
+            this.device = device;
+            this.state = state;
+        }
+    }
+
     private final String baseDir;
-    private final Map<String, DB> dbCache = new ConcurrentHashMap<>();
+    private final StateStore store;
+    private final boolean writeBehind;
+    // 写回缓冲：deviceId → attrId → 最新待写出状态（后写覆盖）。设备项写空后移除，增删都在该键的 compute 内
+    private final Map<String, Map<String, Pending>> pending = new ConcurrentHashMap<>();
+    // 写出串行化：并发写出可能让较旧的一项覆盖已写出的较新一项
+    private final Object drainLock = new Object();
+    // 已删除的设备实例（按实例，同 deviceId 重建的新实例不受影响），其缓冲中的保存不再写出；仅在 drainLock 下访问
+    private final Map<DeviceBase, Boolean> removedDevices = new WeakHashMap<>();
     private final Log log = LogFactory.getLogger(getClass());
 
     /**
@@ -55,17 +84,46 @@ public class StateManager {
      */
     public StateManager() {
         this.baseDir = null;
+        this.store = null;
+        this.writeBehind = false;
     }
 
     /**
-     * 完整构造函数
+     * 完整构造函数（每设备一个 DB 文件）
      * @param baseDir 持久化根目录，如 ".ecat-data/core/states/"
      * @param scheduler 定时任务执行器，用于批量 commit
      */
     public StateManager(String baseDir, ScheduledExecutorService scheduler) {
+        this(baseDir, scheduler, 0);
+    }
+
+    /**
+     * 完整构造函数
+     * @param baseDir 持久化根目录，如 ".ecat-data/core/states/"
+     * @param scheduler 定时任务执行器，用于批量 commit
+     * @param shardCount 分片数；≤ 0 时每设备一个 DB 文件
+     */
+    public StateManager(String baseDir, ScheduledExecutorService scheduler, int shardCount) {
+        this(baseDir, scheduler, shardCount, false);
+    }
+
+    /**
+     * 完整构造函数
+     * @param baseDir 持久化根目录，如 ".ecat-data/core/states/"
+     * @param scheduler 定时任务执行器，用于批量写出与 commit
+     * @param shardCount 分片数；≤ 0 时每设备一个 DB 文件
+     * @param writeBehind 是否启用写回模式；scheduler 为 null 时忽略（无后台写出线程）
+     */
+    public StateManager(String baseDir, ScheduledExecutorService scheduler, int shardCount, boolean writeBehind) {
         this.baseDir = baseDir;
+        this.writeBehind = writeBehind && baseDir != null && scheduler != null;
         if (baseDir != null) {
             new File(baseDir).mkdirs();
+            this.store = shardCount > 0
+                ? new ShardedStateStore(baseDir, shardCount)
+                : new PerDeviceStateStore(baseDir);
+        } else {
+            this.store = null;
         }
 
         if (scheduler != null) {
@@ -74,7 +132,7 @@ public class StateManager {
     }
 
     /**
-     * 保存属性状态到 MapDB（仅写入 WAL 缓存，不立即 commit）
+     * 保存属性状态到 MapDB（仅写入 WAL 缓存，不立即 commit；写回模式下只放入内存缓冲）
      *
      * @param device 属性所属设备
      * @param attr 需要持久化的属性
@@ -85,9 +143,17 @@ public class StateManager {
         try {
             AttrState<?> s = attr.getState();
             if (s == null) return;  // 未 updateValue 过，无可持久化的 state
-            ConcurrentMap<String, String> map = getOrCreateMap(device);
+            if (writeBehind) {
+                Pending p = new Pending(device, s);
+                pending.compute(device.getId(), (k, devicePending) -> {
+                    Map<String, Pending> m = devicePending != null ? devicePending : new ConcurrentHashMap<>();
+                    m.put(attr.getAttributeID(), p);
+                    return m;
+                });
+                return;
+            }
             // 围绕 state 持久化：从不可变 AttrState 精简映射，不戳 attr 内部字段
-            map.put(attr.getAttributeID(), JSON.toJSONString(PersistedState.from(s)));
+            store.put(device, attr.getAttributeID(), PersistedStateCodec.encode(PersistedState.from(s)));
         } catch (Exception e) {
             log.error("Failed to save state for attr " + attr.getAttributeID() +
                 " device " + device.getId(), e);
@@ -95,7 +161,7 @@ public class StateManager {
     }
 
     /**
-     * 从 MapDB 加载单个属性状态
+     * 从 MapDB 加载单个属性状态（写回缓冲中尚未写出的状态优先）
      *
      * @param device 属性所属设备
      * @param attrId 属性ID
@@ -105,10 +171,14 @@ public class StateManager {
         if (baseDir == null) return null;
 
         try {
-            ConcurrentMap<String, String> map = getOrCreateMap(device);
-            String json = map.get(attrId);
-            if (json == null) return null;
-            return JSON.parseObject(json, PersistedState.class);
+            Map<String, Pending> devicePending = pending.get(device.getId());
+            Pending p = devicePending != null ? devicePending.get(attrId) : null;
+            if (p != null) {
+                return PersistedState.from(p.state);
+            }
+            byte[] encoded = store.get(device, attrId);
+            if (encoded == null) return null;
+            return PersistedStateCodec.decode(encoded);
         } catch (Exception e) {
             log.error("Failed to load state for attr " + attrId +
                 " device " + device.getId(), e);
@@ -152,32 +222,83 @@ public class StateManager {
     }
 
     /**
-     * 手动触发所有 DB 的 commit
+     * 写出写回缓冲并触发所有 DB 的 commit（定时任务每秒调用，也可手动调用）
      */
     public void commitAll() {
-        for (Map.Entry<String, DB> entry : dbCache.entrySet()) {
-            try {
-                entry.getValue().commit();
-            } catch (Exception e) {
-                log.error("Failed to commit DB for device " + entry.getKey(), e);
+        if (store != null) {
+            flushPending();
+            store.commitAll();
+        }
+    }
+
+    /** 写回缓冲中是否有该设备的项。 */
+    boolean hasPendingDevice(String deviceId) {
+        return pending.containsKey(deviceId);
+    }
+
+    /** 写回缓冲中待写出的属性数。 */
+    int pendingCount() {
+        int n = 0;
+        for (Map<String, Pending> devicePending : pending.values()) {
+            n += devicePending.size();
+        }
+        return n;
+    }
+
+    /** 把写回缓冲批量写入存储（不 commit）。写出期间新到的保存留在缓冲中等下一轮。 */
+    private void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (drainLock) {
+            for (String deviceId : pending.keySet()) {
+                drainDevice(deviceId);
+            }
+        }
+    }
+
+    /** 只写出一个设备的写回缓冲（不 commit）。 */
+    private void flushDevice(String deviceId) {
+        if (!pending.containsKey(deviceId)) {
+            return;
+        }
+        synchronized (drainLock) {
+            drainDevice(deviceId);
+        }
+    }
+
+    /** 写出并清空一个设备的缓冲项，写空后移除设备项（须持 drainLock）。已删除设备实例的保存直接丢弃。 */
+    private void drainDevice(String deviceId) {
+        Map<String, Pending> devicePending = pending.get(deviceId);
+        if (devicePending == null) {
+            return;
+        }
+        for (Map.Entry<String, Pending> e : devicePending.entrySet()) {
+            Pending p = e.getValue();
+            if (!removedDevices.containsKey(p.device)) {
+                try {
+                    store.put(p.device, e.getKey(), PersistedStateCodec.encode(PersistedState.from(p.state)));
+                } catch (Exception ex) {
+                    log.error("Failed to save state for attr " + e.getKey() +
+                        " device " + p.device.getId(), ex);
+                }
             }
+            // 仅当未被更新的保存替换时移除；写入失败同样移除，不无限重试
+            devicePending.remove(e.getKey(), p);
         }
+        // 与 saveState 的 compute 同在该键的锁内判空，不会丢掉并发新到的保存
+        pending.computeIfPresent(deviceId, (k, m) -> m.isEmpty() ? null : m);
     }
 
     /**
-     * 关闭设备的 DB（commit + close），保留文件
+     * 关闭设备的 DB（commit + close），保留文件；分片模式下分片共享，无需关闭
      *
      * @param deviceId 设备ID
      */
     public void closeDevice(String deviceId) {
-        DB db = dbCache.remove(deviceId);
-        if (db != null) {
-            try {
-                db.commit();
-                db.close();
-            } catch (Exception e) {
-                log.error("Failed to close DB for device " + deviceId, e);
-            }
+        if (store != null) {
+            flushDevice(deviceId);
+            store.closeDevice(deviceId);
         }
     }
 
@@ -193,50 +314,18 @@ public class StateManager {
     }
 
     /**
-     * 删除设备的 DB 文件（close + delete file）
+     * 删除设备的持久化状态（每设备模式 close + delete file；分片模式删除分片中该设备的全部键）
      *
      * @param device 设备实例
      */
     public void removeDevice(DeviceBase device) {
-        String deviceId = device.getId();
-
-        // 先从缓存获取 DB，通过 MapDB 官方 API 获取所有关联文件列表
-        DB db = dbCache.get(deviceId);
-        Iterable<String> allFiles = null;
-        if (db != null) {
-            try {
-                allFiles = db.getStore().getAllFiles();
-            } catch (Exception e) {
-                log.warn("Failed to get DB file list for device " + deviceId, e);
-            }
-        }
-
-        // 关闭 DB
-        closeDevice(deviceId);
-
-        // 删除文件：优先使用 MapDB API 获取的文件列表，兜底使用路径猜测
-        if (allFiles != null) {
-            for (String filePath : allFiles) {
-                File f = new File(filePath);
-                if (f.exists()) {
-                    f.delete();
-                }
-            }
-        } else {
-            // 兜底：DB 已关闭或获取文件列表失败，基于主路径删除
-            String dbPath = buildDbPath(device);
-            File dbDir = new File(dbPath).getParentFile();
-            String dbFileName = new File(dbPath).getName();
-            if (dbDir != null && dbDir.isDirectory()) {
-                File[] candidates = dbDir.listFiles();
-                if (candidates != null) {
-                    for (File f : candidates) {
-                        if (f.getName().startsWith(dbFileName)) {
-                            f.delete();
-                        }
-                    }
-                }
+        if (store != null) {
+            synchronized (drainLock) {
+                // 标记后并发到达的该实例保存留在缓冲中，写出时丢弃，不会重建已删除的库文件
+                removedDevices.put(device, Boolean.TRUE);
+                drainDevice(device.getId());
             }
+            store.removeDevice(device);
         }
     }
 
@@ -244,51 +333,9 @@ public class StateManager {
      * 关闭所有 DB，最终 commit（shutdown 时调用）
      */
     public void shutdown() {
-        for (Map.Entry<String, DB> entry : dbCache.entrySet()) {
-            try {
-                entry.getValue().commit();
-                entry.getValue().close();
-            } catch (Exception e) {
-                log.error("Failed to shutdown DB for device " + entry.getKey(), e);
-            }
+        if (store != null) {
+            flushPending();
+            store.shutdown();
         }
-        dbCache.clear();
-    }
-
-    // ========== 内部方法 ==========
-
-    private ConcurrentMap<String, String> getOrCreateMap(DeviceBase device) {
-        DB db = getOrCreateDb(device);
-        HTreeMap<String, String> map = (HTreeMap<String, String>) db.hashMap("states")
-            .keySerializer(Serializer.STRING)
-            .valueSerializer(Serializer.STRING)
-            .createOrOpen();
-        return map;
-    }
-
-    private DB getOrCreateDb(DeviceBase device) {
-        String deviceId = device.getId();
-        return dbCache.computeIfAbsent(deviceId, id -> {
-            String dbPath = buildDbPath(device);
-            new File(dbPath).getParentFile().mkdirs();
-            DBMaker.Maker maker = DBMaker.fileDB(dbPath)
-                .transactionEnable();
-            // 使用 fileMmapEnableIfSupported() 而非 fileMmapEnable()，
-            // 避免进程异常退出后遗留 stale file lock 导致重启时 FileLocked 异常
-            if (!PlatformInfo.getInstance().isWindows()) {
-                maker.fileMmapEnableIfSupported();
-            }
-            return maker.make();
-        });
-    }
-
-    private String buildDbPath(DeviceBase device) {
-        // coordinate format: "com.ecat:integration-sailhero"
-        String coordinate = device.getEntry().getCoordinate();
-        String[] parts = coordinate.split(":");
-        String groupId = parts[0];
-        String integrationId = parts[1];
-        String deviceId = device.getId();
-        return baseDir + groupId + "/" + integrationId + "/" + deviceId + ".db";
     }
 }
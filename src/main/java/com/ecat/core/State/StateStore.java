@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ecat.core.State;
+
+import com.ecat.core.Device.DeviceBase;
+
+/**
+ * 属性状态的底层存储（{@link StateManager} 的存储模式）：按 (设备, 属性 id) 存取编码后的状态。
+ *
+ * <p>值为 {@link PersistedStateCodec} 编码的字节；旧库中的 JSON 记录以其 UTF-8 字节返回，由编解码按首字节识别。
+ * 写入只进存储的事务缓存，{@link #commitAll()} 统一提交（StateManager 每秒调用一次）。
+ *
+ * @author coffee
+ */
+interface StateStore {
+
+    void put(DeviceBase device, String attrId, byte[] encoded);
+
+    /** 无数据时返回 null。 */
+    byte[] get(DeviceBase device, String attrId);
+
+    void commitAll();
+
+    /** 提交并释放设备占用的资源，保留数据。 */
+    void closeDevice(String deviceId);
+
+    /** 删除设备的全部数据。 */
+    void removeDevice(DeviceBase device);
+
+    /** 提交并关闭全部资源。 */
+    void shutdown();
+}
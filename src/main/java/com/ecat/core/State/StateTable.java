@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.Subscription;
+import com.ecat.core.Bus.event.DeviceLifecycleEvent;
+
+/**
+ * 全站状态表：(deviceId, attrId) → 最新已提交 {@link AttrState}，带全局单调版本号。
+ *
+ * <p>由 {@link AttributeBase#publicState()} 提交点与 restore 写入，读方（导出、UI 同步）不再遍历
+ * DeviceRegistry → getAttrs → getState，也不碰属性锁。读路径无锁：{@link #get}、{@link #snapshot()}、
+ * {@link #changesSince(long)} 只读 {@link ConcurrentHashMap} 与 volatile 字段。
+ *
+ * <p><b>版本与一致性</b>：每次写入（含删除）分配一个全局版本号。版本按写入完成的先后不一定连续发布，
+ * 表维护「已发布水位」——不大于水位的版本全部已写入表中；快照取水位 V 作为时间点，每个键取版本不大于 V 的最新一项
+ *（写入时保留前驱，快照期间被覆盖的键沿前驱回溯），因此快照恰好反映版本 ≤ V 的全部写入、不含之后的任何写入。
+ * 前驱只在有进行中的快照需要时保留：写入发布后水位已越过本版本且无更早登记的快照时即截断，不累积历史；
+ * 否则留到该键下一次写入时截断（每键至多多留一项）。
+ *
+ * <p><b>增量</b>：{@link #changesSince(long)} 返回版本在 (since, V] 的变化，删除以 {@link Entry#isRemoved() 墓碑}
+ * 表示。墓碑超过 {@value #MAX_TOMBSTONES} 个时清理旧墓碑并抬高增量下限，since 低于下限（或高于当前版本，
+ * 如进程重启后版本从 0 重新计数）时返回全量快照（{@link Snapshot#isFull()}），客户端据此整表重建。
+ *
+ * @author coffee
+ */
+public final class StateTable {
+
+    /** 墓碑数上限，超过时清理已不被进行中快照需要的墓碑。 */
+    static final int MAX_TOMBSTONES = 4096;
+
+    // 发布环：版本 v 写入完成后记入槽 v & RING_MASK，水位据此连续推进。
+    // 槽被上一圈版本 v - RING_SIZE 占用且尚未被水位越过时，v 等待后再记入（见 publish），环不会回绕覆盖
+    static final int RING_SIZE = 1 << 16;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    /** 表中一项：某属性在某版本的已提交状态，state 为 null 表示已删除（墓碑）。不可变（前驱链除外）。 */
+    public static final class Entry {
+        private final String deviceId;
+        private final String attrId;
+        private final AttrState<?> state;
+        private final long version;
+        // 被本项覆盖的上一项，仅供进行中的快照回溯；不再需要时截断
+        private volatile Entry prev;
+
+        Entry(String deviceId, String attrId, AttrState<?> state, long version, Entry prev) {
+            this.deviceId = deviceId;
+            this.attrId = attrId;
+            this.state = state;
+            this.version = version;
+            this.prev = prev;
+        }
+
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        public String getAttrId() {
+            return attrId;
+        }
+
+        /** 已提交状态；墓碑返回 null。 */
+        public AttrState<?> getState() {
+            return state;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isRemoved() {
+            return state == null;
+        }
+
+        /** 版本不大于 v 的最新一项；该键在 v 时尚不存在时返回 null。 */
+        Entry asOf(long v) {
+            Entry e = this;
+            while (e != null && e.version > v) {
+                e = e.prev;
+            }
+            return e;
+        }
+    }
+
+    /** 快照或增量：版本 ≤ {@link #getVersion()} 的表内容（全量）或 (since, version] 的变化（增量）。 */
+    public static final class Snapshot {
+        private final long sinceVersion;
+        private final long version;
+        private final boolean full;
+        private final List<Entry> entries;
+
+        Snapshot(long sinceVersion, long version, boolean full, List<Entry> entries) {
+            this.sinceVersion = sinceVersion;
+            this.version = version;
+            this.full = full;
+            this.entries = Collections.unmodifiableList(entries);
+        }
+
+        /** 增量的起点版本（不含）；全量为 0。 */
+        public long getSinceVersion() {
+            return sinceVersion;
+        }
+
+        /** 快照时间点版本，下次增量以此为 since。 */
+        public long getVersion() {
+            return version;
+        }
+
+        /** 是否为全量（客户端应整表替换）；全量不含墓碑。 */
+        public boolean isFull() {
+            return full;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+    }
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> devices = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong watermark = new AtomicLong();
+    private final AtomicLongArray published = new AtomicLongArray(RING_SIZE);
+    // 进行中的快照 → 登记时的水位（不大于其时间点），写入据此决定能否截断前驱
+    private final ConcurrentHashMap<Object, Long> activeSnapshots = new ConcurrentHashMap<>();
+    private final AtomicInteger tombstones = new AtomicInteger();
+    // 增量下限：低于此版本的墓碑可能已清理
+    private volatile long deltaFloor;
+    // 版本分配后、记入发布环前的回调，仅单测用于模拟写入方在此被抢占
+    volatile LongConsumer beforePublish;
+
+    /**
+     * 写入属性的最新已提交状态。
+     *
+     * @param deviceId 设备 id
+     * @param attrId   属性 id
+     * @param state    已提交状态
+     */
+    public void put(String deviceId, String attrId, AttrState<?> state) {
+        if (deviceId == null || attrId == null || state == null) {
+            return;
+        }
+        write(deviceId, attrId, state);
+    }
+
+    /**
+     * 删除一项（写入墓碑）；不存在或已删除时不产生新版本。
+     *
+     * @return 是否删除了存在的项
+     */
+    public boolean remove(String deviceId, String attrId) {
+        if (deviceId == null || attrId == null) {
+            return false;
+        }
+        Map<String, Entry> device = devices.get(deviceId);
+        Entry current = device != null ? device.get(attrId) : null;
+        if (current == null || current.isRemoved()) {
+            return false;
+        }
+        boolean removed = write(deviceId, attrId, null);
+        if (removed && tombstones.incrementAndGet() > MAX_TOMBSTONES) {
+            purgeTombstones();
+        }
+        return removed;
+    }
+
+    /**
+     * 删除设备的全部项。
+     *
+     * @return 删除的项数
+     */
+    public int removeDevice(String deviceId) {
+        Map<String, Entry> device = deviceId != null ? devices.get(deviceId) : null;
+        if (device == null) {
+            return 0;
+        }
+        int n = 0;
+        for (String attrId : new ArrayList<>(device.keySet())) {
+            if (remove(deviceId, attrId)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** 属性的最新已提交状态，无或已删除返回 null。 */
+    public AttrState<?> get(String deviceId, String attrId) {
+        Map<String, Entry> device = devices.get(deviceId);
+        Entry e = device != null ? device.get(attrId) : null;
+        return e != null ? e.getState() : null;
+    }
+
+    /** 当前已发布水位：版本不大于它的写入均已可见。 */
+    public long getVersion() {
+        return advanceWatermark();
+    }
+
+    /** 一致的全量快照（不含已删除项）。 */
+    public Snapshot snapshot() {
+        return scan(0, true);
+    }
+
+    /**
+     * 自 sinceVersion 以来的变化（含删除墓碑）。since 不在可增量范围内时返回全量快照。
+     *
+     * @param sinceVersion 客户端已同步到的版本（上次 {@link Snapshot#getVersion()}）
+     */
+    public Snapshot changesSince(long sinceVersion) {
+        if (sinceVersion < deltaFloor || sinceVersion > getVersion()) {
+            return snapshot();
+        }
+        Snapshot delta = scan(sinceVersion, false);
+        // 扫描期间清理了墓碑可能漏报删除：退回全量
+        return sinceVersion < deltaFloor ? snapshot() : delta;
+    }
+
+    /** 表内（含墓碑）项数。 */
+    public int size() {
+        int n = 0;
+        for (Map<String, Entry> device : devices.values()) {
+            n += device.size();
+        }
+        return n;
+    }
+
+    /** 订阅设备生命周期：设备移除（REMOVE）时删除其全部项。 */
+    public Subscription attach(BusRegistry registry) {
+        return registry.subscribe(BusTopic.DEVICE_LIFECYCLE.getTopicName(), event -> {
+            Object payload = event.getPayload();
+            if (payload instanceof DeviceLifecycleEvent
+                    && ((DeviceLifecycleEvent) payload).getAction() == DeviceLifecycleEvent.Action.REMOVE) {
+                removeDevice(((DeviceLifecycleEvent) payload).getDeviceId());
+            }
+        });
+    }
+
+    private boolean write(String deviceId, String attrId, AttrState<?> state) {
+        ConcurrentHashMap<String, Entry> device = devices.computeIfAbsent(deviceId, k -> new ConcurrentHashMap<>());
+        long[] assigned = new long[1];
+        Entry[] written = new Entry[1];
+        device.compute(attrId, (k, old) -> {
+            if (state == null && (old == null || old.isRemoved())) {
+                return old;
+            }
+            if (old != null) {
+                if (old.isRemoved() && state != null) {
+                    tombstones.decrementAndGet();
+                }
+                if (old.version <= trimBound()) {
+                    // 进行中的快照至多回溯到 old，更早的不再需要
+                    old.prev = null;
+                }
+            }
+            // 版本在键的 bin 锁内分配：同键版本与前驱链顺序一致
+            assigned[0] = sequence.incrementAndGet();
+            written[0] = new Entry(deviceId, attrId, state, assigned[0], old);
+            return written[0];
+        });
+        if (assigned[0] == 0) {
+            return false;
+        }
+        LongConsumer hook = beforePublish;
+        if (hook != null) {
+            hook.accept(assigned[0]);
+        }
+        publish(assigned[0]);
+        if (assigned[0] <= trimBound()) {
+            // 之后登记的快照时间点不小于此刻水位，都取得到本项，前驱不再需要
+            written[0].prev = null;
+        }
+        return true;
+    }
+
+    /**
+     * 把版本 v 记入发布环并推进水位。槽中上一圈的版本 v - RING_SIZE 须已被水位越过才可覆盖，否则等待：
+     * 一个被抢占的写入方之后又完成了一整圈写入时，后来者停在这里而不是覆盖它的槽，迟到的记入也不会覆盖后来者——
+     * 水位因此不会永久卡住。最小的未发布版本总能记入（其上一圈必已在水位之下），等待必然结束。
+     */
+    private void publish(long v) {
+        while (advanceWatermark() < v - RING_SIZE) {
+            Thread.yield();
+        }
+        published.set((int) (v & RING_MASK), v);
+        advanceWatermark();
+    }
+
+    private long advanceWatermark() {
+        long w = watermark.get();
+        while (true) {
+            long next = w + 1;
+            if (published.get((int) (next & RING_MASK)) != next) {
+                return w;
+            }
+            if (watermark.compareAndSet(w, next)) {
+                w = next;
+            } else {
+                w = watermark.get();
+            }
+        }
+    }
+
+    /** 可截断前驱的版本上界：不超过水位与全部进行中快照的登记水位。先读水位再看快照登记，与 scan 的登记顺序配合。 */
+    private long trimBound() {
+        long bound = watermark.get();
+        if (!activeSnapshots.isEmpty()) {
+            for (Long v : activeSnapshots.values()) {
+                bound = Math.min(bound, v);
+            }
+        }
+        return bound;
+    }
+
+    private Snapshot scan(long sinceVersion, boolean full) {
+        Object token = new Object();
+        // 先以登记前水位登记，再取时间点水位（不小于登记值）：登记之前截断的前驱版本都不大于时间点
+        activeSnapshots.put(token, watermark.get());
+        try {
+            long version = advanceWatermark();
+            List<Entry> out = new ArrayList<>();
+            for (Map<String, Entry> device : devices.values()) {
+                for (Entry head : device.values()) {
+                    Entry e = head.asOf(version);
+                    if (e == null || e.version <= sinceVersion || (full && e.isRemoved())) {
+                        continue;
+                    }
+                    out.add(e);
+                }
+            }
+            return new Snapshot(full ? 0 : sinceVersion, version, full, out);
+        } finally {
+            activeSnapshots.remove(token);
+        }
+    }
+
+    private void purgeTombstones() {
+        long bound = trimBound();
+        boolean purged = false;
+        for (Map<String, Entry> device : devices.values()) {
+            for (Map.Entry<String, Entry> me : device.entrySet()) {
+                Entry e = me.getValue();
+                if (e.isRemoved() && e.version <= bound && device.remove(me.getKey(), e)) {
+                    tombstones.decrementAndGet();
+                    purged = true;
+                }
+            }
+        }
+        if (purged && bound > deltaFloor) {
+            deltaFloor = bound;
+        }
+    }
+}
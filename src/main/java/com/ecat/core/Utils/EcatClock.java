@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Utils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共享粗粒度时钟——状态时间戳、事件 firedAt 等热路径的统一时间来源。
+ *
+ * <p>默认实现由一个守护线程按固定分辨率刷新缓存的 {@link Instant}：{@link #now()} / {@link #currentTimeMillis()}
+ * 只是一次 volatile 读，不再每次调用分配 Instant；同一分辨率窗口内（同一轮询周期）取得的时间戳完全一致。
+ * 代价是时间戳最多落后墙钟一个分辨率（外加调度抖动），不适合做耗时测量。
+ *
+ * <p>分辨率用 {@code -Decat.clock.resolution.ms=N} 配置，缺省 {@value #DEFAULT_RESOLUTION_MS} 毫秒；
+ * N ≤ 0 时退回不缓存的系统时钟（每次调用 {@code Instant.now()}）。
+ *
+ * <p>测试可用 {@link #setDefault(EcatClock)} 注入 {@link ManualClock}，结束后 {@link #reset()} 恢复。
+ *
+ * @author coffee
+ */
+public abstract class EcatClock {
+
+    /** 分辨率系统属性名。 */
+    public static final String RESOLUTION_PROPERTY = "ecat.clock.resolution.ms";
+
+    /** 缺省分辨率（毫秒）。 */
+    public static final long DEFAULT_RESOLUTION_MS = 10;
+
+    // 注入的时钟；null 表示使用进程默认时钟（首次使用时才启动刷新线程）
+    private static volatile EcatClock override;
+
+    /** 当前时刻（epoch 毫秒）。 */
+    public abstract long millis();
+
+    /** 当前时刻；缓存实现在同一分辨率窗口内返回同一实例。 */
+    public abstract Instant instant();
+
+    /** 当前生效的时钟（注入的测试时钟或进程默认时钟）。 */
+    public static EcatClock getDefault() {
+        EcatClock clock = override;
+        return clock != null ? clock : DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * 替换进程时钟（测试用）。
+     *
+     * @param clock 新时钟；null 等同 {@link #reset()}
+     * @return 替换前生效的时钟
+     */
+    public static EcatClock setDefault(EcatClock clock) {
+        EcatClock previous = getDefault();
+        override = clock;
+        return previous;
+    }
+
+    /** 恢复进程默认时钟。 */
+    public static void reset() {
+        override = null;
+    }
+
+    /** 共享时钟的当前时刻。 */
+    public static Instant now() {
+        return getDefault().instant();
+    }
+
+    /** 共享时钟的当前 epoch 毫秒。 */
+    public static long currentTimeMillis() {
+        return getDefault().millis();
+    }
+
+    /** 不缓存的系统时钟（每次调用取墙钟）。 */
+    public static EcatClock system() {
+        return SystemClock.INSTANCE;
+    }
+
+    /**
+     * 创建按 resolutionMs 刷新的缓存时钟，自带一个守护刷新线程；用完须 {@link TickingClock#close()}。
+     * 进程默认时钟由框架创建，集成一般无需调用。
+     *
+     * @param resolutionMs 分辨率（毫秒），必须 &gt; 0
+     */
+    public static TickingClock ticking(long resolutionMs) {
+        return new TickingClock(resolutionMs);
+    }
+
+    private static final class DefaultHolder {
+        static final EcatClock INSTANCE = create();
+
+        private static EcatClock create() {
+            long resolution = Long.getLong(RESOLUTION_PROPERTY, DEFAULT_RESOLUTION_MS);
+            return resolution > 0 ? new TickingClock(resolution) : SystemClock.INSTANCE;
+        }
+    }
+
+    private static final class SystemClock extends EcatClock {
+        static final SystemClock INSTANCE = new SystemClock();
+
+        @Override
+        public long millis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.now();
+        }
+    }
+
+    /**
+     * 缓存时钟：守护线程每 resolution 毫秒刷新一次缓存的 Instant，读方只做 volatile 读。
+     * 墙钟毫秒值未变化时不重新分配。
+     */
+    public static final class TickingClock extends EcatClock implements AutoCloseable {
+        private final long resolutionMs;
+        private final ScheduledExecutorService ticker;
+        private volatile Instant current;
+
+        private TickingClock(long resolutionMs) {
+            if (resolutionMs <= 0) {
+                throw new IllegalArgumentException("resolution must be positive: " + resolutionMs);
+            }
+            this.resolutionMs = resolutionMs;
+            this.current = Instant.ofEpochMilli(System.currentTimeMillis());
+            this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ecat-clock");
+                t.setDaemon(true);
+                return t;
+            });
+            ticker.scheduleAtFixedRate(this::tick, resolutionMs, resolutionMs, TimeUnit.MILLISECONDS);
+        }
+
+        private void tick() {
+            long now = System.currentTimeMillis();
+            if (now != current.toEpochMilli()) {
+                current = Instant.ofEpochMilli(now);
+            }
+        }
+
+        public long getResolutionMs() {
+            return resolutionMs;
+        }
+
+        @Override
+        public long millis() {
+            return current.toEpochMilli();
+        }
+
+        @Override
+        public Instant instant() {
+            return current;
+        }
+
+        /** 停止刷新线程；此后时刻冻结在最后一次刷新值。 */
+        @Override
+        public void close() {
+            ticker.shutdownNow();
+        }
+    }
+
+    /** 手动推进的测试时钟；时刻只在 {@link #set} / {@link #advance} 时变化。线程安全。 */
+    public static final class ManualClock extends EcatClock {
+        private volatile Instant current;
+
+        public ManualClock(Instant start) {
+            if (start == null) {
+                throw new IllegalArgumentException("start must not be null");
+            }
+            this.current = start;
+        }
+
+        /** 以 epoch 毫秒起始。 */
+        public ManualClock(long startMillis) {
+            this(Instant.ofEpochMilli(startMillis));
+        }
+
+        public synchronized void set(Instant time) {
+            if (time == null) {
+                throw new IllegalArgumentException("time must not be null");
+            }
+            this.current = time;
+        }
+
+        public synchronized void advance(Duration d) {
+            this.current = current.plus(d);
+        }
+
+        public void advanceMillis(long ms) {
+            advance(Duration.ofMillis(ms));
+        }
+
+        @Override
+        public long millis() {
+            return current.toEpochMilli();
+        }
+
+        @Override
+        public Instant instant() {
+            return current;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 哈希时间轮：海量低精度超时（数据过期、通讯中断检测）的 O(1) 排定与取消，不为每个超时建调度任务。
+ *
+ * <p>时间按 tick 切片，到期 tick 哈希进定长槽数组，每槽为 {@link Timer} 的侵入式双向链表（定时器对象即链表节点，
+ * 排定/取消不分配内存）。工作线程每 tick 处理一个槽，只取出到期的定时器；超出一圈的定时器留在槽里等下一圈。
+ * 到期回调在工作线程上执行且不持锁，返回下一次到期时刻即可原地重排——调用方可据此实现「惰性重排」：
+ * 高频刷新只改自己的时间戳，到期时再核对真实截止时刻，时间轮本身不随每次刷新操作。
+ *
+ * <p>时间取 {@link EcatClock}，精度为 tick（缺省 1 秒）。{@link #manual} 构造不起工作线程的时间轮，
+ * 只由 {@link #advanceTo} 推进（单测用）。共享缺省实例见 {@link #getDefault()}。
+ *
+ * @author coffee
+ */
+public final class HashedTimingWheel implements AutoCloseable {
+
+    public static final long DEFAULT_TICK_MS = 1000;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final long NONE = Long.MIN_VALUE;
+    private static final Log log = LogFactory.getLogger(HashedTimingWheel.class);
+
+    private static volatile HashedTimingWheel defaultWheel;
+
+    /**
+     * 时间轮定时器：子类实现 {@link #expire}。同一对象可反复排定，同一时刻至多在一个时间轮的一个槽中。
+     */
+    public abstract static class Timer {
+        // 所在时间轮（未排定为 null），供 cancel 无锁定位；其余字段由所在时间轮的锁保护
+        private volatile HashedTimingWheel wheel;
+        private Timer prev;
+        private Timer next;
+        private long tick;
+        private long deadlineMs;
+        // 槽下标；-1 表示未排定。volatile 供 isArmed 无锁读
+        private volatile int slot = -1;
+
+        /** 是否已排定（尚未到期或取消）。 */
+        public final boolean isArmed() {
+            return slot >= 0;
+        }
+
+        /**
+         * 从所在时间轮取消（无需知道排定在哪个时间轮上）。
+         *
+         * @return 取消前是否已排定
+         */
+        public final boolean cancel() {
+            HashedTimingWheel w = wheel;
+            return w != null && w.cancel(this);
+        }
+
+        /** 最近一次排定的到期时刻（epoch 毫秒）。 */
+        public final long getDeadlineMs() {
+            return deadlineMs;
+        }
+
+        /**
+         * 到期回调，在时间轮工作线程上执行、不持时间轮锁。
+         *
+         * @param nowMs 当前时刻（epoch 毫秒）
+         * @return 下一次到期时刻（epoch 毫秒）以重排；≤ 0 表示不再排定
+         */
+        protected abstract long expire(long nowMs);
+    }
+
+    private final String name;
+    private final long tickMs;
+    private final int mask;
+    private final Timer[] heads;
+    private final Object lock = new Object();
+    private final boolean autoStart;
+
+    // 以下由 lock 保护
+    private long lastTick = NONE;
+    private int size;
+    private Thread worker;
+    private boolean closed;
+
+    /**
+     * @param name      工作线程名
+     * @param tickMs    tick 长度（毫秒），即到期精度
+     * @param wheelSize 槽数，向上取 2 的幂
+     */
+    public HashedTimingWheel(String name, long tickMs, int wheelSize) {
+        this(name, tickMs, wheelSize, true);
+    }
+
+    private HashedTimingWheel(String name, long tickMs, int wheelSize, boolean autoStart) {
+        if (tickMs <= 0 || wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("invalid timing wheel tick/size: " + tickMs + "/" + wheelSize);
+        }
+        int n = 1;
+        while (n < wheelSize) {
+            n <<= 1;
+        }
+        this.name = name;
+        this.tickMs = tickMs;
+        this.mask = n - 1;
+        this.heads = new Timer[n];
+        this.autoStart = autoStart;
+    }
+
+    /** 不起工作线程、只由 {@link #advanceTo} 推进的时间轮。 */
+    public static HashedTimingWheel manual(long tickMs, int wheelSize) {
+        return new HashedTimingWheel("manual", tickMs, wheelSize, false);
+    }
+
+    /** 进程共享的缺省时间轮（tick 1 秒、512 槽），首次使用时创建，工作线程在首次排定时启动。 */
+    public static HashedTimingWheel getDefault() {
+        HashedTimingWheel w = defaultWheel;
+        if (w == null) {
+            synchronized (HashedTimingWheel.class) {
+                w = defaultWheel;
+                if (w == null) {
+                    w = new HashedTimingWheel("ecat-timing-wheel", DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE);
+                    defaultWheel = w;
+                }
+            }
+        }
+        return w;
+    }
+
+    /**
+     * 替换缺省时间轮（单测注入 {@link #manual} 实例）。已排定在旧实例上的定时器不迁移。
+     *
+     * @return 被替换的实例（可能为 null），由调用方决定是否关闭
+     */
+    public static HashedTimingWheel setDefault(HashedTimingWheel wheel) {
+        synchronized (HashedTimingWheel.class) {
+            HashedTimingWheel old = defaultWheel;
+            defaultWheel = wheel;
+            return old;
+        }
+    }
+
+    /** 恢复缺省时间轮（下次 getDefault 重新创建）。被替换的非共享实例由调用方关闭。 */
+    public static void reset() {
+        setDefault(null);
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    /** 已排定的定时器数。 */
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    /**
+     * 排定（或改排）定时器在 deadlineMs 到期。O(1)。已过期的截止时刻在下一 tick 到期。
+     * 定时器若排定在另一时间轮上，先从那里取消。
+     */
+    public void schedule(Timer timer, long deadlineMs) {
+        HashedTimingWheel other = timer.wheel;
+        if (other != null && other != this) {
+            other.cancel(timer);
+        }
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("timing wheel closed: " + name);
+            }
+            if (lastTick == NONE) {
+                lastTick = Math.floorDiv(EcatClock.currentTimeMillis(), tickMs) - 1;
+            }
+            if (timer.slot >= 0) {
+                unlink(timer);
+            }
+            // 按截止 tick 判定到期；已过的截止 tick 放进下一 tick 的槽，保证会被扫到
+            long t = Math.floorDiv(deadlineMs, tickMs);
+            timer.deadlineMs = deadlineMs;
+            timer.tick = t;
+            link(timer, (int) (Math.max(t, lastTick + 1) & mask));
+            if (worker == null && autoStart) {
+                startWorker();
+            }
+        }
+    }
+
+    /**
+     * 取消定时器。O(1)。
+     *
+     * @return 取消前是否已排定在本时间轮上
+     */
+    public boolean cancel(Timer timer) {
+        synchronized (lock) {
+            if (timer.wheel != this || timer.slot < 0) {
+                return false;
+            }
+            unlink(timer);
+            return true;
+        }
+    }
+
+    /**
+     * 处理截至 nowMs 的全部到期定时器（工作线程每 tick 调用；manual 时间轮由调用方驱动）。
+     * 到期回调在调用线程上执行。
+     *
+     * @return 本次到期的定时器数
+     */
+    public int advanceTo(long nowMs) {
+        long target = Math.floorDiv(nowMs, tickMs);
+        List<Timer> due = new ArrayList<>();
+        synchronized (lock) {
+            if (lastTick == NONE) {
+                lastTick = target;
+                return 0;
+            }
+            if (target > lastTick) {
+                // 跨度超过一圈时每槽只需看一次
+                long from = target - lastTick > heads.length ? target - heads.length + 1 : lastTick + 1;
+                for (long t = from; t <= target; t++) {
+                    collectDue((int) (t & mask), target, due);
+                }
+            }
+            // 时钟回拨时 lastTick 随之回退，已排定的定时器按各自 tick 判断，不会提前到期
+            lastTick = target;
+        }
+        for (Timer timer : due) {
+            long next;
+            try {
+                next = timer.expire(nowMs);
+            } catch (RuntimeException e) {
+                log.error("Timing wheel timer failed: " + timer, e);
+                continue;
+            }
+            if (next > 0) {
+                synchronized (lock) {
+                    if (closed) {
+                        continue;
+                    }
+                }
+                schedule(timer, next);
+            }
+        }
+        return due.size();
+    }
+
+    /** 停止工作线程并清空全部定时器（不回调）。 */
+    @Override
+    public void close() {
+        Thread w;
+        synchronized (lock) {
+            closed = true;
+            for (int i = 0; i < heads.length; i++) {
+                while (heads[i] != null) {
+                    unlink(heads[i]);
+                }
+            }
+            w = worker;
+        }
+        if (w != null) {
+            w.interrupt();
+        }
+    }
+
+    private void collectDue(int slot, long target, List<Timer> due) {
+        Timer t = heads[slot];
+        while (t != null) {
+            Timer next = t.next;
+            if (t.tick <= target) {
+                unlink(t);
+                due.add(t);
+            }
+            t = next;
+        }
+    }
+
+    private void link(Timer t, int slot) {
+        Timer head = heads[slot];
+        t.prev = null;
+        t.next = head;
+        if (head != null) {
+            head.prev = t;
+        }
+        heads[slot] = t;
+        t.wheel = this;
+        t.slot = slot;
+        size++;
+    }
+
+    private void unlink(Timer t) {
+        int slot = t.slot;
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            heads[slot] = t.next;
+        }
+        if (t.next != null) {
+            t.next.prev = t.prev;
+        }
+        t.prev = null;
+        t.next = null;
+        t.wheel = null;
+        t.slot = -1;
+        size--;
+    }
+
+    private void startWorker() {
+        Thread w = new Thread(() -> {
+            while (true) {
+                synchronized (lock) {
+                    if (closed) {
+                        return;
+                    }
+                }
+                try {
+                    Thread.sleep(tickMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    advanceTo(EcatClock.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    log.error("Timing wheel " + name + " tick failed", e);
+                }
+            }
+        }, name);
+        w.setDaemon(true);
+        worker = w;
+        w.start();
+    }
+}
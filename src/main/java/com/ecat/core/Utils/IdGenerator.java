@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 轻量单调 ID 生成器——替代热路径上的 {@code UUID.randomUUID()}（SecureRandom + 36 字符字符串）。
+ *
+ * <p>64 位布局（类 snowflake，最高位恒 0）：
+ * <pre>
+ * | 0 | 41 位毫秒时间戳（自 {@link #EPOCH_MS}） | 10 位节点号 | 12 位序号 |
+ * </pre>
+ * 同一进程内严格单调递增、按时间有序；不同节点号的进程互不冲突。
+ *
+ * <p><b>无锁</b>：时间戳与序号合并在一个 {@link AtomicLong} 里 CAS 推进。同一毫秒序号用尽（4096）时进位到
+ * 下一毫秒（逻辑时钟略超前于墙钟），时钟回拨时沿用上次时间戳继续递增——两种情况都不阻塞、不自旋等待。
+ *
+ * <p><b>字符串形态按需生成</b>：{@link #nextId()} 只产 long；需要字符串时再经 {@link #format(long)}
+ * 转为定宽 16 位小写十六进制（字典序即时间序）。事件信封等持有 long、首次 getUuid 时才格式化。
+ *
+ * <p>节点号默认进程启动时随机取；多实例共享存储时用 {@code -Decat.node.id=0..1023} 显式指定。
+ * 配置值非法（非整数或越界）时记 error 并退回随机节点号——不在类初始化中抛异常，以免整个类不可用。
+ *
+ * @author coffee
+ */
+public final class IdGenerator {
+
+    /** 时间戳起点：2026-01-01T00:00:00Z。41 位毫秒可用约 69 年。 */
+    public static final long EPOCH_MS = 1767225600000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final Log log = LogFactory.getLogger(IdGenerator.class);
+
+    private static final IdGenerator INSTANCE = new IdGenerator(resolveNodeId(System.getProperty("ecat.node.id")));
+
+    private final long nodeBits;
+    // (逻辑毫秒 << SEQUENCE_BITS) | 序号；序号溢出自然进位到毫秒位
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param nodeId 节点号，0..1023
+     */
+    public IdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("nodeId 必须在 0.." + MAX_NODE + ": " + nodeId);
+        }
+        this.nodeBits = ((long) nodeId) << SEQUENCE_BITS;
+    }
+
+    /** 进程共享实例（节点号取 -Decat.node.id，未配置则启动时随机）。 */
+    public static IdGenerator getInstance() {
+        return INSTANCE;
+    }
+
+    /** 生成下一个 ID（单调递增、按时间有序）。 */
+    public long nextId() {
+        for (;;) {
+            long now = System.currentTimeMillis() - EPOCH_MS;
+            long current = state.get();
+            long next = (now > (current >>> SEQUENCE_BITS)) ? (now << SEQUENCE_BITS) : current + 1;
+            if (state.compareAndSet(current, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /** 生成下一个 ID 并立即转为字符串形态（需要字符串时的便捷方法）。 */
+    public String nextIdString() {
+        return format(nextId());
+    }
+
+    /** ID 的字符串形态：定宽 16 位小写十六进制，字典序与数值序一致。 */
+    public static String format(long id) {
+        char[] buf = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            buf[i] = HEX[(int) (id & 0xF)];
+            id >>>= 4;
+        }
+        return new String(buf);
+    }
+
+    /** 取 ID 内的生成时刻（epoch 毫秒；序号进位时可能略超前于真实墙钟）。 */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MS;
+    }
+
+    /** 取 ID 内的节点号。 */
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE);
+    }
+
+    /** 解析配置的节点号；未配置或非法时取随机值（非法时记 error）。 */
+    static int resolveNodeId(String configured) {
+        if (configured != null) {
+            try {
+                int nodeId = Integer.parseInt(configured.trim());
+                if (nodeId >= 0 && nodeId <= MAX_NODE) {
+                    return nodeId;
+                }
+            } catch (NumberFormatException ignored) {
+                // 与越界同样处理
+            }
+            log.error("ecat.node.id 非法（须为 0.." + MAX_NODE + " 的整数）: " + configured + "，改用随机节点号");
+        }
+        return ThreadLocalRandom.current().nextInt((int) MAX_NODE + 1);
+    }
+}
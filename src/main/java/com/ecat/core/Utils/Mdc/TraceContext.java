@@ -19,9 +19,10 @@ package com.ecat.core.Utils.Mdc;
 import org.slf4j.MDC;
 
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.Callable;
 
+import com.ecat.core.Utils.IdGenerator;
+
 /**
  * 追踪上下文，管理 Trace ID 和 MDC 上下文的传播
  *
@@ -65,12 +66,21 @@ public final class TraceContext {
     /**
      * 生成新的 Trace ID（8字符短格式）
      *
-     * <p>使用 UUID 的前8个字符作为 Trace ID，便于日志阅读和搜索。
+     * <p>取 {@link IdGenerator} 的有序 id 经混淆后的低 32 位，格式化为8位十六进制，便于日志阅读和搜索；
+     * 混淆保证相邻 id 的短格式也充分离散，不会只差末位。
      *
      * @return 新的 Trace ID
      */
     public static String generateTraceId() {
-        return UUID.randomUUID().toString().replace("-", "").substring(0, TRACE_ID_LENGTH);
+        long mixed = mix64(IdGenerator.getInstance().nextId());
+        return IdGenerator.format(mixed).substring(16 - TRACE_ID_LENGTH);
+    }
+
+    // murmur3 fmix64：双射，相邻输入的输出位充分扩散
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
     }
 
     /**
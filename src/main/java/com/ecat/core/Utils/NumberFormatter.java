@@ -19,15 +19,46 @@ package com.ecat.core.Utils;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
+import java.util.Locale;
 
 /**
  * Class for number value process
- * 
+ *
+ * <p>修约结果的口径是「{@code value.toString()} 的十进制串按 HALF_EVEN 修约，再按 {@code 0.00…} 模式输出」。
+ * Double/Float/整型走无 BigDecimal、无 DecimalFormat 的快路径，直接把数字写进 char 缓冲：
+ * double 乘以 10^precision 后取整，只有小数部分落在 .5 附近（即 toString 十进制串可能恰为修约中点、
+ * 或二进制误差可能跨过中点）的歧义情况才退回 BigDecimal 精确路径；量级过大、非有限值、
+ * 其它 Number 类型以及默认格式 locale 的数字符号不是 {@code 0 . -} 时同样退回。两条路径输出逐字相同。
+ *
  * @author coffee
  */
 public class NumberFormatter {
 
+    /** 快路径的最大小数位数（10^p 须在 long 与 double 的精确范围内）。 */
+    private static final int MAX_FAST_PRECISION = 15;
+    /** 快路径的缩放值上限 2^52：其下 double 取整与减法精确。 */
+    private static final double MAX_FAST_SCALED = 0x1p52;
+
+    private static final long[] POW10 = new long[MAX_FAST_PRECISION + 1];
+    private static final double[] POW10D = new double[MAX_FAST_PRECISION + 1];
+    static {
+        long v = 1;
+        for (int i = 0; i <= MAX_FAST_PRECISION; i++) {
+            POW10[i] = v;
+            POW10D[i] = v;
+            v *= 10;
+        }
+    }
+
+    /** 每线程复用的输出缓冲：long 的 19 位整数 + 符号 + 小数点 + 小数位，整型值另加 precision 个补零。 */
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
+    /** 最近一次检查过的默认格式 locale 及其数字符号是否与快路径一致（良性竞态，结果幂等）。 */
+    private static volatile Locale checkedLocale;
+    private static volatile boolean asciiSymbols;
+
     /**
      * 安全修约数值到指定小数位数（支持补零，使用银行家算法）
      * @param value 待修约的数值（支持 Integer、Double 等 Number 子类）
@@ -41,7 +72,177 @@ public class NumberFormatter {
         if (displayPrecision < 0) {
             throw new IllegalArgumentException("小数位数不能为负数: " + displayPrecision);
         }
+        char[] buf = BUFFER.get();
+        int len = formatFast(value, displayPrecision, buf);
+        return len >= 0 ? new String(buf, 0, len) : formatExact(value, displayPrecision);
+    }
+
+    /**
+     * 同 {@link #formatValue(Number, int)}，结果直接追加到调用方复用的 StringBuilder（拼接批量输出时不产生中间 String）。
+     * @return out 本身
+     */
+    public static StringBuilder appendValue(StringBuilder out, Number value, int displayPrecision) {
+        if (displayPrecision < 0) {
+            throw new IllegalArgumentException("小数位数不能为负数: " + displayPrecision);
+        }
+        char[] buf = BUFFER.get();
+        int len = formatFast(value, displayPrecision, buf);
+        return len >= 0 ? out.append(buf, 0, len) : out.append(formatExact(value, displayPrecision));
+    }
+
+    /**
+     * 同 {@link #formatValue(Number, int)} 的 double 原始值版本：快路径全程不装箱（仅退回精确路径时装箱一次）。
+     * <p>不作为 formatValue 的重载——float/int/long 实参会被拓宽到 double 而改变修约口径。
+     */
+    public static String formatDouble(double value, int displayPrecision) {
+        if (displayPrecision < 0) {
+            throw new IllegalArgumentException("小数位数不能为负数: " + displayPrecision);
+        }
+        char[] buf = BUFFER.get();
+        int len = -1;
+        if (asciiSymbols()) {
+            long rounded = roundScaled(value, false, displayPrecision);
+            if (rounded != Long.MIN_VALUE) {
+                len = writeScaled(rounded, displayPrecision, buf);
+            }
+        }
+        return len >= 0 ? new String(buf, 0, len) : formatExact(value, displayPrecision);
+    }
+
+    /**
+     * 安全修约数值到指定小数位数，返回 double 类型（银行家算法）
+     * @param value 待修约的数值（支持 Integer、Double 等 Number 子类）
+     * @param displayPrecision 目标小数位数（需 ≥0）
+     * @return 修约后的 double 值（如 1.2345 → 1.234，1.2335 → 1.234，银行家算法）
+     * @throws IllegalArgumentException 若 displayPrecision <0
+     * @see RoundingMode#HALF_EVEN 银行家算法：舍弃位=5时，前位偶数则舍，奇数则入
+     */
+    public static double roundToDouble(Number value, int displayPrecision) {
+        if (displayPrecision < 0) {
+            throw new IllegalArgumentException("小数位数不能为负数: " + displayPrecision);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            long rounded = roundScaled(value.doubleValue(), value instanceof Float, displayPrecision);
+            if (rounded != Long.MIN_VALUE) {
+                // 与 BigDecimal.doubleValue() 对 |unscaled| < 2^52 的算法相同：一次正确舍入的除法；0 不带符号
+                return rounded == 0 ? 0.0 : rounded / POW10D[displayPrecision];
+            }
+        }
+        return roundExact(value, displayPrecision);
+    }
+
+    // ========== 快路径 ==========
+
+    /** 写入 buf 并返回长度；不适用快路径时返回 -1。 */
+    private static int formatFast(Number value, int precision, char[] buf) {
+        if (!asciiSymbols()) {
+            return -1;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            long rounded = roundScaled(value.doubleValue(), value instanceof Float, precision);
+            if (rounded == Long.MIN_VALUE) {
+                return -1;
+            }
+            return writeScaled(rounded, precision, buf);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            long v = value.longValue();
+            if (v == Long.MIN_VALUE || 21 + precision > buf.length) {
+                return -1;
+            }
+            int pos = 0;
+            if (v < 0) {
+                buf[pos++] = '-';
+                v = -v;
+            }
+            pos = writeDigits(v, buf, pos);
+            if (precision > 0) {
+                buf[pos++] = '.';
+                for (int i = 0; i < precision; i++) {
+                    buf[pos++] = '0';
+                }
+            }
+            return pos;
+        }
+        return -1;
+    }
+
+    /**
+     * 带符号的 round_half_even(value × 10^precision)；歧义或超出快路径范围返回 Long.MIN_VALUE。
+     *
+     * <p>误差界：toString 十进制串与二进制值之差 ≤ 0.5ulp，乘 10^p 的舍入 ≤ 0.5ulp，合计 ≤ scaled × 2^-52
+     * （Float 为 2^-23）；小数部分与 .5 的距离大于该界的 8 倍时，最近整数唯一确定，与精确路径一致。
+     */
+    private static long roundScaled(double d, boolean isFloat, int precision) {
+        if (precision > MAX_FAST_PRECISION) {
+            return Long.MIN_VALUE;
+        }
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            return Long.MIN_VALUE; // 精确路径按原样抛 NumberFormatException
+        }
+        double a = Math.abs(d);
+        double scaled = a * POW10D[precision];
+        if (scaled >= MAX_FAST_SCALED) {
+            return Long.MIN_VALUE;
+        }
+        double floor = Math.floor(scaled);
+        double frac = scaled - floor;
+        double tolerance = scaled * (isFloat ? 0x1p-20 : 0x1p-49);
+        if (Math.abs(frac - 0.5) <= tolerance) {
+            return Long.MIN_VALUE;
+        }
+        long rounded = (long) floor + (frac > 0.5 ? 1 : 0);
+        return d < 0 ? -rounded : rounded;
+    }
+
+    private static int writeScaled(long rounded, int precision, char[] buf) {
+        int pos = 0;
+        if (rounded < 0) {
+            buf[pos++] = '-'; // 修约为 0 的负数已在 roundScaled 得到 0，不带符号（同 BigDecimal）
+            rounded = -rounded;
+        }
+        long unit = POW10[precision];
+        pos = writeDigits(rounded / unit, buf, pos);
+        if (precision > 0) {
+            buf[pos++] = '.';
+            long frac = rounded % unit;
+            for (int i = precision - 1; i >= 0; i--) {
+                buf[pos + i] = (char) ('0' + frac % 10);
+                frac /= 10;
+            }
+            pos += precision;
+        }
+        return pos;
+    }
 
+    /** 非负 long 的十进制数字写到 pos 起，返回新位置。 */
+    private static int writeDigits(long v, char[] buf, int pos) {
+        int n = 1;
+        for (long t = v; t >= 10; t /= 10) {
+            n++;
+        }
+        for (int i = pos + n - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        return pos + n;
+    }
+
+    /** DecimalFormat 用默认格式 locale 的符号；只有其为 ASCII 的 0 . - 时快路径输出才与之逐字相同。 */
+    private static boolean asciiSymbols() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        if (locale != checkedLocale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            asciiSymbols = symbols.getZeroDigit() == '0' && symbols.getDecimalSeparator() == '.'
+                    && symbols.getMinusSign() == '-';
+            checkedLocale = locale;
+        }
+        return asciiSymbols;
+    }
+
+    // ========== 精确路径（BigDecimal） ==========
+
+    static String formatExact(Number value, int displayPrecision) {
         // 使用 BigDecimal 确保精度，避免 double 舍入误差
         BigDecimal bd = new BigDecimal(value.toString());
         // 使用银行家算法（HALF_EVEN）进行舍入
@@ -60,19 +261,7 @@ public class NumberFormatter {
         return df.format(bd);
     }
 
-    /**
-     * 安全修约数值到指定小数位数，返回 double 类型（银行家算法）
-     * @param value 待修约的数值（支持 Integer、Double 等 Number 子类）
-     * @param displayPrecision 目标小数位数（需 ≥0）
-     * @return 修约后的 double 值（如 1.2345 → 1.234，1.2335 → 1.234，银行家算法）
-     * @throws IllegalArgumentException 若 displayPrecision <0
-     * @see RoundingMode#HALF_EVEN 银行家算法：舍弃位=5时，前位偶数则舍，奇数则入
-     */
-    public static double roundToDouble(Number value, int displayPrecision) {
-        if (displayPrecision < 0) {
-            throw new IllegalArgumentException("小数位数不能为负数: " + displayPrecision);
-        }
-
+    static double roundExact(Number value, int displayPrecision) {
         // 使用 BigDecimal 确保精度，避免 double 舍入误差
         BigDecimal bd = new BigDecimal(value.toString());
         // 使用银行家算法（HALF_EVEN）进行舍入
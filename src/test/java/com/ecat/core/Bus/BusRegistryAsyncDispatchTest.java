@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+import com.ecat.core.Bus.event.AllLoadedEvent;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.State.AttrState;
+import com.ecat.core.State.AttributeStatus;
+
+/**
+ * BusRegistry 异步分发道单测——ASYNC topic 经条带分发道离开发布线程、同设备保序、SYNC topic 仍同步、停服 drain。
+ */
+public class BusRegistryAsyncDispatchTest {
+
+    private BusRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new BusRegistry(2, 1024);
+    }
+
+    @After
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    private static BusEvent<DeviceDataChangedEvent> dataEvent(String deviceId, String value) {
+        AttrState<?> s = AttrState.builder()
+                .deviceId(deviceId)
+                .attrId("so2")
+                .displayValue(value)
+                .status(AttributeStatus.NORMAL)
+                .context(EventContext.root(EventContext.Source.DEVICE_POLL, null))
+                .build();
+        return BusEvent.of(BusTopic.DEVICE_DATA_UPDATE.getTopicName(),
+                new DeviceDataChangedEvent(deviceId, "so2", null, s),
+                EventContext.root(EventContext.Source.DEVICE_POLL, null));
+    }
+
+    @Test
+    public void defaultConstructorKeepsSyncFanout() {
+        BusRegistry plain = new BusRegistry();
+        assertFalse(plain.isAsyncDispatchEnabled());
+        AtomicReference<Thread> seen = new AtomicReference<>();
+        plain.subscribe("device.data.update", e -> seen.set(Thread.currentThread()));
+        plain.publish(dataEvent("d1", "1"));
+        assertSame(Thread.currentThread(), seen.get());
+        plain.shutdown();
+    }
+
+    @Test
+    public void asyncTopicLeavesPublisherThread() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Thread> seen = new AtomicReference<>();
+        registry.subscribe("device.data.update", e -> {
+            seen.set(Thread.currentThread());
+            latch.countDown();
+        });
+
+        registry.publish(dataEvent("d1", "1"));
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertNotSame("ASYNC topic 应在分发道线程扇出", Thread.currentThread(), seen.get());
+    }
+
+    @Test
+    public void syncTopicStaysOnPublisherThread() {
+        AtomicReference<Thread> seen = new AtomicReference<>();
+        registry.subscribe(BusTopic.INTEGRATIONS_ALL_LOADED.getTopicName(), e -> seen.set(Thread.currentThread()));
+
+        registry.publish(BusEvent.of(BusTopic.INTEGRATIONS_ALL_LOADED.getTopicName(), new AllLoadedEvent(),
+                EventContext.root(EventContext.Source.SYSTEM, null)));
+
+        assertSame("SYNC 生命周期 topic 行为不变", Thread.currentThread(), seen.get());
+    }
+
+    @Test
+    public void perDeviceOrderIsPreserved() throws InterruptedException {
+        final int n = 200;
+        final CountDownLatch latch = new CountDownLatch(n * 2);
+        final List<String> d1 = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> d2 = Collections.synchronizedList(new ArrayList<String>());
+        registry.subscribe("device.data.update", e -> {
+            DeviceDataChangedEvent p = (DeviceDataChangedEvent) e.getPayload();
+            ("d1".equals(p.getDeviceId()) ? d1 : d2).add(p.getNewState().getDisplayValue());
+            latch.countDown();
+        });
+
+        for (int i = 0; i < n; i++) {
+            registry.publish(dataEvent("d1", String.valueOf(i)));
+            registry.publish(dataEvent("d2", String.valueOf(i)));
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < n; i++) {
+            assertEquals(String.valueOf(i), d1.get(i));
+            assertEquals(String.valueOf(i), d2.get(i));
+        }
+        assertEquals(0, registry.getAsyncDroppedCount());
+    }
+
+    @Test
+    public void shutdownDrainsQueuedEvents() throws InterruptedException {
+        final CountDownLatch hold = new CountDownLatch(1);
+        final List<String> seen = Collections.synchronizedList(new ArrayList<String>());
+        registry.subscribe("device.data.update", e -> {
+            try {
+                hold.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            seen.add(((DeviceDataChangedEvent) e.getPayload()).getNewState().getDisplayValue());
+        });
+
+        for (int i = 0; i < 5; i++) {
+            registry.publish(dataEvent("d1", String.valueOf(i)));
+        }
+        hold.countDown();
+        registry.shutdown();
+
+        assertEquals(5, seen.size());
+        assertEquals(0, registry.getAsyncQueueSize());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.State.AttrState;
+import com.ecat.core.State.AttributeStatus;
+
+/**
+ * BusRegistry.publishBatch 单测——批量感知订阅者整包收、普通订阅者逐条拆包、空批次忽略。
+ */
+public class BusRegistryBatchPublishTest {
+
+    private BusRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new BusRegistry();
+    }
+
+    private static DeviceDataChangedEvent change(String deviceId, String attrId) {
+        AttrState<?> s = AttrState.builder()
+                .deviceId(deviceId)
+                .attrId(attrId)
+                .status(AttributeStatus.NORMAL)
+                .context(EventContext.root(EventContext.Source.DEVICE_POLL, null))
+                .build();
+        return new DeviceDataChangedEvent(deviceId, attrId, null, s);
+    }
+
+    private static BusEvent<DeviceDataBatchEvent> batch(String deviceId, int n) {
+        List<DeviceDataChangedEvent> changes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            changes.add(change(deviceId, "a" + i));
+        }
+        return BusEvent.of(BusTopic.DEVICE_DATA_UPDATE.getTopicName(),
+                new DeviceDataBatchEvent(deviceId, changes),
+                EventContext.root(EventContext.Source.DEVICE_POLL, null));
+    }
+
+    @Test
+    public void batchAwareSubscriberReceivesWholeBatchOnce() {
+        final List<Integer> sizes = new ArrayList<>();
+        registry.subscribe("device.data.update", new BatchEventSubscriber() {
+            @Override
+            public void handleBatch(BusEvent<DeviceDataBatchEvent> b) {
+                sizes.add(b.getPayload().size());
+            }
+
+            @Override
+            public void handleEvent(BusEvent<?> event) {
+                fail("批量感知订阅者不应逐条收批次");
+            }
+        });
+
+        registry.publishBatch(batch("d1", 250));
+
+        assertEquals(Collections.singletonList(250), sizes);
+    }
+
+    @Test
+    public void plainSubscriberReceivesUnrolledEvents() {
+        final List<String> attrs = new ArrayList<>();
+        final List<String> uuids = new ArrayList<>();
+        registry.subscribe("device.*", e -> {
+            DeviceDataChangedEvent p = (DeviceDataChangedEvent) e.getPayload();
+            attrs.add(p.getAttrId());
+            uuids.add(e.getUuid());
+            assertNotNull(e.getContext());
+        });
+
+        BusEvent<DeviceDataBatchEvent> b = batch("d1", 3);
+        registry.publishBatch(b);
+
+        assertEquals(3, attrs.size());
+        assertEquals("a0", attrs.get(0));
+        assertEquals("a2", attrs.get(2));
+        assertEquals(b.getUuid() + ":1", uuids.get(1));
+    }
+
+    @Test
+    public void emptyBatchIsIgnored() {
+        final List<Object> seen = new ArrayList<>();
+        registry.subscribe("device.data.update", seen::add);
+        registry.publishBatch(batch("d1", 0));
+        assertTrue(seen.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchRejectsForeignDeviceChange() {
+        new DeviceDataBatchEvent("d1", Collections.singletonList(change("d2", "a")));
+    }
+}
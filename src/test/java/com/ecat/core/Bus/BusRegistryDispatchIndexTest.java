@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Bus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.BusPayload;
+import com.ecat.core.Bus.event.EventContext;
+
+/**
+ * BusRegistry 分发索引单测——预编译通配符、topic 解析缓存命中、订阅变化后缓存失效。
+ */
+public class BusRegistryDispatchIndexTest {
+
+    private static final class TestPayload implements BusPayload { }
+
+    private BusRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new BusRegistry();
+    }
+
+    private void publish(String topic) {
+        registry.publish(BusEvent.of(topic, new TestPayload(),
+                EventContext.root(EventContext.Source.SYSTEM, null)));
+    }
+
+    @Test
+    public void repeatedPublishHitsSameSubscribers() {
+        List<String> seen = new ArrayList<>();
+        registry.subscribe("device.*", e -> seen.add("wild:" + e.getType()));
+        registry.subscribe("device.data.update", e -> seen.add("exact:" + e.getType()));
+
+        publish("device.data.update");
+        publish("device.data.update");
+
+        assertEquals(4, seen.size());
+        assertEquals("wild:device.data.update", seen.get(0));
+        assertEquals("exact:device.data.update", seen.get(1));
+    }
+
+    @Test
+    public void subscribeAfterPublishInvalidatesCache() {
+        List<String> seen = new ArrayList<>();
+        registry.subscribe("device.data.update", e -> seen.add("a"));
+        publish("device.data.update"); // 解析并缓存 [a]
+
+        registry.subscribe("device.*", e -> seen.add("b"));
+        publish("device.data.update"); // 新订阅应可见
+
+        assertEquals(3, seen.size());
+        assertEquals("b", seen.get(2));
+    }
+
+    @Test
+    public void unsubscribeInvalidatesCache() {
+        List<String> seen = new ArrayList<>();
+        Subscription sub = registry.subscribe("device.*", e -> seen.add("a"));
+        publish("device.lifecycle");
+        sub.unsubscribe();
+        publish("device.lifecycle");
+
+        assertEquals(1, seen.size());
+    }
+
+    @Test
+    public void duplicateSubscribeIsIgnored() {
+        List<String> seen = new ArrayList<>();
+        EventSubscriber s = e -> seen.add("a");
+        registry.subscribe("notification", s);
+        registry.subscribe("notification", s);
+        publish("notification");
+
+        assertEquals(1, seen.size());
+    }
+
+    @Test
+    public void unmatchedTopicDispatchesNothing() {
+        List<String> seen = new ArrayList<>();
+        registry.subscribe("device.*", e -> seen.add("a"));
+        publish("integration.lifecycle");
+        publish("integration.lifecycle");
+
+        assertTrue(seen.isEmpty());
+    }
+}
@@ -0,0 +1,222 @@
+package com.ecat.core.Bus.aggregate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.event.AttrAggregateEvent;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.ConfigEntry.ConfigEntry;
+import com.ecat.core.Device.DeviceBase;
+import com.ecat.core.Device.DeviceBaseIdentityTest;
+import com.ecat.core.EcatCore;
+import com.ecat.core.State.AttrState;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.DoubleAttribute;
+import com.ecat.core.Utils.EcatClock;
+
+/**
+ * 统计引擎单测——单条/批量变更入窗、定时推进结束窗口、非数值与输出属性不参与、迟到计数与允许迟到量、逻辑属性输出、构造校验。
+ */
+public class AggregationEngineTest {
+
+    private static final String TOPIC = BusTopic.DEVICE_DATA_UPDATE.getTopicName();
+    private static final long T0 = 1_800_000_000_000L; // 整分钟
+    private static final long LATENESS_MS = 1_000;
+
+    private EcatClock.ManualClock clock;
+    private AggregationEngine engine;
+
+    @Before
+    public void setUp() {
+        clock = new EcatClock.ManualClock(T0);
+        EcatClock.setDefault(clock);
+    }
+
+    @After
+    public void tearDown() {
+        if (engine != null) {
+            engine.shutdown();
+        }
+        EcatClock.reset();
+    }
+
+    private AggregationEngine engine() {
+        engine = AggregationEngine.builder()
+                .window(WindowSpec.MINUTE_1)
+                .window(WindowSpec.sliding("3m", Duration.ofMinutes(3), Duration.ofMinutes(1)))
+                .zoneOffset(ZoneOffset.UTC)
+                .tickMs(10)
+                .allowedLatenessMs(LATENESS_MS)
+                .build();
+        return engine;
+    }
+
+    private static DeviceDataChangedEvent change(String attrId, Object value, AttributeStatus status, long atMs) {
+        AttrState<?> state = AttrState.builder()
+                .deviceId("dev1")
+                .attrId(attrId)
+                .value(value)
+                .status(status)
+                .lastUpdated(Instant.ofEpochMilli(atMs))
+                .context(EventContext.root(EventContext.Source.DEVICE_POLL, null))
+                .build();
+        return new DeviceDataChangedEvent("dev1", attrId, null, state);
+    }
+
+    private static BusEvent<?> event(DeviceDataChangedEvent change) {
+        return BusEvent.of(TOPIC, change, change.getNewState().getContext());
+    }
+
+    private static List<AttrAggregateEvent> collect(AggregationEngine e, CountDownLatch latch) {
+        List<AttrAggregateEvent> out = new CopyOnWriteArrayList<>();
+        e.addSink(a -> {
+            out.add(a);
+            latch.countDown();
+        });
+        return out;
+    }
+
+    @Test
+    public void tickClosesWindowsFromSingleAndBatchChanges() throws Exception {
+        AggregationEngine e = engine();
+        CountDownLatch latch = new CountDownLatch(2);
+        List<AttrAggregateEvent> out = collect(e, latch);
+
+        e.handleEvent(event(change("so2", 10.0, AttributeStatus.NORMAL, T0 + 1_000)));
+        DeviceDataBatchEvent batch = new DeviceDataBatchEvent("dev1", Arrays.asList(
+                change("so2", 30.0, AttributeStatus.NORMAL, T0 + 2_000),
+                change("so2", 99.0, AttributeStatus.MALFUNCTION, T0 + 3_000),
+                change("name", "text", AttributeStatus.NORMAL, T0 + 4_000)));
+        e.handleBatch(BusEvent.of(TOPIC, batch, EventContext.root(EventContext.Source.DEVICE_POLL, null)));
+
+        clock.advanceMillis(60_000 + LATENESS_MS);
+        assertTrue("定时推进结束窗口", latch.await(5, TimeUnit.SECONDS));
+
+        AttrAggregateEvent m = e.getLastCompleted("dev1", "so2", "1m");
+        assertNotNull(m);
+        assertEquals(Instant.ofEpochMilli(T0), m.getWindowStart());
+        assertEquals(Instant.ofEpochMilli(T0 + 60_000), m.getWindowEnd());
+        assertEquals(3, m.getSampleCount());
+        assertEquals(2, m.getValidCount());
+        assertEquals(20.0, m.getAverage(), 1e-9);
+        assertEquals(10.0, m.getMin(), 0.0);
+        assertEquals(30.0, m.getMax(), 0.0);
+
+        AttrAggregateEvent s = e.getLastCompleted("dev1", "so2", "3m");
+        assertEquals(Instant.ofEpochMilli(T0 - 120_000), s.getWindowStart());
+        assertEquals(20.0, s.getAverage(), 1e-9);
+
+        assertNull("非数值不统计", e.getLastCompleted("dev1", "name", "1m"));
+        assertEquals(1, e.getSeriesCount());
+        assertEquals(2, out.size());
+    }
+
+    @Test
+    public void lateSamplesCountedPerWindow() throws Exception {
+        AggregationEngine e = engine();
+        CountDownLatch latch = new CountDownLatch(2);
+        collect(e, latch);
+        e.handleEvent(event(change("so2", 1.0, AttributeStatus.NORMAL, T0 + 1_000)));
+        clock.advanceMillis(60_000 + LATENESS_MS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        e.handleEvent(event(change("so2", 2.0, AttributeStatus.NORMAL, T0 + 2_000)));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (e.getLateSampleCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals("两个窗口各丢弃一次", 2, e.getLateSampleCount());
+    }
+
+    @Test
+    public void boundarySampleArrivingAfterTickIsNotLate() throws Exception {
+        AggregationEngine e = engine();
+        CountDownLatch latch = new CountDownLatch(2);
+        collect(e, latch);
+        e.handleEvent(event(change("so2", 1.0, AttributeStatus.NORMAL, T0 + 1_000)));
+
+        // 推进已到窗口边界，边界前一刻采的样本这时才到达
+        clock.advanceMillis(60_000);
+        Thread.sleep(50);
+        e.handleEvent(event(change("so2", 3.0, AttributeStatus.NORMAL, T0 + 59_995)));
+        clock.advanceMillis(LATENESS_MS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        AttrAggregateEvent m = e.getLastCompleted("dev1", "so2", "1m");
+        assertEquals(2, m.getSampleCount());
+        assertEquals(2.0, m.getAverage(), 1e-9);
+        assertEquals(0, e.getLateSampleCount());
+    }
+
+    @Test
+    public void publishesToBusAndBindsLogicAttribute() throws Exception {
+        EcatCore core = mock(EcatCore.class);
+        BusRegistry bus = new BusRegistry();
+        when(core.getBusRegistry()).thenReturn(bus);
+        ConfigEntry entry = new ConfigEntry.Builder()
+                .entryId("ent-agg").coordinate("com.ecat:t").uniqueId("sn-agg").data(new HashMap<>()).build();
+        DeviceBase logic = new DeviceBaseIdentityTest.StubDevice(entry);
+        logic.load(core);
+        DoubleAttribute avg = new DoubleAttribute("so2_1m", null, null, null, 1, false, false);
+        logic.setAttribute(avg);
+
+        AggregationEngine e = engine();
+        e.attach(bus);
+        CountDownLatch published = new CountDownLatch(1);
+        bus.subscribe(BusTopic.ATTR_AGGREGATE.getTopicName(), ev -> {
+            if (((AttrAggregateEvent) ev.getPayload()).getWindow().equals("1m")) {
+                published.countDown();
+            }
+        });
+        e.bindAttribute("dev1", "so2", "1m", avg, 3);
+
+        e.handleEvent(event(change("so2", 4.0, AttributeStatus.NORMAL, T0 + 1_000)));
+        e.handleEvent(event(change("so2", 6.0, AttributeStatus.NORMAL, T0 + 2_000)));
+        clock.advanceMillis(60_000 + LATENESS_MS);
+        assertTrue("结果发布到 attr.aggregate", published.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (avg.getState() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        AttrState<Double> st = avg.getState();
+        assertNotNull(st);
+        assertEquals(5.0, st.getValue(), 1e-9);
+        assertEquals("有效样本不足", AttributeStatus.INSUFFICIENT, st.getStatus());
+
+        try {
+            e.bindAttribute("dev1", "so2", "1h", avg, 1);
+            fail("未配置的窗口");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateWindowNameRejected() {
+        AggregationEngine.builder()
+                .window(WindowSpec.MINUTE_1)
+                .window(WindowSpec.tumbling("1m", Duration.ofMinutes(2)))
+                .build();
+    }
+}
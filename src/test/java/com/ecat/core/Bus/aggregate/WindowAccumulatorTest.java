@@ -0,0 +1,143 @@
+package com.ecat.core.Bus.aggregate;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * WindowAccumulator 单测——滚动窗口对齐与结束、有效/无效样本、滑动窗口合成、迟到丢弃、停报补发有界、时区对齐。
+ */
+public class WindowAccumulatorTest {
+
+    private static final long MIN = 60_000L;
+    private static final long HOUR = 60 * MIN;
+
+    /** 记录回调的窗口：start, end, count, valid, sum, min, max。 */
+    private static final class Collect implements WindowAccumulator.Emitter {
+        final List<double[]> out = new ArrayList<>();
+
+        @Override
+        public void emit(WindowSpec spec, long startMs, long endMs, int count, int valid, double sum,
+                double min, double max) {
+            out.add(new double[] {startMs, endMs, count, valid, sum, min, max});
+        }
+    }
+
+    @Test
+    public void tumblingWindowClosesOnNextPaneSample() {
+        WindowAccumulator acc = new WindowAccumulator(WindowSpec.MINUTE_1, 0);
+        Collect c = new Collect();
+        acc.add(10 * MIN + 1_000, 1.0, true, c);
+        acc.add(10 * MIN + 30_000, 3.0, true, c);
+        acc.add(10 * MIN + 59_999, 99.0, false, c);
+        assertTrue("窗口未结束不输出", c.out.isEmpty());
+
+        acc.add(11 * MIN, 5.0, true, c);
+        assertEquals(1, c.out.size());
+        double[] w = c.out.get(0);
+        assertEquals(10 * MIN, (long) w[0]);
+        assertEquals(11 * MIN, (long) w[1]);
+        assertEquals("全部样本", 3, (int) w[2]);
+        assertEquals("有效样本", 2, (int) w[3]);
+        assertEquals(4.0, w[4], 0.0);
+        assertEquals(1.0, w[5], 0.0);
+        assertEquals("无效样本不参与极值", 3.0, w[6], 0.0);
+    }
+
+    @Test
+    public void advanceClosesWithoutNewSamplesAndNoEmptyWindows() {
+        WindowAccumulator acc = new WindowAccumulator(WindowSpec.MINUTE_1, 0);
+        Collect c = new Collect();
+        acc.add(5 * MIN + 10, 2.0, true, c);
+        acc.advanceTo(5 * MIN + 59_999, c);
+        assertTrue(c.out.isEmpty());
+        acc.advanceTo(6 * MIN, c);
+        assertEquals(1, c.out.size());
+        acc.advanceTo(100 * MIN, c);
+        assertEquals("空窗口不输出", 1, c.out.size());
+    }
+
+    @Test
+    public void allInvalidWindowReportsNaN() {
+        WindowAccumulator acc = new WindowAccumulator(WindowSpec.MINUTE_1, 0);
+        Collect c = new Collect();
+        acc.add(0, Double.NaN, false, c);
+        acc.advanceTo(MIN, c);
+        double[] w = c.out.get(0);
+        assertEquals(1, (int) w[2]);
+        assertEquals(0, (int) w[3]);
+        assertTrue(Double.isNaN(w[5]));
+        assertTrue(Double.isNaN(w[6]));
+    }
+
+    @Test
+    public void lateSampleDropped() {
+        WindowAccumulator acc = new WindowAccumulator(WindowSpec.MINUTE_1, 0);
+        Collect c = new Collect();
+        acc.add(2 * MIN, 1.0, true, c);
+        assertFalse("滚动窗口不接收早于最新分片的样本", acc.add(MIN + 5, 1.0, true, c));
+        acc.advanceTo(3 * MIN, c);
+        assertEquals(1, c.out.size());
+        assertEquals(1, (int) c.out.get(0)[2]);
+        assertFalse("已结束分片的样本丢弃", acc.add(2 * MIN + 5, 1.0, true, c));
+        assertTrue(acc.add(3 * MIN + 5, 1.0, true, c));
+    }
+
+    @Test
+    public void slidingWindowAcceptsOutOfOrderWithinRing() {
+        WindowSpec spec = WindowSpec.sliding("3m", Duration.ofMinutes(3), Duration.ofMinutes(1));
+        WindowAccumulator acc = new WindowAccumulator(spec, 0);
+        Collect c = new Collect();
+        acc.add(2 * MIN, 1.0, true, c);
+        assertTrue("环内更早的未结束分片仍接收", acc.add(MIN + 5, 2.0, true, c));
+        acc.advanceTo(3 * MIN, c);
+        // 终点 2m、3m 的两个窗口，乱序样本均计入
+        assertEquals(2, c.out.size());
+        assertEquals(2.0, c.out.get(0)[4], 0.0);
+        assertEquals(3.0, c.out.get(1)[4], 0.0);
+    }
+
+    @Test
+    public void slidingWindowCombinesPanesAndStopsAfterDataLeaves() {
+        WindowSpec spec = WindowSpec.sliding("3h", Duration.ofHours(3), Duration.ofHours(1));
+        WindowAccumulator acc = new WindowAccumulator(spec, 0);
+        Collect c = new Collect();
+        acc.add(0, 1.0, true, c);
+        acc.add(HOUR, 2.0, true, c);
+        acc.add(2 * HOUR, 6.0, true, c);
+        // 已结束 [-2h,1h) 与 [-1h,2h)
+        assertEquals(2, c.out.size());
+        acc.advanceTo(3 * HOUR, c);
+        double[] full = c.out.get(2);
+        assertEquals(0, (long) full[0]);
+        assertEquals(3 * HOUR, (long) full[1]);
+        assertEquals(3, (int) full[3]);
+        assertEquals(9.0, full[4], 0.0);
+        assertEquals(1.0, full[5], 0.0);
+        assertEquals(6.0, full[6], 0.0);
+
+        // 停报：只补发仍含数据的窗口（终点 4h、5h），之后不再输出
+        acc.advanceTo(50 * HOUR, c);
+        assertEquals(5, c.out.size());
+        double[] tail = c.out.get(4);
+        assertEquals(5 * HOUR, (long) tail[1]);
+        assertEquals("只剩最后一个分片的数据", 6.0, tail[4], 0.0);
+    }
+
+    @Test
+    public void dayWindowAlignsToLocalMidnight() {
+        long offset = 8 * HOUR; // UTC+8
+        WindowAccumulator acc = new WindowAccumulator(WindowSpec.DAY_1, offset);
+        Collect c = new Collect();
+        // 1970-01-02T01:00+08:00 = 1970-01-01T17:00Z
+        acc.add(17 * HOUR, 1.0, true, c);
+        acc.advanceTo(17 * HOUR + 24 * HOUR, c);
+        double[] w = c.out.get(0);
+        assertEquals("当地零点 = UTC 16:00", 16 * HOUR, (long) w[0]);
+        assertEquals(40 * HOUR, (long) w[1]);
+    }
+}
@@ -53,6 +53,11 @@ public class AbstractBatchBusConsumerTest {
             assertEquals("顺序应保留", i, c.flushed.get(0).get(i).intValue());
         }
         assertEquals(batchSize, c.getProcessedCount());
+        // flushedBatches 在 flush 返回后才累加：latch 归零时可能尚未计入
+        long deadline = System.currentTimeMillis() + 5000;
+        while (c.getFlushedBatchesCount() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
         assertEquals(1, c.getFlushedBatchesCount());
         c.shutdown();
     }
@@ -0,0 +1,144 @@
+package com.ecat.core.Bus.consumer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * AbstractCoalescingBusConsumer 单测——同 key 只消费最新值、突发下每个 key 的最后状态不丢、合并计数、停服 drain。
+ */
+public class AbstractCoalescingBusConsumerTest {
+
+    /** key=事件字符串 "key:value" 的 key 段。 */
+    private abstract static class KeyedConsumer extends AbstractCoalescingBusConsumer<String, String> {
+        KeyedConsumer(String name) {
+            super(name);
+        }
+
+        @Override
+        protected String keyOf(String event) {
+            return event.substring(0, event.indexOf(':'));
+        }
+    }
+
+    @Test
+    public void stalledConsumerSeesOnlyLatestPerKey() throws InterruptedException {
+        final CountDownLatch parked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> seen = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch done = new CountDownLatch(3);
+        KeyedConsumer c = new KeyedConsumer("coalesce") {
+            @Override
+            protected void consume(String event) {
+                parked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                seen.add(event);
+                done.countDown();
+            }
+        };
+
+        c.onEvent("a:0");
+        assertTrue(parked.await(2, TimeUnit.SECONDS));
+        for (int i = 1; i <= 100; i++) {
+            c.onEvent("a:" + i);
+            c.onEvent("b:" + i);
+        }
+        assertEquals(2, c.getPendingKeyCount());
+        assertEquals(198, c.getCoalescedCount());
+
+        release.countDown();
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(3, seen.size());
+        assertEquals("a:0", seen.get(0));
+        assertTrue(seen.contains("a:100"));
+        assertTrue(seen.contains("b:100"));
+        c.shutdown();
+    }
+
+    @Test
+    public void concurrentBurstNeverLosesLastValue() throws InterruptedException {
+        final int keys = 50;
+        final int updates = 2000;
+        final Map<String, String> last = new ConcurrentHashMap<String, String>();
+        KeyedConsumer c = new KeyedConsumer("burst") {
+            @Override
+            protected void consume(String event) {
+                last.put(keyOf(event), event);
+            }
+        };
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int owner = t;
+            threads[t] = new Thread(() -> {
+                // 每个线程独占一段 key，保证单 key 内发布有序
+                for (int i = 0; i < updates; i++) {
+                    for (int k = owner; k < keys; k += 4) {
+                        c.onEvent("k" + k + ":" + i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        c.shutdown();
+
+        assertEquals(keys, last.size());
+        for (int k = 0; k < keys; k++) {
+            assertEquals("k" + k + ":" + (updates - 1), last.get("k" + k));
+        }
+        assertEquals(keys * updates, c.getProcessedCount() + c.getCoalescedCount());
+    }
+
+    @Test
+    public void consumeErrorKeepsWorkerAlive() throws InterruptedException {
+        final CountDownLatch ok = new CountDownLatch(1);
+        KeyedConsumer c = new KeyedConsumer("err") {
+            @Override
+            protected void consume(String event) {
+                if (event.startsWith("bad")) {
+                    throw new IllegalStateException("boom");
+                }
+                ok.countDown();
+            }
+
+            @Override
+            protected void onConsumeError(String event, RuntimeException error) {
+                // 测试中静默
+            }
+        };
+        c.onEvent("bad:1");
+        c.onEvent("good:1");
+        assertTrue(ok.await(2, TimeUnit.SECONDS));
+        c.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullKeyRejected() {
+        AbstractCoalescingBusConsumer<String, String> c = new AbstractCoalescingBusConsumer<String, String>("nk") {
+            @Override
+            protected String keyOf(String event) { return null; }
+            @Override
+            protected void consume(String event) { }
+        };
+        try {
+            c.onEvent("x");
+        } finally {
+            c.shutdown();
+        }
+    }
+}
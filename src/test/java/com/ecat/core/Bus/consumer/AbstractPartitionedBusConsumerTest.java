@@ -0,0 +1,174 @@
+package com.ecat.core.Bus.consumer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分区 consumer 单测——同 key 保序、多道并行、按道计量、batch 形态（AbstractPartitionedBatchBusConsumer）停服 drain。
+ * 事件形如 "key:seq"。
+ */
+public class AbstractPartitionedBusConsumerTest {
+
+    private static String keyPart(String event) {
+        return event.substring(0, event.indexOf(':'));
+    }
+
+    private static int seqPart(String event) {
+        return Integer.parseInt(event.substring(event.indexOf(':') + 1));
+    }
+
+    @Test
+    public void perEventKeepsPerKeyOrderAcrossLanes() throws InterruptedException {
+        final int keys = 16;
+        final int perKey = 500;
+        final CountDownLatch done = new CountDownLatch(keys * perKey);
+        final Map<String, List<Integer>> seen = new ConcurrentHashMap<String, List<Integer>>();
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        AbstractPartitionedBusConsumer<String, String> c =
+                new AbstractPartitionedBusConsumer<String, String>("part", 4, 100000) {
+                    @Override
+                    protected String keyOf(String event) {
+                        return keyPart(event);
+                    }
+
+                    @Override
+                    protected void consume(String event) {
+                        threads.add(Thread.currentThread().getName());
+                        seen.computeIfAbsent(keyPart(event),
+                                k -> Collections.synchronizedList(new ArrayList<Integer>())).add(seqPart(event));
+                        done.countDown();
+                    }
+                };
+
+        for (int i = 0; i < perKey; i++) {
+            for (int k = 0; k < keys; k++) {
+                c.onEvent("dev" + k + ":" + i);
+            }
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        for (int k = 0; k < keys; k++) {
+            List<Integer> seq = seen.get("dev" + k);
+            assertEquals(perKey, seq.size());
+            for (int i = 0; i < perKey; i++) {
+                assertEquals("同 key 应保序", i, seq.get(i).intValue());
+            }
+        }
+        assertTrue("16 个 key 应分散到多道", threads.size() > 1);
+        for (String t : threads) {
+            assertTrue(t.startsWith("bus-consumer-part-"));
+        }
+        // processed 在 consume 返回后才累加：latch 归零时最后一条可能尚未计入
+        long deadline = System.currentTimeMillis() + 5000;
+        while (c.getProcessedCount() < keys * perKey && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(keys * perKey, c.getProcessedCount());
+        assertEquals(0, c.getDroppedCount());
+        c.shutdown();
+    }
+
+    @Test
+    public void laneStatsReportDropsOnHotLaneOnly() throws InterruptedException {
+        final CountDownLatch parked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        AbstractPartitionedBusConsumer<String, String> c =
+                new AbstractPartitionedBusConsumer<String, String>("hot", 2, 4) {
+                    @Override
+                    protected String keyOf(String event) {
+                        return keyPart(event);
+                    }
+
+                    @Override
+                    protected void consume(String event) {
+                        parked.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                };
+
+        c.onEvent("hot:0");
+        assertTrue(parked.await(2, TimeUnit.SECONDS));
+        for (int i = 1; i < 10; i++) {
+            c.onEvent("hot:" + i); // 9 条进容量 4 的道 → 丢 5
+        }
+
+        List<AbstractPartitionedBusConsumer.LaneStats> stats = c.getLaneStats();
+        assertEquals(2, stats.size());
+        long dropped = 0;
+        int lagged = 0;
+        for (AbstractPartitionedBusConsumer.LaneStats s : stats) {
+            dropped += s.getDropped();
+            if (s.getLag() > 0) {
+                lagged++;
+                assertEquals(4, s.getLag());
+                assertEquals(5, s.getDropped());
+            }
+        }
+        assertEquals(5, dropped);
+        assertEquals("只有热点 key 所在道积压", 1, lagged);
+        assertEquals(5, c.getDroppedCount());
+
+        release.countDown();
+        c.shutdown();
+    }
+
+    @Test
+    public void batchShapeFlushesPerLaneAndDrainsOnShutdown() {
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+        AbstractPartitionedBatchBusConsumer<String, String> c =
+                new AbstractPartitionedBatchBusConsumer<String, String>("part-batch", 3, 1000, 10_000, 60_000L) {
+                    @Override
+                    protected String keyOf(String event) {
+                        return keyPart(event);
+                    }
+
+                    @Override
+                    protected void flush(List<String> batch) {
+                        batches.add(new ArrayList<String>(batch));
+                    }
+                };
+
+        for (int i = 0; i < 20; i++) {
+            for (int k = 0; k < 6; k++) {
+                c.onEvent("dev" + k + ":" + i);
+            }
+        }
+        c.shutdown();
+
+        int total = 0;
+        for (List<String> batch : batches) {
+            total += batch.size();
+            Map<String, Integer> last = new ConcurrentHashMap<String, Integer>();
+            for (String e : batch) {
+                Integer prev = last.put(keyPart(e), seqPart(e));
+                assertTrue("批内同 key 保序", prev == null || prev < seqPart(e));
+            }
+        }
+        assertEquals(120, total);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveLaneCount() {
+        new AbstractPartitionedBusConsumer<String, String>("bad", 0, 10) {
+            @Override
+            protected String keyOf(String event) { return event; }
+
+            @Override
+            protected void consume(String event) { }
+        };
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecat.core.Bus.consumer;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 自适应攒批单测——控制器调节规则（确定性喂观测值）+ consumer 端到端：积压时放大批量、小流量按 linger 及时 flush。
+ */
+public class AdaptiveBatchPolicyTest {
+
+    private static AdaptiveBatchPolicy policy() {
+        return new AdaptiveBatchPolicy(10, 1000, 5, 200, 100);
+    }
+
+    @Test
+    public void startsAtLowerBounds() {
+        AdaptiveBatchController c = new AdaptiveBatchController(policy());
+        assertEquals(10, c.batchSize());
+        assertEquals(5, c.lingerMs());
+        assertEquals(AdaptiveBatchPolicy.Reason.INITIAL, c.current().getReason());
+    }
+
+    @Test
+    public void backlogOverTargetGrowsBatch() {
+        AdaptiveBatchController c = new AdaptiveBatchController(policy());
+        // 每条 flush 成本 2ms，积压 5000 条 → 估算延迟远超 100ms，且积压 > batchSize
+        for (int i = 0; i < AdaptiveBatchPolicy.MIN_SAMPLES; i++) {
+            c.onFlush(10, 1, 20, 5000, true);
+        }
+        assertEquals(AdaptiveBatchPolicy.Reason.GROW_FOR_BACKLOG, c.current().getReason());
+        assertEquals(20, c.batchSize());
+        for (int i = 0; i < 10 * AdaptiveBatchPolicy.MIN_SAMPLES; i++) {
+            c.onFlush(c.batchSize(), 1, c.batchSize() * 2L, 5000, true);
+        }
+        assertEquals("放大到上限为止", 1000, c.batchSize());
+        assertTrue(c.current().getAdjustments() > 0);
+    }
+
+    @Test
+    public void heavyFlushWithoutBacklogShrinks() {
+        AdaptiveBatchController c = new AdaptiveBatchController(new AdaptiveBatchPolicy(10, 1000, 5, 200, 100));
+        // 先放宽到较大参数（恰在一次调节之后结束）
+        for (int i = 0; i < 4 * AdaptiveBatchPolicy.MIN_SAMPLES; i++) {
+            c.onFlush(c.batchSize(), 1, 1, 0, true);
+        }
+        assertEquals(AdaptiveBatchPolicy.Reason.RELAX, c.current().getReason());
+        int grown = c.batchSize();
+        long lingered = c.lingerMs();
+        assertTrue(grown > 10);
+        assertTrue(lingered > 5);
+
+        // 单批 flush 300ms、无积压 → 超标且非吞吐问题，观测够样本后减半
+        for (int i = 0; i < AdaptiveBatchPolicy.MIN_SAMPLES; i++) {
+            c.onFlush(grown, 1, 300, 0, true);
+        }
+        assertEquals(AdaptiveBatchPolicy.Reason.SHRINK_FOR_LATENCY, c.current().getReason());
+        assertEquals(Math.max(10, grown / 2), c.batchSize());
+        assertEquals(Math.max(5, lingered / 2), c.lingerMs());
+        assertEquals(300 + 1, c.current().getP99LatencyMs());
+    }
+
+    @Test
+    public void holdsUntilEnoughSamplesSinceLastAdjustment() {
+        AdaptiveBatchController c = new AdaptiveBatchController(policy());
+        for (int i = 0; i < AdaptiveBatchPolicy.MIN_SAMPLES - 1; i++) {
+            c.onFlush(10, 1, 20, 5000, true);
+            assertEquals("样本不足不决策", AdaptiveBatchPolicy.Reason.HOLD, c.current().getReason());
+        }
+        assertEquals(10, c.batchSize());
+        c.onFlush(10, 1, 20, 5000, true);
+        assertEquals(20, c.batchSize());
+        assertEquals(1, c.current().getAdjustments());
+
+        // 调节后窗口清空：下一批即便同样超标也先保持
+        c.onFlush(20, 1, 40, 5000, true);
+        assertEquals(AdaptiveBatchPolicy.Reason.HOLD, c.current().getReason());
+        assertEquals(20, c.batchSize());
+        assertEquals(1, c.current().getAdjustments());
+    }
+
+    @Test
+    public void nearTargetHolds() {
+        AdaptiveBatchController c = new AdaptiveBatchController(policy());
+        c.onFlush(10, 30, 40, 0, false); // 70ms：低于目标但高于一半
+        assertEquals(AdaptiveBatchPolicy.Reason.HOLD, c.current().getReason());
+        assertEquals(10, c.batchSize());
+        assertEquals(5, c.lingerMs());
+        assertEquals(0, c.current().getAdjustments());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvertedBounds() {
+        new AdaptiveBatchPolicy(100, 10, 5, 200, 100);
+    }
+
+    @Test
+    public void fixedModeReportsConstructorValues() {
+        AbstractBatchBusConsumer<Integer> c = new AbstractBatchBusConsumer<Integer>("fixed", 16, 8, 500L) {
+            @Override
+            protected void flush(List<Integer> batch) { }
+        };
+        assertFalse(c.isAdaptive());
+        assertEquals(8, c.getBatchSizing().getBatchSize());
+        assertEquals(500, c.getBatchSizing().getLingerMs());
+        c.shutdown();
+    }
+
+    @Test
+    public void adaptiveConsumerGrowsBatchUnderBacklog() throws InterruptedException {
+        final int total = 3000;
+        final AtomicInteger flushedItems = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        AbstractBatchBusConsumer<Integer> c = new AbstractBatchBusConsumer<Integer>("adaptive", 10000,
+                new AdaptiveBatchPolicy(5, 500, 5, 100, 20)) {
+            @Override
+            protected void flush(List<Integer> batch) {
+                try {
+                    Thread.sleep(2); // 模拟每批固定往返开销
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (flushedItems.addAndGet(batch.size()) >= total) {
+                    done.countDown();
+                }
+            }
+        };
+        assertTrue(c.isAdaptive());
+        for (int i = 0; i < total; i++) {
+            c.onEvent(i);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        AdaptiveBatchPolicy.Decision d = c.getBatchSizing();
+        assertTrue("积压下批量应放大: " + d, d.getBatchSize() > 5);
+        assertTrue(c.getFlushedBatchesCount() < total / 5);
+        c.shutdown();
+    }
+
+    @Test
+    public void adaptiveLingerFlushesTrickleWithoutIdleGap() throws InterruptedException {
+        final CountDownLatch flushed = new CountDownLatch(1);
+        AbstractBatchBusConsumer<Integer> c = new AbstractBatchBusConsumer<Integer>("trickle", 100,
+                new AdaptiveBatchPolicy(1000, 1000, 50, 50, 1000)) {
+            @Override
+            protected void flush(List<Integer> batch) {
+                flushed.countDown();
+            }
+        };
+        // 每 10ms 一条，从不出现 50ms 空闲：固定模式不会超时 flush，自适应按最早事件等满 linger flush
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 30 && flushed.getCount() > 0; i++) {
+            c.onEvent(i);
+            Thread.sleep(10);
+        }
+        assertTrue(flushed.await(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) < 250);
+        c.shutdown();
+    }
+}
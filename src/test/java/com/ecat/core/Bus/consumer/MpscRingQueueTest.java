@@ -0,0 +1,168 @@
+package com.ecat.core.Bus.consumer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 无锁 MPSC 环形队列单测——FIFO、非 2 的幂容量、多生产者不丢、三种等待策略下 consumer 的
+ * drop-oldest/计数语义与 ArrayBlockingQueue 版一致、停服可中断。
+ */
+public class MpscRingQueueTest {
+
+    @Test
+    public void fifoWithNonPowerOfTwoCapacity() {
+        MpscRingQueue<Integer> q = new MpscRingQueue<Integer>(3, WaitStrategy.PARK);
+        for (int round = 0; round < 5; round++) {
+            assertTrue(q.offer(1));
+            assertTrue(q.offer(2));
+            assertTrue(q.offer(3));
+            assertFalse("容量 3 满后应拒绝", q.offer(4));
+            assertEquals(3, q.size());
+            assertEquals(Integer.valueOf(1), q.poll());
+            assertEquals(Integer.valueOf(2), q.poll());
+            assertEquals(Integer.valueOf(3), q.poll());
+            assertNull(q.poll());
+            assertEquals(0, q.size());
+        }
+    }
+
+    @Test
+    public void timedPollReturnsNullOnTimeout() throws InterruptedException {
+        for (WaitStrategy ws : WaitStrategy.values()) {
+            MpscRingQueue<Integer> q = new MpscRingQueue<Integer>(4, ws);
+            long t0 = System.nanoTime();
+            assertNull(q.poll(20, TimeUnit.MILLISECONDS));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) >= 15);
+        }
+    }
+
+    @Test
+    public void multipleProducersLoseNothingWhenCapacitySuffices() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 5000;
+        final MpscRingQueue<Integer> q = new MpscRingQueue<Integer>(producers * perProducer, WaitStrategy.PARK);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    assertTrue(q.offer(base + i));
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        List<Integer> out = new ArrayList<Integer>();
+        q.drainTo(out);
+        assertEquals(producers * perProducer, out.size());
+        // 每个生产者内部顺序保持
+        int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        for (int v : out) {
+            int p = v / perProducer;
+            assertTrue(v > last[p]);
+            last[p] = v;
+        }
+    }
+
+    @Test
+    public void consumerDropOldestMatchesBlockingQueueForEveryStrategy() throws InterruptedException {
+        for (WaitStrategy ws : WaitStrategy.values()) {
+            final CountDownLatch workerParked = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch allProcessed = new CountDownLatch(5);
+            final List<Integer> seen = new ArrayList<Integer>();
+            AbstractBusConsumer<Integer> c = new AbstractBusConsumer<Integer>("ring-" + ws, 4, ws) {
+                @Override
+                protected void consume(Integer event) {
+                    workerParked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    seen.add(event);
+                    allProcessed.countDown();
+                }
+            };
+            c.onEvent(0);
+            assertTrue(workerParked.await(2, TimeUnit.SECONDS));
+            for (int i = 1; i < 10; i++) {
+                c.onEvent(i);
+            }
+            assertEquals(ws.name(), 5, c.getDroppedCount());
+            assertEquals(4, c.getQueueSize());
+
+            release.countDown();
+            assertTrue(allProcessed.await(2, TimeUnit.SECONDS));
+            c.shutdown();
+            assertEquals(Arrays.asList(0, 6, 7, 8, 9), seen);
+        }
+    }
+
+    @Test
+    public void concurrentPublishersAreAllConsumed() throws InterruptedException {
+        for (WaitStrategy ws : WaitStrategy.values()) {
+            final int producers = 4;
+            final int perProducer = 2000;
+            final CountDownLatch done = new CountDownLatch(producers * perProducer);
+            final AtomicInteger consumed = new AtomicInteger();
+            AbstractBusConsumer<Integer> c = new AbstractBusConsumer<Integer>("mp-" + ws, 1 << 16, ws) {
+                @Override
+                protected void consume(Integer event) {
+                    consumed.incrementAndGet();
+                    done.countDown();
+                }
+            };
+            Thread[] threads = new Thread[producers];
+            for (int p = 0; p < producers; p++) {
+                threads[p] = new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        c.onEvent(i);
+                    }
+                });
+                threads[p].start();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+            assertTrue(ws.name(), done.await(5, TimeUnit.SECONDS));
+            assertEquals(0, c.getDroppedCount());
+            c.shutdown();
+        }
+    }
+
+    @Test
+    public void batchConsumerShutdownDrainsRing() throws InterruptedException {
+        final List<Integer> flushed = new ArrayList<Integer>();
+        AbstractBatchBusConsumer<Integer> c = new AbstractBatchBusConsumer<Integer>(
+                "ring-batch", 64, 1000, 60_000L, WaitStrategy.BLOCK) {
+            @Override
+            protected void flush(List<Integer> batch) {
+                flushed.addAll(batch);
+            }
+        };
+        for (int i = 0; i < 10; i++) {
+            c.onEvent(i);
+        }
+        c.shutdown();
+        assertEquals(10, flushed.size());
+        assertEquals(Integer.valueOf(9), flushed.get(9));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullStrategy() {
+        new MpscRingQueue<Integer>(4, null);
+    }
+}
@@ -0,0 +1,212 @@
+package com.ecat.core.Bus.journal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.State.AttrState;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.Unit.AirVolumeUnit;
+
+/**
+ * 事件日志单测——编解码往返、段滚动、按时间段不限速/倍速回放与 oldState 重建、回放事件不被重复记录。
+ */
+public class DeviceDataJournalTest {
+
+    private static final String TOPIC = BusTopic.DEVICE_DATA_UPDATE.getTopicName();
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("ecat-journal");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static DeviceDataChangedEvent change(String deviceId, String attrId, Object value) {
+        AttrState<?> state = AttrState.builder()
+                .deviceId(deviceId)
+                .attrId(attrId)
+                .value(value)
+                .status(AttributeStatus.NORMAL)
+                .nativeUnit(AirVolumeUnit.PPB)
+                .displayUnit(AirVolumeUnit.PPM)
+                .displayPrecision(2)
+                .displayValue(String.valueOf(value))
+                .lastUpdated(Instant.ofEpochMilli(1234))
+                .context(EventContext.root(EventContext.Source.DEVICE_POLL, null))
+                .build();
+        return new DeviceDataChangedEvent(deviceId, attrId, null, state);
+    }
+
+    private static BusEvent<DeviceDataChangedEvent> at(long firedAtMs, DeviceDataChangedEvent change) {
+        return new BusEvent<DeviceDataChangedEvent>(TOPIC, change, Instant.ofEpochMilli(firedAtMs), "u" + firedAtMs,
+                change.getNewState().getContext());
+    }
+
+    private List<AttrState<?>> readAll(List<Long> firedAt) throws IOException {
+        final List<AttrState<?>> out = new ArrayList<AttrState<?>>();
+        new JournalReader(dir).scan(Long.MIN_VALUE, Long.MAX_VALUE, (t, s) -> {
+            if (firedAt != null) {
+                firedAt.add(t);
+            }
+            out.add(s);
+            return true;
+        });
+        return out;
+    }
+
+    @Test
+    public void roundTripPreservesStateFields() throws IOException {
+        DeviceDataJournal journal = new DeviceDataJournal(dir);
+        journal.handleEvent(at(1000, change("dev1", "so2", 12.5)));
+        journal.handleEvent(at(1001, change("dev1", "flag", true)));
+        journal.handleEvent(at(1002, change("设备2", "名称", "文本")));
+        journal.handleEvent(at(1003, change("dev2", "count", 7)));
+        journal.handleEvent(at(1004, change("dev2", "none", null)));
+        journal.shutdown();
+        assertEquals(5, journal.getWrittenCount());
+
+        List<Long> firedAt = new ArrayList<Long>();
+        List<AttrState<?>> states = readAll(firedAt);
+        assertEquals(Arrays.asList(1000L, 1001L, 1002L, 1003L, 1004L), firedAt);
+        AttrState<?> s = states.get(0);
+        assertEquals("dev1", s.getDeviceId());
+        assertEquals("so2", s.getAttrId());
+        assertEquals(12.5, s.getValue());
+        assertEquals(AttributeStatus.NORMAL, s.getStatus());
+        assertSame(AirVolumeUnit.PPB, s.getNativeUnit());
+        assertSame(AirVolumeUnit.PPM, s.getDisplayUnit());
+        assertEquals(2, s.getDisplayPrecision());
+        assertEquals("12.5", s.getDisplayValue());
+        assertEquals(Instant.ofEpochMilli(1234), s.getLastUpdated());
+        assertNull(s.getLastChanged());
+        assertEquals(EventContext.Source.REPLAY, s.getContext().getSource());
+        assertEquals(Boolean.TRUE, states.get(1).getValue());
+        assertEquals("设备2", states.get(2).getDeviceId());
+        assertEquals("文本", states.get(2).getValue());
+        assertEquals(7, states.get(3).getValue());
+        assertNull(states.get(4).getValue());
+    }
+
+    @Test
+    public void rollsSegmentsAndReadsAcrossThem() throws IOException {
+        DeviceDataJournal journal = new DeviceDataJournal(dir, DeviceDataJournal.MIN_SEGMENT_BYTES, 1024);
+        List<DeviceDataChangedEvent> changes = new ArrayList<DeviceDataChangedEvent>();
+        for (int i = 0; i < 300; i++) {
+            changes.add(change("dev1", "a" + (i % 5), (double) i));
+            if (changes.size() == 5) {
+                journal.handleBatch(new BusEvent<DeviceDataBatchEvent>(TOPIC,
+                        new DeviceDataBatchEvent("dev1", changes), Instant.ofEpochMilli(i), "b" + i,
+                        EventContext.root(EventContext.Source.DEVICE_POLL, null)));
+                changes = new ArrayList<DeviceDataChangedEvent>();
+            }
+        }
+        journal.shutdown();
+
+        assertTrue("应滚动出多个段", journal.getSegmentsRolled() >= 2);
+        assertEquals(journal.getSegmentsRolled() + 1, JournalReader.listSegments(dir).size());
+        List<AttrState<?>> states = readAll(null);
+        assertEquals(300, states.size());
+        for (int i = 0; i < 300; i++) {
+            assertEquals((double) i, states.get(i).getValue());
+        }
+
+        // 再次打开从新段继续编号，不覆盖旧段
+        DeviceDataJournal reopened = new DeviceDataJournal(dir, DeviceDataJournal.MIN_SEGMENT_BYTES, 16);
+        reopened.handleEvent(at(5000, change("dev1", "a0", 1.0)));
+        reopened.shutdown();
+        assertEquals(301, readAll(null).size());
+    }
+
+    @Test
+    public void replaysTimeRangeAtMaxSpeedWithRebuiltOldState() throws IOException {
+        DeviceDataJournal journal = new DeviceDataJournal(dir);
+        for (int i = 0; i < 100; i++) {
+            journal.handleEvent(at(10_000 + i, change("dev1", i % 2 == 0 ? "even" : "odd", (double) i)));
+        }
+        journal.shutdown();
+
+        BusRegistry registry = new BusRegistry();
+        final List<DeviceDataChangedEvent> received = new ArrayList<DeviceDataChangedEvent>();
+        registry.subscribe(TOPIC, e -> received.add((DeviceDataChangedEvent) e.getPayload()));
+
+        long n = new JournalReplayer(dir).replay(registry, Instant.ofEpochMilli(10_020), Instant.ofEpochMilli(10_050),
+                JournalReplayer.MAX_SPEED);
+
+        assertEquals(30, n);
+        assertEquals(30, received.size());
+        assertEquals(20.0, received.get(0).getNewState().getValue());
+        assertNull("区间内首条无 oldState", received.get(0).getOldState());
+        assertNull(received.get(1).getOldState());
+        assertSame(received.get(0).getNewState(), received.get(2).getOldState());
+        assertEquals(EventContext.Source.REPLAY, received.get(5).getNewState().getContext().getSource());
+    }
+
+    @Test
+    public void pacedReplayFollowsRecordedTiming() throws IOException {
+        DeviceDataJournal journal = new DeviceDataJournal(dir);
+        for (int i = 0; i <= 10; i++) {
+            journal.handleEvent(at(20_000 + i * 20L, change("dev1", "a", (double) i))); // 跨度 200ms
+        }
+        journal.shutdown();
+
+        long t0 = System.nanoTime();
+        long n = new JournalReplayer(dir).replay(new BusRegistry(), Instant.ofEpochMilli(0),
+                Instant.ofEpochMilli(Long.MAX_VALUE / 2), 2.0);
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+
+        assertEquals(11, n);
+        assertTrue("2 倍速回放 200ms 跨度应约 100ms: " + elapsedMs, elapsedMs >= 95 && elapsedMs < 2000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveSpeed() throws IOException {
+        new JournalReplayer(dir).replay(new BusRegistry(), Instant.EPOCH, Instant.now(), 0);
+    }
+
+    @Test
+    public void replayedEventsAreNotJournaledAgain() throws IOException, InterruptedException {
+        Path source = Files.createDirectory(dir.resolve("source"));
+        DeviceDataJournal recorder = new DeviceDataJournal(source);
+        for (int i = 0; i < 20; i++) {
+            recorder.handleEvent(at(30_000 + i, change("dev1", "a", (double) i)));
+        }
+        recorder.shutdown();
+
+        BusRegistry registry = new BusRegistry();
+        DeviceDataJournal live = new DeviceDataJournal(dir.resolve("live"));
+        live.attach(registry);
+        registry.publish(at(40_000, change("dev1", "a", 99.0)));
+        long n = new JournalReplayer(source).replay(registry, Instant.EPOCH, Instant.ofEpochMilli(Long.MAX_VALUE / 2),
+                JournalReplayer.MAX_SPEED);
+        live.shutdown();
+
+        assertEquals(20, n);
+        assertEquals("只记录非回放事件", 1, live.getWrittenCount());
+    }
+}
@@ -0,0 +1,286 @@
+package com.ecat.core.Bus.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.EventSubscriber;
+import com.ecat.core.Bus.Subscription;
+import com.ecat.core.Bus.consumer.AbstractBusConsumer;
+import com.ecat.core.Bus.consumer.AbstractCoalescingBusConsumer;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.BusPayload;
+import com.ecat.core.Bus.event.EventContext;
+
+/**
+ * 总线计量单测——直方图分桶精度与分位数、topic 发布计数与扇出耗时、订阅者耗时/异常、consumer 登记与注销。
+ */
+public class BusMetricsTest {
+
+    private static final class TestPayload implements BusPayload { }
+
+    private static BusEvent<TestPayload> event(String topic) {
+        return BusEvent.of(topic, new TestPayload(), EventContext.root(EventContext.Source.SYSTEM, null));
+    }
+
+    @Test
+    public void histogramBucketsBoundRelativeError() {
+        Random rnd = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long v = (long) Math.floor(Math.exp(rnd.nextDouble() * 27)); // 1ns .. ~0.5s
+            int idx = LatencyHistogram.indexOf(v);
+            long upper = LatencyHistogram.upperBoundOf(idx);
+            assertTrue(upper >= v);
+            assertTrue("相对误差应 < 1/32: v=" + v, upper - v <= Math.max(0, v / LatencyHistogram.SUB_BUCKETS));
+            if (idx > 0) {
+                assertTrue(LatencyHistogram.upperBoundOf(idx - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        LatencyHistogram.Snapshot s = h.snapshot();
+        assertEquals(1000, s.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), s.getMaxNanos());
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(500), s.getP50Nanos());
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(990), s.getP99Nanos());
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(500), s.getMeanNanos());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected≈" + expected + " actual=" + actual,
+                Math.abs(actual - expected) <= expected / LatencyHistogram.SUB_BUCKETS + 1000);
+    }
+
+    @Test
+    public void emptyHistogramSnapshotIsZero() {
+        LatencyHistogram.Snapshot s = new LatencyHistogram().snapshot();
+        assertEquals(0, s.getCount());
+        assertEquals(0, s.getP99Nanos());
+    }
+
+    @Test
+    public void registryRecordsTopicAndSubscriberMetrics() {
+        BusRegistry registry = new BusRegistry();
+        EventSubscriber ok = e -> { };
+        EventSubscriber failing = new EventSubscriber() {
+            @Override
+            public void handleEvent(BusEvent<?> e) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        registry.subscribe("metrics.topic", ok);
+        registry.subscribe("metrics.topic", failing);
+
+        for (int i = 0; i < 10; i++) {
+            registry.publish(event("metrics.topic"));
+        }
+        registry.publish(event("metrics.unsubscribed"));
+
+        BusMetrics m = registry.getMetrics();
+        BusMetrics.TopicStats topic = m.getTopicStats("metrics.topic");
+        assertEquals(10, topic.getPublished());
+        assertEquals(10, topic.getFanout().getCount());
+        assertTrue(topic.getMeanRate() > 0);
+        assertEquals("无订阅者也计发布数", 1, m.getTopicStats("metrics.unsubscribed").getPublished());
+        assertNull(m.getTopicStats("never.published"));
+
+        BusMetrics.SubscriberStats failingStats = null;
+        for (BusMetrics.SubscriberStats s : m.getSubscriberStats()) {
+            if (s.getName().equals(failing.getClass().getName())) {
+                failingStats = s;
+            }
+        }
+        assertNotNull(failingStats);
+        assertEquals(10, failingStats.getErrors());
+        assertEquals(10, failingStats.getLatency().getCount());
+    }
+
+    @Test
+    public void subscriberMetricsPerInstanceAndDroppedOnUnsubscribe() {
+        BusRegistry registry = new BusRegistry();
+        EventSubscriber first = new CountingSubscriber();
+        EventSubscriber second = new CountingSubscriber();
+        Subscription s1 = registry.subscribe("metrics.a", first);
+        registry.subscribe("metrics.b", first);
+        registry.subscribe("metrics.b", second);
+
+        registry.publish(event("metrics.a"));
+        registry.publish(event("metrics.b"));
+        registry.publish(event("metrics.b"));
+
+        BusMetrics m = registry.getMetrics();
+        List<Long> counts = new ArrayList<Long>();
+        for (BusMetrics.SubscriberStats st : m.getSubscriberStats()) {
+            assertEquals(CountingSubscriber.class.getName(), st.getName());
+            counts.add(st.getLatency().getCount());
+        }
+        Collections.sort(counts);
+        assertEquals("同类两个实例各自一条", Arrays.asList(2L, 3L), counts);
+
+        s1.unsubscribe();
+        assertEquals("仍订阅 metrics.b 的实例保留计量", 2, m.getSubscriberStats().size());
+        registry.subscribe("metrics.b", first).unsubscribe();
+        assertEquals("实例的最后一个订阅取消后注销计量", 1, m.getSubscriberStats().size());
+    }
+
+    private static final class CountingSubscriber implements EventSubscriber {
+        @Override
+        public void handleEvent(BusEvent<?> e) {
+        }
+    }
+
+    @Test
+    public void consumerRegistersQueueWaitAndUnregistersOnShutdown() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(3);
+        AbstractBusConsumer<BusEvent<?>> c = new AbstractBusConsumer<BusEvent<?>>("metrics-consumer", 16) {
+            @Override
+            protected void consume(BusEvent<?> event) {
+                done.countDown();
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            c.onEvent(event("metrics.consumer"));
+        }
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+
+        BusMetrics m = new BusMetrics();
+        BusMetrics.ConsumerStats stats = null;
+        long deadline = System.currentTimeMillis() + 2000;
+        while (System.currentTimeMillis() < deadline) {
+            stats = m.getConsumerStats("metrics-consumer");
+            if (stats != null && stats.getConsumeLatency().getCount() == 3) {
+                break;
+            }
+            Thread.sleep(5);
+        }
+        assertNotNull(stats);
+        assertEquals(3, stats.getQueueWait().getCount());
+        assertEquals(3, stats.getConsumeLatency().getCount());
+        assertEquals(0, stats.getDropped());
+
+        c.shutdown();
+        assertNull("shutdown 后应注销", m.getConsumerStats("metrics-consumer"));
+    }
+
+    @Test
+    public void payloadConsumerRecordsTimeInQueueIncludingDrain() throws InterruptedException {
+        BlockingConsumer c = new BlockingConsumer("metrics-payload");
+        c.onEvent("first");
+        assertTrue(c.entered.await(2, TimeUnit.SECONDS));
+        c.onEvent("second");
+        c.onEvent("third");
+        Thread.sleep(50);
+
+        BusMetrics m = new BusMetrics();
+        assertEquals("非 BusEvent 载荷也记排队时长", 1, m.getConsumerStats("metrics-payload").getQueueWait().getCount());
+
+        // worker 阻塞在 consume、不碰队列：此处 drain 与停服 drain 同路径
+        assertEquals(Arrays.asList("second", "third"), c.drainNow());
+        BusMetrics.ConsumerStats stats = m.getConsumerStats("metrics-payload");
+        assertEquals("drain 出的事件同样计入", 3, stats.getQueueWait().getCount());
+        assertTrue("按入队戳计在队列中的等待", stats.getQueueWait().getMaxNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+
+        c.release.countDown();
+        c.shutdown();
+    }
+
+    /** 首条事件在 consume 中阻塞到 release，使后续事件留在队列里。 */
+    private static final class BlockingConsumer extends AbstractBusConsumer<String> {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingConsumer(String name) {
+            super(name, 16);
+        }
+
+        @Override
+        protected void consume(String event) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<String> drainNow() {
+            return drainQueue();
+        }
+    }
+
+    @Test
+    public void coalescingConsumerRegistersMetrics() throws InterruptedException {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        AbstractCoalescingBusConsumer<String, String> c =
+                new AbstractCoalescingBusConsumer<String, String>("metrics-coalescing") {
+                    @Override
+                    protected String keyOf(String event) {
+                        return event.substring(0, 1);
+                    }
+
+                    @Override
+                    protected void consume(String event) {
+                        entered.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                };
+        c.onEvent("a1");
+        assertTrue(entered.await(2, TimeUnit.SECONDS));
+        c.onEvent("a2");
+        c.onEvent("a3");
+        c.onEvent("b1");
+
+        BusMetrics m = new BusMetrics();
+        BusMetrics.ConsumerStats stats = m.getConsumerStats("metrics-coalescing");
+        assertNotNull(stats);
+        assertEquals("队列深度为脏 key 数", 2, stats.getQueueSize());
+        assertEquals("被合并掉的事件计 dropped", 1, stats.getDropped());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (c.getProcessedCount() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        stats = m.getConsumerStats("metrics-coalescing");
+        assertEquals(3, stats.getProcessed());
+        assertEquals(3, stats.getQueueWait().getCount());
+        c.shutdown();
+        assertNull("shutdown 后应注销", m.getConsumerStats("metrics-coalescing"));
+    }
+
+    @Test
+    public void gaugesEvaluatedOnQuery() {
+        BusMetrics m = new BusMetrics();
+        long[] value = {5};
+        m.registerGauge("b.gauge", () -> value[0]);
+        m.registerGauge("a.broken", () -> {
+            throw new IllegalStateException("boom");
+        });
+        assertEquals(Long.valueOf(5), m.getGauges().get("b.gauge"));
+        assertFalse("求值失败的计量跳过", m.getGauges().containsKey("a.broken"));
+        value[0] = 7;
+        assertEquals(Long.valueOf(7), m.getGauges().get("b.gauge"));
+        m.unregisterGauge("b.gauge");
+        assertTrue(m.getGauges().isEmpty());
+    }
+}
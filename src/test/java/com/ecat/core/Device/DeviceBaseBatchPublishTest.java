@@ -0,0 +1,117 @@
+package com.ecat.core.Device;
+
+import com.ecat.core.Bus.BatchEventSubscriber;
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+import com.ecat.core.ConfigEntry.ConfigEntry;
+import com.ecat.core.EcatCore;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.NumericAttribute;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/**
+ * DeviceBase.publicAttrsState 合包发布：一个轮询周期的全部属性变化作为一个批次分发。
+ */
+public class DeviceBaseBatchPublishTest {
+
+    @Test
+    public void publicAttrsStatePublishesOneBatchPerCycle() {
+        BusRegistry registry = new BusRegistry();
+        EcatCore core = mock(EcatCore.class);
+        when(core.getBusRegistry()).thenReturn(registry);
+
+        ConfigEntry e = new ConfigEntry.Builder()
+                .entryId("ent-1").coordinate("com.ecat:t").uniqueId("sn-1").build();
+        DeviceBaseIdentityTest.StubDevice device = new DeviceBaseIdentityTest.StubDevice(e);
+        device.load(core);
+        List<NumericAttribute> attrs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            NumericAttribute a = new NumericAttribute("a" + i, null, null, null, 1, false, false);
+            device.setAttribute(a);
+            attrs.add(a);
+        }
+
+        final List<Integer> batches = new ArrayList<>();
+        final List<String> single = new ArrayList<>();
+        registry.subscribe("device.data.update", new BatchEventSubscriber() {
+            @Override
+            public void handleBatch(BusEvent<DeviceDataBatchEvent> batch) {
+                batches.add(batch.getPayload().size());
+            }
+
+            @Override
+            public void handleEvent(BusEvent<?> event) {
+                single.add(event.getType());
+            }
+        });
+
+        for (NumericAttribute a : attrs) {
+            a.updateValue(1.0, AttributeStatus.NORMAL);
+        }
+        assertTrue(device.publicAttrsState());
+
+        assertEquals(1, batches.size());
+        assertEquals(Integer.valueOf(5), batches.get(0));
+        assertTrue("合包期间不应单条发布", single.isEmpty());
+
+        // 未变化的周期不发空批次
+        assertTrue(device.publicAttrsState());
+        assertEquals(1, batches.size());
+
+        // 合包外的单个 publicState 照常单条发布
+        attrs.get(0).updateValue(2.0, AttributeStatus.NORMAL);
+        attrs.get(0).publicState();
+        assertEquals(1, single.size());
+    }
+
+    @Test
+    public void failedBatchPublishKeepsChangesInFlightForRetry() {
+        BusRegistry registry = spy(new BusRegistry());
+        doThrow(new RuntimeException("bus down")).doCallRealMethod().when(registry).publishBatch(any());
+        EcatCore core = mock(EcatCore.class);
+        when(core.getBusRegistry()).thenReturn(registry);
+
+        ConfigEntry e = new ConfigEntry.Builder()
+                .entryId("ent-2").coordinate("com.ecat:t").uniqueId("sn-2").build();
+        DeviceBaseIdentityTest.StubDevice device = new DeviceBaseIdentityTest.StubDevice(e);
+        device.load(core);
+        NumericAttribute a = new NumericAttribute("a", null, null, null, 1, false, false);
+        device.setAttribute(a);
+
+        final List<DeviceDataBatchEvent> batches = new ArrayList<>();
+        registry.subscribe("device.data.update", new BatchEventSubscriber() {
+            @Override
+            public void handleBatch(BusEvent<DeviceDataBatchEvent> batch) {
+                batches.add(batch.getPayload());
+            }
+
+            @Override
+            public void handleEvent(BusEvent<?> event) {
+            }
+        });
+
+        a.updateValue(1.0, AttributeStatus.NORMAL);
+        assertFalse("批次发布失败应可感知", device.publicAttrsState());
+        assertTrue(batches.isEmpty());
+        assertEquals("未移位，仍读到在途值", Double.valueOf(1.0), a.getState().getValue());
+
+        assertTrue("重试发布", device.publicAttrsState());
+        assertEquals(1, batches.size());
+        assertNull("old 仍是发布失败前的已提交态", batches.get(0).getChanges().get(0).getOldState());
+        assertEquals(Double.valueOf(1.0), batches.get(0).getChanges().get(0).getNewState().getValue());
+
+        assertTrue(device.publicAttrsState());
+        assertEquals("已提交，不再重发", 1, batches.size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.ecat.core.Device;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.ConfigEntry.ConfigEntry;
+import com.ecat.core.EcatCore;
+import com.ecat.core.State.AttributeHistory;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.NumericAttribute;
+import com.ecat.core.State.PublishPolicy;
+import com.ecat.core.Utils.EcatClock;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/**
+ * 设备 YAML history 套用到属性，以及 publicState 记录历史（含被发布策略抑制的变化）。
+ */
+public class DeviceBaseHistoryTest {
+
+    @After
+    public void tearDown() {
+        EcatClock.reset();
+    }
+
+    private DeviceBaseIdentityTest.StubDevice device(Map<String, Object> data) {
+        ConfigEntry e = new ConfigEntry.Builder()
+                .entryId("ent-1").coordinate("com.ecat:t").uniqueId("sn-1").data(data).build();
+        return new DeviceBaseIdentityTest.StubDevice(e);
+    }
+
+    @Test
+    public void yamlDefaultsAndPerAttrOverridesAndMemory() {
+        Map<String, Object> history = new HashMap<>();
+        history.put("depth", 60);
+        history.put("attrs", Collections.singletonMap("pm25", Collections.singletonMap("depth", 3600)));
+        Map<String, Object> data = new HashMap<>();
+        data.put(DeviceBase.HISTORY_KEY, history);
+        DeviceBase d = device(data);
+
+        NumericAttribute pm25 = new NumericAttribute("pm25", null, null, null, 1, false, false);
+        NumericAttribute so2 = new NumericAttribute("so2", null, null, null, 1, false, false);
+        d.setAttribute(pm25);
+        d.setAttribute(so2);
+
+        assertEquals(3600, pm25.getHistory().getDepth());
+        assertEquals(60, so2.getHistory().getDepth());
+        assertEquals(pm25.getHistory().memoryBytes() + so2.getHistory().memoryBytes(), d.getHistoryMemoryBytes());
+
+        NumericAttribute plain = new NumericAttribute("x", null, null, null, 1, false, false);
+        device(new HashMap<>()).setAttribute(plain);
+        assertNull("未配置不启用", plain.getHistory());
+    }
+
+    @Test
+    public void publicStateRecordsEverySampleIncludingSuppressed() {
+        EcatClock.ManualClock clock = new EcatClock.ManualClock(1_000_000L);
+        EcatClock.setDefault(clock);
+        EcatCore core = mock(EcatCore.class);
+        when(core.getBusRegistry()).thenReturn(new BusRegistry());
+        DeviceBase d = device(new HashMap<>());
+        d.load(core);
+        NumericAttribute a = new NumericAttribute("a", null, null, null, 1, false, false);
+        d.setAttribute(a);
+        a.setPublishPolicy(PublishPolicy.builder().deadband(1.0).build());
+        AttributeHistory h = a.enableHistory(10, 0);
+
+        double[] polls = {10.0, 10.4, 10.8, 12.0};
+        for (double v : polls) {
+            a.updateValue(v, AttributeStatus.NORMAL);
+            a.publicState();
+            clock.advanceMillis(1000);
+        }
+        AttributeHistory.Series s = h.latest(10);
+        assertArrayEquals(polls, s.getValues(), 0.0);
+        assertEquals(1_000_000L, s.getTime(0));
+        assertEquals(1_003_000L, s.getTime(3));
+    }
+
+    @Test
+    public void failedPublishRetryDoesNotRecordTwice() {
+        BusRegistry bus = spy(new BusRegistry());
+        // 仅第一次 device.data.update 发布失败（设备状态事件在后台线程发布，不受影响）
+        AtomicBoolean failed = new AtomicBoolean();
+        doAnswer(inv -> {
+            BusEvent<?> ev = inv.getArgument(0);
+            if (BusTopic.DEVICE_DATA_UPDATE.getTopicName().equals(ev.getType()) && failed.compareAndSet(false, true)) {
+                throw new RuntimeException("bus down");
+            }
+            return inv.callRealMethod();
+        }).when(bus).publish(any());
+        EcatCore core = mock(EcatCore.class);
+        when(core.getBusRegistry()).thenReturn(bus);
+        DeviceBase d = device(new HashMap<>());
+        d.load(core);
+        NumericAttribute a = new NumericAttribute("a", null, null, null, 1, false, false);
+        d.setAttribute(a);
+        AttributeHistory h = a.enableHistory(10, 0);
+
+        a.updateValue(1.0, AttributeStatus.NORMAL);
+        assertFalse(a.publicState());
+        assertTrue("重试发布", a.publicState());
+        assertEquals("同一在途态只记一次", 1, h.size());
+
+        a.updateValue(2.0, AttributeStatus.NORMAL);
+        assertTrue(a.publicState());
+        assertEquals(2, h.size());
+    }
+}
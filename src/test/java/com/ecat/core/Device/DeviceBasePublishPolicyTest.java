@@ -0,0 +1,98 @@
+package com.ecat.core.Device;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.ConfigEntry.ConfigEntry;
+import com.ecat.core.EcatCore;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.NumericAttribute;
+import com.ecat.core.State.PublishPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 设备 YAML publish_policy 套用到属性，以及例外报告下 publicState 的抑制与比较基准。
+ */
+public class DeviceBasePublishPolicyTest {
+
+    private DeviceBaseIdentityTest.StubDevice device(Map<String, Object> data) {
+        ConfigEntry e = new ConfigEntry.Builder()
+                .entryId("ent-1").coordinate("com.ecat:t").uniqueId("sn-1").data(data).build();
+        return new DeviceBaseIdentityTest.StubDevice(e);
+    }
+
+    @Test
+    public void yamlDefaultsAndPerAttrOverrides() {
+        Map<String, Object> policy = new HashMap<>();
+        policy.put("deadband", 0.5);
+        policy.put("heartbeat_ms", 60000);
+        policy.put("attrs", Collections.singletonMap("so2", Collections.singletonMap("deadband", 0.1)));
+        Map<String, Object> data = new HashMap<>();
+        data.put(DeviceBase.PUBLISH_POLICY_KEY, policy);
+        DeviceBase d = device(data);
+
+        NumericAttribute so2 = new NumericAttribute("so2", null, null, null, 1, false, false);
+        NumericAttribute no2 = new NumericAttribute("no2", null, null, null, 1, false, false);
+        d.setAttribute(so2);
+        d.setAttribute(no2);
+
+        assertEquals(0.1, so2.getPublishPolicy().getDeadband(), 0.0);
+        assertEquals("属性级覆盖只替换单项，其余沿用设备级", 60000L, so2.getPublishPolicy().getHeartbeatMs());
+        assertEquals(0.5, no2.getPublishPolicy().getDeadband(), 0.0);
+    }
+
+    @Test
+    public void noConfigKeepsAlwaysAndInvalidConfigIsIgnored() {
+        NumericAttribute a = new NumericAttribute("a", null, null, null, 1, false, false);
+        device(new HashMap<>()).setAttribute(a);
+        assertSame(PublishPolicy.ALWAYS, a.getPublishPolicy());
+
+        Map<String, Object> data = new HashMap<>();
+        data.put(DeviceBase.PUBLISH_POLICY_KEY, Collections.singletonMap("deadband", "oops"));
+        NumericAttribute b = new NumericAttribute("b", null, null, null, 1, false, false);
+        device(data).setAttribute(b);
+        assertSame(PublishPolicy.ALWAYS, b.getPublishPolicy());
+    }
+
+    @Test
+    public void deadbandSuppressesPublishAndComparesAgainstLastPublished() {
+        BusRegistry registry = new BusRegistry();
+        EcatCore core = mock(EcatCore.class);
+        when(core.getBusRegistry()).thenReturn(registry);
+        DeviceBase d = device(new HashMap<>());
+        d.load(core);
+        NumericAttribute a = new NumericAttribute("a", null, null, null, 1, false, false);
+        d.setAttribute(a);
+        a.setPublishPolicy(PublishPolicy.builder().deadband(1.0).build());
+
+        final List<Double> published = new ArrayList<>();
+        registry.subscribe("device.data.update", (BusEvent<?> event) -> {
+            DeviceDataChangedEvent c = (DeviceDataChangedEvent) event.getPayload();
+            published.add((Double) c.getNewState().getValue());
+        });
+
+        double[] polls = {10.0, 10.4, 10.8, 11.2, 11.2, 9.0};
+        for (double v : polls) {
+            a.updateValue(v, AttributeStatus.NORMAL);
+            assertTrue(a.publicState());
+            assertEquals("getState 始终是最新值", Double.valueOf(v), a.getState().getValue());
+        }
+        // 10.0 首发；10.4/10.8 在死区内；11.2 相对已发布 10.0 超出死区；9.0 相对 11.2 超出
+        assertEquals(java.util.Arrays.asList(10.0, 11.2, 9.0), published);
+
+        // 状态变化总是发布
+        a.updateValue(9.0, AttributeStatus.MAINTENANCE);
+        a.publicState();
+        assertEquals(4, published.size());
+    }
+}
@@ -0,0 +1,150 @@
+package com.ecat.core.Device;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.event.DeviceStatusChangedEvent;
+import com.ecat.core.ConfigEntry.ConfigEntry;
+import com.ecat.core.EcatCore;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.NumericAttribute;
+import com.ecat.core.Utils.EcatClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 设备状态增量维护：属性状态转移计数、在线窗口过期、移除/替换属性扣除计数、状态变化事件。
+ */
+public class DeviceBaseStatusTest {
+
+    private EcatClock.ManualClock clock;
+
+    @Before
+    public void setUp() {
+        clock = new EcatClock.ManualClock(1_000_000L);
+        EcatClock.setDefault(clock);
+    }
+
+    @After
+    public void tearDown() {
+        EcatClock.reset();
+    }
+
+    private static DeviceBase device() {
+        ConfigEntry e = new ConfigEntry.Builder()
+                .entryId("ent-s").coordinate("com.ecat:t").uniqueId("sn-s").data(new HashMap<>()).build();
+        return new DeviceBaseIdentityTest.StubDevice(e);
+    }
+
+    private static NumericAttribute attr(DeviceBase d, String id) {
+        NumericAttribute a = new NumericAttribute(id, null, null, null, 1, false, false);
+        d.setAttribute(a);
+        return a;
+    }
+
+    @Test
+    public void worstStatusTrackedIncrementally() {
+        DeviceBase d = device();
+        assertEquals(DeviceStatus.UNKNOWN, d.getDeviceStatus());
+
+        NumericAttribute so2 = attr(d, "so2");
+        NumericAttribute no2 = attr(d, "no2");
+        assertEquals("无数据", DeviceStatus.UNKNOWN, d.getDeviceStatus());
+
+        so2.updateValue(1.0, AttributeStatus.NORMAL);
+        assertEquals(DeviceStatus.NORMAL, d.getDeviceStatus());
+        no2.updateValue(2.0, AttributeStatus.MAINTENANCE);
+        assertEquals(DeviceStatus.MAINTENANCE, d.getDeviceStatus());
+        so2.setStatus(AttributeStatus.ALARM);
+        assertEquals(DeviceStatus.ALARM, d.getDeviceStatus());
+        so2.setStatus(AttributeStatus.SPAN_CALIBRATION);
+        assertEquals("同级 MAINTENANCE 先于 CALIBRATION", DeviceStatus.MAINTENANCE, d.getDeviceStatus());
+        no2.updateValue(2.0, AttributeStatus.NORMAL);
+        assertEquals(DeviceStatus.CALIBRATION, d.getDeviceStatus());
+        so2.setStatus(AttributeStatus.NORMAL);
+        assertEquals(DeviceStatus.NORMAL, d.getDeviceStatus());
+    }
+
+    @Test
+    public void statusLessUpdatesGoStaleAfterOnlineWindow() {
+        DeviceBase d = device();
+        NumericAttribute a = attr(d, "a");
+        a.updateValue(1.0);
+        assertEquals("近期有更新", DeviceStatus.NORMAL, d.getDeviceStatus());
+        clock.advanceMillis(DeviceBase.ONLINE_WINDOW_MS - 1);
+        assertEquals(DeviceStatus.NORMAL, d.getDeviceStatus());
+        clock.advanceMillis(1);
+        assertEquals("过期", DeviceStatus.UNKNOWN, d.getDeviceStatus());
+        a.updateValue(2.0);
+        assertEquals(DeviceStatus.NORMAL, d.getDeviceStatus());
+    }
+
+    @Test
+    public void removedAndReplacedAttributesReleaseTheirStatus() {
+        DeviceBase d = device();
+        NumericAttribute ok = attr(d, "ok");
+        ok.updateValue(1.0, AttributeStatus.NORMAL);
+        NumericAttribute bad = attr(d, "bad");
+        bad.updateValue(1.0, AttributeStatus.ALARM);
+        assertEquals(DeviceStatus.ALARM, d.getDeviceStatus());
+
+        assertSame(bad, d.removeAttribute("bad"));
+        assertEquals(DeviceStatus.NORMAL, d.getDeviceStatus());
+        bad.updateValue(2.0, AttributeStatus.ALARM);
+        assertEquals("已移除属性不再计入", DeviceStatus.NORMAL, d.getDeviceStatus());
+
+        NumericAttribute maint = attr(d, "m");
+        maint.updateValue(1.0, AttributeStatus.MAINTENANCE);
+        assertEquals(DeviceStatus.MAINTENANCE, d.getDeviceStatus());
+        NumericAttribute fresh = attr(d, "m");
+        assertNotSame(maint, fresh);
+        assertEquals("同 id 替换扣除旧属性", DeviceStatus.NORMAL, d.getDeviceStatus());
+        assertNull(d.removeAttribute("missing"));
+    }
+
+    @Test
+    public void statusChangesPublishedOnBus() throws Exception {
+        EcatCore core = mock(EcatCore.class);
+        BusRegistry bus = new BusRegistry();
+        when(core.getBusRegistry()).thenReturn(bus);
+        BlockingQueue<DeviceStatusChangedEvent> events = new LinkedBlockingQueue<>();
+        bus.subscribe(BusTopic.DEVICE_STATUS_CHANGED.getTopicName(),
+                ev -> events.add((DeviceStatusChangedEvent) ev.getPayload()));
+
+        DeviceBase d = device();
+        d.load(core);
+        NumericAttribute a = attr(d, "a");
+        a.updateValue(1.0, AttributeStatus.ALARM);
+
+        DeviceStatusChangedEvent e1 = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(e1);
+        assertEquals(d.getId(), e1.getDeviceId());
+        assertEquals(DeviceStatus.UNKNOWN, e1.getOldStatus());
+        assertEquals(DeviceStatus.ALARM, e1.getNewStatus());
+
+        a.updateValue(2.0, AttributeStatus.EMPTY);
+        DeviceStatusChangedEvent e2 = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(e2);
+        assertEquals(DeviceStatus.NORMAL, e2.getNewStatus());
+
+        // 同状态的值更新不产生事件
+        a.updateValue(3.0);
+        assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+
+        clock.advanceMillis(DeviceBase.ONLINE_WINDOW_MS);
+        assertEquals(DeviceStatus.UNKNOWN, d.refreshDeviceStatus());
+        DeviceStatusChangedEvent e3 = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(e3);
+        assertEquals(DeviceStatus.NORMAL, e3.getOldStatus());
+        assertEquals(DeviceStatus.UNKNOWN, e3.getNewStatus());
+    }
+}
@@ -0,0 +1,178 @@
+package com.ecat.core.Device;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.Bus.event.DeviceStatusChangedEvent;
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.ConfigEntry.ConfigEntry;
+import com.ecat.core.EcatCore;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.NumericAttribute;
+import com.ecat.core.Utils.EcatClock;
+import com.ecat.core.Utils.HashedTimingWheel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 数据过期与通讯中断：属性超时转 OFFLINE 并在新数据到来时恢复，设备超时转 OFFLINE 并发布状态事件，YAML 配置套用。
+ */
+public class DeviceStalenessTest {
+
+    private EcatClock.ManualClock clock;
+    private HashedTimingWheel wheel;
+
+    @Before
+    public void setUp() {
+        clock = new EcatClock.ManualClock(1_000_000L);
+        EcatClock.setDefault(clock);
+        wheel = HashedTimingWheel.manual(100, 64);
+        HashedTimingWheel.setDefault(wheel);
+    }
+
+    @After
+    public void tearDown() {
+        HashedTimingWheel.reset();
+        wheel.close();
+        EcatClock.reset();
+    }
+
+    private void advance(long ms) {
+        clock.advanceMillis(ms);
+        wheel.advanceTo(clock.currentTimeMillis());
+    }
+
+    private static DeviceBase device(Map<String, Object> data) {
+        ConfigEntry e = new ConfigEntry.Builder()
+                .entryId("ent-st").coordinate("com.ecat:t").uniqueId("sn-st").data(data).build();
+        return new DeviceBaseIdentityTest.StubDevice(e);
+    }
+
+    private static NumericAttribute attr(DeviceBase d, String id) {
+        NumericAttribute a = new NumericAttribute(id, null, null, null, 1, false, false);
+        d.setAttribute(a);
+        return a;
+    }
+
+    @Test
+    public void attributeGoesStaleAndRecovers() {
+        DeviceBase d = device(new HashMap<>());
+        NumericAttribute a = attr(d, "so2");
+        a.setStaleTimeout(1_000);
+        a.updateValue(1.0, AttributeStatus.ALARM);
+
+        advance(600);
+        a.updateValue(2.0);
+        advance(600);
+        assertFalse("期间有新数据，惰性顺延", a.isStale());
+        assertEquals(AttributeStatus.ALARM, a.getState().getStatus());
+
+        advance(500);
+        assertTrue(a.isStale());
+        assertEquals(AttributeStatus.OFFLINE, a.getState().getStatus());
+        assertEquals(EventContext.Source.SYSTEM, a.getState().getContext().getSource());
+        assertEquals("过期属性不再计入设备聚合", DeviceStatus.NORMAL, d.getDeviceStatus());
+
+        a.updateValue(3.0);
+        assertFalse(a.isStale());
+        assertEquals("恢复过期前状态", AttributeStatus.ALARM, a.getState().getStatus());
+        assertEquals(DeviceStatus.ALARM, d.getDeviceStatus());
+        assertEquals(EventContext.Source.DEVICE_POLL, a.getState().getContext().getSource());
+
+        advance(1_100);
+        assertTrue(a.isStale());
+        a.updateValue(4.0, AttributeStatus.NORMAL);
+        assertEquals("显式状态优先", AttributeStatus.NORMAL, a.getState().getStatus());
+
+        a.setStaleTimeout(0);
+        advance(5_000);
+        assertFalse(a.isStale());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void deviceCommLossFromConfig() {
+        Map<String, Object> staleness = new HashMap<>();
+        staleness.put("timeout_ms", 5_000);
+        staleness.put("device_timeout_ms", "2000");
+        Map<String, Object> pm25 = new HashMap<>();
+        pm25.put("timeout_ms", 10_000L);
+        Map<String, Object> attrs = new HashMap<>();
+        attrs.put("pm25", pm25);
+        staleness.put("attrs", attrs);
+        Map<String, Object> data = new HashMap<>();
+        data.put(DeviceBase.STALENESS_KEY, staleness);
+
+        DeviceBase d = device(data);
+        NumericAttribute so2 = attr(d, "so2");
+        NumericAttribute pm = attr(d, "pm25");
+        assertEquals(2_000, d.getCommLossTimeout());
+        assertEquals(5_000, so2.getStaleTimeout());
+        assertEquals(10_000, pm.getStaleTimeout());
+
+        so2.updateValue(1.0, AttributeStatus.NORMAL);
+        advance(1_500);
+        pm.updateValue(1.0, AttributeStatus.NORMAL);
+        advance(1_500);
+        assertFalse("任一属性有新数据即在线", d.isCommLost());
+        assertEquals(DeviceStatus.NORMAL, d.getDeviceStatus());
+
+        advance(600);
+        assertTrue(d.isCommLost());
+        assertEquals(DeviceStatus.OFFLINE, d.getDeviceStatus());
+
+        so2.updateValue(2.0);
+        assertFalse(d.isCommLost());
+        assertEquals(DeviceStatus.NORMAL, d.getDeviceStatus());
+    }
+
+    @Test
+    public void staleAndCommLossPublished() throws Exception {
+        EcatCore core = mock(EcatCore.class);
+        BusRegistry bus = new BusRegistry();
+        when(core.getBusRegistry()).thenReturn(bus);
+        BlockingQueue<DeviceDataChangedEvent> data = new LinkedBlockingQueue<>();
+        BlockingQueue<DeviceStatusChangedEvent> status = new LinkedBlockingQueue<>();
+        bus.subscribe(BusTopic.DEVICE_DATA_UPDATE.getTopicName(),
+                ev -> data.add((DeviceDataChangedEvent) ev.getPayload()));
+        bus.subscribe(BusTopic.DEVICE_STATUS_CHANGED.getTopicName(),
+                ev -> status.add((DeviceStatusChangedEvent) ev.getPayload()));
+
+        DeviceBase d = device(new HashMap<>());
+        d.load(core);
+        d.setCommLossTimeout(3_000);
+        NumericAttribute a = attr(d, "a");
+        a.setStaleTimeout(1_000);
+        a.updateValue(1.0, AttributeStatus.NORMAL);
+        assertTrue(a.publicState());
+        assertEquals(AttributeStatus.NORMAL, data.poll(5, TimeUnit.SECONDS).getNewState().getStatus());
+        assertEquals(DeviceStatus.NORMAL, status.poll(5, TimeUnit.SECONDS).getNewStatus());
+
+        advance(1_100);
+        DeviceDataChangedEvent stale = data.poll(5, TimeUnit.SECONDS);
+        assertNotNull("过期自动发布", stale);
+        assertEquals(AttributeStatus.OFFLINE, stale.getNewState().getStatus());
+        assertEquals(AttributeStatus.NORMAL, stale.getOldState().getStatus());
+
+        advance(2_000);
+        assertTrue(d.isCommLost());
+        DeviceStatusChangedEvent lost = status.poll(5, TimeUnit.SECONDS);
+        assertNotNull(lost);
+        assertEquals(DeviceStatus.NORMAL, lost.getOldStatus());
+        assertEquals(DeviceStatus.OFFLINE, lost.getNewStatus());
+
+        a.updateValue(2.0);
+        assertEquals("新数据恢复在线", DeviceStatus.NORMAL, status.poll(5, TimeUnit.SECONDS).getNewStatus());
+    }
+}
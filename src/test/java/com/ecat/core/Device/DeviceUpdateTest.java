@@ -0,0 +1,142 @@
+package com.ecat.core.Device;
+
+import com.ecat.core.Bus.BatchEventSubscriber;
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceDataBatchEvent;
+import com.ecat.core.Bus.event.DeviceDataChangedEvent;
+import com.ecat.core.ConfigEntry.ConfigEntry;
+import com.ecat.core.EcatCore;
+import com.ecat.core.State.AttributeStatus;
+import com.ecat.core.State.DoubleAttribute;
+import com.ecat.core.State.NumericAttribute;
+import com.ecat.core.State.TextAttribute;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * DeviceBase.beginUpdate 更新帧：同一时间戳、一个批次发布、close 丢弃、属性归属校验。
+ */
+public class DeviceUpdateTest {
+
+    private DeviceBaseIdentityTest.StubDevice device;
+    private NumericAttribute so2;
+    private DoubleAttribute no2;
+    private TextAttribute mode;
+    private final List<DeviceDataBatchEvent> batches = new ArrayList<>();
+    private final List<String> single = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        BusRegistry registry = new BusRegistry();
+        EcatCore core = mock(EcatCore.class);
+        when(core.getBusRegistry()).thenReturn(registry);
+        device = newDevice("sn-1");
+        device.load(core);
+        so2 = new NumericAttribute("so2", null, null, null, 1, false, false);
+        no2 = new DoubleAttribute("no2", null, null, null, 1, false, false);
+        mode = new TextAttribute("mode", null, null, null, false);
+        device.setAttribute(so2);
+        device.setAttribute(no2);
+        device.setAttribute(mode);
+        registry.subscribe("device.data.update", new BatchEventSubscriber() {
+            @Override
+            public void handleBatch(BusEvent<DeviceDataBatchEvent> batch) {
+                batches.add(batch.getPayload());
+            }
+
+            @Override
+            public void handleEvent(BusEvent<?> event) {
+                single.add(event.getType());
+            }
+        });
+    }
+
+    private static DeviceBaseIdentityTest.StubDevice newDevice(String sn) {
+        ConfigEntry e = new ConfigEntry.Builder()
+                .entryId("ent-" + sn).coordinate("com.ecat:t").uniqueId(sn).build();
+        return new DeviceBaseIdentityTest.StubDevice(e);
+    }
+
+    @Test
+    public void commitAppliesFrameUnderOneTimestampAndPublishesOneBatch() {
+        Instant t = Instant.ofEpochMilli(1700000000000L);
+        try (DeviceUpdate frame = device.beginUpdate()) {
+            frame.at(t)
+                 .set(so2, 1.5, AttributeStatus.NORMAL)
+                 .set(no2, 2.5, AttributeStatus.NORMAL)
+                 .set(mode, "auto", AttributeStatus.NORMAL);
+            assertEquals(3, frame.size());
+            assertNull("commit 前不应用", so2.getState());
+            assertTrue(frame.commit());
+        }
+
+        assertEquals(1, batches.size());
+        assertTrue(single.isEmpty());
+        DeviceDataBatchEvent batch = batches.get(0);
+        assertEquals(3, batch.size());
+        for (DeviceDataChangedEvent c : batch.getChanges()) {
+            assertEquals(t, c.getNewState().getLastUpdated());
+            assertEquals(t, c.getNewState().getLastChanged());
+        }
+        assertEquals(2.5, no2.getState().getDoubleValue(), 0.0);
+        assertTrue(no2.getState().isDoubleValued());
+        assertEquals(t, so2.getUpdateTime());
+    }
+
+    @Test
+    public void statusOnlyAndRepeatedAttributePublishOnce() {
+        try (DeviceUpdate frame = device.beginUpdate()) {
+            frame.set(so2, 1.0, AttributeStatus.NORMAL)
+                 .set(so2, 2.0, null)
+                 .status(no2, AttributeStatus.MALFUNCTION);
+            assertTrue(frame.commit());
+        }
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals(Double.valueOf(2.0), so2.getState().getValue());
+        assertEquals(AttributeStatus.NORMAL, so2.getState().getStatus());
+        assertEquals(AttributeStatus.MALFUNCTION, no2.getState().getStatus());
+    }
+
+    @Test
+    public void closeWithoutCommitDiscards() {
+        try (DeviceUpdate frame = device.beginUpdate()) {
+            frame.set(so2, 9.0, AttributeStatus.NORMAL);
+        }
+        assertNull(so2.getState());
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void frameTimestampDoesNotLeakOutsideCommit() {
+        Instant t = Instant.ofEpochMilli(1000L);
+        DeviceUpdate frame = device.beginUpdate().at(t).set(so2, 1.0, AttributeStatus.NORMAL);
+        frame.commit();
+        so2.updateValue(2.0);
+        assertTrue(so2.getUpdateTime().isAfter(t));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void foreignAttributeRejected() {
+        DeviceBase other = newDevice("sn-2");
+        NumericAttribute foreign = new NumericAttribute("x", null, null, null, 1, false, false);
+        other.setAttribute(foreign);
+        device.beginUpdate().set(foreign, 1.0, AttributeStatus.NORMAL);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void committedFrameCannotBeReused() {
+        DeviceUpdate frame = device.beginUpdate();
+        frame.commit();
+        frame.set(so2, 1.0, AttributeStatus.NORMAL);
+    }
+}
@@ -398,4 +398,19 @@ public class ILogicAttributeTest {
         assertTrue(attr.canValueChange());
         assertEquals(1, attr.getDisplayPrecision());
     }
+
+    @Test
+    public void testInitFromDefinitionIgnoresPolicyOnNonAttributeBase() {
+        TestLogicAttribute attr = new TestLogicAttribute();
+
+        LogicAttributeDefine def = new LogicAttributeDefine(
+                "so2", AttributeClass.VALUE, null, null, 1, false,
+                com.ecat.core.State.NumericAttribute.class, null, true, true, false, null,
+                com.ecat.core.State.PublishPolicy.ON_CHANGE);
+
+        attr.initFromDefinition(def);
+
+        assertEquals("so2", attr.getAttributeID());
+        assertSame(com.ecat.core.State.PublishPolicy.ALWAYS, attr.getPublishPolicy());
+    }
 }
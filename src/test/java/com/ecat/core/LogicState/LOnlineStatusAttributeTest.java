@@ -22,6 +22,9 @@ import com.ecat.core.State.AttributeClass;
 import com.ecat.core.State.AttributeStatus;
 import com.ecat.core.State.AttributeType;
 import com.ecat.core.State.UnitInfo;
+import com.ecat.core.Utils.EcatClock;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
 import java.time.Instant;
@@ -36,13 +39,24 @@ import static org.junit.Assert.*;
  */
 public class LOnlineStatusAttributeTest {
 
+    // 在线判定取共享时钟；固定时钟使 60 秒边界用例确定
+    @Before
+    public void setUp() {
+        EcatClock.setDefault(new EcatClock.ManualClock(Instant.parse("2026-06-01T00:00:00Z")));
+    }
+
+    @After
+    public void tearDown() {
+        EcatClock.reset();
+    }
+
     // ========== 核心逻辑测试 ==========
 
     @Test
     public void onlineWhenUpdatedRecently() {
         TestPhyAttr phyAttr = createMockAttr("so2", AttributeClass.SO2);
         phyAttr.setTestStatus(AttributeStatus.NORMAL);
-        phyAttr.setTestUpdateTime(Instant.now());
+        phyAttr.setTestUpdateTime(EcatClock.now());
         bindDevice(phyAttr);
         phyAttr.updateValue(null, AttributeStatus.NORMAL);
 
@@ -61,7 +75,7 @@ public class LOnlineStatusAttributeTest {
     public void offlineWhenUpdatedLongAgo() {
         TestPhyAttr phyAttr = createMockAttr("so2", AttributeClass.SO2);
         phyAttr.setTestStatus(AttributeStatus.NORMAL);
-        phyAttr.setTestUpdateTime(Instant.now().minusSeconds(120));
+        phyAttr.setTestUpdateTime(EcatClock.now().minusSeconds(120));
         bindDevice(phyAttr);
         phyAttr.updateValue(null, AttributeStatus.NORMAL);
 
@@ -117,7 +131,7 @@ public class LOnlineStatusAttributeTest {
     public void onlineAtExactly59Seconds() {
         TestPhyAttr phyAttr = createMockAttr("so2", AttributeClass.SO2);
         phyAttr.setTestStatus(AttributeStatus.NORMAL);
-        phyAttr.setTestUpdateTime(Instant.now().minusSeconds(59));
+        phyAttr.setTestUpdateTime(EcatClock.now().minusSeconds(59));
         bindDevice(phyAttr);
         phyAttr.updateValue(null, AttributeStatus.NORMAL);
 
@@ -133,7 +147,7 @@ public class LOnlineStatusAttributeTest {
     public void offlineAtExactly60Seconds() {
         TestPhyAttr phyAttr = createMockAttr("so2", AttributeClass.SO2);
         phyAttr.setTestStatus(AttributeStatus.NORMAL);
-        phyAttr.setTestUpdateTime(Instant.now().minusSeconds(60));
+        phyAttr.setTestUpdateTime(EcatClock.now().minusSeconds(60));
         bindDevice(phyAttr);
         phyAttr.updateValue(null, AttributeStatus.NORMAL);
 
@@ -149,7 +163,7 @@ public class LOnlineStatusAttributeTest {
     public void transitionFromOnlineToOffline() {
         TestPhyAttr phyAttr = createMockAttr("so2", AttributeClass.SO2);
         phyAttr.setTestStatus(AttributeStatus.NORMAL);
-        phyAttr.setTestUpdateTime(Instant.now());
+        phyAttr.setTestUpdateTime(EcatClock.now());
         bindDevice(phyAttr);
         phyAttr.updateValue(null, AttributeStatus.NORMAL);
 
@@ -160,7 +174,7 @@ public class LOnlineStatusAttributeTest {
         assertEquals("online", logicAttr.getState().getValue());
 
         // 模拟设备断开，更新时间设为 2 分钟前
-        phyAttr.setTestUpdateTime(Instant.now().minusSeconds(120));
+        phyAttr.setTestUpdateTime(EcatClock.now().minusSeconds(120));
         phyAttr.updateValue(null, AttributeStatus.NORMAL);
         logicAttr.updateBindAttrValue(phyAttr.getState());
         assertEquals("offline", logicAttr.getState().getValue());
@@ -170,7 +184,7 @@ public class LOnlineStatusAttributeTest {
     public void transitionFromOfflineToOnline() {
         TestPhyAttr phyAttr = createMockAttr("so2", AttributeClass.SO2);
         phyAttr.setTestStatus(AttributeStatus.NORMAL);
-        phyAttr.setTestUpdateTime(Instant.now().minusSeconds(120));
+        phyAttr.setTestUpdateTime(EcatClock.now().minusSeconds(120));
         bindDevice(phyAttr);
         phyAttr.updateValue(null, AttributeStatus.NORMAL);
 
@@ -181,7 +195,7 @@ public class LOnlineStatusAttributeTest {
         assertEquals("offline", logicAttr.getState().getValue());
 
         // 模拟设备恢复，更新时间设为现在
-        phyAttr.setTestUpdateTime(Instant.now());
+        phyAttr.setTestUpdateTime(EcatClock.now());
         phyAttr.updateValue(null, AttributeStatus.NORMAL);
         logicAttr.updateBindAttrValue(phyAttr.getState());
         assertEquals("online", logicAttr.getState().getValue());
@@ -191,7 +205,7 @@ public class LOnlineStatusAttributeTest {
     public void statusPropagatedCorrectly() {
         TestPhyAttr phyAttr = createMockAttr("so2", AttributeClass.SO2);
         phyAttr.setTestStatus(AttributeStatus.MAINTENANCE);
-        phyAttr.setTestUpdateTime(Instant.now());
+        phyAttr.setTestUpdateTime(EcatClock.now());
         bindDevice(phyAttr);
         phyAttr.updateValue(null, AttributeStatus.MAINTENANCE);
 
@@ -208,7 +222,7 @@ public class LOnlineStatusAttributeTest {
     public void onlineWithAlarmStatus() {
         TestPhyAttr phyAttr = createMockAttr("so2", AttributeClass.SO2);
         phyAttr.setTestStatus(AttributeStatus.ALARM);
-        phyAttr.setTestUpdateTime(Instant.now());
+        phyAttr.setTestUpdateTime(EcatClock.now());
         bindDevice(phyAttr);
         phyAttr.updateValue(null, AttributeStatus.ALARM);
 
@@ -286,7 +300,7 @@ public class LOnlineStatusAttributeTest {
         void setTestUpdateTime(Instant time) { this.testUpdateTime = time; }
 
         /**
-         * 覆盖基类 setValueUpdated：用测试桩的 testUpdateTime 替代 Instant.now()，
+         * 覆盖基类 setValueUpdated：用测试桩的 testUpdateTime 替代共享时钟，
          * 使 updateValue → buildState 构建的 AttrState.lastUpdated 由测试控制
          * （包括 null——模拟设备从未上报过更新时间）。
          */
@@ -6,12 +6,15 @@ import org.junit.Test;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
 /**
- * AttrState 不可变快照的单测——验证字段持有、null 校验、集合防御性拷贝。
+ * AttrState 不可变快照的单测——验证字段持有、null 校验、集合防御性拷贝、displayValue 延迟计算只算一次。
  */
 public class AttrStateTest {
 
@@ -70,4 +73,73 @@ public class AttrStateTest {
             fail("快照内集合应为不可变");
         } catch (UnsupportedOperationException ok) { }
     }
+
+    @Test
+    public void displayValueSupplierIsCalledOnceAndMemoized() throws InterruptedException {
+        final AtomicInteger calls = new AtomicInteger();
+        final AttrState<?> s = AttrState.builder()
+                .deviceId("d").attrId("a").value(1.5)
+                .status(AttributeStatus.NORMAL).context(ctx())
+                .displayValueSupplier(() -> {
+                    calls.incrementAndGet();
+                    return "1.50";
+                })
+                .build();
+        assertEquals("构建时不计算", 0, calls.get());
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<String> seen = Collections.synchronizedList(new ArrayList<String>());
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                seen.add(s.getDisplayValue());
+            });
+            readers[i].start();
+        }
+        start.countDown();
+        for (Thread t : readers) {
+            t.join();
+        }
+        assertEquals(Arrays.asList("1.50", "1.50", "1.50", "1.50"), seen);
+        int afterRace = calls.get();
+        assertTrue(afterRace >= 1 && afterRace <= readers.length);
+        assertEquals("1.50", s.getDisplayValue());
+        assertEquals("记住后不再计算", afterRace, calls.get());
+    }
+
+    @Test
+    public void explicitDisplayValueOverridesSupplier() {
+        AttrState<?> s = AttrState.builder()
+                .deviceId("d").attrId("a")
+                .status(AttributeStatus.NORMAL).context(ctx())
+                .displayValueSupplier(() -> "lazy")
+                .displayValue("eager")
+                .build();
+        assertEquals("eager", s.getDisplayValue());
+    }
+
+    @Test
+    public void doubleValueIsHeldUnboxedAndBoxedOnRead() {
+        AttrState<Double> s = AttrState.<Double>builder()
+                .deviceId("d").attrId("a").status(AttributeStatus.NORMAL).context(ctx())
+                .valueType(Double.class).doubleValue(1.5)
+                .nativeUnit(com.ecat.core.State.Unit.AirVolumeUnit.PPM).displayPrecision(1)
+                .build();
+        assertTrue(s.isDoubleValued());
+        assertEquals(1.5, s.getDoubleValue(), 0.0);
+        assertEquals(Double.valueOf(1.5), s.getValue());
+        assertSame(s.getValue(), s.getValue());
+        assertEquals("1500.0", s.getDisplayValue(com.ecat.core.State.Unit.AirVolumeUnit.PPB));
+
+        AttrState<?> boxed = AttrState.builder()
+                .deviceId("d").attrId("a").status(AttributeStatus.NORMAL).context(ctx())
+                .doubleValue(9.0).value(2).build();
+        assertFalse("后设的 value 覆盖 doubleValue", boxed.isDoubleValued());
+        assertEquals(2.0, boxed.getDoubleValue(), 0.0);
+    }
 }
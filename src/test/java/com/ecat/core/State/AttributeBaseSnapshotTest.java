@@ -1,21 +1,26 @@
 package com.ecat.core.State;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Random;
+
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import com.ecat.core.Bus.event.EventContext;
 import com.ecat.core.Device.DeviceBase;
 import com.ecat.core.I18n.I18nKeyPath;
+import com.ecat.core.State.Unit.AirVolumeUnit;
+import com.ecat.core.Utils.EcatClock;
 import com.ecat.core.Utils.DynamicConfig.ConfigDefinition;
 
 /**
  * AttributeBase 不可变快照单测——验证 updateValue 原子构建 AttrState、context 溯源、
- * lastChanged 仅值变化推进、未绑定设备不抛异常。
+ * lastChanged 仅值变化推进、未绑定设备不抛异常、数值显示值延迟格式化与立即计算一致。
  */
 public class AttributeBaseSnapshotTest {
 
@@ -38,6 +43,7 @@ public class AttributeBaseSnapshotTest {
 
     @Mock private DeviceBase mockDevice;
     private MinimalIntAttribute attr;
+    private EcatClock.ManualClock clock;
 
     @Before
     public void setUp() {
@@ -45,6 +51,13 @@ public class AttributeBaseSnapshotTest {
         when(mockDevice.getId()).thenReturn("dev1");
         attr = new MinimalIntAttribute("attr1");
         attr.setDevice(mockDevice);
+        clock = new EcatClock.ManualClock(1_000_000L);
+        EcatClock.setDefault(clock);
+    }
+
+    @After
+    public void tearDown() {
+        EcatClock.reset();
     }
 
     @Test
@@ -71,18 +84,18 @@ public class AttributeBaseSnapshotTest {
     }
 
     @Test
-    public void lastChangedAdvancesOnlyOnRealChange() throws Exception {
+    public void lastChangedAdvancesOnlyOnRealChange() {
         // 值变化时 lastChanged 推进；重复刷新相同值不推进
         attr.updateValue(5);
         long c1 = attr.getLastChanged().toEpochMilli();
         assertTrue("首次更新应推进 lastChanged", c1 > 0);
 
-        Thread.sleep(2);
+        clock.advanceMillis(2);
         attr.updateValue(5); // 相同值，不变化
         long c2 = attr.getLastChanged().toEpochMilli();
         assertEquals("相同值刷新不应推进 lastChanged", c1, c2);
 
-        Thread.sleep(2);
+        clock.advanceMillis(2);
         attr.updateValue(6); // 变化
         long c3 = attr.getLastChanged().toEpochMilli();
         assertTrue("值变化应推进 lastChanged", c3 > c2);
@@ -127,4 +140,47 @@ public class AttributeBaseSnapshotTest {
         assertNotNull("setStatus 后应有 midState 快照", snap);
         assertNotNull("纯状态变更的 midState.lastUpdated 必须非 null（根因修复）", snap.getLastUpdated());
     }
+
+    @Test
+    public void deferredNumericDisplayValueMatchesEagerFormatting() {
+        // 数值属性的 displayValue 延迟到首次读取才格式化：结果须与构建时刻的 getDisplayValue() 逐字相同
+        NumericAttribute n = new NumericAttribute("so2", null, AirVolumeUnit.PPB, AirVolumeUnit.PPM, 3, true, true);
+        n.setDevice(mockDevice);
+        Random rnd = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            double v = (rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(8));
+            n.changeDisplayPrecision(rnd.nextInt(5));
+            n.updateValue(v);
+            assertEquals(n.getDisplayValue(), n.getState().getDisplayValue());
+        }
+    }
+
+    @Test
+    public void deferredDisplayValueUsesSnapshotNotLiveAttribute() {
+        // 快照后改值、改显示单位与精度，不影响已构建快照的显示值
+        NumericAttribute n = new NumericAttribute("so2", null, AirVolumeUnit.PPB, AirVolumeUnit.PPB, 1, true, true);
+        n.setDevice(mockDevice);
+        n.updateValue(1234.56);
+        AttrState<?> snap = n.getState();
+        n.changeDisplayPrecision(4);
+        n.updateValue(1.0);
+        assertEquals("1234.6", snap.getDisplayValue());
+        assertEquals("1.0000", n.getState().getDisplayValue());
+    }
+
+    @Test
+    public void subclassOverridingDisplayValueStaysEager() {
+        // 子类改写了 getDisplayValue(UnitInfo)：不继承父类的延迟算式，仍取改写后的结果
+        NumericAttribute custom = new NumericAttribute("x", null, null, null, 2, false, true) {
+            @Override
+            public String getDisplayValue(UnitInfo toUnit) {
+                return value == null ? null : "~" + value.intValue();
+            }
+        };
+        custom.setDevice(mockDevice);
+        custom.updateValue(3.7);
+        AttrState<?> snap = custom.getState();
+        custom.updateValue(9.0);
+        assertEquals("~3", snap.getDisplayValue());
+    }
 }
@@ -0,0 +1,155 @@
+package com.ecat.core.State;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.Utils.EcatClock;
+
+/**
+ * AttributeHistory 单测——环形覆盖、最近 N 个、时间范围、网格采样保持、时间跨度淘汰、时间倒退忽略与配置解析。
+ */
+public class AttributeHistoryTest {
+
+    private EcatClock.ManualClock clock;
+
+    @Before
+    public void setUp() {
+        clock = new EcatClock.ManualClock(10_000L);
+        EcatClock.setDefault(clock);
+    }
+
+    @After
+    public void tearDown() {
+        EcatClock.reset();
+    }
+
+    @Test
+    public void ringOverwritesOldestAndLatestIsAscending() {
+        AttributeHistory h = new AttributeHistory(3, 0);
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(h.record(i * 1000L, i, AttributeStatus.NORMAL));
+        }
+        assertEquals(3, h.size());
+        AttributeHistory.Series all = h.latest(10);
+        assertArrayEquals(new long[] {3000, 4000, 5000}, all.getTimes());
+        assertArrayEquals(new double[] {3, 4, 5}, all.getValues(), 0.0);
+
+        AttributeHistory.Series last2 = h.latest(2);
+        assertEquals(2, last2.size());
+        assertEquals(4000, last2.getTime(0));
+        assertEquals(5.0, last2.getValue(1), 0.0);
+        assertTrue(h.latest(0).isEmpty());
+    }
+
+    @Test
+    public void rangeIsInclusiveAcrossWrap() {
+        AttributeHistory h = new AttributeHistory(4, 0);
+        for (int i = 1; i <= 6; i++) {
+            h.record(i * 1000L, i * 10, AttributeStatus.NORMAL);
+        }
+        AttributeHistory.Series r = h.range(4000, 5000);
+        assertArrayEquals(new long[] {4000, 5000}, r.getTimes());
+        assertArrayEquals(new double[] {40, 50}, r.getValues(), 0.0);
+        assertEquals(4, h.range(0, Long.MAX_VALUE).size());
+        assertTrue(h.range(7000, 8000).isEmpty());
+    }
+
+    @Test
+    public void sampleHoldsLastValueOnAlignedGrid() {
+        AttributeHistory h = new AttributeHistory(10, 0);
+        h.record(1500, 1.0, AttributeStatus.NORMAL);
+        h.record(3200, 2.0, AttributeStatus.ALARM);
+
+        AttributeHistory.Series s = h.sample(1001, 4000, 1000);
+        assertArrayEquals("网格对齐到 step 整数倍", new long[] {2000, 3000, 4000}, s.getTimes());
+        assertArrayEquals(new double[] {1.0, 1.0, 2.0}, s.getValues(), 0.0);
+        assertEquals(AttributeStatus.ALARM, s.getStatus(2));
+
+        AttributeHistory.Series before = h.sample(0, 1000, 1000);
+        assertTrue(Double.isNaN(before.getValue(0)));
+        assertEquals(AttributeStatus.EMPTY, before.getStatus(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sampleRejectsTooManyPoints() {
+        new AttributeHistory(1, 0).sample(0, AttributeHistory.MAX_SAMPLE_POINTS, 1);
+    }
+
+    @Test
+    public void spanEvictsRelativeToClockOnQuery() {
+        AttributeHistory h = new AttributeHistory(100, 5000);
+        h.record(6000, 1, AttributeStatus.NORMAL);
+        h.record(9000, 2, AttributeStatus.NORMAL);
+        assertEquals(2, h.size());
+
+        clock.set(Instant.ofEpochMilli(12_000));
+        assertEquals("早于 now-span 的样本淘汰", 1, h.size());
+        h.record(16_000, 3, AttributeStatus.NORMAL);
+        assertArrayEquals(new long[] {16_000}, h.latest(10).getTimes());
+    }
+
+    @Test
+    public void outOfOrderSampleIgnored() {
+        AttributeHistory h = new AttributeHistory(5, 0);
+        h.record(2000, 1, AttributeStatus.NORMAL);
+        assertFalse(h.record(1000, 2, AttributeStatus.NORMAL));
+        assertTrue("同一时刻允许", h.record(2000, 3, AttributeStatus.NORMAL));
+        assertEquals(2, h.size());
+    }
+
+    private static <T> AttrState.Builder<T> state(long timeMs) {
+        return AttrState.<T>builder().deviceId("dev1").attrId("a1").status(AttributeStatus.NORMAL)
+                .context(EventContext.root(EventContext.Source.DEVICE_POLL, null))
+                .lastUpdated(Instant.ofEpochMilli(timeMs));
+    }
+
+    @Test
+    public void recordStateMapsBooleanAndNonNumeric() {
+        AttributeHistory h = new AttributeHistory(5, 0);
+        h.record(AttributeHistoryTest.<Boolean>state(1000).value(true).build());
+        h.record(AttributeHistoryTest.<String>state(2000).value("x").build());
+        h.record(AttributeHistoryTest.<Double>state(3000).doubleValue(2.5).build());
+        AttributeHistory.Series s = h.latest(3);
+        assertEquals(1.0, s.getValue(0), 0.0);
+        assertTrue(Double.isNaN(s.getValue(1)));
+        assertEquals(2.5, s.getValue(2), 0.0);
+    }
+
+    @Test
+    public void memoryIsFixedPerDepth() {
+        AttributeHistory h = new AttributeHistory(1000, 0);
+        long before = h.memoryBytes();
+        assertTrue(before >= 1000L * AttributeHistory.BYTES_PER_SAMPLE);
+        for (int i = 0; i < 5000; i++) {
+            h.record(i, i, AttributeStatus.NORMAL);
+        }
+        assertEquals(before, h.memoryBytes());
+    }
+
+    @Test
+    public void fromConfig() {
+        assertNull(AttributeHistory.fromConfig(null));
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put("depth", 60);
+        cfg.put("span_ms", "60000");
+        AttributeHistory h = AttributeHistory.fromConfig(cfg);
+        assertEquals(60, h.getDepth());
+        assertEquals(60000L, h.getSpanMs());
+
+        cfg.remove("depth");
+        try {
+            AttributeHistory.fromConfig(cfg);
+            fail("缺少 depth 应报错");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+}
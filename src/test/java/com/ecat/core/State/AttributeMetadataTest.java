@@ -0,0 +1,57 @@
+package com.ecat.core.State;
+
+import com.ecat.core.I18n.I18nHelper;
+import com.ecat.core.I18n.I18nProxy;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNotNull;
+
+/**
+ * 属性元数据享元：按类共享类型/日志器/i18n 代理，名称路径跨实例驻留，不同 ID 与不同前缀互不混淆。
+ */
+public class AttributeMetadataTest {
+
+    private static NumericAttribute numeric(String id) {
+        return new NumericAttribute(id, null, null, null, 1, false, false);
+    }
+
+    @Test
+    public void sameClassSharesMetadata() {
+        NumericAttribute a = numeric("SO2");
+        NumericAttribute b = numeric("so2");
+
+        assertSame(AttributeMetadata.of(NumericAttribute.class), AttributeMetadata.of(NumericAttribute.class));
+        assertSame("日志器按类共享", a.log, b.log);
+        assertSame(a.i18n, b.i18n);
+        assertSame("相同路径共享实例", a.i18nDispNamePath, b.i18nDispNamePath);
+        assertEquals("state.numeric_attr.so2", a.i18nDispNamePath.getFullPath());
+        assertEquals(AttrValueType.fromJDKClass(Double.class), a.getValueType());
+    }
+
+    @Test
+    public void differentIdsAndClassesStayDistinct() {
+        NumericAttribute so2 = numeric("so2");
+        NumericAttribute no2 = numeric("no2");
+        assertNotSame(so2.i18nDispNamePath, no2.i18nDispNamePath);
+        assertEquals("state.numeric_attr.no2", no2.i18nDispNamePath.getFullPath());
+
+        BinaryAttribute sw = new BinaryAttribute("so2", AttributeClass.STATUS, false);
+        assertEquals(Boolean.class, AttributeMetadata.of(BinaryAttribute.class).getTargetType());
+        assertEquals("state.binary_attr.so2", sw.i18nDispNamePath.getFullPath());
+        assertNotSame(so2.log, sw.log);
+    }
+
+    @Test
+    public void proxyFollowsI18nHelperCache() {
+        I18nProxy first = AttributeMetadata.i18nProxyOf(NumericAttribute.class);
+        assumeNotNull(first);
+        String coordinate = first.getCoordinate();
+        assertSame(first, AttributeMetadata.i18nProxyOf(NumericAttribute.class));
+
+        I18nHelper.removeCachedProxy(coordinate);
+        I18nProxy second = AttributeMetadata.i18nProxyOf(NumericAttribute.class);
+        assertNotSame("失效后不再返回已注销的代理", first, second);
+        assertSame(second, I18nHelper.getCachedProxies().get(coordinate));
+    }
+}
@@ -0,0 +1,165 @@
+package com.ecat.core.State;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.Device.DeviceBase;
+import com.ecat.core.State.Unit.AirVolumeUnit;
+import com.ecat.core.Utils.EcatClock;
+
+/**
+ * DoubleAttribute 单测——验证原始 double 更新路径、变化判断、与 NumericAttribute 显示值逐字一致、
+ * AttrState 原始值与装箱兼容、单位换算与持久化恢复。
+ */
+public class DoubleAttributeTest {
+
+    @Mock private DeviceBase mockDevice;
+    private DoubleAttribute attr;
+    private EcatClock.ManualClock clock;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mockDevice.getId()).thenReturn("dev1");
+        attr = new DoubleAttribute("so2", null, AirVolumeUnit.PPB, AirVolumeUnit.PPM, 3, true, true);
+        attr.setDevice(mockDevice);
+        clock = new EcatClock.ManualClock(1_000_000L);
+        EcatClock.setDefault(clock);
+    }
+
+    @After
+    public void tearDown() {
+        EcatClock.reset();
+    }
+
+    @Test
+    public void primitiveUpdateBuildsDoubleValuedState() {
+        attr.updateValue(12.5, AttributeStatus.NORMAL);
+        AttrState<Double> s = attr.getState();
+        assertTrue(s.isDoubleValued());
+        assertEquals(12.5, s.getDoubleValue(), 0.0);
+        assertEquals(Double.class, s.getValueType());
+        assertEquals(AttributeStatus.NORMAL, s.getStatus());
+        // 兼容读取：getValue() 装箱为 Double，且多次读取为同一对象
+        Object boxed = s.getValue();
+        assertEquals(Double.valueOf(12.5), boxed);
+        assertSame(boxed, s.getValue());
+    }
+
+    @Test
+    public void lastChangedAdvancesOnlyOnRealChange() {
+        attr.updateValue(1.0);
+        java.time.Instant first = attr.getLastChanged();
+        assertNotNull(first);
+        clock.advanceMillis(5);
+        attr.updateValue(1.0);
+        assertEquals(first, attr.getLastChanged());
+        attr.updateValue(Double.valueOf(1.0));
+        assertEquals("装箱入口同值也不算变化", first, attr.getLastChanged());
+        attr.updateValue(2.0);
+        assertTrue(attr.getLastChanged().isAfter(first));
+    }
+
+    @Test
+    public void changeDetectionMatchesDoubleEquals() {
+        // 与 Objects.equals(Double, Double) 一致：NaN 等于 NaN，0.0 与 -0.0 不等
+        attr.updateValue(Double.NaN);
+        java.time.Instant t = attr.getLastChanged();
+        clock.advanceMillis(5);
+        attr.updateValue(Double.NaN);
+        assertEquals(t, attr.getLastChanged());
+        attr.updateValue(0.0);
+        java.time.Instant zero = attr.getLastChanged();
+        clock.advanceMillis(5);
+        attr.updateValue(-0.0);
+        assertTrue(attr.getLastChanged().isAfter(zero));
+    }
+
+    @Test
+    public void nullBoxedUpdateClearsValue() {
+        attr.updateValue(3.0);
+        attr.updateValue((Double) null);
+        AttrState<Double> s = attr.getState();
+        assertFalse(s.isDoubleValued());
+        assertNull(s.getValue());
+        assertNull(s.getDisplayValue());
+        assertTrue(Double.isNaN(s.getDoubleValue()));
+        assertFalse(attr.hasValue());
+    }
+
+    @Test
+    public void displayValueMatchesNumericAttribute() {
+        NumericAttribute boxed = new NumericAttribute("so2", null, AirVolumeUnit.PPB, AirVolumeUnit.PPM, 3, true, true);
+        boxed.setDevice(mockDevice);
+        Random rnd = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            double v = (rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(8));
+            int precision = rnd.nextInt(5);
+            attr.changeDisplayPrecision(precision);
+            boxed.changeDisplayPrecision(precision);
+            attr.updateValue(v);
+            boxed.updateValue(v);
+            assertEquals(boxed.getDisplayValue(), attr.getDisplayValue());
+            assertEquals(boxed.getState().getDisplayValue(), attr.getState().getDisplayValue());
+            assertEquals(boxed.getState().getDisplayValue(AirVolumeUnit.PPB),
+                    attr.getState().getDisplayValue(AirVolumeUnit.PPB));
+        }
+    }
+
+    @Test
+    public void displayValueUsesSnapshotNotLiveAttribute() {
+        DoubleAttribute d = new DoubleAttribute("so2", null, AirVolumeUnit.PPB, AirVolumeUnit.PPB, 1, true, true);
+        d.setDevice(mockDevice);
+        d.updateValue(1234.56);
+        AttrState<Double> snap = d.getState();
+        d.changeDisplayPrecision(4);
+        d.updateValue(1.0);
+        assertEquals("1234.6", snap.getDisplayValue());
+        assertEquals("1.0000", d.getState().getDisplayValue());
+    }
+
+    @Test
+    public void primitiveUnitConversion() {
+        assertEquals(1000.0, attr.convertFromUnit(1.0, AirVolumeUnit.PPM), 1e-9);
+        assertEquals(5.0, attr.convertFromUnit(5.0, null), 0.0);
+        assertEquals(0.002, attr.convertValueToUnit(2.0, AirVolumeUnit.PPB, AirVolumeUnit.PPM), 1e-12);
+        // 装箱的用户侧入口走同一换算
+        assertEquals(Double.valueOf(2000.0), attr.convertFromUnitImp(2.0, AirVolumeUnit.PPM));
+    }
+
+    @Test
+    public void restoreFromPersistedNumber() {
+        PersistedState ps = new PersistedState();
+        ps.version = 2;
+        ps.value = new java.math.BigDecimal("42.25");
+        ps.statusCode = AttributeStatus.NORMAL.getId();
+        ps.updateTimeEpochMs = 1000L;
+        attr.setEventContext(EventContext.root(EventContext.Source.DEVICE_POLL, null));
+        attr.restore(ps);
+        AttrState<Double> s = attr.getState();
+        assertTrue(s.isDoubleValued());
+        assertEquals(42.25, s.getDoubleValue(), 0.0);
+        assertEquals(42.25, attr.getDoubleValue(), 0.0);
+        // 持久化映射仍得到 Double 值
+        assertEquals(Double.valueOf(42.25), PersistedState.from(s).value);
+    }
+
+    @Test
+    public void restoreFromDefaultUsesPrimitiveSlot() {
+        DoubleAttribute d = new DoubleAttribute("so2", null, AirVolumeUnit.PPB, AirVolumeUnit.PPB, 1, true, true,
+                true, 7.5, null);
+        d.restoreFromDefault();
+        assertTrue(d.hasValue());
+        assertEquals(7.5, d.getDoubleValue(), 0.0);
+        assertEquals("7.5", d.getDisplayValue());
+    }
+}
@@ -0,0 +1,107 @@
+package com.ecat.core.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.fastjson2.JSON;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * 持久化状态二进制编解码：各值类型与单位往返、旧 JSON 兜底读取、体积、损坏数据。
+ */
+public class PersistedStateCodecTest {
+
+    private static PersistedState state(Object value, String unit) {
+        PersistedState s = new PersistedState();
+        s.version = 2;
+        s.value = value;
+        s.statusCode = AttributeStatus.NORMAL.getId();
+        s.updateTimeEpochMs = 1710000000123L;
+        s.nativeUnitStr = unit;
+        return s;
+    }
+
+    private static PersistedState roundTrip(PersistedState s) {
+        byte[] bytes = PersistedStateCodec.encode(s);
+        assertTrue(PersistedStateCodec.isBinary(bytes));
+        PersistedState r = PersistedStateCodec.decode(bytes);
+        assertEquals(s.version, r.version);
+        assertEquals(s.statusCode, r.statusCode);
+        assertEquals(s.updateTimeEpochMs, r.updateTimeEpochMs);
+        assertEquals(s.nativeUnitStr, r.nativeUnitStr);
+        return r;
+    }
+
+    @Test
+    public void valueTypesRoundTripWithType() {
+        assertEquals(42.5, roundTrip(state(42.5, "AirMassUnit.UGM3")).value);
+        assertEquals(1.25f, roundTrip(state(1.25f, null)).value);
+        assertEquals(-7, roundTrip(state(-7, null)).value);
+        assertEquals(7, roundTrip(state((short) 7, null)).value);
+        assertEquals(Long.MIN_VALUE, roundTrip(state(Long.MIN_VALUE, null)).value);
+        assertEquals(Boolean.TRUE, roundTrip(state(true, null)).value);
+        assertEquals(Boolean.FALSE, roundTrip(state(false, null)).value);
+        assertEquals("运行中 on", roundTrip(state("运行中 on", null)).value);
+        assertNull(roundTrip(state(null, null)).value);
+        assertTrue(Double.isNaN((Double) roundTrip(state(Double.NaN, null)).value));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("k", 1);
+        Object r = roundTrip(state(map, null)).value;
+        assertEquals(1, ((Map<?, ?>) r).get("k"));
+    }
+
+    @Test
+    public void unitsAndSignedFieldsRoundTrip() {
+        roundTrip(state(1.0, "TemperatureUnit.CELSIUS"));
+        roundTrip(state(1.0, "NoConversionUnit.rpm"));
+        roundTrip(state(1.0, "FutureUnit.X"));
+        roundTrip(state(1.0, "plain"));
+
+        PersistedState s = state(1.0, null);
+        s.statusCode = AttributeStatus.OFFLINE.getId();
+        s.updateTimeEpochMs = -1L;
+        s.version = 0;
+        roundTrip(s);
+    }
+
+    @Test
+    public void legacyJsonDecodedByFallback() {
+        PersistedState s = state(25.5, "AirVolumeUnit.PPM");
+        byte[] json = JSON.toJSONString(s).getBytes(StandardCharsets.UTF_8);
+        assertFalse(PersistedStateCodec.isBinary(json));
+        PersistedState r = PersistedStateCodec.decode(json);
+        assertEquals(25.5, ((Number) r.value).doubleValue(), 0.0);
+        assertEquals("AirVolumeUnit.PPM", r.nativeUnitStr);
+        assertTrue(PersistedStateCodec.describe(json).startsWith("json "));
+    }
+
+    @Test
+    public void binaryIsMuchSmallerThanJson() {
+        PersistedState s = state(25.5, "AirMassUnit.UGM3");
+        int bin = PersistedStateCodec.encode(s).length;
+        int json = JSON.toJSONString(s).getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(bin + " vs " + json, bin * 3 < json);
+    }
+
+    @Test
+    public void corruptRecordsRejected() {
+        byte[] bytes = PersistedStateCodec.encode(state("abc", "AirMassUnit.UGM3"));
+        byte[] truncated = java.util.Arrays.copyOf(bytes, bytes.length - 2);
+        try {
+            PersistedStateCodec.decode(truncated);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        bytes[1] = 99;
+        try {
+            PersistedStateCodec.decode(bytes);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("format"));
+        }
+        assertTrue(PersistedStateCodec.describe(bytes).contains("corrupt"));
+    }
+}
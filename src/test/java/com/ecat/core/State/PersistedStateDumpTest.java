@@ -0,0 +1,62 @@
+package com.ecat.core.State;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.mapdb.DB;
+
+/**
+ * 持久化状态导出：以只读方式读出记录，不建 map、不改写状态文件。
+ */
+public class PersistedStateDumpTest {
+
+    private static final String TEST_DIR = ".ecat-data/test-state-dump/";
+
+    @After
+    public void tearDown() {
+        File[] children = new File(TEST_DIR).listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        new File(TEST_DIR).delete();
+    }
+
+    @Test
+    public void dumpReadsRecordsWithoutModifyingFile() throws Exception {
+        File dir = new File(TEST_DIR);
+        dir.mkdirs();
+        File dbFile = new File(dir, "state.db");
+        PersistedState s = new PersistedState();
+        s.version = 1;
+        s.value = 21.5;
+        s.updateTimeEpochMs = 1000L;
+        DB db = PerDeviceStateStore.openDb(dbFile);
+        PerDeviceStateStore.binMap(db).put("temp", PersistedStateCodec.encode(s));
+        db.commit();
+        db.close();
+
+        String[] filesBefore = dir.list();
+        byte[] bytesBefore = Files.readAllBytes(dbFile.toPath());
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        PersistedStateDump.dumpPath(dir, new PrintStream(buf, true, "UTF-8"));
+        String out = buf.toString("UTF-8");
+
+        assertTrue(out, out.contains("temp\tbin "));
+        assertTrue(out, out.contains("# 1 records"));
+        assertArrayEquals("导出不得改写状态文件", bytesBefore, Files.readAllBytes(dbFile.toPath()));
+        String[] filesAfter = dir.list();
+        Arrays.sort(filesBefore);
+        Arrays.sort(filesAfter);
+        assertArrayEquals("导出不得生成事务日志等新文件", filesBefore, filesAfter);
+    }
+}
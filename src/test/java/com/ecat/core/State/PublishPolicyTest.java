@@ -0,0 +1,116 @@
+package com.ecat.core.State;
+
+import com.ecat.core.Bus.event.EventContext;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * PublishPolicy 单测——默认总是发布、死区（绝对/百分比）、仅状态变化、最小间隔、心跳与 YAML 解析。
+ */
+public class PublishPolicyTest {
+
+    private static AttrState<?> state(Object value, AttributeStatus status) {
+        return AttrState.builder().deviceId("d").attrId("a").status(status)
+                .context(EventContext.root(EventContext.Source.DEVICE_POLL, null))
+                .value(value).build();
+    }
+
+    private static AttrState<?> num(double v) {
+        return AttrState.<Double>builder().deviceId("d").attrId("a").status(AttributeStatus.NORMAL)
+                .context(EventContext.root(EventContext.Source.DEVICE_POLL, null))
+                .valueType(Double.class).doubleValue(v).build();
+    }
+
+    @Test
+    public void alwaysPublishesEvenUnchanged() {
+        assertTrue(PublishPolicy.ALWAYS.shouldPublish(num(1), num(1), 1000L, 1001L));
+        assertFalse(PublishPolicy.ALWAYS.isReportByException());
+    }
+
+    @Test
+    public void onChangeSuppressesIdenticalValues() {
+        PublishPolicy p = PublishPolicy.ON_CHANGE;
+        assertTrue("首次总是发布", p.shouldPublish(null, num(1), 0L, 1000L));
+        assertFalse(p.shouldPublish(num(1), num(1), 1000L, 2000L));
+        assertTrue(p.shouldPublish(num(1), num(1.0001), 1000L, 2000L));
+        assertFalse(p.shouldPublish(state("x", AttributeStatus.NORMAL), state("x", AttributeStatus.NORMAL), 0L, 1L));
+        assertTrue(p.shouldPublish(state("x", AttributeStatus.NORMAL), state("y", AttributeStatus.NORMAL), 0L, 1L));
+    }
+
+    @Test
+    public void absoluteAndPercentDeadband() {
+        PublishPolicy abs = PublishPolicy.builder().deadband(0.5).build();
+        assertFalse(abs.shouldPublish(num(10), num(10.5), 0L, 1L));
+        assertTrue(abs.shouldPublish(num(10), num(10.51), 0L, 1L));
+        assertTrue(abs.shouldPublish(num(10), num(9.4), 0L, 1L));
+
+        PublishPolicy pct = PublishPolicy.builder().deadbandPercent(1).build();
+        assertFalse(pct.shouldPublish(num(200), num(202), 0L, 1L));
+        assertTrue(pct.shouldPublish(num(200), num(202.1), 0L, 1L));
+        assertTrue("上次值为 0 时任何变化都发布", pct.shouldPublish(num(0), num(0.001), 0L, 1L));
+
+        // 两者都配置：须同时超出
+        PublishPolicy both = PublishPolicy.builder().deadband(1).deadbandPercent(1).build();
+        assertFalse(both.shouldPublish(num(1000), num(1005), 0L, 1L));
+        assertFalse(both.shouldPublish(num(10), num(10.9), 0L, 1L));
+        assertTrue(both.shouldPublish(num(10), num(11.5), 0L, 1L));
+        // NaN 出现/消失视为变化；装箱数值同样适用死区
+        assertTrue(abs.shouldPublish(num(10), num(Double.NaN), 0L, 1L));
+        assertFalse(abs.shouldPublish(state(10, AttributeStatus.NORMAL), state(10.2, AttributeStatus.NORMAL), 0L, 1L));
+    }
+
+    @Test
+    public void statusChangeAlwaysPublishesAndStatusOnlyIgnoresValues() {
+        PublishPolicy p = PublishPolicy.builder().statusChangeOnly(true).minIntervalMs(60000).build();
+        assertFalse(p.shouldPublish(num(1), num(100), 0L, 120000L));
+        AttrState<?> alarm = AttrState.<Double>builder().deviceId("d").attrId("a").status(AttributeStatus.ALARM)
+                .context(EventContext.root(EventContext.Source.DEVICE_POLL, null)).doubleValue(1).build();
+        assertTrue("状态变化不受最小间隔限制", p.shouldPublish(num(1), alarm, 1000L, 1001L));
+    }
+
+    @Test
+    public void minIntervalAndHeartbeat() {
+        PublishPolicy p = PublishPolicy.builder().deadband(1).minIntervalMs(5000).heartbeatMs(60000).build();
+        assertFalse("间隔内抑制显著变化", p.shouldPublish(num(1), num(50), 10000L, 14999L));
+        assertTrue(p.shouldPublish(num(1), num(50), 10000L, 15000L));
+        assertFalse(p.shouldPublish(num(1), num(1.5), 10000L, 69999L));
+        assertTrue("心跳到期强制发布", p.shouldPublish(num(1), num(1), 10000L, 70000L));
+    }
+
+    @Test
+    public void fromConfigParsesYamlKeys() {
+        assertNull(PublishPolicy.fromConfig(null));
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put("deadband", 0.2);
+        cfg.put("deadband_percent", "1.5");
+        cfg.put("status_change_only", "true");
+        cfg.put("min_interval_ms", 1000);
+        cfg.put("heartbeat_ms", 300000L);
+        PublishPolicy p = PublishPolicy.fromConfig(cfg);
+        assertTrue(p.isReportByException());
+        assertEquals(0.2, p.getDeadband(), 0.0);
+        assertEquals(1.5, p.getDeadbandPercent(), 0.0);
+        assertTrue(p.isStatusChangeOnly());
+        assertEquals(1000L, p.getMinIntervalMs());
+        assertEquals(300000L, p.getHeartbeatMs());
+
+        cfg.put("mode", "always");
+        assertSame(PublishPolicy.ALWAYS, PublishPolicy.fromConfig(cfg));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromConfigRejectsNonNumbers() {
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put("deadband", "abc");
+        PublishPolicy.fromConfig(cfg);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeValuesRejected() {
+        PublishPolicy.builder().heartbeatMs(-1).build();
+    }
+}
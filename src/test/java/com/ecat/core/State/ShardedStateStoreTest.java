@@ -0,0 +1,161 @@
+package com.ecat.core.State;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.ecat.core.ConfigEntry.ConfigEntry;
+import com.ecat.core.Device.DeviceBase;
+import com.ecat.core.EcatCore;
+
+/**
+ * 分片状态存储：保存/恢复语义与每设备模式一致、删除设备只清本设备、重启可读、
+ * 遗留每设备文件与其他分片数目录的迁移。
+ */
+public class ShardedStateStoreTest {
+
+    private static final String TEST_DIR = ".ecat-data/test-sharded-states/";
+
+    @After
+    public void tearDown() {
+        deleteRecursive(new File(TEST_DIR));
+    }
+
+    private void deleteRecursive(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursive(child);
+            }
+        }
+        file.delete();
+    }
+
+    private DeviceBase device(StateManager sm, String entryId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "test-device");
+        ConfigEntry entry = new ConfigEntry.Builder()
+            .entryId(entryId).coordinate("com.test:integration-test").uniqueId("u_" + entryId).data(data).build();
+        DeviceBase device = new DeviceBase(entry) {
+            @Override public void init() {}
+            @Override public void start() {}
+            @Override public void stop() {}
+            @Override public void release() {}
+        };
+        bind(device, sm);
+        return device;
+    }
+
+    private void bind(DeviceBase device, StateManager sm) {
+        EcatCore core = new EcatCore();
+        try {
+            java.lang.reflect.Field f = EcatCore.class.getDeclaredField("stateManager");
+            f.setAccessible(true);
+            f.set(core, sm);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        device.load(core);
+    }
+
+    private NumericAttribute publish(DeviceBase device, String attrId, double v) {
+        NumericAttribute attr = (NumericAttribute) device.getAttrs().get(attrId);
+        if (attr == null) {
+            attr = new NumericAttribute(attrId, AttributeClass.TEMPERATURE, null, null, 1, false, false);
+            attr.setPersistable(true);
+            device.setAttribute(attr);
+        }
+        attr.updateValue(v, AttributeStatus.NORMAL);
+        attr.publicState();
+        return attr;
+    }
+
+    private static double value(StateManager sm, DeviceBase d, String attrId) {
+        return ((Number) sm.loadState(d, attrId).value).doubleValue();
+    }
+
+    @Test
+    public void saveLoadRemoveAndReopen() {
+        StateManager sm = new StateManager(TEST_DIR, null, 4);
+        DeviceBase d1 = device(sm, "d1");
+        DeviceBase d2 = device(sm, "d2");
+        publish(d1, "temp", 21.5);
+        publish(d1, "hum", 40.0);
+        publish(d2, "temp", 30.0);
+        sm.commitAll();
+
+        assertEquals(21.5, value(sm, d1, "temp"), 0.001);
+        assertEquals(30.0, value(sm, d2, "temp"), 0.001);
+        assertNull(sm.loadState(d2, "hum"));
+        assertFalse("不再按设备建文件", new File(TEST_DIR + "com.test").exists());
+        assertEquals(4, new File(TEST_DIR + ShardedStateStore.SHARD_DIR_PREFIX + 4)
+            .listFiles((dir, n) -> n.endsWith(".db")).length);
+
+        sm.removeDevice(d1);
+        assertNull(sm.loadState(d1, "temp"));
+        assertNull(sm.loadState(d1, "hum"));
+        assertEquals("只删除本设备", 30.0, value(sm, d2, "temp"), 0.001);
+        sm.shutdown();
+
+        StateManager reopened = new StateManager(TEST_DIR, null, 4);
+        try {
+            assertEquals(30.0, value(reopened, d2, "temp"), 0.001);
+            assertNull(reopened.loadState(d1, "temp"));
+
+            NumericAttribute restored = new NumericAttribute("temp", AttributeClass.TEMPERATURE, null, null, 1, false, false);
+            bind(d2, reopened);
+            d2.setAttribute(restored);
+            reopened.restoreAttributeState(d2, restored);
+            assertEquals(30.0, restored.getValue(), 0.001);
+        } finally {
+            reopened.shutdown();
+        }
+    }
+
+    @Test
+    public void migratesPerDeviceFilesOnFirstStart() {
+        StateManager legacy = new StateManager(TEST_DIR, null);
+        DeviceBase d1 = device(legacy, "d1");
+        DeviceBase d2 = device(legacy, "d2");
+        publish(d1, "temp", 11.0);
+        publish(d2, "temp", 22.0);
+        legacy.shutdown();
+        File legacyDir = new File(TEST_DIR + "com.test/integration-test");
+        assertTrue(new File(legacyDir, d1.getId() + ".db").exists());
+
+        StateManager sharded = new StateManager(TEST_DIR, null, 4);
+        try {
+            assertEquals(11.0, value(sharded, d1, "temp"), 0.001);
+            assertEquals(22.0, value(sharded, d2, "temp"), 0.001);
+            assertFalse("迁移后删除每设备文件", new File(legacyDir, d1.getId() + ".db").exists());
+            assertFalse("空目录一并清理", new File(TEST_DIR + "com.test").exists());
+        } finally {
+            sharded.shutdown();
+        }
+    }
+
+    @Test
+    public void reshardsWhenShardCountChanges() {
+        StateManager four = new StateManager(TEST_DIR, null, 4);
+        DeviceBase[] devices = new DeviceBase[10];
+        for (int i = 0; i < devices.length; i++) {
+            devices[i] = device(four, "d" + i);
+            publish(devices[i], "temp", i);
+        }
+        four.shutdown();
+
+        StateManager eight = new StateManager(TEST_DIR, null, 8);
+        try {
+            for (int i = 0; i < devices.length; i++) {
+                assertEquals(i, value(eight, devices[i], "temp"), 0.001);
+            }
+            assertFalse(new File(TEST_DIR + ShardedStateStore.SHARD_DIR_PREFIX + 4).exists());
+        } finally {
+            eight.shutdown();
+        }
+    }
+}
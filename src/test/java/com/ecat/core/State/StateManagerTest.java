@@ -27,6 +27,7 @@ import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
+import com.alibaba.fastjson2.JSON;
 import com.ecat.core.ConfigEntry.ConfigEntry;
 import com.ecat.core.Device.DeviceBase;
 import com.ecat.core.EcatCore;
@@ -171,6 +172,37 @@ public class StateManagerTest {
         assertNull("Should return null for nonexistent attr", loaded);
     }
 
+    @Test
+    public void testLoadState_legacyJsonDb() {
+        DeviceBase device = createTestDevice("device-legacy", "com.test:integration-test");
+        File dbFile = new File(TEST_DIR + "com.test/integration-test/" + device.getId() + ".db");
+        dbFile.getParentFile().mkdirs();
+        PersistedState old = new PersistedState();
+        old.version = 2;
+        old.value = 12.5;
+        old.statusCode = AttributeStatus.NORMAL.getId();
+        old.updateTimeEpochMs = 1710000000000L;
+        old.nativeUnitStr = "AirMassUnit.UGM3";
+        org.mapdb.DB db = PerDeviceStateStore.openDb(dbFile);
+        PerDeviceStateStore.statesMap(db).put("pm25", JSON.toJSONString(old));
+        db.commit();
+        db.close();
+
+        PersistedState loaded = stateManager.loadState(device, "pm25");
+        assertNotNull("旧库 JSON 记录应可读", loaded);
+        assertEquals(12.5, ((Number) loaded.value).doubleValue(), 0.001);
+        assertEquals("AirMassUnit.UGM3", loaded.nativeUnitStr);
+
+        // 新写入以二进制为准
+        NumericAttribute attr = new NumericAttribute("pm25",
+            AttributeClass.TEMPERATURE, null, null, 1, false, false);
+        attr.setPersistable(true);
+        device.setAttribute(attr);
+        attr.updateValue(30.0, AttributeStatus.NORMAL);
+        attr.publicState();
+        assertEquals(30.0, ((Number) stateManager.loadState(device, "pm25").value).doubleValue(), 0.001);
+    }
+
     // ========== restoreAttributeState 恢复测试 ==========
 
     @Test
@@ -304,6 +336,117 @@ public class StateManagerTest {
         assertEquals(99.9, ((Number) loaded.value).doubleValue(), 0.001);
     }
 
+    // ========== 写回模式测试 ==========
+
+    /** 换成写回模式的 StateManager；scheduler 为不执行任务的 mock，写出只由测试显式触发。 */
+    private void useWriteBehind() {
+        stateManager.shutdown();
+        stateManager = new StateManager(TEST_DIR, org.mockito.Mockito.mock(ScheduledExecutorService.class), 0, true);
+    }
+
+    private NumericAttribute persistable(DeviceBase device, String attrId) {
+        NumericAttribute attr = new NumericAttribute(attrId,
+            AttributeClass.TEMPERATURE, null, null, 1, false, false);
+        attr.setPersistable(true);
+        device.setAttribute(attr);
+        return attr;
+    }
+
+    private PersistedState reopenAndLoad(DeviceBase device, String attrId) {
+        stateManager.shutdown();
+        stateManager = new StateManager(TEST_DIR, null);
+        return stateManager.loadState(device, attrId);
+    }
+
+    @Test
+    public void testWriteBehind_coalescesUntilCommit() {
+        useWriteBehind();
+        DeviceBase device = createTestDevice("device-wb", "com.test:integration-test");
+        NumericAttribute attr = persistable(device, "temp");
+        for (int i = 1; i <= 5; i++) {
+            attr.updateValue((double) i, AttributeStatus.NORMAL);
+            attr.publicState();
+        }
+        assertEquals("同一属性只保留最后一次保存", 1, stateManager.pendingCount());
+        assertEquals("未写出时读到缓冲中的最新值", 5.0,
+            ((Number) stateManager.loadState(device, "temp").value).doubleValue(), 0.001);
+        assertFalse("写出前不建库",
+            new File(TEST_DIR + "com.test/integration-test/" + device.getId() + ".db").exists());
+
+        stateManager.commitAll();
+        assertEquals(0, stateManager.pendingCount());
+        assertEquals(5.0, ((Number) reopenAndLoad(device, "temp").value).doubleValue(), 0.001);
+    }
+
+    @Test
+    public void testWriteBehind_shutdownFlushes() {
+        useWriteBehind();
+        DeviceBase device = createTestDevice("device-wb-stop", "com.test:integration-test");
+        NumericAttribute attr = persistable(device, "temp");
+        attr.updateValue(42.0, AttributeStatus.NORMAL);
+        attr.publicState();
+
+        PersistedState loaded = reopenAndLoad(device, "temp");
+        assertNotNull(loaded);
+        assertEquals(42.0, ((Number) loaded.value).doubleValue(), 0.001);
+    }
+
+    @Test
+    public void testWriteBehind_removeDeviceDropsPending() {
+        useWriteBehind();
+        DeviceBase device = createTestDevice("device-wb-rm", "com.test:integration-test");
+        NumericAttribute attr = persistable(device, "temp");
+        attr.updateValue(1.0, AttributeStatus.NORMAL);
+        attr.publicState();
+
+        stateManager.removeDevice(device);
+        stateManager.commitAll();
+        assertEquals(0, stateManager.pendingCount());
+        assertFalse(new File(TEST_DIR + "com.test/integration-test/" + device.getId() + ".db").exists());
+        assertNull(stateManager.loadState(device, "temp"));
+    }
+
+    @Test
+    public void testWriteBehind_saveAfterRemoveIsDropped() {
+        useWriteBehind();
+        DeviceBase device = createTestDevice("device-wb-late", "com.test:integration-test");
+        NumericAttribute attr = persistable(device, "temp");
+        attr.updateValue(1.0, AttributeStatus.NORMAL);
+        attr.publicState();
+
+        stateManager.removeDevice(device);
+        assertFalse("删除后不留空的设备项", stateManager.hasPendingDevice(device.getId()));
+        // 与删除并发、晚到的保存
+        stateManager.saveState(device, attr);
+        assertEquals(1, stateManager.pendingCount());
+        stateManager.commitAll();
+        assertEquals(0, stateManager.pendingCount());
+        assertFalse(stateManager.hasPendingDevice(device.getId()));
+        assertFalse("晚到的保存不得重建已删除设备的库文件",
+            new File(TEST_DIR + "com.test/integration-test/" + device.getId() + ".db").exists());
+    }
+
+    @Test
+    public void testWriteBehind_closeDeviceFlushesOnlyThatDevice() {
+        useWriteBehind();
+        DeviceBase closing = createTestDevice("device-wb-close", "com.test:integration-test");
+        DeviceBase other = createTestDevice("device-wb-other", "com.test:integration-test");
+        NumericAttribute a = persistable(closing, "temp");
+        NumericAttribute b = persistable(other, "temp");
+        a.updateValue(1.0, AttributeStatus.NORMAL);
+        a.publicState();
+        b.updateValue(2.0, AttributeStatus.NORMAL);
+        b.publicState();
+
+        stateManager.closeDevice(closing.getId());
+        assertFalse(stateManager.hasPendingDevice(closing.getId()));
+        assertTrue("其它设备的缓冲不随之写出", stateManager.hasPendingDevice(other.getId()));
+        assertEquals(1, stateManager.pendingCount());
+
+        stateManager.commitAll();
+        assertFalse("写空后移除设备项", stateManager.hasPendingDevice(other.getId()));
+    }
+
     // ========== 无持久化模式测试 ==========
 
     @Test
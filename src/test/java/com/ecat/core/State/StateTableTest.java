@@ -0,0 +1,232 @@
+package com.ecat.core.State;
+
+import com.ecat.core.Bus.BusRegistry;
+import com.ecat.core.Bus.BusTopic;
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.DeviceLifecycleEvent;
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.ConfigEntry.ConfigEntry;
+import com.ecat.core.Device.DeviceBase;
+import com.ecat.core.Device.DeviceBaseIdentityTest;
+import com.ecat.core.EcatCore;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 全站状态表：版本与读写、增量与墓碑、全量回退、并发写入下快照的时间点一致性、设备生命周期删除、属性发布写入。
+ */
+public class StateTableTest {
+
+    private static AttrState<Integer> state(String dev, String attr, int v) {
+        return AttrState.<Integer>builder()
+                .deviceId(dev).attrId(attr).value(v).status(AttributeStatus.NORMAL)
+                .context(EventContext.root(EventContext.Source.DEVICE_POLL, null))
+                .build();
+    }
+
+    private static Map<String, StateTable.Entry> byKey(StateTable.Snapshot s) {
+        Map<String, StateTable.Entry> m = new HashMap<>();
+        for (StateTable.Entry e : s.getEntries()) {
+            m.put(e.getDeviceId() + "/" + e.getAttrId(), e);
+        }
+        return m;
+    }
+
+    @Test
+    public void putGetAndVersions() {
+        StateTable t = new StateTable();
+        assertEquals(0, t.getVersion());
+        t.put("d1", "so2", state("d1", "so2", 1));
+        t.put("d1", "no2", state("d1", "no2", 2));
+        t.put("d1", "so2", state("d1", "so2", 3));
+        assertEquals(3, t.getVersion());
+        assertEquals(3, t.get("d1", "so2").getValue());
+        assertNull(t.get("d2", "so2"));
+
+        StateTable.Snapshot s = t.snapshot();
+        assertTrue(s.isFull());
+        assertEquals(3, s.getVersion());
+        assertEquals(2, s.getEntries().size());
+        assertEquals(3, byKey(s).get("d1/so2").getVersion());
+    }
+
+    @Test
+    public void overwriteWithoutActiveSnapshotKeepsNoPredecessor() {
+        StateTable t = new StateTable();
+        t.put("d1", "so2", state("d1", "so2", 1));
+        t.put("d1", "so2", state("d1", "so2", 2));
+        StateTable.Entry head = byKey(t.snapshot()).get("d1/so2");
+        assertEquals(2, head.getVersion());
+        assertNull("无进行中快照时不保留被覆盖的前驱", head.asOf(head.getVersion() - 1));
+    }
+
+    @Test
+    public void deltasCarryChangesAndRemovals() {
+        StateTable t = new StateTable();
+        t.put("d1", "a", state("d1", "a", 1));
+        t.put("d1", "b", state("d1", "b", 1));
+        long v = t.snapshot().getVersion();
+
+        t.put("d1", "a", state("d1", "a", 2));
+        assertTrue(t.remove("d1", "b"));
+        assertFalse("重复删除不产生版本", t.remove("d1", "b"));
+        t.put("d2", "c", state("d2", "c", 1));
+
+        StateTable.Snapshot delta = t.changesSince(v);
+        assertFalse(delta.isFull());
+        assertEquals(v, delta.getSinceVersion());
+        Map<String, StateTable.Entry> m = byKey(delta);
+        assertEquals(3, m.size());
+        assertEquals(2, m.get("d1/a").getState().getValue());
+        assertTrue(m.get("d1/b").isRemoved());
+        assertNotNull(m.get("d2/c"));
+
+        assertTrue("已同步到最新无变化", t.changesSince(delta.getVersion()).getEntries().isEmpty());
+        assertTrue("since 超前（如重启）回退全量", t.changesSince(delta.getVersion() + 10).isFull());
+        assertEquals("全量不含墓碑", 2, t.snapshot().getEntries().size());
+    }
+
+    @Test
+    public void purgedTombstonesForceFullResync() {
+        StateTable t = new StateTable();
+        t.put("d", "keep", state("d", "keep", 0));
+        long v = t.getVersion();
+        for (int i = 0; i <= StateTable.MAX_TOMBSTONES; i++) {
+            t.put("d", "x" + i, state("d", "x" + i, i));
+            t.remove("d", "x" + i);
+        }
+        assertEquals("墓碑已清理", 1, t.size());
+        StateTable.Snapshot s = t.changesSince(v);
+        assertTrue("墓碑已清理的区间只能全量", s.isFull());
+        assertEquals(1, s.getEntries().size());
+    }
+
+    @Test
+    public void snapshotsArePointInTimeUnderConcurrentWrites() throws Exception {
+        StateTable t = new StateTable();
+        AtomicBoolean stop = new AtomicBoolean();
+        // 每轮先写 a 再写 b：任一时间点 a 只可能等于 b 或比 b 大 1
+        Thread writer = new Thread(() -> {
+            for (int i = 0; !stop.get(); i++) {
+                t.put("d", "a", state("d", "a", i));
+                t.put("d", "b", state("d", "b", i));
+            }
+        });
+        writer.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+            int checked = 0;
+            while (System.nanoTime() < deadline) {
+                Map<String, StateTable.Entry> m = byKey(t.snapshot());
+                StateTable.Entry a = m.get("d/a");
+                StateTable.Entry b = m.get("d/b");
+                if (a == null || b == null) {
+                    continue;
+                }
+                int av = (Integer) a.getState().getValue();
+                int bv = (Integer) b.getState().getValue();
+                assertTrue("a=" + av + " b=" + bv, av == bv || av == bv + 1);
+                checked++;
+            }
+            assertTrue(checked > 0);
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void deviceRemovalOnLifecycleEvent() throws Exception {
+        StateTable t = new StateTable();
+        BusRegistry bus = new BusRegistry();
+        t.attach(bus);
+        t.put("d1", "a", state("d1", "a", 1));
+        t.put("d1", "b", state("d1", "b", 1));
+        t.put("d2", "a", state("d2", "a", 1));
+
+        bus.publish(BusEvent.of(BusTopic.DEVICE_LIFECYCLE.getTopicName(),
+                new DeviceLifecycleEvent("d1", "com.ecat:t", "sn", null, DeviceLifecycleEvent.Action.REMOVE),
+                EventContext.root(EventContext.Source.SYSTEM, null)));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (t.get("d1", "a") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(t.get("d1", "a"));
+        assertNull(t.get("d1", "b"));
+        assertNotNull(t.get("d2", "a"));
+        assertEquals(0, t.removeDevice("d1"));
+    }
+
+    @Test
+    public void preemptedWriterDoesNotStallWatermarkAcrossRingWrap() throws Exception {
+        StateTable t = new StateTable();
+        CountDownLatch assigned = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread slow = new Thread(() -> t.put("d1", "slow", state("d1", "slow", 0)));
+        t.beforePublish = v -> {
+            if (Thread.currentThread() == slow) {
+                assigned.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        slow.start();
+        assertTrue(assigned.await(5, TimeUnit.SECONDS));
+
+        int writes = StateTable.RING_SIZE + 100;
+        Thread fast = new Thread(() -> {
+            for (int i = 0; i < writes; i++) {
+                t.put("d1", "fast", state("d1", "fast", i));
+            }
+        });
+        fast.start();
+        fast.join(300);
+        assertTrue("满一圈后等待被抢占的写入方发布", fast.isAlive());
+        assertEquals(0, t.getVersion());
+
+        release.countDown();
+        slow.join(5000);
+        fast.join(10000);
+        assertFalse(fast.isAlive());
+        assertEquals(writes + 1, t.getVersion());
+        StateTable.Snapshot s = t.snapshot();
+        assertEquals(writes + 1, s.getVersion());
+        assertEquals(writes - 1, t.get("d1", "fast").getValue());
+        assertEquals(0, t.get("d1", "slow").getValue());
+        assertEquals(2, s.getEntries().size());
+    }
+
+    @Test
+    public void publishedStatesLandInTable() {
+        StateTable t = new StateTable();
+        EcatCore core = mock(EcatCore.class);
+        when(core.getBusRegistry()).thenReturn(new BusRegistry());
+        when(core.getStateTable()).thenReturn(t);
+        ConfigEntry e = new ConfigEntry.Builder()
+                .entryId("ent-t").coordinate("com.ecat:t").uniqueId("sn-t").data(new HashMap<>()).build();
+        DeviceBase d = new DeviceBaseIdentityTest.StubDevice(e);
+        d.load(core);
+        NumericAttribute a = new NumericAttribute("so2", null, null, null, 1, false, false);
+        d.setAttribute(a);
+
+        a.updateValue(1.5, AttributeStatus.NORMAL);
+        assertNull("未提交不入表", t.get(d.getId(), "so2"));
+        assertTrue(a.publicState());
+        assertEquals(1.5, t.get(d.getId(), "so2").getValue());
+
+        d.removeAttribute("so2");
+        assertNull(t.get(d.getId(), "so2"));
+    }
+}
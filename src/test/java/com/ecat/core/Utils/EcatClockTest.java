@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.BusPayload;
+import com.ecat.core.Bus.event.EventContext;
+
+/**
+ * EcatClock 单测——缓存时钟在分辨率窗口内返回同一实例并随刷新推进、手动时钟注入与恢复、
+ * 注入后事件 firedAt 取共享时钟。
+ */
+public class EcatClockTest {
+
+    @After
+    public void tearDown() {
+        EcatClock.reset();
+    }
+
+    @Test
+    public void tickingClockCachesAndAdvances() throws Exception {
+        try (EcatClock.TickingClock clock = EcatClock.ticking(5)) {
+            Instant a = clock.instant();
+            assertSame("两次连续读取应为同一缓存实例", a, clock.instant());
+            assertEquals(a.toEpochMilli(), clock.millis());
+            assertTrue(Math.abs(System.currentTimeMillis() - a.toEpochMilli()) < 1000);
+
+            long deadline = System.currentTimeMillis() + 2000;
+            while (clock.millis() == a.toEpochMilli() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue("刷新线程应推进缓存时刻", clock.millis() > a.toEpochMilli());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tickingRejectsNonPositiveResolution() {
+        EcatClock.ticking(0);
+    }
+
+    @Test
+    public void manualClockInjectedAndReset() {
+        EcatClock original = EcatClock.getDefault();
+        EcatClock.ManualClock manual = new EcatClock.ManualClock(Instant.ofEpochMilli(1000));
+        assertSame(original, EcatClock.setDefault(manual));
+
+        assertEquals(1000, EcatClock.currentTimeMillis());
+        assertEquals(Instant.ofEpochMilli(1000), EcatClock.now());
+        manual.advanceMillis(250);
+        assertEquals(1250, EcatClock.currentTimeMillis());
+        manual.advance(Duration.ofSeconds(1));
+        assertEquals(Instant.ofEpochMilli(2250), EcatClock.now());
+        manual.set(Instant.ofEpochMilli(10));
+        assertEquals(10, EcatClock.currentTimeMillis());
+
+        EcatClock.reset();
+        assertSame(original, EcatClock.getDefault());
+    }
+
+    @Test
+    public void systemClockIsUncached() {
+        EcatClock system = EcatClock.system();
+        long before = System.currentTimeMillis();
+        long now = system.millis();
+        assertTrue(now >= before && now <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void busEventFiredAtUsesSharedClock() {
+        EcatClock.setDefault(new EcatClock.ManualClock(Instant.ofEpochMilli(42_000)));
+        BusEvent<BusPayload> e = BusEvent.of("test.topic", new BusPayload() { },
+                EventContext.root(EventContext.Source.SYSTEM, null));
+        assertEquals(Instant.ofEpochMilli(42_000), e.getFiredAt());
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecat.core.Utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 哈希时间轮：按 tick 到期、取消与改排、超过一圈的定时器、回调返回值重排、跨多圈追赶。
+ */
+public class HashedTimingWheelTest {
+
+    private EcatClock.ManualClock clock;
+    private HashedTimingWheel wheel;
+    private final List<String> fired = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        clock = new EcatClock.ManualClock(1_000_000L);
+        EcatClock.setDefault(clock);
+        wheel = HashedTimingWheel.manual(100, 8);
+    }
+
+    @After
+    public void tearDown() {
+        wheel.close();
+        EcatClock.reset();
+    }
+
+    private HashedTimingWheel.Timer timer(String name) {
+        return new HashedTimingWheel.Timer() {
+            @Override
+            protected long expire(long nowMs) {
+                fired.add(name);
+                return 0;
+            }
+        };
+    }
+
+    private void advance(long ms) {
+        clock.advanceMillis(ms);
+        wheel.advanceTo(clock.currentTimeMillis());
+    }
+
+    @Test
+    public void firesAtDeadlineTick() {
+        HashedTimingWheel.Timer a = timer("a");
+        HashedTimingWheel.Timer b = timer("b");
+        wheel.schedule(a, clock.currentTimeMillis() + 250);
+        wheel.schedule(b, clock.currentTimeMillis() + 500);
+        assertEquals(2, wheel.size());
+        assertTrue(a.isArmed());
+
+        advance(199);
+        assertTrue(fired.isEmpty());
+        advance(100);
+        assertEquals("到期精度为 tick", Arrays.asList("a"), fired);
+        assertFalse(a.isArmed());
+        advance(200);
+        assertEquals(Arrays.asList("a"), fired);
+        advance(1);
+        assertEquals(Arrays.asList("a", "b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cancelAndReschedule() {
+        HashedTimingWheel.Timer a = timer("a");
+        HashedTimingWheel.Timer b = timer("b");
+        wheel.schedule(a, clock.currentTimeMillis() + 100);
+        wheel.schedule(b, clock.currentTimeMillis() + 100);
+        assertTrue(a.cancel());
+        assertFalse("重复取消", wheel.cancel(a));
+        wheel.schedule(b, clock.currentTimeMillis() + 300);
+        assertEquals("改排不重复登记", 1, wheel.size());
+
+        advance(200);
+        assertTrue(fired.isEmpty());
+        advance(100);
+        assertEquals(Arrays.asList("b"), fired);
+    }
+
+    @Test
+    public void timersBeyondOneRoundWaitForTheirRound() {
+        // 8 槽 × 100ms = 一圈 800ms
+        HashedTimingWheel.Timer near = timer("near");
+        HashedTimingWheel.Timer far = timer("far");
+        wheel.schedule(near, clock.currentTimeMillis() + 200);
+        wheel.schedule(far, clock.currentTimeMillis() + 1000);
+        advance(200);
+        assertEquals(Arrays.asList("near"), fired);
+        for (int i = 0; i < 7; i++) {
+            advance(100);
+        }
+        assertEquals("同槽下一圈的定时器不提前到期", Arrays.asList("near"), fired);
+        advance(100);
+        assertEquals(Arrays.asList("near", "far"), fired);
+    }
+
+    @Test
+    public void expireReturnValueReschedules() {
+        int[] count = {0};
+        HashedTimingWheel.Timer t = new HashedTimingWheel.Timer() {
+            @Override
+            protected long expire(long nowMs) {
+                return ++count[0] < 3 ? nowMs + 100 : 0;
+            }
+        };
+        wheel.schedule(t, clock.currentTimeMillis() + 100);
+        for (int i = 0; i < 5; i++) {
+            advance(100);
+        }
+        assertEquals(3, count[0]);
+        assertFalse(t.isArmed());
+    }
+
+    @Test
+    public void catchesUpAfterLongPause() {
+        for (int i = 1; i <= 20; i++) {
+            wheel.schedule(timer("t" + i), clock.currentTimeMillis() + i * 100L);
+        }
+        wheel.schedule(timer("late"), clock.currentTimeMillis() + 10_000);
+        clock.advanceMillis(5_000);
+        assertEquals("跨越多圈一次取出全部到期", 20, wheel.advanceTo(clock.currentTimeMillis()));
+        assertEquals(1, wheel.size());
+        advance(5_000);
+        assertEquals(21, fired.size());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026 ECAT Team
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ecat.core.Utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+import com.ecat.core.Bus.event.BusEvent;
+import com.ecat.core.Bus.event.BusPayload;
+import com.ecat.core.Bus.event.EventContext;
+import com.ecat.core.Utils.Mdc.TraceContext;
+
+/**
+ * IdGenerator 单测——单调递增、并发唯一、定宽有序字符串、字段提取，以及事件信封的字符串兼容。
+ */
+public class IdGeneratorTest {
+
+    @Test
+    public void idsAreStrictlyIncreasing() {
+        IdGenerator gen = new IdGenerator(7);
+        long prev = gen.nextId();
+        for (int i = 0; i < 100000; i++) {
+            long id = gen.nextId();
+            assertTrue(id > prev);
+            prev = id;
+        }
+    }
+
+    @Test
+    public void concurrentIdsAreUnique() throws InterruptedException {
+        final IdGenerator gen = new IdGenerator(1);
+        final int threads = 8;
+        final int perThread = 20000;
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(gen.nextId());
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    public void formatIsFixedWidthAndOrdered() {
+        IdGenerator gen = new IdGenerator(0);
+        String a = IdGenerator.format(gen.nextId());
+        String b = IdGenerator.format(gen.nextId());
+        assertEquals(16, a.length());
+        assertTrue(a.matches("[0-9a-f]{16}"));
+        assertTrue(a.compareTo(b) < 0);
+        assertEquals("000000000000000f", IdGenerator.format(15L));
+    }
+
+    @Test
+    public void extractsNodeAndTimestamp() {
+        long before = System.currentTimeMillis();
+        long id = new IdGenerator(1023).nextId();
+        long after = System.currentTimeMillis();
+
+        assertEquals(1023, IdGenerator.nodeOf(id));
+        long ts = IdGenerator.timestampOf(id);
+        assertTrue(ts >= before && ts <= after + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOutOfRangeNode() {
+        new IdGenerator(1024);
+    }
+
+    @Test
+    public void invalidConfiguredNodeFallsBackToRandom() {
+        assertEquals(5, IdGenerator.resolveNodeId("5"));
+        assertEquals(1023, IdGenerator.resolveNodeId(" 1023 "));
+        for (String bad : new String[] {"1024", "-1", "abc", ""}) {
+            int node = IdGenerator.resolveNodeId(bad);
+            assertTrue(bad + " -> " + node, node >= 0 && node <= 1023);
+        }
+    }
+
+    @Test
+    public void busEventKeepsStringUuidCompatibility() {
+        BusPayload payload = new BusPayload() { };
+        EventContext ctx = EventContext.root(EventContext.Source.SYSTEM, null);
+
+        BusEvent<BusPayload> generated = BusEvent.of("notification", payload, ctx);
+        assertEquals(IdGenerator.format(generated.getId()), generated.getUuid());
+        assertSame(generated.getUuid(), generated.getUuid());
+
+        BusEvent<BusPayload> explicit = new BusEvent<>("notification", payload, null, "legacy-uuid", ctx);
+        assertEquals("legacy-uuid", explicit.getUuid());
+        assertEquals(0L, explicit.getId());
+
+        EventContext child = EventContext.chain(ctx, EventContext.Source.LOGIC_REPUBLISH, null);
+        assertEquals(ctx.getUuid(), child.getParentUuid());
+        assertTrue(child.getId() > ctx.getId());
+    }
+
+    @Test
+    public void traceIdsAreShortAndDistinct() {
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            String traceId = TraceContext.generateTraceId();
+            assertTrue(traceId.matches("[0-9a-f]{8}"));
+            seen.add(traceId);
+        }
+        assertEquals(1000, seen.size());
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecat.core.Utils;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * NumberFormatter 差分单测——快路径与 BigDecimal 精确路径的差分比对（随机语料 + 修约中点 + 边界值），
+ * 以及非 ASCII 数字符号 locale 下的回退。
+ */
+public class NumberFormatterDifferentialTest {
+
+    private static void assertSame(Number value, int precision) {
+        String expected;
+        try {
+            expected = NumberFormatter.formatExact(value, precision);
+        } catch (NumberFormatException e) {
+            try {
+                NumberFormatter.formatValue(value, precision);
+                fail("精确路径抛异常时快路径也应抛: " + value);
+            } catch (NumberFormatException ok) {
+                return;
+            }
+            return;
+        }
+        String label = value.getClass().getSimpleName() + " " + value + " @" + precision;
+        assertEquals(label, expected, NumberFormatter.formatValue(value, precision));
+        assertEquals(label, expected,
+                NumberFormatter.appendValue(new StringBuilder("x"), value, precision).substring(1));
+        if (value instanceof Double) {
+            assertEquals(label, expected, NumberFormatter.formatDouble(value.doubleValue(), precision));
+        }
+        assertEquals(label, Double.doubleToLongBits(NumberFormatter.roundExact(value, precision)),
+                Double.doubleToLongBits(NumberFormatter.roundToDouble(value, precision)));
+    }
+
+    @Test
+    public void randomDoublesMatchExactPath() {
+        Random rnd = new Random(20260101L);
+        for (int i = 0; i < 150000; i++) {
+            double magnitude = Math.pow(10, rnd.nextInt(24) - 8);
+            double v = rnd.nextDouble() * magnitude;
+            if (rnd.nextBoolean()) {
+                v = -v;
+            }
+            assertSame(v, rnd.nextInt(10));
+        }
+    }
+
+    @Test
+    public void randomBitPatternsMatchExactPath() {
+        Random rnd = new Random(99);
+        for (int i = 0; i < 100000; i++) {
+            double v = Double.longBitsToDouble(rnd.nextLong());
+            if (Math.abs(v) > 1e30 || (v != 0 && Math.abs(v) < 1e-30)) {
+                continue; // 精确路径本身对超大/超小值极慢且与显示无关
+            }
+            assertSame(v, rnd.nextInt(17));
+        }
+    }
+
+    @Test
+    public void decimalTiesUseBankersRounding() {
+        // toString 十进制串恰为修约中点：二进制近似值落在中点两侧，快路径必须退回精确路径
+        Random rnd = new Random(5);
+        for (int i = 0; i < 40000; i++) {
+            int precision = rnd.nextInt(6);
+            long digits = rnd.nextInt(2_000_000);
+            double v = Double.parseDouble(digits + "5E-" + (precision + 1));
+            assertSame(v, precision);
+            assertSame(-v, precision);
+        }
+        assertEquals("2.34", NumberFormatter.formatValue(2.345, 2));
+        assertEquals("2.36", NumberFormatter.formatValue(2.355, 2));
+        assertEquals("0", NumberFormatter.formatValue(0.5, 0));
+        assertEquals("2", NumberFormatter.formatValue(1.5, 0));
+        assertEquals("2", NumberFormatter.formatValue(2.5, 0));
+        assertEquals(2.34, NumberFormatter.roundToDouble(2.345, 2), 0);
+    }
+
+    @Test
+    public void integralAndFloatTypesMatchExactPath() {
+        Random rnd = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            int precision = rnd.nextInt(8);
+            assertSame(rnd.nextInt(), precision);
+            assertSame(rnd.nextLong(), precision);
+            assertSame((short) rnd.nextInt(), precision);
+            assertSame((byte) rnd.nextInt(), precision);
+            assertSame((rnd.nextFloat() - 0.5f) * (float) Math.pow(10, rnd.nextInt(12) - 4), precision);
+        }
+        assertSame(Long.MIN_VALUE, 2);
+        assertSame(Long.MAX_VALUE, 50);
+    }
+
+    @Test
+    public void edgeValuesMatchExactPath() {
+        double[] values = {0.0, -0.0, -0.001, -0.004999, 0.005, 1e-7, -1e-7, 9.995, 99.995, 1e15, 4.5e15, 1e16,
+                1e20, -1e20, 123456789.123456789, Double.MIN_VALUE, Double.NaN,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (double v : values) {
+            for (int p = 0; p <= 20; p++) {
+                assertSame(v, p);
+            }
+        }
+        assertEquals("0.00", NumberFormatter.formatValue(-0.001, 2));
+        assertEquals("-0.01", NumberFormatter.formatValue(-0.006, 2));
+    }
+
+    @Test
+    public void nonAsciiLocaleFallsBackToDecimalFormat() {
+        Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+            assertEquals(NumberFormatter.formatExact(1234.5678, 2), NumberFormatter.formatValue(1234.5678, 2));
+            assertEquals("1234,57", NumberFormatter.formatValue(1234.5678, 2));
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+        assertEquals("1234.57", NumberFormatter.formatValue(1234.5678, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativePrecisionThrows() {
+        NumberFormatter.formatValue(1.0, -1);
+    }
+}